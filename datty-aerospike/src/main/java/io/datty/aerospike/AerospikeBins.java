@@ -13,10 +13,14 @@
  */
 package io.datty.aerospike;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
 
 import com.aerospike.client.Bin;
+import com.aerospike.client.Operation;
+import com.aerospike.client.query.IndexType;
 
 import io.datty.aerospike.support.AerospikeValueUtil;
 import io.datty.api.DattyValue;
@@ -25,6 +29,9 @@ import io.netty.buffer.ByteBuf;
 /**
  * AerospikeBins
  * 
+ * Bins reference values of the operation without copy, values must stay readable until the command is sent.
+ * Values of index bins are written as string or integer particles, the way AerospikeValueUtil reads them back.
+ * 
  * @author Alex Shvid
  *
  */
@@ -41,6 +48,30 @@ public final class AerospikeBins {
 	}
 	
 	public AerospikeBins(Map<String, DattyValue> values) {
+		this(values, false);
+	}
+	
+	/**
+	 * Creates bins from the values
+	 * 
+	 * @param values - values of the record
+	 * @param deleteNullBins - null values become Bin.asNull deletes, otherwise they are skipped
+	 */
+	
+	public AerospikeBins(Map<String, DattyValue> values, boolean deleteNullBins) {
+		this(values, deleteNullBins, Collections.<String, IndexType>emptyMap());
+	}
+	
+	/**
+	 * Creates bins from the values
+	 * 
+	 * @param values - values of the record
+	 * @param deleteNullBins - null values become Bin.asNull deletes, otherwise they are skipped
+	 * @param indexBins - bins written as UTF-8 string or decimal integer
+	 * @throws IllegalArgumentException if value of the numeric index bin is not a decimal number
+	 */
+	
+	public AerospikeBins(Map<String, DattyValue> values, boolean deleteNullBins, Map<String, IndexType> indexBins) {
 		
 		Bin[] localBins = new Bin[values.size()];
 		long localBytes = 0l;
@@ -51,7 +82,29 @@ public final class AerospikeBins {
 			String binName = entry.getKey();
 			DattyValue value = entry.getValue();
 			
-			if (!value.isNull()) {
+			if (value.isNull()) {
+				if (deleteNullBins) {
+					localBins[i++] = Bin.asNull(binName);
+				}
+				continue;
+			}
+			
+			IndexType indexType = indexBins.get(binName);
+			if (indexType != null) {
+				byte[] blob = value.toByteArray();
+				if (blob != null) {
+					localBytes += blob.length;
+					localBins[i++] = toIndexBin(binName, blob, indexType);
+				}
+			}
+			else if (value.hasByteBuf()) {
+				ByteBuf buffer = value.asByteBuf();
+				if (buffer != null) {
+					localBytes += buffer.readableBytes();
+					localBins[i++] = new Bin(binName, AerospikeValueUtil.toValue(buffer));
+				}
+			}
+			else {
 				byte[] blob = value.toByteArray();
 				if (blob != null) {
 					localBytes += blob.length;
@@ -70,10 +123,40 @@ public final class AerospikeBins {
 		
 	}
 
+	private static Bin toIndexBin(String binName, byte[] blob, IndexType indexType) {
+		
+		String str = new String(blob, StandardCharsets.UTF_8);
+		
+		if (indexType == IndexType.NUMERIC) {
+			try {
+				return new Bin(binName, Long.parseLong(str));
+			}
+			catch(NumberFormatException e) {
+				throw new IllegalArgumentException("value of the numeric index bin " + binName + " is not a decimal number: " + str, e);
+			}
+		}
+		
+		return new Bin(binName, str);
+	}
+	
 	public Bin[] getBins() {
 		return bins;
 	}
 
+	/**
+	 * Converts bins to operations for operate() call
+	 * 
+	 * @return put operation for every bin
+	 */
+	
+	public Operation[] getPutOperations() {
+		Operation[] operations = new Operation[bins.length];
+		for (int i = 0; i != bins.length; ++i) {
+			operations[i] = Operation.put(bins[i]);
+		}
+		return operations;
+	}
+
 	public long getWrittableBytes() {
 		return writtableBytes;
 	}
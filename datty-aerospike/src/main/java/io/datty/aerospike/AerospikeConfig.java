@@ -26,6 +26,7 @@ import com.aerospike.client.policy.InfoPolicy;
 import com.aerospike.client.policy.Policy;
 import com.aerospike.client.policy.QueryPolicy;
 import com.aerospike.client.policy.RecordExistsAction;
+import com.aerospike.client.policy.ScanPolicy;
 import com.aerospike.client.policy.WritePolicy;
 
 import io.datty.support.exception.DattyFactoryException;
@@ -42,6 +43,12 @@ public final class AerospikeConfig {
 	private final Properties props;
 	private final String namespace;
 	private final boolean scanAndDelete;
+	private final int clearDeletes;
+	private final int clearProgressRecords;
+	private final int infoCacheMillis;
+	private final int streamPrefetchChunks;
+	private final int streamWriteChunks;
+	private final int streamChunkSizeBytes;
 	private final AsyncClientPolicy clientPolicy;
 	private final List<Host> hosts;
 	
@@ -49,6 +56,12 @@ public final class AerospikeConfig {
 		this.props = props;
 		this.namespace = props.getProperty(AerospikePropertyKeys.NAMESPACE, AerospikeConstants.DEFAULT_NAMESPACE);
 		this.scanAndDelete = getBooleanProperty(props, AerospikePropertyKeys.SCAN_AND_DELETE, AerospikeConstants.DEFAULT_SCAN_AND_DELELTE);
+		this.clearDeletes = getPositiveIntProperty(props, AerospikePropertyKeys.CLEAR_DELETES, AerospikeConstants.DEFAULT_CLEAR_DELETES);
+		this.clearProgressRecords = getPositiveIntProperty(props, AerospikePropertyKeys.CLEAR_PROGRESS_RECORDS, AerospikeConstants.DEFAULT_CLEAR_PROGRESS_RECORDS);
+		this.infoCacheMillis = getNonNegativeIntProperty(props, AerospikePropertyKeys.INFO_CACHE_MILLIS, AerospikeConstants.DEFAULT_INFO_CACHE_MILLIS);
+		this.streamPrefetchChunks = getPositiveIntProperty(props, AerospikePropertyKeys.STREAM_PREFETCH_CHUNKS, AerospikeConstants.DEFAULT_STREAM_PREFETCH_CHUNKS);
+		this.streamWriteChunks = getPositiveIntProperty(props, AerospikePropertyKeys.STREAM_WRITE_CHUNKS, AerospikeConstants.DEFAULT_STREAM_WRITE_CHUNKS);
+		this.streamChunkSizeBytes = getPositiveIntProperty(props, AerospikePropertyKeys.STREAM_CHUNK_SIZE_BYTES, AerospikeConstants.DEFAULT_STREAM_CHUNK_SIZE_BYTES);
 		this.clientPolicy = createClientPolicy(props);
 		this.hosts = createHosts(props);
 		
@@ -65,6 +78,30 @@ public final class AerospikeConfig {
 		return scanAndDelete;
 	}
 
+	public int getClearDeletes() {
+		return clearDeletes;
+	}
+
+	public int getClearProgressRecords() {
+		return clearProgressRecords;
+	}
+
+	public int getInfoCacheMillis() {
+		return infoCacheMillis;
+	}
+
+	public int getStreamPrefetchChunks() {
+		return streamPrefetchChunks;
+	}
+
+	public int getStreamWriteChunks() {
+		return streamWriteChunks;
+	}
+
+	public int getStreamChunkSizeBytes() {
+		return streamChunkSizeBytes;
+	}
+
 	public Properties getProperties() {
 		return props;
 	}
@@ -89,6 +126,18 @@ public final class AerospikeConfig {
 		return dest;
 	}
 	
+	public static ScanPolicy copyScanPolicy(ScanPolicy src) {
+		ScanPolicy dest = new ScanPolicy();
+		copyPolicy(dest, src);
+		dest.scanPercent = src.scanPercent;
+		dest.maxConcurrentNodes = src.maxConcurrentNodes;
+		dest.concurrentNodes = src.concurrentNodes;
+		dest.includeBinData = src.includeBinData;
+		dest.includeLDT = src.includeLDT;
+		dest.failOnClusterChange = src.failOnClusterChange;
+		return dest;
+	}
+	
 	public WritePolicy copyWritePolicy() {
 		return new WritePolicy(clientPolicy.writePolicyDefault);
 	}
@@ -126,30 +175,12 @@ public final class AerospikeConfig {
 			policy.password = val;
 		}
 		
-		val = props.getProperty(AerospikePropertyKeys.TIMEOUT);
-		if (val != null) {
-			policy.timeout = Integer.parseInt(val);
-		}
-		
-		val = props.getProperty(AerospikePropertyKeys.MAX_THREADS);
-		if (val != null) {
-			policy.maxThreads = Integer.parseInt(val);
-		}
-		
-		val = props.getProperty(AerospikePropertyKeys.MAX_SOCKET_IDLE);
-		if (val != null) {
-			policy.maxSocketIdle = Integer.parseInt(val);
-		}
-		
-		val = props.getProperty(AerospikePropertyKeys.TEND_INTERVAL);
-		if (val != null) {
-			policy.tendInterval = Integer.parseInt(val);
-		}
-		
-		val = props.getProperty(AerospikePropertyKeys.FAIL_IF_NOT_CONNECTED);
-		if (val != null) {
-			policy.failIfNotConnected = Boolean.parseBoolean(val);
-		}
+		policy.timeout = getNonNegativeIntProperty(props, AerospikePropertyKeys.TIMEOUT, policy.timeout);
+		policy.maxThreads = getPositiveIntProperty(props, AerospikePropertyKeys.MAX_THREADS, policy.maxThreads);
+		policy.maxSocketIdle = getNonNegativeIntProperty(props, AerospikePropertyKeys.MAX_SOCKET_IDLE, policy.maxSocketIdle);
+		policy.tendInterval = getPositiveIntProperty(props, AerospikePropertyKeys.TEND_INTERVAL, policy.tendInterval);
+		policy.failIfNotConnected = getBooleanProperty(props, AerospikePropertyKeys.FAIL_IF_NOT_CONNECTED, policy.failIfNotConnected);
+		policy.requestProleReplicas = getBooleanProperty(props, AerospikePropertyKeys.REQUEST_PROLE_REPLICAS, policy.requestProleReplicas);
 		
 		policy.readPolicyDefault  = fillReadPolicy(new Policy(), props);
 		policy.writePolicyDefault = fillWritePolicy(new WritePolicy(), props);
@@ -165,22 +196,27 @@ public final class AerospikeConfig {
 		
 		val = props.getProperty(AerospikePropertyKeys.ASYNC_MAX_COMMAND_ACTION);
 		if (val != null) {
-			policy.asyncMaxCommandAction = AerospikeEnums.parseMaxCommandAction(val);
+			try {
+				policy.asyncMaxCommandAction = AerospikeEnums.parseMaxCommandAction(val);
+			}
+			catch(IllegalArgumentException e) {
+				throw new DattyFactoryException("invalid property " + AerospikePropertyKeys.ASYNC_MAX_COMMAND_ACTION + ": " + val, e);
+			}
 		}
 		
-		val = props.getProperty(AerospikePropertyKeys.ASYNC_MAX_COMMANDS);
-		if (val != null) {
-			policy.asyncMaxCommands = Integer.parseInt(val);
-		}
+		policy.asyncMaxCommands = getPositiveIntProperty(props, AerospikePropertyKeys.ASYNC_MAX_COMMANDS, policy.asyncMaxCommands);
+		policy.asyncSelectorTimeout = getNonNegativeIntProperty(props, AerospikePropertyKeys.ASYNC_SELECTOR_TIMEOUT, policy.asyncSelectorTimeout);
+		policy.asyncSelectorThreads = getPositiveIntProperty(props, AerospikePropertyKeys.ASYNC_SELECTOR_THREADS, policy.asyncSelectorThreads);
 		
-		val = props.getProperty(AerospikePropertyKeys.ASYNC_SELECTOR_TIMEOUT);
-		if (val != null) {
-			policy.asyncSelectorTimeout = Integer.parseInt(val);
-		}
+		/*
+		 * Every async command holds its own connection, so asyncMaxCommands bounds async connections 
+		 * of the client and maxThreads bounds the sync connection pool of each node (scans, queries, info),
+		 * commands are spread over selector threads and extra selectors would never get a command
+		 */
 		
-		val = props.getProperty(AerospikePropertyKeys.ASYNC_SELECTOR_THREADS);
-		if (val != null) {
-			policy.asyncSelectorThreads = Integer.parseInt(val);
+		if (policy.asyncSelectorThreads > policy.asyncMaxCommands) {
+			throw new DattyFactoryException("property " + AerospikePropertyKeys.ASYNC_SELECTOR_THREADS + " must not be greater than " 
+					+ AerospikePropertyKeys.ASYNC_MAX_COMMANDS + ": " + policy.asyncSelectorThreads + " > " + policy.asyncMaxCommands);
 		}
 		
 		return policy;
@@ -323,4 +359,33 @@ public final class AerospikeConfig {
 		return Boolean.parseBoolean(val);
 	}
 	
+	private static int getPositiveIntProperty(Properties props, String key, int defaultValue) {
+		int value = getIntProperty(props, key, defaultValue);
+		if (value <= 0) {
+			throw new DattyFactoryException("property " + key + " must be positive: " + value);
+		}
+		return value;
+	}
+	
+	private static int getNonNegativeIntProperty(Properties props, String key, int defaultValue) {
+		int value = getIntProperty(props, key, defaultValue);
+		if (value < 0) {
+			throw new DattyFactoryException("property " + key + " must not be negative: " + value);
+		}
+		return value;
+	}
+	
+	private static int getIntProperty(Properties props, String key, int defaultValue) {
+		String val = props.getProperty(key);
+		if (val == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(val);
+		}
+		catch(NumberFormatException e) {
+			throw new DattyFactoryException("invalid property " + key + ": " + val, e);
+		}
+	}
+	
 }
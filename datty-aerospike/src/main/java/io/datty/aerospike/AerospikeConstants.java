@@ -41,6 +41,48 @@ public final class AerospikeConstants {
 	
 	public static final boolean DEFAULT_SCAN_AND_DELELTE = true;
 	
+	/**
+	 * Number of deletes in flight for scan-and-delete Clear
+	 */
+	
+	public static final int DEFAULT_CLEAR_DELETES = 64;
+	
+	/**
+	 * Clear emits the progress after every this number of deleted records
+	 */
+	
+	public static final int DEFAULT_CLEAR_PROGRESS_RECORDS = 10000;
+	
+	/**
+	 * Set size from info commands is cached for this interval, zero disables the cache
+	 */
+	
+	public static final int DEFAULT_INFO_CACHE_MILLIS = 1000;
+	
+	/**
+	 * Number of chunk reads in flight for streamOut
+	 */
+	
+	public static final int DEFAULT_STREAM_PREFETCH_CHUNKS = 8;
+	
+	/**
+	 * Number of chunk puts in flight for streamIn
+	 */
+	
+	public static final int DEFAULT_STREAM_WRITE_CHUNKS = 8;
+	
+	/**
+	 * Size of the chunk record, must fit in write-block-size of the namespace with bin overhead
+	 */
+	
+	public static final int DEFAULT_STREAM_CHUNK_SIZE_BYTES = 64 * 1024;
+	
+	/**
+	 * Chunk number of the record that keeps the manifest of the stream
+	 */
+	
+	public static final int STREAM_HEADER_CHUNK = 0;
+	
 	public static final AerospikeVersion VERSION_3_12 = AerospikeVersion.of(3, 12);
 	
 	public static final String[] EMPTY_STRING_ARRAY = new String[] {};
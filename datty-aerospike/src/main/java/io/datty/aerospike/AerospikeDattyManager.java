@@ -13,7 +13,9 @@
  */
 package io.datty.aerospike;
 
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -21,23 +23,40 @@ import com.aerospike.client.AerospikeException;
 import com.aerospike.client.Info;
 import com.aerospike.client.async.AsyncClient;
 import com.aerospike.client.cluster.Node;
+import com.aerospike.client.policy.InfoPolicy;
 
-import io.datty.aerospike.support.RandomUtil;
+import io.datty.aerospike.executor.AerospikeBatchOperation;
+import io.datty.aerospike.executor.AerospikeOperations;
+import io.datty.aerospike.info.AerospikeInfoCache;
 import io.datty.api.Datty;
 import io.datty.api.DattyBatch;
+import io.datty.api.DattyError.ErrCode;
 import io.datty.api.DattyManager;
+import io.datty.api.DattyOperation.OpCode;
+import io.datty.api.DattyResult;
 import io.datty.api.DattySet;
 import io.datty.api.DattySetError;
 import io.datty.api.DattySingle;
 import io.datty.api.DattyStream;
 import io.datty.api.SetExistsAction;
+import io.datty.api.operation.RecordOperation;
+import io.datty.spi.DattyBatchCapable;
 import io.datty.spi.DattyBatchDriver;
 import io.datty.spi.DattyDriver;
+import io.datty.spi.DattyMetrics;
+import io.datty.spi.DattyMetricsDriver;
+import io.datty.spi.DattyFetchCoalescer;
 import io.datty.spi.DattySingleDriver;
 import io.datty.spi.DattySingleProvider;
 import io.datty.spi.DattyStreamDriver;
 import io.datty.support.exception.DattyFactoryException;
+import io.datty.support.exception.DattyOperationException;
 import io.datty.support.exception.DattySetException;
+import rx.Observable;
+import rx.Single;
+import rx.functions.Func1;
+import rx.functions.Func2;
+import rx.schedulers.Schedulers;
 
 /**
  * AerospikeDattyManager
@@ -46,11 +65,13 @@ import io.datty.support.exception.DattySetException;
  *
  */
 
-public class AerospikeDattyManager implements DattyManager {
+public class AerospikeDattyManager implements DattyManager, DattyBatchCapable {
 
 	private final String managerName;
 	private final AerospikeConfig config;
 	private final AerospikeRxClient client;
+	private final AerospikeInfoCache infoCache;
+	private final DattyMetrics metrics = new DattyMetrics();
 	private boolean unitEmulation;
 	private final ConcurrentMap<String, AerospikeSet> setMap = new ConcurrentHashMap<String, AerospikeSet>();
 	private Datty currentDatty;
@@ -61,16 +82,17 @@ public class AerospikeDattyManager implements DattyManager {
 		this.managerName = props.getProperty(AerospikePropertyKeys.NAME, AerospikeConstants.DEFAULT_NAME);
 		this.config = new AerospikeConfig(props);
 		this.client = new AerospikeRxClient(instantiateClient(this.config)); 
+		this.infoCache = new AerospikeInfoCache(this, config.getInfoCacheMillis());
 		
-		DattySingle single = new DattySingleProvider(new DattySingleDriver(new AerospikeDattySingle(this)));
-		DattyBatch batch = new DattyBatchDriver(single);
+		DattySingle single = new DattySingleProvider(new DattyFetchCoalescer(new DattySingleDriver(new AerospikeDattySingle(this)), this, this));
+		DattyBatch batch = new DattyBatchDriver(single, this);
 		DattyStream stream = new DattyStreamDriver(new AerospikeDattyStream(this));
 		
-		this.currentDatty = DattyDriver.newBuilder()
+		this.currentDatty = new DattyMetricsDriver(DattyDriver.newBuilder()
 				.setSingle(single)
 				.setBatch(batch)
 				.setStream(stream)
-				.build();
+				.build(), metrics);
 		
 		this.version = requestVersion();
 	}
@@ -83,6 +105,14 @@ public class AerospikeDattyManager implements DattyManager {
 		return client;
 	}
 
+	public AerospikeInfoCache getInfoCache() {
+		return infoCache;
+	}
+
+	public DattyMetrics getMetrics() {
+		return metrics;
+	}
+
 	public AerospikeVersion getVersion() {
 		return version;
 	}
@@ -165,6 +195,27 @@ public class AerospikeDattyManager implements DattyManager {
 		this.currentDatty = newDatty;
 	}
 
+	@Override
+	public boolean isBatchSupported(OpCode code) {
+		return AerospikeOperations.findBatch(code) != null;
+	}
+
+	@Override
+	public Single<List<DattyResult>> executeBatch(String setName, OpCode code, List<RecordOperation> operations) {
+		
+		AerospikeSet set = setMap.get(setName);
+		if (set == null) {
+			return Single.error(new DattyOperationException(ErrCode.SET_NOT_FOUND, setName, operations.get(0)));
+		}
+		
+		AerospikeBatchOperation batchOperation = AerospikeOperations.findBatch(code);
+		if (batchOperation == null) {
+			return Single.error(new DattyOperationException(ErrCode.UNKNOWN_OPERATION, "unknown batch operation: " + code.name(), operations.get(0)));
+		}
+		
+		return batchOperation.execute(set, operations);
+	}
+
 	private AsyncClient instantiateClient(AerospikeConfig config) {
 		try {
 			return new AsyncClient(config.getClientPolicy(), config.getHosts());
@@ -174,11 +225,41 @@ public class AerospikeDattyManager implements DattyManager {
 		}
 	}
 	
+	/**
+	 * Requests all nodes in parallel, the oldest version wins during rolling upgrades
+	 */
+	
 	private AerospikeVersion requestVersion() {
+		
 		Node[] nodes = client.getClient().getNodes();
-		Node node = RandomUtil.selectRandom(nodes);
-		String response = Info.request(config.getClientPolicy().infoPolicyDefault, node, "build");
-		return AerospikeVersion.parse(response);
+		if (nodes.length == 0) {
+			throw new DattyFactoryException("no aerospike nodes to request version");
+		}
+		
+		final InfoPolicy infoPolicy = config.getClientPolicy().infoPolicyDefault;
+		
+		return Observable.from(nodes).flatMap(new Func1<Node, Observable<AerospikeVersion>>() {
+
+			@Override
+			public Observable<AerospikeVersion> call(final Node node) {
+				return Observable.fromCallable(new Callable<AerospikeVersion>() {
+
+					@Override
+					public AerospikeVersion call() throws Exception {
+						return AerospikeVersion.parse(Info.request(infoPolicy, node, "build"));
+					}
+					
+				}).subscribeOn(Schedulers.io());
+			}
+			
+		}).reduce(new Func2<AerospikeVersion, AerospikeVersion, AerospikeVersion>() {
+
+			@Override
+			public AerospikeVersion call(AerospikeVersion v1, AerospikeVersion v2) {
+				return v1.compareTo(v2) <= 0 ? v1 : v2;
+			}
+			
+		}).toBlocking().single();
 	}
 	
 	@Override
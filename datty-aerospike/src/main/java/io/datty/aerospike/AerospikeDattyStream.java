@@ -14,90 +14,240 @@
 package io.datty.aerospike;
 
 import java.util.Enumeration;
+import java.util.Random;
+import java.util.zip.CRC32;
 
+import com.aerospike.client.AerospikeException;
 import com.aerospike.client.Key;
 import com.aerospike.client.Record;
+import com.aerospike.client.ResultCode;
+import com.aerospike.client.policy.GenerationPolicy;
 import com.aerospike.client.policy.QueryPolicy;
 import com.aerospike.client.policy.RecordExistsAction;
 import com.aerospike.client.policy.WritePolicy;
 
 import io.datty.aerospike.support.AerospikeValueUtil;
+import io.datty.aerospike.support.ByteBufChunker;
+import io.datty.aerospike.support.ExceptionTransformer;
 import io.datty.api.DattyError;
 import io.datty.api.DattyKey;
 import io.datty.api.DattyStream;
+import io.datty.support.exception.DattyException;
 import io.datty.support.exception.DattyStreamException;
 import io.netty.buffer.ByteBuf;
 import rx.Observable;
 import rx.Single;
+import rx.functions.Action1;
+import rx.functions.Func0;
 import rx.functions.Func1;
 import rx.functions.Func2;
 
 /**
  * AerospikeDattyStream
  * 
+ * Value is stored in chunk records starting from 1, record majorKey + 0 keeps the manifest.
+ * 
+ * Every streamIn writes chunks under the new generation majorKey:generation:chunkNumber, then switches
+ * the manifest with the generation check and only after that deletes chunks of the replaced generation.
+ * Chunks of the live value are never overwritten, so the reader gets either the whole value of the manifest
+ * it has read, or CONCURRENT_UPDATE if chunks were deleted by the next streamIn under it.
+ * 
+ * Values written before manifests keep chunks in majorKey + chunkNumber and are read by probing,
+ * they are deleted by the first streamIn of the key.
+ * 
  * @author Alex Shvid
  *
  */
 
 public class AerospikeDattyStream implements DattyStream {
 
+	private static final String GENERATION_SEPARATOR = ":";
+	
 	private final AerospikeDattyManager manager;
+	private final Random random = new Random();
 	
 	public AerospikeDattyStream(AerospikeDattyManager manager) {
 		this.manager = manager;
 	}
 
+	/**
+	 * Reads manifest and then keeps the window of chunk reads in flight,
+	 * chunks are emitted in order and only after they are requested.
+	 * Streams written without header are read chunk by chunk until the missing one.
+	 */
+	
 	@Override
-	public Observable<ByteBuf> streamOut(DattyKey key) {
+	public Observable<ByteBuf> streamOut(final DattyKey key) {
 		
-		AerospikeSet cache = manager.getAerospikeSet(key.getSetName());
+		final AerospikeSet cache = manager.getAerospikeSet(key.getSetName());
 		if (cache == null) {
 			return Observable.error(new DattyStreamException(DattyError.ErrCode.SET_NOT_FOUND, key.getSetName(), key));
 		}
 		
 		String majorKey = key.getMajorKey();
 		final String minorKey = key.getMinorKey();
-		String[] binNames = new String[] { minorKey };
+		final String[] binNames = new String[] { minorKey };
 		
 		if (majorKey == null || minorKey == null) {
 			return Observable.error(new DattyStreamException(DattyError.ErrCode.BAD_ARGUMENTS, key));
 		}
 		
 		final QueryPolicy queryPolicy = cache.getConfig().getQueryPolicy(false);
+		final ChunkEnumeration chunkEnumeration = new ChunkEnumeration(manager.getConfig().getNamespace(), cache.getName(), majorKey);
 		
-		ChunkEnumeration chunkEnumeration = new ChunkEnumeration(manager.getConfig().getNamespace(), cache.getName(), majorKey);
-		Observable<Record> stream = manager.getClient().streamGet(queryPolicy, chunkEnumeration, binNames, cache.streamExceptionTransformer(key));
+		Key headerKey = chunkEnumeration.getKey(AerospikeConstants.STREAM_HEADER_CHUNK);
+		
+		return manager.getClient().get(queryPolicy, headerKey, binNames, cache.streamExceptionTransformer(key)).toObservable()
+				.concatMap(new Func1<Record, Observable<ByteBuf>>() {
 
-		return stream.map(new Func1<Record, ByteBuf>() {
+			@Override
+			public Observable<ByteBuf> call(Record header) {
+				
+				AerospikeStreamManifest manifest = AerospikeStreamManifest.parse(header != null && header.bins != null ? header.bins.get(minorKey) : null);
+				
+				if (manifest != null) {
+					ChunkEnumeration generationEnumeration = new ChunkEnumeration(manager.getConfig().getNamespace(), cache.getName(), key.getMajorKey(), manifest.getGeneration());
+					return verify(prefetchChunks(cache, key, queryPolicy, generationEnumeration, binNames, manifest.getChunks()), key, manifest);
+				}
+				
+				return probeChunks(cache, key, queryPolicy, chunkEnumeration, binNames);
+			}
+			
+		});
+		
+	}
+	
+	private Observable<ByteBuf> prefetchChunks(final AerospikeSet cache, final DattyKey key, final QueryPolicy queryPolicy, 
+			final ChunkEnumeration chunkEnumeration, final String[] binNames, int chunks) {
+		
+		if (chunks == 0) {
+			return Observable.empty();
+		}
+		
+		final String minorKey = key.getMinorKey();
+		int window = manager.getConfig().getStreamPrefetchChunks();
+		
+		return Observable.range(1, chunks).concatMapEager(new Func1<Integer, Observable<ByteBuf>>() {
 
 			@Override
-			public ByteBuf call(Record rec) {
+			public Observable<ByteBuf> call(Integer chunkNumber) {
 				
-				if (rec != null && rec.bins != null) {
-					Object aerospikeValue = rec.bins.get(minorKey);
-					if (aerospikeValue != null) {
-						return AerospikeValueUtil.toByteBuf(aerospikeValue);
+				return manager.getClient().get(queryPolicy, chunkEnumeration.getKey(chunkNumber), binNames, cache.streamExceptionTransformer(key))
+						.map(new Func1<Record, ByteBuf>() {
+
+							@Override
+							public ByteBuf call(Record rec) {
+								ByteBuf chunk = toByteBuf(rec, minorKey);
+								if (chunk == null) {
+									throw new DattyStreamException(DattyError.ErrCode.CONCURRENT_UPDATE, "chunk is missing, value was replaced or expired", key);
+								}
+								return chunk;
+							}
+							
+						}).toObservable();
+			}
+			
+		}, window, window);
+		
+	}
+	
+	/**
+	 * Checks length and checksum of the emitted chunks against the manifest before completion,
+	 * chunks of the generation are never rewritten, so the mismatch means the damaged value
+	 */
+	
+	private Observable<ByteBuf> verify(final Observable<ByteBuf> chunks, final DattyKey key, final AerospikeStreamManifest manifest) {
+		
+		return Observable.defer(new Func0<Observable<ByteBuf>>() {
+
+			@Override
+			public Observable<ByteBuf> call() {
+				
+				final CRC32 crc = new CRC32();
+				final byte[] scratch = new byte[8192];
+				final long[] length = new long[1];
+				
+				Observable<ByteBuf> completion = Observable.defer(new Func0<Observable<ByteBuf>>() {
+
+					@Override
+					public Observable<ByteBuf> call() {
+						if (length[0] != manifest.getLength() || crc.getValue() != manifest.getChecksum()) {
+							return Observable.error(new DattyStreamException(DattyError.ErrCode.CONCURRENT_UPDATE, "value does not match manifest", key));
+						}
+						return Observable.empty();
 					}
-				}
+					
+				});
 				
-				return null;
+				return chunks.doOnNext(new Action1<ByteBuf>() {
+
+					@Override
+					public void call(ByteBuf chunk) {
+						length[0] += chunk.readableBytes();
+						ByteBufChunker.updateChecksum(crc, chunk, scratch);
+					}
+					
+				}).concatWith(completion);
+			}
+			
+		});
+		
+	}
+	
+	private Observable<ByteBuf> probeChunks(AerospikeSet cache, DattyKey key, QueryPolicy queryPolicy, 
+			ChunkEnumeration chunkEnumeration, String[] binNames) {
+		
+		final String minorKey = key.getMinorKey();
+		
+		Observable<Record> stream = manager.getClient().streamGet(queryPolicy, chunkEnumeration, binNames, cache.streamExceptionTransformer(key));
+
+		return stream.map(new Func1<Record, ByteBuf>() {
+
+			@Override
+			public ByteBuf call(Record rec) {
+				return toByteBuf(rec, minorKey);
 			}
 			
 		});
 		
 	}
 	
+	private static ByteBuf toByteBuf(Record rec, String minorKey) {
+		
+		if (rec != null && rec.bins != null) {
+			Object aerospikeValue = rec.bins.get(minorKey);
+			if (aerospikeValue != null) {
+				return AerospikeValueUtil.toByteBuf(aerospikeValue);
+			}
+		}
+		
+		return null;
+	}
+	
 	public final class ChunkEnumeration implements Enumeration<Key> {
 
 		private final String namespace;
 		private final String cacheName;
-		private final String majorKey;
+		private final String prefix;
 		private int chunkNumber = 1;
 		
 		public ChunkEnumeration(String namespace, String cacheName, String majorKey) {
+			this(namespace, cacheName, majorKey, 0L);
+		}
+		
+		/**
+		 * Enumerates chunks of the generation, zero generation is the layout without manifest
+		 * 
+		 * @param namespace - namespace
+		 * @param cacheName - set name
+		 * @param majorKey - major key
+		 * @param generation - generation of chunks
+		 */
+		
+		public ChunkEnumeration(String namespace, String cacheName, String majorKey, long generation) {
 			this.namespace = namespace;
 			this.cacheName = cacheName;
-			this.majorKey = majorKey;
+			this.prefix = generation == 0L ? majorKey : majorKey + GENERATION_SEPARATOR + Long.toHexString(generation) + GENERATION_SEPARATOR;
 		}
 		
 		@Override
@@ -107,11 +257,25 @@ public class AerospikeDattyStream implements DattyStream {
 
 		@Override
 		public Key nextElement() {
-			Key key = new Key(namespace, cacheName, majorKey + chunkNumber);
+			Key key = getKey(chunkNumber);
 			chunkNumber++;
 			return key;
 		}
 		
+		public Key getKey(int chunkNumber) {
+			return new Key(namespace, cacheName, prefix + chunkNumber);
+		}
+		
+		/**
+		 * Gets number of keys returned by nextElement
+		 * 
+		 * @return number of chunks
+		 */
+		
+		public int getChunkCount() {
+			return chunkNumber - 1;
+		}
+		
 	}
 
 	@Override
@@ -129,7 +293,7 @@ public class AerospikeDattyStream implements DattyStream {
 			return Single.error(new DattyStreamException(DattyError.ErrCode.BAD_ARGUMENTS, key));
 		}
 		
-		final WritePolicy writePolicy = cache.getConfig().getWritePolicy(true);
+		final WritePolicy writePolicy = new WritePolicy(cache.getConfig().getWritePolicy(false));
 		
 		if (key.hasTtlSeconds()) {
 			writePolicy.expiration = key.getTtlSeconds();
@@ -137,19 +301,38 @@ public class AerospikeDattyStream implements DattyStream {
 		
 		writePolicy.recordExistsAction = RecordExistsAction.REPLACE;
 		
-		final ChunkEnumeration chunkEnumeration = new ChunkEnumeration(manager.getConfig().getNamespace(), cache.getName(), majorKey);
+		final long generation = nextGeneration();
+		final ChunkEnumeration chunkEnumeration = new ChunkEnumeration(manager.getConfig().getNamespace(), cache.getName(), majorKey, generation);
+		final ByteBufChunker chunker = new ByteBufChunker(manager.getConfig().getStreamChunkSizeBytes());
 		
-		Observable<Long> stream = value.flatMap(new Func1<ByteBuf, Observable<Long>>() {
+		Observable<ByteBuf> chunks = value.concatMapIterable(new Func1<ByteBuf, Iterable<ByteBuf>>() {
 
 			@Override
-			public Observable<Long> call(ByteBuf buffer) {
+			public Iterable<ByteBuf> call(ByteBuf buffer) {
+				return chunker.add(buffer);
+			}
+			
+		}).concatWith(Observable.defer(new Func0<Observable<ByteBuf>>() {
 
-				AerospikeBins bins = new AerospikeBins(minorKey, buffer);
+			@Override
+			public Observable<ByteBuf> call() {
+				return Observable.from(chunker.flush());
+			}
+			
+		}));
+		
+		// chunk numbers are taken in order, puts complete in any order
+		Observable<Long> stream = chunks.flatMap(new Func1<ByteBuf, Observable<Long>>() {
+
+			@Override
+			public Observable<Long> call(ByteBuf chunk) {
+
+				AerospikeBins bins = new AerospikeBins(minorKey, chunk);
 				return manager.getClient().put(writePolicy, chunkEnumeration.nextElement(), bins, cache.streamExceptionTransformer(key)).toObservable();
 				
 			}
 			
-		});
+		}, manager.getConfig().getStreamWriteChunks());
 		
 		return stream.reduce(0L, LongSumFunc.INSTANCE).toSingle()
 				.flatMap(new Func1<Long, Single<Long>>() {
@@ -157,11 +340,22 @@ public class AerospikeDattyStream implements DattyStream {
 					@Override
 					public Single<Long> call(final Long writtenBytes) {
 
-						return manager.getClient().remove(writePolicy, chunkEnumeration.nextElement(), cache.streamExceptionTransformer(key))
-						.map(new Func1<Boolean, Long>() {
+						// manifest is switched after all chunks, so readers never see half-written value
+						AerospikeStreamManifest manifest = new AerospikeStreamManifest(chunkEnumeration.getChunkCount(), generation, chunker.getLength(), chunker.getChecksum());
+						
+						return switchManifest(cache, key, writePolicy, manifest)
+						.flatMap(new Func1<AerospikeStreamManifest, Single<Integer>>() {
 
 							@Override
-							public Long call(Boolean removed) {
+							public Single<Integer> call(AerospikeStreamManifest replaced) {
+								return deleteChunks(cache, key, replaced);
+							}
+							
+						})
+						.map(new Func1<Integer, Long>() {
+
+							@Override
+							public Long call(Integer deletedChunks) {
 								return writtenBytes;
 							}
 							
@@ -169,9 +363,209 @@ public class AerospikeDattyStream implements DattyStream {
 						
 					}
 					
+				})
+				.onErrorResumeNext(new Func1<Throwable, Single<Long>>() {
+
+					@Override
+					public Single<Long> call(final Throwable t) {
+						
+						return deleteWrittenChunks(cache, key, generation, chunkEnumeration.getChunkCount())
+								.onErrorReturn(new Func1<Throwable, Integer>() {
+
+									@Override
+									public Integer call(Throwable e) {
+										return 0;
+									}
+									
+								})
+								.flatMap(new Func1<Integer, Single<Long>>() {
+
+									@Override
+									public Single<Long> call(Integer deletedChunks) {
+										return Single.error(t);
+									}
+									
+								});
+					}
+					
 				});
 		
 	}
+	
+	/**
+	 * Deletes chunks written by the failed streamIn, so they are not left without the manifest. 
+	 * Chunks are kept if the header already has their generation, because the switch could fail 
+	 * after it was applied, or the error was in the delete of the replaced generation.
+	 * 
+	 * @return number of deleted chunks
+	 */
+	
+	private Single<Integer> deleteWrittenChunks(final AerospikeSet cache, final DattyKey key, final long generation, final int chunks) {
+		
+		if (chunks == 0) {
+			return Single.just(0);
+		}
+		
+		final String minorKey = key.getMinorKey();
+		final Key headerKey = new ChunkEnumeration(manager.getConfig().getNamespace(), cache.getName(), key.getMajorKey()).getKey(AerospikeConstants.STREAM_HEADER_CHUNK);
+		final QueryPolicy queryPolicy = cache.getConfig().getQueryPolicy(false);
+		
+		return manager.getClient().get(queryPolicy, headerKey, new String[] { minorKey }, cache.streamExceptionTransformer(key))
+				.flatMap(new Func1<Record, Single<Integer>>() {
+
+			@Override
+			public Single<Integer> call(Record header) {
+				
+				AerospikeStreamManifest current = AerospikeStreamManifest.parse(header != null && header.bins != null ? header.bins.get(minorKey) : null);
+				
+				if (current != null && current.getGeneration() == generation) {
+					return Single.just(0);
+				}
+				
+				return deleteGeneration(cache, key, generation, chunks);
+			}
+			
+		});
+		
+	}
+	
+	/**
+	 * Puts manifest to the header if it was not changed since read, reads it again otherwise
+	 * 
+	 * @return replaced manifest or null if value was written without it
+	 */
+	
+	private Single<AerospikeStreamManifest> switchManifest(final AerospikeSet cache, final DattyKey key, 
+			final WritePolicy writePolicy, final AerospikeStreamManifest manifest) {
+		
+		final String minorKey = key.getMinorKey();
+		final Key headerKey = new ChunkEnumeration(manager.getConfig().getNamespace(), cache.getName(), key.getMajorKey()).getKey(AerospikeConstants.STREAM_HEADER_CHUNK);
+		final QueryPolicy queryPolicy = cache.getConfig().getQueryPolicy(false);
+		
+		return manager.getClient().get(queryPolicy, headerKey, new String[] { minorKey }, cache.streamExceptionTransformer(key))
+				.flatMap(new Func1<Record, Single<AerospikeStreamManifest>>() {
+
+			@Override
+			public Single<AerospikeStreamManifest> call(Record header) {
+				
+				final AerospikeStreamManifest replaced = AerospikeStreamManifest.parse(header != null && header.bins != null ? header.bins.get(minorKey) : null);
+				
+				WritePolicy headerPolicy = new WritePolicy(writePolicy);
+				if (header != null) {
+					headerPolicy.generationPolicy = GenerationPolicy.EXPECT_GEN_EQUAL;
+					headerPolicy.generation = header.generation;
+				}
+				else {
+					headerPolicy.recordExistsAction = RecordExistsAction.CREATE_ONLY;
+				}
+				
+				AerospikeBins bins = new AerospikeBins(minorKey, manifest.toByteBuf());
+				
+				return manager.getClient().put(headerPolicy, headerKey, bins, switchExceptionTransformer(cache, key))
+						.flatMap(new Func1<Long, Single<AerospikeStreamManifest>>() {
+
+							@Override
+							public Single<AerospikeStreamManifest> call(Long headerBytes) {
+								
+								if (headerBytes == null) {
+									// other streamIn switched the header first
+									return switchManifest(cache, key, writePolicy, manifest);
+								}
+								
+								return Single.just(replaced);
+							}
+							
+						});
+			}
+			
+		});
+		
+	}
+	
+	/**
+	 * Deletes chunks of the replaced generation, or chunks without manifest until the missing one
+	 * 
+	 * @return number of deleted chunks
+	 */
+	
+	private Single<Integer> deleteChunks(final AerospikeSet cache, final DattyKey key, AerospikeStreamManifest replaced) {
+		
+		if (replaced != null) {
+			return deleteGeneration(cache, key, replaced.getGeneration(), replaced.getChunks());
+		}
+		
+		final WritePolicy writePolicy = cache.getConfig().getWritePolicy(false);
+		
+		ChunkEnumeration chunkEnumeration = new ChunkEnumeration(manager.getConfig().getNamespace(), cache.getName(), key.getMajorKey());
+		return deleteProbedChunks(cache, key, writePolicy, chunkEnumeration, 0);
+	}
+	
+	private Single<Integer> deleteGeneration(final AerospikeSet cache, final DattyKey key, long generation, int chunks) {
+		
+		final WritePolicy writePolicy = cache.getConfig().getWritePolicy(false);
+		final ChunkEnumeration chunkEnumeration = new ChunkEnumeration(manager.getConfig().getNamespace(), cache.getName(), key.getMajorKey(), generation);
+		
+		return Observable.range(1, chunks).flatMap(new Func1<Integer, Observable<Boolean>>() {
+
+			@Override
+			public Observable<Boolean> call(Integer chunkNumber) {
+				return manager.getClient().delete(writePolicy, chunkEnumeration.getKey(chunkNumber), cache.streamExceptionTransformer(key)).toObservable();
+			}
+			
+		}, manager.getConfig().getStreamWriteChunks()).count().toSingle();
+		
+	}
+	
+	private Single<Integer> deleteProbedChunks(final AerospikeSet cache, final DattyKey key, final WritePolicy writePolicy, 
+			final ChunkEnumeration chunkEnumeration, final int deleted) {
+		
+		return manager.getClient().delete(writePolicy, chunkEnumeration.nextElement(), cache.streamExceptionTransformer(key))
+				.flatMap(new Func1<Boolean, Single<Integer>>() {
+
+					@Override
+					public Single<Integer> call(Boolean existed) {
+						
+						if (!existed) {
+							return Single.just(deleted);
+						}
+						
+						return deleteProbedChunks(cache, key, writePolicy, chunkEnumeration, deleted + 1);
+					}
+					
+				});
+		
+	}
+	
+	private ExceptionTransformer<DattyStreamException> switchExceptionTransformer(AerospikeSet cache, DattyKey key) {
+		
+		final ExceptionTransformer<DattyStreamException> streamExceptionTransformer = cache.streamExceptionTransformer(key);
+		
+		return new ExceptionTransformer<DattyStreamException>() {
+
+			@Override
+			public DattyException transformException(AerospikeException e) {
+				
+				switch(e.getResultCode()) {
+				
+				case ResultCode.GENERATION_ERROR:
+				case ResultCode.KEY_EXISTS_ERROR:
+					return null;
+					
+				default:
+					return streamExceptionTransformer.transformException(e);
+				}
+			}
+			
+		};
+	}
+	
+	private long nextGeneration() {
+		long generation;
+		do {
+			generation = random.nextLong();
+		} while (generation == 0L);
+		return generation;
+	}
 
 	public enum LongSumFunc implements Func2<Long, Long, Long> {
 
@@ -40,6 +40,27 @@ public final class AerospikePropertyKeys {
 	
 	public static final String SCAN_AND_DELETE = "scanAndDelete";
 	
+	public static final String CLEAR_DELETES = "clearDeletes";
+	
+	public static final String CLEAR_PROGRESS_RECORDS = "clearProgressRecords";
+	
+	public static final String INFO_CACHE_MILLIS = "infoCacheMillis";
+	
+	public static final String STREAM_PREFETCH_CHUNKS = "streamPrefetchChunks";
+	
+	public static final String STREAM_WRITE_CHUNKS = "streamWriteChunks";
+	
+	public static final String STREAM_CHUNK_SIZE_BYTES = "streamChunkSizeBytes";
+	
+	/**
+	 * DattySet constants, comma separated minor keys that are written as string or integer bins,
+	 * Aerospike does not index blob bins, so Select works only by these minor keys
+	 */
+	
+	public static final String STRING_INDEX_BINS = "stringIndexBins";
+	
+	public static final String NUMERIC_INDEX_BINS = "numericIndexBins";
+	
 	// this property has ExecutorService
 	public static final String SHARED_THREAD_POOL = "sharedThreadPool";
 	
@@ -60,6 +81,7 @@ public final class AerospikePropertyKeys {
 	public static final String MAX_SOCKET_IDLE = "maxSocketIdle";
 	public static final String TEND_INTERVAL = "tendInterval";
 	public static final String FAIL_IF_NOT_CONNECTED = "failIfNotConnected";
+	public static final String REQUEST_PROLE_REPLICAS = "requestProleReplicas";
 
 	public static final String ASYNC_MAX_COMMAND_ACTION = "asyncMaxCommandAction";
 	public static final String ASYNC_MAX_COMMANDS = "asyncMaxCommands";
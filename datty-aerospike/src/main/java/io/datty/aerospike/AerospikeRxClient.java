@@ -14,28 +14,41 @@
 package io.datty.aerospike;
 
 import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.aerospike.client.AerospikeException;
+import com.aerospike.client.BatchRead;
 import com.aerospike.client.Key;
 import com.aerospike.client.Record;
+import com.aerospike.client.ScanCallback;
 import com.aerospike.client.Value;
 import com.aerospike.client.async.AsyncClient;
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.listener.BatchListListener;
 import com.aerospike.client.listener.DeleteListener;
 import com.aerospike.client.listener.ExecuteListener;
 import com.aerospike.client.listener.ExistsListener;
 import com.aerospike.client.listener.RecordListener;
-import com.aerospike.client.listener.RecordSequenceListener;
 import com.aerospike.client.listener.WriteListener;
+import com.aerospike.client.policy.BatchPolicy;
 import com.aerospike.client.policy.QueryPolicy;
 import com.aerospike.client.policy.ScanPolicy;
 import com.aerospike.client.policy.WritePolicy;
+import com.aerospike.client.query.RecordSet;
+import com.aerospike.client.query.Statement;
 
+import io.datty.aerospike.support.BlockingEmitter;
 import io.datty.aerospike.support.ExceptionTransformer;
 import io.datty.support.exception.DattyException;
 import rx.Observable;
 import rx.Single;
 import rx.SingleSubscriber;
 import rx.Subscriber;
+import rx.functions.Action0;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.Subscriptions;
 
 /**
  * AerospikeRxClient
@@ -48,6 +61,12 @@ public final class AerospikeRxClient {
 
 	private final AsyncClient client;
 	
+	private final AtomicLong inFlightCommands = new AtomicLong();
+	private final AtomicLong queuedCommands = new AtomicLong();
+	private final AtomicLong completedCommands = new AtomicLong();
+	private final AtomicLong failedCommands = new AtomicLong();
+	private final AtomicLong rejectedCommands = new AtomicLong();
+	
 	public AerospikeRxClient(AsyncClient client) {
 		this.client = client;
 	}
@@ -57,92 +76,105 @@ public final class AerospikeRxClient {
 	}
 	
 	/**
-	 * Scans records
+	 * Gets number of single-record async commands submitted and waiting for the callback
 	 * 
-	 * @param scanPolicy - scan policy
-	 * @param namespace - namespace
-	 * @param setName - set name
-	 * @param binNames - bin names
-	 * @param exceptionTransformer - exception transformer
-	 * @return record or null
+	 * @return in-flight commands
 	 */
 	
-	public Observable<AerospikeRecord> scan(final ScanPolicy scanPolicy, final String namespace, final String setName, final String[] binNames, final ExceptionTransformer<?> exceptionTransformer) {
-		
-		return Observable.<AerospikeRecord>create(new Observable.OnSubscribe<AerospikeRecord>() {
-
-			@Override
-			public void call(final Subscriber<? super AerospikeRecord> subscriber) {
-
-				client.scanAll(scanPolicy, new RecordSequenceListener() {
-
-					@Override
-					public void onRecord(Key key, Record record) throws AerospikeException {
-						subscriber.onNext(new AerospikeRecord(key, record));
-					}
+	public long getInFlightCommands() {
+		return inFlightCommands.get();
+	}
+	
+	/**
+	 * Gets number of threads inside the submit of the async command, with asyncMaxCommandAction=BLOCK 
+	 * they are waiting for the free command slot
+	 * 
+	 * @return queue depth
+	 */
+	
+	public long getQueuedCommands() {
+		return queuedCommands.get();
+	}
 
-					@Override
-					public void onSuccess() {
-						subscriber.onCompleted();
-					}
+	public long getCompletedCommands() {
+		return completedCommands.get();
+	}
 
-						@Override
-					public void onFailure(AerospikeException exception) {
-						subscriber.onError(exceptionTransformer.transformException(exception));
-					}
-					
-				}, namespace, setName, binNames);
+	public long getFailedCommands() {
+		return failedCommands.get();
+	}
+	
+	/**
+	 * Gets number of commands thrown by submit, with asyncMaxCommandAction=REJECT
+	 * they are rejected because all command slots are busy
+	 * 
+	 * @return rejected commands
+	 */
 
-			}
-			
-		});
-	}	
+	public long getRejectedCommands() {
+		return rejectedCommands.get();
+	}
 	
 	/**
-	 * Scan and delete all records
+	 * Scans records of the single node on the io scheduler, records are emitted only on request
+	 * and the scan is terminated on unsubscribe
 	 * 
-	 * @param scanPolicy - scan policy	 
-	 * @param deletePolicy - delete policy
+	 * @param scanPolicy - scan policy
+	 * @param node - cluster node
 	 * @param namespace - namespace
 	 * @param setName - set name
+	 * @param binNames - bin names
 	 * @param exceptionTransformer - exception transformer
-	 * @return record or null
+	 * @return records of the node
 	 */
 	
-	public Observable<Long> scanAndDelete(final ScanPolicy scanPolicy, final WritePolicy deletePolicy, final String namespace, final String setName, final ExceptionTransformer<?> exceptionTransformer) {
+	public Observable<AerospikeRecord> scanNode(final ScanPolicy scanPolicy, final Node node, final String namespace, final String setName, final String[] binNames, final ExceptionTransformer<?> exceptionTransformer) {
 		
-		return Observable.<Long>create(new Observable.OnSubscribe<Long>() {
+		return Observable.<AerospikeRecord>create(new Observable.OnSubscribe<AerospikeRecord>() {
 
 			@Override
-			public void call(final Subscriber<? super Long> subscriber) {
-
-				client.scanAll(scanPolicy, new RecordSequenceListener() {
+			public void call(final Subscriber<? super AerospikeRecord> subscriber) {
 
-					private long counter = 0;
+				final BlockingEmitter<AerospikeRecord> emitter = new BlockingEmitter<AerospikeRecord>(subscriber);
+				
+				try {
 					
-					@Override
-					public void onRecord(Key key, Record record) throws AerospikeException {
-						client.delete(deletePolicy, null, key);
-						counter++;
-					}
-
-					@Override
-					public void onSuccess() {
-						subscriber.onNext(counter);
-						subscriber.onCompleted();
-					}
-
+					client.scanNode(scanPolicy, node, namespace, setName, new ScanCallback() {
+	
 						@Override
-					public void onFailure(AerospikeException exception) {
-						subscriber.onError(exceptionTransformer.transformException(exception));
-					}
+						public void scanCallback(Key key, Record record) throws AerospikeException {
+							
+							boolean emitted;
+							try {
+								emitted = emitter.emit(new AerospikeRecord(key, record));
+							}
+							catch(InterruptedException e) {
+								Thread.currentThread().interrupt();
+								throw new AerospikeException.ScanTerminated(e);
+							}
+							
+							if (!emitted) {
+								throw new AerospikeException.ScanTerminated();
+							}
+						}
+						
+					}, binNames);
 					
-				}, namespace, setName, new String[] {});
+					subscriber.onCompleted();
+				}
+				catch(AerospikeException.ScanTerminated e) {
+					if (!subscriber.isUnsubscribed()) {
+						subscriber.onError(exceptionTransformer.transformException(e));
+					}
+				}
+				catch(AerospikeException e) {
+					subscriber.onError(exceptionTransformer.transformException(e));
+				}
 
 			}
 			
-		});
-	}	
+		}).subscribeOn(Schedulers.io());
+	}
 	
 	/**
 	 * Checks if record exists or not
@@ -155,10 +187,10 @@ public final class AerospikeRxClient {
 	
 	public Single<Boolean> exists(final QueryPolicy queryPolicy, final Key key, final ExceptionTransformer<?> exceptionTransformer) {
 		
-		return Single.<Boolean>create(new Single.OnSubscribe<Boolean>() {
+		return Single.<Boolean>create(new Command<Boolean>() {
 
 			@Override
-			public void call(final SingleSubscriber<? super Boolean> subscriber) {
+			protected void submit(final SingleSubscriber<? super Boolean> subscriber) {
 
 				client.exists(queryPolicy, new ExistsListener() {
 
@@ -190,10 +222,10 @@ public final class AerospikeRxClient {
 	
 	public Single<Record> get(final QueryPolicy queryPolicy, final Key key, final ExceptionTransformer<?> exceptionTransformer) {
 		
-		return Single.<Record>create(new Single.OnSubscribe<Record>() {
+		return Single.<Record>create(new Command<Record>() {
 
 			@Override
-			public void call(final SingleSubscriber<? super Record> subscriber) {
+			protected void submit(final SingleSubscriber<? super Record> subscriber) {
 
 				client.get(queryPolicy, new RecordListener() {
 
@@ -225,10 +257,10 @@ public final class AerospikeRxClient {
 	
 	public Single<Record> getHeader(final QueryPolicy queryPolicy, final Key key, final ExceptionTransformer<?> exceptionTransformer) {
 		
-		return Single.<Record>create(new Single.OnSubscribe<Record>() {
+		return Single.<Record>create(new Command<Record>() {
 
 			@Override
-			public void call(final SingleSubscriber<? super Record> subscriber) {
+			protected void submit(final SingleSubscriber<? super Record> subscriber) {
 
 				client.getHeader(queryPolicy, new RecordListener() {
 
@@ -310,10 +342,10 @@ public final class AerospikeRxClient {
 	
 	public Single<Record> get(final QueryPolicy queryPolicy, final Key key, final String[] binNames, final ExceptionTransformer<?> exceptionTransformer) {
 		
-		return Single.<Record>create(new Single.OnSubscribe<Record>() {
+		return Single.<Record>create(new Command<Record>() {
 
 			@Override
-			public void call(final SingleSubscriber<? super Record> subscriber) {
+			protected void submit(final SingleSubscriber<? super Record> subscriber) {
 
 				client.get(queryPolicy, new RecordListener() {
 
@@ -334,6 +366,41 @@ public final class AerospikeRxClient {
 		});
 	}	
 	
+	/**
+	 * Gets records by a single batch request, every BatchRead defines own bin names
+	 * 
+	 * @param batchPolicy - batch policy
+	 * @param records - keys and bin names, results are stored in the record fields
+	 * @param exceptionTransformer - exception transformer
+	 * @return list of batch reads with records or nulls
+	 */
+	
+	public Single<List<BatchRead>> get(final BatchPolicy batchPolicy, final List<BatchRead> records, final ExceptionTransformer<?> exceptionTransformer) {
+		
+		return Single.<List<BatchRead>>create(new Command<List<BatchRead>>() {
+
+			@Override
+			protected void submit(final SingleSubscriber<? super List<BatchRead>> subscriber) {
+
+				client.get(batchPolicy, new BatchListListener() {
+
+					@Override
+					public void onSuccess(List<BatchRead> records) {
+						subscriber.onSuccess(records);
+					}
+
+					@Override
+					public void onFailure(AerospikeException exception) {
+						subscriber.onError(exceptionTransformer.transformException(exception));
+					}
+					
+				}, records);
+
+			}
+			
+		});
+	}	
+	
 	/**
 	 * Puts bins to the record with specific write policy
 	 * 
@@ -346,10 +413,10 @@ public final class AerospikeRxClient {
 	
 	public Single<Long> put(final WritePolicy writePolicy, final Key key, final AerospikeBins bins, final ExceptionTransformer<?> exceptionTransformer) {
 		
-		return Single.<Long>create(new Single.OnSubscribe<Long>() {
+		return Single.<Long>create(new Command<Long>() {
 
 			@Override
-			public void call(final SingleSubscriber<? super Long> subscriber) {
+			protected void submit(final SingleSubscriber<? super Long> subscriber) {
 				
 				client.put(writePolicy, new WriteListener() {
 
@@ -377,6 +444,49 @@ public final class AerospikeRxClient {
 		
 	}
 	
+	/**
+	 * Puts and deletes bins of the record in one operate call
+	 * 
+	 * @param writePolicy - write policy
+	 * @param key - major key
+	 * @param bins - updating bins, null bins are deleted
+	 * @param exceptionTransformer - exception transformer
+	 * @return writtenBytes or null
+	 */
+	
+	public Single<Long> operate(final WritePolicy writePolicy, final Key key, final AerospikeBins bins, final ExceptionTransformer<?> exceptionTransformer) {
+		
+		return Single.<Long>create(new Command<Long>() {
+
+			@Override
+			protected void submit(final SingleSubscriber<? super Long> subscriber) {
+				
+				client.operate(writePolicy, new RecordListener() {
+
+					@Override
+					public void onSuccess(Key key, Record record) {
+						subscriber.onSuccess(bins.getWrittableBytes());
+					}
+
+					@Override
+					public void onFailure(AerospikeException exception) {
+						DattyException e = exceptionTransformer.transformException(exception);
+						if (e != null) {
+							subscriber.onError(e);
+						}
+						else {
+							subscriber.onSuccess(null);
+						}
+					}
+					
+				}, key, bins.getPutOperations());
+
+			}
+			
+		});
+		
+	}
+	
 	/**
 	 * Remove record
 	 * 
@@ -388,10 +498,10 @@ public final class AerospikeRxClient {
 	
 	public Single<Boolean> remove(final WritePolicy writePolicy, final Key key, final ExceptionTransformer<?> exceptionTransformer) {
 		
-		return Single.<Boolean>create(new Single.OnSubscribe<Boolean>() {
+		return Single.<Boolean>create(new Command<Boolean>() {
 
 			@Override
-			public void call(final SingleSubscriber<? super Boolean> subscriber) {
+			protected void submit(final SingleSubscriber<? super Boolean> subscriber) {
 				
 				client.delete(writePolicy, new DeleteListener() {
 
@@ -419,6 +529,119 @@ public final class AerospikeRxClient {
 		
 	}
 	
+	/**
+	 * Queries records by the secondary index on the io scheduler. Record set of the client has the bounded
+	 * queue, records are taken from it only on request, so the slow subscriber slows down the query.
+	 * Record set is closed on unsubscribe, that wakes up the loop waiting for the next record.
+	 * Subscriber that is still subscribed always gets onCompleted or onError.
+	 * 
+	 * @param queryPolicy - query policy
+	 * @param statement - statement
+	 * @param exceptionTransformer - exception transformer
+	 * @return records
+	 */
+	
+	public Observable<AerospikeRecord> query(final QueryPolicy queryPolicy, final Statement statement, final ExceptionTransformer<?> exceptionTransformer) {
+		
+		return Observable.<AerospikeRecord>create(new Observable.OnSubscribe<AerospikeRecord>() {
+
+			@Override
+			public void call(final Subscriber<? super AerospikeRecord> subscriber) {
+
+				final BlockingEmitter<AerospikeRecord> emitter = new BlockingEmitter<AerospikeRecord>(subscriber);
+				
+				final RecordSet recordSet;
+				try {
+					recordSet = client.query(queryPolicy, statement);
+				}
+				catch(AerospikeException e) {
+					subscriber.onError(exceptionTransformer.transformException(e));
+					return;
+				}
+				
+				subscriber.add(Subscriptions.create(new Action0() {
+
+					@Override
+					public void call() {
+						recordSet.close();
+					}
+					
+				}));
+				
+				try {
+					
+					while (recordSet.next()) {
+						if (!emitter.emit(new AerospikeRecord(recordSet.getKey(), recordSet.getRecord()))) {
+							return;
+						}
+					}
+					
+					if (!subscriber.isUnsubscribed()) {
+						subscriber.onCompleted();
+					}
+				}
+				catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+					if (!subscriber.isUnsubscribed()) {
+						subscriber.onError(exceptionTransformer.transformException(new AerospikeException.QueryTerminated(e)));
+					}
+				}
+				catch(AerospikeException e) {
+					if (!subscriber.isUnsubscribed()) {
+						subscriber.onError(exceptionTransformer.transformException(e));
+					}
+				}
+				finally {
+					recordSet.close();
+				}
+
+			}
+			
+		}).subscribeOn(Schedulers.io());
+	}
+	
+	/**
+	 * Delete record, unlike remove reports only records that existed
+	 * 
+	 * @param writePolicy - write policy
+	 * @param key - major key
+	 * @param exceptionTransformer - exception transformer
+	 * @return true if record existed and was deleted
+	 */
+	
+	public Single<Boolean> delete(final WritePolicy writePolicy, final Key key, final ExceptionTransformer<?> exceptionTransformer) {
+		
+		return Single.<Boolean>create(new Command<Boolean>() {
+
+			@Override
+			protected void submit(final SingleSubscriber<? super Boolean> subscriber) {
+				
+				client.delete(writePolicy, new DeleteListener() {
+
+					@Override
+					public void onSuccess(Key key, boolean existed) {
+						subscriber.onSuccess(existed);
+					}
+
+					@Override
+					public void onFailure(AerospikeException exception) {
+						DattyException e = exceptionTransformer.transformException(exception);
+						if (e != null) {
+							subscriber.onError(e);
+						}
+						else {
+							subscriber.onSuccess(false);
+						}
+					}
+					
+				}, key);
+
+			}
+			
+		});
+		
+	}
+	
 	/**
 	 * Execute UDF function under majorKey
 	 * 
@@ -433,10 +656,10 @@ public final class AerospikeRxClient {
 	
 	public Single<Object> execute(final WritePolicy writePolicy, final Key key, final String packageName, final String functionName, final Value[] arguments, final ExceptionTransformer<?> exceptionTransformer) {
 		
-		return Single.<Object>create(new Single.OnSubscribe<Object>() {
+		return Single.<Object>create(new Command<Object>() {
 
 			@Override
-			public void call(final SingleSubscriber<? super Object> subscriber) {
+			protected void submit(final SingleSubscriber<? super Object> subscriber) {
 				
 				client.execute(writePolicy, new ExecuteListener() {
 
@@ -458,4 +681,60 @@ public final class AerospikeRxClient {
 		
 	}
 	
+	/**
+	 * Single-record async command, counts the command from the submit to the callback
+	 */
+	
+	private abstract class Command<T> implements Single.OnSubscribe<T> {
+
+		@Override
+		public void call(final SingleSubscriber<? super T> subscriber) {
+			
+			final AtomicBoolean done = new AtomicBoolean();
+			
+			queuedCommands.incrementAndGet();
+			inFlightCommands.incrementAndGet();
+			
+			try {
+				
+				submit(new SingleSubscriber<T>() {
+
+					@Override
+					public void onSuccess(T value) {
+						if (done.compareAndSet(false, true)) {
+							inFlightCommands.decrementAndGet();
+							completedCommands.incrementAndGet();
+						}
+						subscriber.onSuccess(value);
+					}
+
+					@Override
+					public void onError(Throwable error) {
+						if (done.compareAndSet(false, true)) {
+							inFlightCommands.decrementAndGet();
+							failedCommands.incrementAndGet();
+						}
+						subscriber.onError(error);
+					}
+					
+				});
+				
+			}
+			catch(RuntimeException e) {
+				if (done.compareAndSet(false, true)) {
+					inFlightCommands.decrementAndGet();
+					rejectedCommands.incrementAndGet();
+				}
+				throw e;
+			}
+			finally {
+				queuedCommands.decrementAndGet();
+			}
+			
+		}
+		
+		protected abstract void submit(SingleSubscriber<? super T> subscriber);
+		
+	}
+	
 }
@@ -13,7 +13,7 @@
  */
 package io.datty.aerospike;
 
-import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
@@ -83,9 +83,22 @@ public class AerospikeSet implements DattySet {
 		CONFIG_UPDATER.set(this, new AerospikeSetConfig(parent.getConfig(), newProps));
 	}
 
+	/**
+	 * Operation metrics of the set, commands are counted by the shared client for all sets of the manager
+	 */
+	
 	@Override
 	public Map<String, String> getStatistics() {
-		return Collections.emptyMap();
+		AerospikeRxClient client = parent.getClient();
+		Map<String, String> map = new LinkedHashMap<String, String>(parent.getMetrics().getStatistics(name));
+		map.put("inFlightCommands", Long.toString(client.getInFlightCommands()));
+		map.put("queuedCommands", Long.toString(client.getQueuedCommands()));
+		map.put("completedCommands", Long.toString(client.getCompletedCommands()));
+		map.put("failedCommands", Long.toString(client.getFailedCommands()));
+		map.put("rejectedCommands", Long.toString(client.getRejectedCommands()));
+		map.put("asyncMaxCommands", Integer.toString(parent.getConfig().getClientPolicy().asyncMaxCommands));
+		map.put("asyncMaxCommandAction", String.valueOf(parent.getConfig().getClientPolicy().asyncMaxCommandAction));
+		return map;
 	}
 
 	@Override
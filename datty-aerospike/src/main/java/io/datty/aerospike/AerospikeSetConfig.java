@@ -13,15 +13,22 @@
  */
 package io.datty.aerospike;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
+import com.aerospike.client.policy.BatchPolicy;
 import com.aerospike.client.policy.QueryPolicy;
 import com.aerospike.client.policy.RecordExistsAction;
 import com.aerospike.client.policy.WritePolicy;
+import com.aerospike.client.query.IndexType;
 
 import io.datty.api.DattyOperation;
 import io.datty.api.operation.Execute;
 import io.datty.api.operation.Push;
+import io.datty.support.exception.DattyFactoryException;
 
 /**
  * AerospikeSetConfig
@@ -37,12 +44,41 @@ public final class AerospikeSetConfig {
 	
 	private final QueryPolicy queryPolicy;
 	private final WritePolicy writePolicy;
+	private final BatchPolicy batchPolicy;
+	private final Map<String, IndexType> indexBins;
 	
 	public AerospikeSetConfig(AerospikeConfig parent, Properties properties) {
 		this.parent = parent;
 		this.properties = properties;
 		this.queryPolicy = AerospikeConfig.fillQueryPolicy(parent.copyQueryPolicy(), properties);
 		this.writePolicy = AerospikeConfig.fillWritePolicy(parent.copyWritePolicy(), properties);
+		this.batchPolicy = AerospikeConfig.fillBatchPolicy(parent.copyBatchPolicy(), properties);
+		this.indexBins = createIndexBins(properties);
+	}
+	
+	private static Map<String, IndexType> createIndexBins(Properties properties) {
+		
+		Map<String, IndexType> map = new HashMap<String, IndexType>();
+		addIndexBins(map, properties.getProperty(AerospikePropertyKeys.STRING_INDEX_BINS), IndexType.STRING);
+		addIndexBins(map, properties.getProperty(AerospikePropertyKeys.NUMERIC_INDEX_BINS), IndexType.NUMERIC);
+		
+		return Collections.unmodifiableMap(map);
+	}
+	
+	private static void addIndexBins(Map<String, IndexType> map, String binNames, IndexType indexType) {
+		
+		if (binNames == null) {
+			return;
+		}
+		
+		for (String binName : binNames.split(",")) {
+			binName = binName.trim();
+			if (!binName.isEmpty() && map.put(binName, indexType) != null) {
+				throw new DattyFactoryException("bin " + binName + " is both in " + AerospikePropertyKeys.STRING_INDEX_BINS 
+						+ " and " + AerospikePropertyKeys.NUMERIC_INDEX_BINS);
+			}
+		}
+		
 	}
 
 	public Properties getProperties() {
@@ -62,8 +98,27 @@ public final class AerospikeSetConfig {
 		return getQueryPolicy(copy);
 	}
 
+	public BatchPolicy getBatchPolicy(boolean copy) {
+		return copy ? new BatchPolicy(batchPolicy) : batchPolicy;
+	}
+	
+	public BatchPolicy getBatchPolicy(List<? extends DattyOperation> operations, boolean copy) {
+		int timeoutMillis = 0;
+		for (DattyOperation operation : operations) {
+			if (operation.hasTimeoutMillis()) {
+				timeoutMillis = Math.max(timeoutMillis, operation.getTimeoutMillis());
+			}
+		}
+		if (timeoutMillis > 0) {
+			BatchPolicy newBatchPolicy = new BatchPolicy(batchPolicy);
+			newBatchPolicy.timeout = timeoutMillis;
+			return newBatchPolicy;
+		}
+		return getBatchPolicy(copy);
+	}
+
 	public WritePolicy getWritePolicy(boolean copy) {
-		return copy ? new WritePolicy() : writePolicy;
+		return copy ? new WritePolicy(writePolicy) : writePolicy;
 	}
 	
 	public WritePolicy getWritePolicy(Push operation, boolean copy) {
@@ -73,11 +128,11 @@ public final class AerospikeSetConfig {
 		switch(operation.getUpdatePolicy()) {
 		
 			case MERGE:
-				writePolicy.recordExistsAction = RecordExistsAction.UPDATE;
+				newWritePolicy.recordExistsAction = RecordExistsAction.UPDATE;
 				break;
 				
 			case REPLACE:
-				writePolicy.recordExistsAction = RecordExistsAction.REPLACE;
+				newWritePolicy.recordExistsAction = RecordExistsAction.REPLACE;
 				break;
 	  }
 		
@@ -107,6 +162,16 @@ public final class AerospikeSetConfig {
 		return newWritePolicy;
 	}
 
+	/**
+	 * Gets bins that are written as string or integer particles for secondary indexes
+	 * 
+	 * @return index type by bin name
+	 */
+	
+	public Map<String, IndexType> getIndexBins() {
+		return indexBins;
+	}
+	
 	public AerospikeConfig getParent() {
 		return parent;
 	}
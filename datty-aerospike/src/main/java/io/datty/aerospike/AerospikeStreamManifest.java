@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.aerospike;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * AerospikeStreamManifest
+ *
+ * Stored in the header chunk after all chunks of the value, blob is [int chunks][long generation][long length][long crc32].
+ * Chunks of the value are stored under the generation, so the new value never overwrites chunks of the live one
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class AerospikeStreamManifest {
+
+	public static final int SIZE = 28;
+
+	private final int chunks;
+	private final long generation;
+	private final long length;
+	private final long checksum;
+
+	public AerospikeStreamManifest(int chunks, long generation, long length, long checksum) {
+		this.chunks = chunks;
+		this.generation = generation;
+		this.length = length;
+		this.checksum = checksum;
+	}
+
+	public int getChunks() {
+		return chunks;
+	}
+
+	public long getGeneration() {
+		return generation;
+	}
+
+	public long getLength() {
+		return length;
+	}
+
+	public long getChecksum() {
+		return checksum;
+	}
+
+	public ByteBuf toByteBuf() {
+		return Unpooled.buffer(SIZE, SIZE)
+				.writeInt(chunks)
+				.writeLong(generation)
+				.writeLong(length)
+				.writeLong(checksum);
+	}
+
+	/**
+	 * Parses bin value of the header chunk
+	 *
+	 * @param aerospikeValue - bin value or null
+	 * @return manifest or null if value is not a manifest
+	 */
+
+	public static AerospikeStreamManifest parse(Object aerospikeValue) {
+
+		if (!(aerospikeValue instanceof byte[])) {
+			return null;
+		}
+
+		byte[] blob = (byte[]) aerospikeValue;
+		if (blob.length != SIZE) {
+			return null;
+		}
+
+		ByteBuf buffer = Unpooled.wrappedBuffer(blob);
+		return new AerospikeStreamManifest(buffer.readInt(), buffer.readLong(), buffer.readLong(), buffer.readLong());
+	}
+
+	@Override
+	public String toString() {
+		return "AerospikeStreamManifest [chunks=" + chunks + ", generation=" + generation + ", length=" + length + ", checksum=" + checksum + "]";
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.aerospike.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import com.aerospike.client.BatchRead;
+import com.aerospike.client.Key;
+import com.aerospike.client.policy.BatchPolicy;
+
+import io.datty.aerospike.AerospikeDattyManager;
+import io.datty.aerospike.AerospikeSet;
+import io.datty.api.DattyResult;
+import io.datty.api.operation.Fetch;
+import io.datty.api.operation.RecordOperation;
+import rx.Single;
+import rx.functions.Func1;
+
+/**
+ * AerospikeBatchFetch
+ * 
+ * Reads all records by one batch request, every BatchRead carries own bin names,
+ * so fetches with different minor keys go together
+ * 
+ * @author Alex Shvid
+ *
+ */
+
+public enum AerospikeBatchFetch implements AerospikeBatchOperation {
+
+	INSTANCE;
+	
+	@Override
+	public Single<List<DattyResult>> execute(AerospikeSet set, final List<RecordOperation> operations) {
+		
+		AerospikeDattyManager manager = set.getParent();
+		BatchPolicy batchPolicy = set.getConfig().getBatchPolicy(operations, false);
+		String namespace = manager.getConfig().getNamespace();
+		
+		List<BatchRead> records = new ArrayList<BatchRead>(operations.size());
+		
+		for (RecordOperation op : operations) {
+			
+			Fetch operation = (Fetch) op;
+			Key recordKey = new Key(namespace, set.getName(), operation.getMajorKey());
+			Set<String> minorKeys = operation.getMinorKeys();
+			
+			if (operation.isAllMinorKeys()) {
+				records.add(new BatchRead(recordKey, true));
+			}
+			else if (minorKeys.isEmpty()) {
+				records.add(new BatchRead(recordKey, false));
+			}
+			else {
+				records.add(new BatchRead(recordKey, minorKeys.toArray(new String[minorKeys.size()])));
+			}
+			
+		}
+		
+		Single<List<BatchRead>> result = manager.getClient().get(batchPolicy, records, set.singleExceptionTransformer(operations.get(0), false));
+		
+		return result.map(new Func1<List<BatchRead>, List<DattyResult>>() {
+
+			@Override
+			public List<DattyResult> call(List<BatchRead> list) {
+				
+				int size = operations.size();
+				List<DattyResult> results = new ArrayList<DattyResult>(size);
+				
+				for (int i = 0; i != size; ++i) {
+					results.add(AerospikeFetch.toFetchResult(list.get(i).record, (Fetch) operations.get(i)));
+				}
+				
+				return results;
+			}
+			
+		});
+		
+	}
+	
+}
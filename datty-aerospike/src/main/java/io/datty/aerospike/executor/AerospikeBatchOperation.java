@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.aerospike.executor;
+
+import java.util.List;
+
+import io.datty.aerospike.AerospikeSet;
+import io.datty.api.DattyResult;
+import io.datty.api.operation.RecordOperation;
+import rx.Single;
+
+/**
+ * AerospikeBatchOperation
+ * 
+ * @author Alex Shvid
+ *
+ */
+
+public interface AerospikeBatchOperation {
+	
+	/**
+	 * Executes operations of the same type in a single batch
+	 * 
+	 * @param set - datty set
+	 * @param operations - datty operations
+	 * @return results in the same order as operations
+	 */
+	
+	Single<List<DattyResult>> execute(AerospikeSet set, List<RecordOperation> operations);
+	
+}
@@ -13,23 +13,40 @@
  */
 package io.datty.aerospike.executor;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.policy.ScanPolicy;
 import com.aerospike.client.policy.WritePolicy;
 
 import io.datty.aerospike.AerospikeConstants;
+import io.datty.aerospike.AerospikeConfig;
 import io.datty.aerospike.AerospikeDattyManager;
+import io.datty.aerospike.AerospikeRecord;
 import io.datty.aerospike.AerospikeSet;
 import io.datty.aerospike.AerospikeVersion;
 import io.datty.aerospike.info.AerospikeCommandCallable;
 import io.datty.aerospike.info.AerospikeDeleteSetRequest;
 import io.datty.aerospike.info.AerospikeTruncateRequest;
+import io.datty.aerospike.support.ExceptionTransformer;
+import io.datty.api.DattyError;
 import io.datty.api.operation.Clear;
 import io.datty.api.result.RecordResult;
+import io.datty.support.exception.DattyOperationException;
 import rx.Observable;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
 import rx.functions.Func1;
 
 /**
  * AerospikeClear
  * 
+ * Scan-and-delete emits the running count of deleted records as the progress, the last result has the total.
+ * Server-side truncate or set-delete and scan-and-delete are fallbacks for each other,
+ * the fallback is used only if the first mode failed before any result.
+ * 
  * @author Alex Shvid
  *
  */
@@ -39,86 +56,233 @@ public enum AerospikeClear implements AerospikeSetOperation<Clear> {
 	INSTANCE;
 
 	@Override
-	public Observable<RecordResult> execute(AerospikeSet set, Clear operation) {
+	public Observable<RecordResult> execute(final AerospikeSet set, Clear operation) {
 		
-		AerospikeDattyManager manager = set.getParent();
+		final AerospikeDattyManager manager = set.getParent();
 		
-		if (manager.getConfig().isScanAndDelete()) {
-			return doScanAndDelete(set, operation);
-		}
+		Observable<RecordResult> result;
 		
-		AerospikeVersion version = manager.getVersion();
-		if (version.compareTo(AerospikeConstants.VERSION_3_12) >= 0) {
-			return doTruncate(set);
+		if (manager.getConfig().isScanAndDelete()) {
+			result = withFallback(doScanAndDelete(set, operation), doServerSide(set, operation));
 		}
-		else {				
-			return doDeleteAll(set);
+		else {
+			result = withFallback(doServerSide(set, operation), doScanAndDelete(set, operation));
 		}
 		
+		return result.doOnTerminate(new Action0() {
+
+			@Override
+			public void call() {
+				manager.getInfoCache().invalidate(set.getName());
+			}
+			
+		});
 	}
 	
-	protected Observable<RecordResult> doTruncate(AerospikeSet set) {
-		
-		AerospikeDattyManager manager = set.getParent();
+	/**
+	 * Progress results already emitted by the first mode can not be mixed with the results of the fallback,
+	 * so the error after the first result is propagated as is
+	 */
+	
+	private static Observable<RecordResult> withFallback(final Observable<RecordResult> first, final Observable<RecordResult> fallback) {
 		
-		AerospikeTruncateRequest request = new AerospikeTruncateRequest(manager.getConfig().getNamespace(), set.getName());
-		Observable<String> response = new AerospikeCommandCallable(manager, request.toCommand()).toOservable();
+		return Observable.defer(new Func0<Observable<RecordResult>>() {
 
-		return response.map(new Func1<String, RecordResult>() {
+			@Override
+			public Observable<RecordResult> call() {
+				
+				final AtomicBoolean emitted = new AtomicBoolean();
+				
+				return first.doOnNext(new Action1<RecordResult>() {
+
+					@Override
+					public void call(RecordResult result) {
+						emitted.set(true);
+					}
+					
+				})
+				.onErrorResumeNext(new Func1<Throwable, Observable<RecordResult>>() {
+
+					@Override
+					public Observable<RecordResult> call(Throwable t) {
+						return emitted.get() ? Observable.<RecordResult>error(t) : fallback;
+					}
+					
+				});
+			}
+			
+		});
+		
+	}
+	
+	protected Observable<RecordResult> doServerSide(final AerospikeSet set, final Clear operation) {
+		
+		return Observable.defer(new Func0<Observable<RecordResult>>() {
 
 			@Override
-			public RecordResult call(String response) {
-				return new RecordResult();
+			public Observable<RecordResult> call() {
+				
+				AerospikeVersion version = set.getParent().getVersion();
+				if (version.compareTo(AerospikeConstants.VERSION_3_12) >= 0) {
+					return doTruncate(set, operation);
+				}
+				else {				
+					return doDeleteAll(set, operation);
+				}
+				
 			}
 			
 		});
 		
 	}
 	
-	protected Observable<RecordResult> doDeleteAll(AerospikeSet set) {
+	protected Observable<RecordResult> doTruncate(AerospikeSet set, Clear operation) {
 		
 		AerospikeDattyManager manager = set.getParent();
 		
-		AerospikeDeleteSetRequest request = new AerospikeDeleteSetRequest(manager.getConfig().getNamespace(), set.getName());
+		AerospikeTruncateRequest request = new AerospikeTruncateRequest(manager.getConfig().getNamespace(), set.getName());
 		Observable<String> response = new AerospikeCommandCallable(manager, request.toCommand()).toOservable();
 
-		return response.map(new Func1<String, RecordResult>() {
+		return response.map(new CommandResponseFunc(operation));
+		
+	}
+	
+	protected Observable<RecordResult> doDeleteAll(AerospikeSet set, Clear operation) {
+		
+		AerospikeDattyManager manager = set.getParent();
+		
+		AerospikeDeleteSetRequest request = new AerospikeDeleteSetRequest(manager.getConfig().getNamespace(), set.getName());
+		Observable<String> response = new AerospikeCommandCallable(manager, request.toCommand()).toOservable();
 
-			@Override
-			public RecordResult call(String response) {
-				return new RecordResult();
-			}
-			
-		});
+		return response.map(new CommandResponseFunc(operation));
 		
 	}
 	
-	protected Observable<RecordResult> doScanAndDelete(AerospikeSet set, Clear operation) {
+	/**
+	 * Scans keys only by nodes and deletes them with bounded number of deletes in flight,
+	 * the scan thread waits while the window is full. Failed deletes do not stop the scan,
+	 * they are reported by the error after all keys.
+	 */
+	
+	protected Observable<RecordResult> doScanAndDelete(final AerospikeSet set, final Clear operation) {
 				
-		AerospikeDattyManager manager = set.getParent();
+		final AerospikeDattyManager manager = set.getParent();
+		final AerospikeConfig config = manager.getConfig();
 		
-		WritePolicy deletePolity = set.getConfig().getWritePolicy(true);
-		deletePolity.sendKey = false;
+		final ScanPolicy scanPolicy = AerospikeConfig.copyScanPolicy(config.getClientPolicy().scanPolicyDefault);
+		scanPolicy.includeBinData = false;
 		
-		Observable<Long> result = manager.getClient().scanAndDelete(
-				manager.getConfig().getClientPolicy().scanPolicyDefault, 
-				deletePolity, 
-				manager.getConfig().getNamespace(),
-				set.getName(), 
-				set.singleExceptionTransformer(operation, false));
+		final WritePolicy deletePolicy = set.getConfig().getWritePolicy(true);
+		deletePolicy.sendKey = false;
 		
-		return result.map(new Func1<Long, RecordResult>() {
+		final ExceptionTransformer<?> transformer = set.singleExceptionTransformer(operation, false);
+		
+		final int progressRecords = config.getClearProgressRecords();
+		
+		return Observable.defer(new Func0<Observable<RecordResult>>() {
 
 			@Override
-			public RecordResult call(Long cnt) {
-				RecordResult res = new RecordResult();
-				res.setCount(cnt);
-				return res;
+			public Observable<RecordResult> call() {
+				
+				final AtomicLong deleted = new AtomicLong();
+				final AtomicLong failed = new AtomicLong();
+				
+				Node[] nodes = manager.getClient().getClient().getNodes();
+				if (nodes.length == 0) {
+					return Observable.error(new DattyOperationException(DattyError.ErrCode.UNKNOWN, "no nodes in the cluster", operation));
+				}
+				
+				return Observable.from(nodes).flatMap(new Func1<Node, Observable<AerospikeRecord>>() {
+
+					@Override
+					public Observable<AerospikeRecord> call(Node node) {
+						return manager.getClient().scanNode(scanPolicy, node, config.getNamespace(), set.getName(), 
+								AerospikeConstants.EMPTY_STRING_ARRAY, transformer);
+					}
+					
+				})
+				.flatMap(new Func1<AerospikeRecord, Observable<Boolean>>() {
+
+					@Override
+					public Observable<Boolean> call(AerospikeRecord record) {
+						return manager.getClient().delete(deletePolicy, record.getKey(), transformer).toObservable()
+								.onErrorReturn(new Func1<Throwable, Boolean>() {
+
+									@Override
+									public Boolean call(Throwable t) {
+										failed.incrementAndGet();
+										return Boolean.FALSE;
+									}
+									
+								});
+					}
+					
+				}, config.getClearDeletes())
+				.filter(new Func1<Boolean, Boolean>() {
+
+					@Override
+					public Boolean call(Boolean existed) {
+						return existed && deleted.incrementAndGet() % progressRecords == 0;
+					}
+					
+				})
+				.map(new Func1<Boolean, RecordResult>() {
+
+					@Override
+					public RecordResult call(Boolean existed) {
+						return countResult(deleted.get());
+					}
+					
+				})
+				.concatWith(Observable.defer(new Func0<Observable<RecordResult>>() {
+
+					@Override
+					public Observable<RecordResult> call() {
+						
+						if (failed.get() > 0) {
+							return Observable.error(new DattyOperationException(DattyError.ErrCode.UNKNOWN, 
+									"failed to delete " + failed.get() + " records, deleted " + deleted.get(), operation));
+						}
+						
+						return Observable.just(countResult(deleted.get()));
+					}
+					
+				}));
+				
 			}
 			
-			
 		});
 		
 	}
+	
+	private static RecordResult countResult(long cnt) {
+		RecordResult res = new RecordResult();
+		res.setCount(cnt);
+		return res;
+	}
+	
+	/**
+	 * Info commands return error in the response instead of exception
+	 */
+	
+	private static final class CommandResponseFunc implements Func1<String, RecordResult> {
+
+		private final Clear operation;
+		
+		CommandResponseFunc(Clear operation) {
+			this.operation = operation;
+		}
+		
+		@Override
+		public RecordResult call(String response) {
+			
+			if (response == null || response.startsWith("ERROR") || response.startsWith("FAIL")) {
+				throw new DattyOperationException(DattyError.ErrCode.UNKNOWN, "aerospike command error: " + response, operation);
+			}
+			
+			return new RecordResult();
+		}
+		
+	}
 
 }
@@ -75,7 +75,7 @@ public enum AerospikeFetch implements AerospikeOperation<Fetch, FetchResult> {
 		
 	}
 	
-	private FetchResult toFetchResult(Record record, Fetch operation) {
+	static FetchResult toFetchResult(Record record, Fetch operation) {
 		
 		boolean fetchValues = operation.isFetchValues();
 		
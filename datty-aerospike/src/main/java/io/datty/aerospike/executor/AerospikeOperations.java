@@ -31,6 +31,8 @@ public final class AerospikeOperations {
 	
 	private final static AerospikeOperation<?, ?>[] codeList = new AerospikeOperation<?, ?>[OpCode.max() + 1];
 	
+	private final static AerospikeBatchOperation[] batchCodeList = new AerospikeBatchOperation[OpCode.max() + 1];
+	
 	private AerospikeOperations() {
 	}
 	
@@ -39,11 +41,14 @@ public final class AerospikeOperations {
 		setCodeList[OpCode.CLEAR.getCode()] = AerospikeClear.INSTANCE;
 		setCodeList[OpCode.SIZE.getCode()] = AerospikeSize.INSTANCE;
 		setCodeList[OpCode.SCAN.getCode()] = AerospikeScan.INSTANCE;
+		setCodeList[OpCode.SELECT.getCode()] = AerospikeSelect.INSTANCE;
 		
 		codeList[OpCode.FETCH.getCode()] = AerospikeFetch.INSTANCE;
 		codeList[OpCode.PUSH.getCode()] = AerospikePush.INSTANCE;
 		codeList[OpCode.EXECUTE.getCode()] = AerospikeExecute.INSTANCE;
 		
+		batchCodeList[OpCode.FETCH.getCode()] = AerospikeBatchFetch.INSTANCE;
+		
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -56,4 +61,8 @@ public final class AerospikeOperations {
 		return (AerospikeOperation<O, R>) codeList[opcode.getCode()];
 	}
 	
+	public static AerospikeBatchOperation findBatch(OpCode opcode) {
+		return batchCodeList[opcode.getCode()];
+	}
+	
 }
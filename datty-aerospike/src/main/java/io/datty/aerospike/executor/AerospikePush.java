@@ -13,20 +13,19 @@
  */
 package io.datty.aerospike.executor;
 
-import java.util.HashMap;
 import java.util.Map;
 
+import com.aerospike.client.AerospikeException;
 import com.aerospike.client.Key;
-import com.aerospike.client.Record;
-import com.aerospike.client.policy.QueryPolicy;
+import com.aerospike.client.ResultCode;
+import com.aerospike.client.policy.GenerationPolicy;
 import com.aerospike.client.policy.RecordExistsAction;
 import com.aerospike.client.policy.WritePolicy;
 
 import io.datty.aerospike.AerospikeBins;
 import io.datty.aerospike.AerospikeDattyManager;
 import io.datty.aerospike.AerospikeSet;
-import io.datty.aerospike.support.AerospikeValueUtil;
-import io.datty.api.ByteBufValue;
+import io.datty.aerospike.support.ExceptionTransformer;
 import io.datty.api.DattyError;
 import io.datty.api.DattyRecord;
 import io.datty.api.DattyValue;
@@ -34,6 +33,7 @@ import io.datty.api.operation.Push;
 import io.datty.api.result.PushResult;
 import io.datty.api.version.LongVersion;
 import io.datty.api.version.Version;
+import io.datty.support.exception.DattyException;
 import io.datty.support.exception.DattyOperationException;
 import rx.Single;
 import rx.functions.Func1;
@@ -108,49 +108,86 @@ public enum AerospikePush implements AerospikeOperation<Push, PushResult> {
 	}
 	
 	
-	private Single<PushResult> mergeBins(final AerospikeSet set, final Push operation) {
+	/**
+	 * MERGE with null values puts changed bins and deletes null bins in one operate call,
+	 * versioned merge that lost the generation check is not updated
+	 */
+	
+	private Single<PushResult> mergeBins(AerospikeSet set, Push operation) {
 		
-		final DattyRecord rec = operation.getRecord();
-		final AerospikeDattyManager manager = set.getParent();
-		QueryPolicy queryPolicy = set.getConfig().getQueryPolicy(operation, false);
+		DattyRecord rec = operation.getRecord();
+		AerospikeDattyManager manager = set.getParent();
 
-		final WritePolicy writePolicy = set.getConfig().getWritePolicy(operation, true);
-		writePolicy.recordExistsAction = RecordExistsAction.REPLACE;
-		if (operation.useVersion()) {
-			writePolicy.generation = getGenerationNumber(operation);
-		}
+		WritePolicy writePolicy = set.getConfig().getWritePolicy(operation, true);
+		writePolicy.recordExistsAction = RecordExistsAction.UPDATE;
+		applyVersion(writePolicy, operation);
 		
-		final Key recordKey = new Key(manager.getConfig().getNamespace(), set.getName(), operation.getMajorKey());
+		Key recordKey = new Key(manager.getConfig().getNamespace(), set.getName(), operation.getMajorKey());
 		
-
-		return manager.getClient().get(queryPolicy, recordKey, set.singleExceptionTransformer(operation, false))
+		AerospikeBins bins;
+		try {
+			bins = new AerospikeBins(rec.getValues(), true, set.getConfig().getIndexBins());
+		}
+		catch(IllegalArgumentException e) {
+			return Single.error(new DattyOperationException(DattyError.ErrCode.BAD_ARGUMENTS, e.getMessage(), operation, e));
+		}
+		
+		Single<Long> result = manager.getClient().operate(writePolicy, recordKey, bins, 
+				mergeExceptionTransformer(set.singleExceptionTransformer(operation, operation.useVersion())));
 		
-		.flatMap(new Func1<Record, Single<PushResult>>() {
+		return result.map(new Func1<Long, PushResult>() {
 
 			@Override
-			public Single<PushResult> call(Record record) {
-				
-				if (operation.useVersion() && record.generation != writePolicy.generation) {
-					return Single.just(new PushResult().setUpdated(false));
+			public PushResult call(Long writtenBytes) {
+				PushResult res = new PushResult().setUpdated(writtenBytes != null);
+				if (writtenBytes != null) {
+					res.setWrittenBytes(writtenBytes.longValue());
 				}
-				
-				AerospikeBins mergedBins = new AerospikeBins(mergeMaps(record, rec.getValues()));
-				return putBins(manager, set, writePolicy, recordKey, mergedBins, operation);
+				return res;
 			}
 			
 		});
 		
 	}
 	
+	/**
+	 * Deleting bins of the missing record is not an error
+	 */
+	
+	private ExceptionTransformer<DattyOperationException> mergeExceptionTransformer(final ExceptionTransformer<DattyOperationException> transformer) {
+		return new ExceptionTransformer<DattyOperationException>() {
+
+			@Override
+			public DattyException transformException(AerospikeException e) {
+				if (e.getResultCode() == ResultCode.KEY_NOT_FOUND_ERROR) {
+					return null;
+				}
+				return transformer.transformException(e);
+			}
+			
+		};
+	}
+	
+	/**
+	 * Generation is checked only with EXPECT_GEN_EQUAL, default policy ignores it
+	 */
+	
+	private void applyVersion(WritePolicy writePolicy, Push operation) {
+		if (operation.useVersion()) {
+			writePolicy.generation = getGenerationNumber(operation);
+			writePolicy.generationPolicy = GenerationPolicy.EXPECT_GEN_EQUAL;
+		}
+	}
+	
 	private Single<PushResult> putBins(AerospikeDattyManager manager, AerospikeSet set, WritePolicy writePolicy, final Key recordKey, final AerospikeBins bins, final Push operation) {
 		
 		Single<Long> result;
 		
 		if (!bins.isEmpty()) {
-			result = manager.getClient().put(writePolicy, recordKey, bins, set.singleExceptionTransformer(operation, false));
+			result = manager.getClient().put(writePolicy, recordKey, bins, set.singleExceptionTransformer(operation, operation.useVersion()));
 		}
 		else {
-			result = manager.getClient().remove(writePolicy, recordKey, set.singleExceptionTransformer(operation, false))
+			result = manager.getClient().remove(writePolicy, recordKey, set.singleExceptionTransformer(operation, operation.useVersion()))
 					.map(new Func1<Boolean, Long>() {
 
 						@Override
@@ -175,66 +212,41 @@ public enum AerospikePush implements AerospikeOperation<Push, PushResult> {
 		});
 	}
 	
-	private	Map<String, DattyValue> mergeMaps(Record record, Map<String, DattyValue> newValues) {
-		
-		Map<String, DattyValue> mergingMap = new HashMap<String, DattyValue>();
-			
-		if (record.bins != null) {
-			for (Map.Entry<String, Object> e : record.bins.entrySet()) {
-				Object value = e.getValue();
-				if (value != null) {
-					mergingMap.put(e.getKey(), new ByteBufValue(AerospikeValueUtil.toByteBuf(value)));
-				}
-			}
-		}
-		
-		for (Map.Entry<String, DattyValue> e : newValues.entrySet()) {
-			
-			DattyValue value = e.getValue();
-			if (!value.isNull()) {
-				mergingMap.put(e.getKey(), value);
-			}
-			else {
-				mergingMap.remove(e.getKey());
-			}
-			
-		}
-		
-		return mergingMap;
-		
-	}
-	
 	private Single<PushResult> putBins(AerospikeSet set, Push operation) {
 		
 		final DattyRecord rec = operation.getRecord();
 		AerospikeDattyManager manager = set.getParent();
 		
 		WritePolicy writePolicy = set.getConfig().getWritePolicy(operation, false);
-		if (operation.useVersion()) {
-			writePolicy.generation = getGenerationNumber(operation);
-		}
+		applyVersion(writePolicy, operation);
 		
 		Key recordKey = new Key(manager.getConfig().getNamespace(), set.getName(), operation.getMajorKey());
 		
-		return putBins(manager, set, writePolicy, recordKey, new AerospikeBins(rec.getValues()), operation);
+		AerospikeBins bins;
+		try {
+			bins = new AerospikeBins(rec.getValues(), false, set.getConfig().getIndexBins());
+		}
+		catch(IllegalArgumentException e) {
+			return Single.error(new DattyOperationException(DattyError.ErrCode.BAD_ARGUMENTS, e.getMessage(), operation, e));
+		}
+		
+		return putBins(manager, set, writePolicy, recordKey, bins, operation);
 		
 	}
 	
 	private Single<PushResult> removeRecord(AerospikeSet set, Push operation) {
 		
 		AerospikeDattyManager manager = set.getParent();
-		WritePolicy writePolicy = set.getConfig().getWritePolicy(operation.hasTimeoutMillis());
+		WritePolicy writePolicy = new WritePolicy(set.getConfig().getWritePolicy(false));
 		
 		if (operation.hasTimeoutMillis()) {
 			writePolicy.timeout = operation.getTimeoutMillis();
 		}
-		if (operation.useVersion()) {
-			writePolicy.generation = getGenerationNumber(operation);
-		}
+		applyVersion(writePolicy, operation);
 		
 		Key recordKey = new Key(manager.getConfig().getNamespace(), set.getName(), operation.getMajorKey());
 
-		Single<Boolean> result = manager.getClient().remove(writePolicy, recordKey, set.singleExceptionTransformer(operation, false));
+		Single<Boolean> result = manager.getClient().remove(writePolicy, recordKey, set.singleExceptionTransformer(operation, operation.useVersion()));
 		
 		return result.map(new Func1<Boolean, PushResult>() {
 
@@ -17,18 +17,24 @@ import java.util.Map;
 
 import com.aerospike.client.Key;
 import com.aerospike.client.Record;
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.cluster.Partition;
+import com.aerospike.client.policy.ScanPolicy;
 
+import io.datty.aerospike.AerospikeConfig;
 import io.datty.aerospike.AerospikeConstants;
 import io.datty.aerospike.AerospikeDattyManager;
 import io.datty.aerospike.AerospikeRecord;
 import io.datty.aerospike.AerospikeSet;
 import io.datty.aerospike.support.AerospikeValueUtil;
 import io.datty.api.ByteBufValue;
+import io.datty.api.DattyError;
 import io.datty.api.DattyRecord;
 import io.datty.api.DattyValue;
 import io.datty.api.operation.Scan;
 import io.datty.api.result.RecordResult;
 import io.datty.api.version.LongVersion;
+import io.datty.support.exception.DattyOperationException;
 import io.netty.buffer.ByteBuf;
 import rx.Observable;
 import rx.functions.Func1;
@@ -44,29 +50,73 @@ public enum AerospikeScan implements AerospikeSetOperation<Scan> {
 
 	INSTANCE;
 
+	/**
+	 * Every node is scanned by the separate sub-scan, at most parallelism of them run concurrently,
+	 * so parallelism is bounded by the number of nodes.
+	 * 
+	 * Client 3.x can not scan by partition. Partition range is a filter on the client applied after
+	 * the full scan of every node, so any range costs the same as the scan of the whole set.
+	 * Records of different partitions are mixed in the node stream, so every result carries its partition id.
+	 */
+	
 	@Override
-	public Observable<RecordResult> execute(AerospikeSet set, Scan operation) {
+	public Observable<RecordResult> execute(final AerospikeSet set, final Scan operation) {
+		
+		final AerospikeDattyManager manager = set.getParent();
+		
+		ScanPolicy defaultPolicy = manager.getConfig().getClientPolicy().scanPolicyDefault;
+		
+		final ScanPolicy scanPolicy = AerospikeConfig.copyScanPolicy(defaultPolicy);
+		scanPolicy.includeBinData = operation.isScanValues() && defaultPolicy.includeBinData;
+		
+		Node[] nodes = manager.getClient().getClient().getNodes();
+		if (nodes.length == 0) {
+			return Observable.error(new DattyOperationException(DattyError.ErrCode.UNKNOWN, "no nodes in the cluster", operation));
+		}
 		
-		AerospikeDattyManager manager = set.getParent();
+		int parallelism = operation.hasParallelism() ? Math.min(operation.getParallelism(), nodes.length) : nodes.length;
 		
-		Observable<AerospikeRecord> result = manager.getClient().scan(
-				manager.getConfig().getClientPolicy().scanPolicyDefault, 
-				manager.getConfig().getNamespace(),
-				set.getName(), AerospikeConstants.EMPTY_STRING_ARRAY, 
-				set.singleExceptionTransformer(operation, false));
+		Observable<AerospikeRecord> result = Observable.from(nodes).flatMap(new Func1<Node, Observable<AerospikeRecord>>() {
+
+			@Override
+			public Observable<AerospikeRecord> call(Node node) {
+				return manager.getClient().scanNode(
+						scanPolicy, 
+						node,
+						manager.getConfig().getNamespace(),
+						set.getName(), AerospikeConstants.EMPTY_STRING_ARRAY, 
+						set.singleExceptionTransformer(operation, false));
+			}
+			
+		}, parallelism);
 		
-		return result.map(new Func1<AerospikeRecord, RecordResult>() {
+		Observable<RecordResult> results = result.map(new Func1<AerospikeRecord, RecordResult>() {
 
 			@Override
 			public RecordResult call(AerospikeRecord record) {
-				return toRecordResult(record);
+				return toRecordResult(record).setPartitionId(new Partition(record.getKey()).partitionId);
 			}
 			
 		});
 		
+		if (!operation.isAllPartitions()) {
+			
+			results = results.filter(new Func1<RecordResult, Boolean>() {
+
+				@Override
+				public Boolean call(RecordResult result) {
+					return operation.containsPartition(result.getPartitionId());
+				}
+				
+			});
+			
+		}
+		
+		return results;
+		
 	}
 	
-	private RecordResult toRecordResult(AerospikeRecord aeroRecord) {
+	static RecordResult toRecordResult(AerospikeRecord aeroRecord) {
 		
 		RecordResult result = new RecordResult();
 
@@ -83,6 +133,10 @@ public enum AerospikeScan implements AerospikeSetOperation<Scan> {
 			
 			result.setVersion(new LongVersion(record.generation));
 
+			if (record.bins == null) {
+				return result;
+			}
+			
 			for (Map.Entry<String, Object> e : record.bins.entrySet()) {
 				Object value = e.getValue();
 				if (value != null) {
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.aerospike.executor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.aerospike.client.policy.QueryPolicy;
+import com.aerospike.client.query.Filter;
+import com.aerospike.client.query.IndexType;
+import com.aerospike.client.query.Statement;
+
+import io.datty.aerospike.AerospikeDattyManager;
+import io.datty.aerospike.AerospikePropertyKeys;
+import io.datty.aerospike.AerospikeRecord;
+import io.datty.aerospike.AerospikeSet;
+import io.datty.api.DattyError;
+import io.datty.api.DattyRecord;
+import io.datty.api.operation.Select;
+import io.datty.api.operation.SelectFilter;
+import io.datty.api.result.RecordResult;
+import io.datty.support.exception.DattyOperationException;
+import rx.Observable;
+import rx.functions.Func1;
+
+/**
+ * AerospikeSelect
+ * 
+ * Aerospike does not index blob bins, so only minor keys listed in stringIndexBins and numericIndexBins
+ * of the set are written as indexable string and integer bins. The first filter by such minor key goes 
+ * to the secondary index, string index for EQUAL and numeric for RANGE, Select without it is rejected 
+ * with BAD_ARGUMENTS instead of returning nothing. All filters are checked again on the returned bins. 
+ * Bins of filters are fetched even if they are not in the projection and removed from results.
+ * 
+ * @author Alex Shvid
+ *
+ */
+
+public enum AerospikeSelect implements AerospikeSetOperation<Select> {
+
+	INSTANCE;
+
+	@Override
+	public Observable<RecordResult> execute(AerospikeSet set, final Select operation) {
+		
+		AerospikeDattyManager manager = set.getParent();
+		
+		QueryPolicy queryPolicy = manager.getConfig().copyQueryPolicy();
+		if (operation.hasTimeoutMillis()) {
+			queryPolicy.timeout = operation.getTimeoutMillis();
+		}
+		
+		Statement statement = new Statement();
+		statement.setNamespace(manager.getConfig().getNamespace());
+		statement.setSetName(set.getName());
+		
+		if (!operation.isAllMinorKeys()) {
+			Set<String> binNames = new LinkedHashSet<String>(operation.getMinorKeys());
+			for (SelectFilter filter : operation.getFilters()) {
+				binNames.add(filter.getMinorKey());
+			}
+			statement.setBinNames(binNames.toArray(new String[binNames.size()]));
+		}
+		
+		if (operation.hasFilters()) {
+			
+			SelectFilter indexFilter = findIndexFilter(operation, set.getConfig().getIndexBins());
+			if (indexFilter == null) {
+				return Observable.error(new DattyOperationException(DattyError.ErrCode.BAD_ARGUMENTS, 
+						"no filter by the minor key in " + AerospikePropertyKeys.STRING_INDEX_BINS + " or " + AerospikePropertyKeys.NUMERIC_INDEX_BINS 
+						+ " of the set, blob bins are not indexed", operation));
+			}
+			
+			statement.setFilters(toFilter(indexFilter));
+		}
+		
+		Observable<RecordResult> result = manager.getClient().query(queryPolicy, statement, set.singleExceptionTransformer(operation, false))
+				.map(new Func1<AerospikeRecord, RecordResult>() {
+
+					@Override
+					public RecordResult call(AerospikeRecord record) {
+						return AerospikeScan.toRecordResult(record);
+					}
+					
+				});
+		
+		if (operation.hasFilters()) {
+			
+			result = result.filter(new Func1<RecordResult, Boolean>() {
+
+				@Override
+				public Boolean call(RecordResult result) {
+					return result.hasRecord() && operation.matches(result.getRecord().getValues());
+				}
+				
+			});
+			
+		}
+		
+		if (!operation.isAllMinorKeys()) {
+			
+			result = result.map(new Func1<RecordResult, RecordResult>() {
+
+				@Override
+				public RecordResult call(RecordResult result) {
+					DattyRecord rec = result.getRecord();
+					if (rec != null) {
+						for (String minorKey : new ArrayList<String>(rec.minorKeys())) {
+							if (!operation.getMinorKeys().contains(minorKey)) {
+								rec.remove(minorKey);
+							}
+						}
+					}
+					return result;
+				}
+				
+			});
+			
+		}
+		
+		if (operation.hasLimit()) {
+			result = result.take(operation.getLimit());
+		}
+		
+		return result;
+	}
+	
+	private static SelectFilter findIndexFilter(Select operation, Map<String, IndexType> indexBins) {
+		
+		for (SelectFilter filter : operation.getFilters()) {
+			
+			IndexType indexType = indexBins.get(filter.getMinorKey());
+			
+			if (indexType == (filter.getType() == SelectFilter.Type.EQUAL ? IndexType.STRING : IndexType.NUMERIC)) {
+				return filter;
+			}
+			
+		}
+		
+		return null;
+	}
+	
+	private static Filter toFilter(SelectFilter filter) {
+		
+		switch(filter.getType()) {
+		
+		case EQUAL:
+			return Filter.equal(filter.getMinorKey(), filter.getValue());
+			
+		case RANGE:
+			if (filter.isSingleNumber()) {
+				return Filter.equal(filter.getMinorKey(), filter.getBegin());
+			}
+			return Filter.range(filter.getMinorKey(), filter.getBegin(), filter.getEnd());
+		
+		default:
+			throw new IllegalArgumentException("unknown filter type: " + filter.getType());
+		}
+		
+	}
+
+}
@@ -13,11 +13,7 @@
  */
 package io.datty.aerospike.executor;
 
-import io.datty.aerospike.AerospikeDattyManager;
 import io.datty.aerospike.AerospikeSet;
-import io.datty.aerospike.info.AerospikeInfoCallable;
-import io.datty.aerospike.info.AerospikeInfoRequest;
-import io.datty.aerospike.info.AerospikeInfoResponse;
 import io.datty.api.operation.Size;
 import io.datty.api.result.RecordResult;
 import rx.Observable;
@@ -26,6 +22,8 @@ import rx.functions.Func1;
 /**
  * AerospikeSize
  * 
+ * Size is aggregated from all nodes and cached for infoCacheMillis.
+ * 
  * @author Alex Shvid
  *
  */
@@ -37,16 +35,14 @@ public enum AerospikeSize implements AerospikeSetOperation<Size> {
 	@Override
 	public Observable<RecordResult> execute(AerospikeSet set, Size operation) {
 		
-		AerospikeDattyManager manager = set.getParent();
-		AerospikeInfoRequest request = new AerospikeInfoRequest(manager.getConfig().getNamespace(), set.getName());
-		Observable<AerospikeInfoResponse> response = new AerospikeInfoCallable(manager, request).toOservable();
+		Observable<Long> size = set.getParent().getInfoCache().getSetSize(set.getName());
 		
-		return response.map(new Func1<AerospikeInfoResponse, RecordResult>() {
+		return size.map(new Func1<Long, RecordResult>() {
 
 			@Override
-			public RecordResult call(AerospikeInfoResponse response) {
+			public RecordResult call(Long size) {
 				RecordResult result = new RecordResult();
-				result.setCount(response.getNObjects());
+				result.setCount(size);
 				return result;
 			}
 			
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.aerospike.info;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import io.datty.aerospike.AerospikeDattyManager;
+import rx.Observable;
+import rx.functions.Action1;
+import rx.functions.Func1;
+
+/**
+ * AerospikeInfoCache
+ *
+ * Keeps the set size aggregated from all nodes for the configured interval, concurrent requests
+ * of the same set share one fan-out. Failed requests are not cached.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class AerospikeInfoCache {
+
+	private final AerospikeDattyManager manager;
+	private final long cacheMillis;
+	private final ConcurrentMap<String, Entry> sizeMap = new ConcurrentHashMap<String, Entry>();
+
+	public AerospikeInfoCache(AerospikeDattyManager manager, long cacheMillis) {
+		this.manager = manager;
+		this.cacheMillis = cacheMillis;
+	}
+
+	/**
+	 * Gets number of master objects in the set
+	 *
+	 * @param setName - set name
+	 * @return set size
+	 */
+
+	public Observable<Long> getSetSize(final String setName) {
+
+		if (cacheMillis <= 0) {
+			return requestSetSize(setName);
+		}
+
+		for (;;) {
+
+			long now = System.currentTimeMillis();
+
+			Entry entry = sizeMap.get(setName);
+			if (entry != null && entry.expireAtMillis > now) {
+				return entry.value;
+			}
+
+			Entry newEntry = new Entry(now + cacheMillis, requestSetSize(setName), setName);
+
+			boolean updated = entry == null ? sizeMap.putIfAbsent(setName, newEntry) == null : sizeMap.replace(setName, entry, newEntry);
+			if (updated) {
+				return newEntry.value;
+			}
+
+		}
+
+	}
+
+	public void invalidate(String setName) {
+		sizeMap.remove(setName);
+	}
+
+	/**
+	 * Every node reports master and replica objects, so the sum is divided by the replication factor
+	 * that could not be greater than number of nodes
+	 */
+
+	private Observable<Long> requestSetSize(String setName) {
+
+		AerospikeInfoRequest request = new AerospikeInfoRequest(manager.getConfig().getNamespace(), setName);
+
+		return AerospikeInfoCallable.fanOut(manager, request).toList().map(new Func1<List<AerospikeInfoResponse>, Long>() {
+
+			@Override
+			public Long call(List<AerospikeInfoResponse> responses) {
+
+				if (responses.isEmpty()) {
+					return 0L;
+				}
+
+				long objects = 0;
+				int replicationFactor = 1;
+
+				for (AerospikeInfoResponse response : responses) {
+					objects += response.getNObjects();
+					replicationFactor = Math.max(replicationFactor, response.getReplicationFactor());
+				}
+
+				return objects / Math.min(replicationFactor, responses.size());
+			}
+
+		});
+
+	}
+
+	private final class Entry {
+
+		private final long expireAtMillis;
+		private final Observable<Long> value;
+
+		Entry(long expireAtMillis, Observable<Long> request, final String setName) {
+			this.expireAtMillis = expireAtMillis;
+			this.value = request.doOnError(new Action1<Throwable>() {
+
+				@Override
+				public void call(Throwable t) {
+					sizeMap.remove(setName, Entry.this);
+				}
+
+			}).cache();
+		}
+
+	}
+
+}
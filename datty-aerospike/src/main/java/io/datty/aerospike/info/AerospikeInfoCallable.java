@@ -13,6 +13,7 @@
  */
 package io.datty.aerospike.info;
 
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import com.aerospike.client.Info;
@@ -21,11 +22,14 @@ import com.aerospike.client.cluster.Node;
 import io.datty.aerospike.AerospikeDattyManager;
 import io.datty.aerospike.support.RandomUtil;
 import rx.Observable;
+import rx.functions.Func1;
 import rx.schedulers.Schedulers;
 
 /**
  * AerospikeInfoCallable
  * 
+ * Requests set and namespace info from the single node in one round trip.
+ * 
  * @author Alex Shvid
  *
  */
@@ -37,20 +41,49 @@ public final class AerospikeInfoCallable implements Callable<AerospikeInfoRespon
 	private final AerospikeInfoRequest request;
 	
 	public AerospikeInfoCallable(AerospikeDattyManager manager, AerospikeInfoRequest request) {
+		this(manager, RandomUtil.selectRandom(manager.getClient().getClient().getNodes()), request);
+	}
+
+	public AerospikeInfoCallable(AerospikeDattyManager manager, Node node, AerospikeInfoRequest request) {
 		this.manager = manager;
-		Node[] nodes = manager.getClient().getClient().getNodes();
-		this.node = RandomUtil.selectRandom(nodes);
+		this.node = node;
 		this.request = request;
 	}
 
 	@Override
 	public AerospikeInfoResponse call() throws Exception {
-		String response = Info.request(manager.getConfig().getClientPolicy().infoPolicyDefault, node, request.toCommand());
-		return new AerospikeInfoResponse(response);
+		String setCommand = request.toCommand();
+		String namespaceCommand = request.toNamespaceCommand();
+		Map<String, String> response = Info.request(manager.getConfig().getClientPolicy().infoPolicyDefault, node, setCommand, namespaceCommand);
+		String setResponse = response.get(setCommand);
+		return new AerospikeInfoResponse(setResponse != null ? setResponse : "", response.get(namespaceCommand));
 	}
 	
 	public Observable<AerospikeInfoResponse> toOservable() {
 		return Observable.fromCallable(this).subscribeOn(Schedulers.io());
 	}
 	
-}
\ No newline at end of file
+	/**
+	 * Requests all nodes of the cluster in parallel
+	 * 
+	 * @param manager - manager
+	 * @param request - info request
+	 * @return responses in order of completion
+	 */
+	
+	public static Observable<AerospikeInfoResponse> fanOut(final AerospikeDattyManager manager, final AerospikeInfoRequest request) {
+		
+		Node[] nodes = manager.getClient().getClient().getNodes();
+		
+		return Observable.from(nodes).flatMap(new Func1<Node, Observable<AerospikeInfoResponse>>() {
+
+			@Override
+			public Observable<AerospikeInfoResponse> call(Node node) {
+				return new AerospikeInfoCallable(manager, node, request).toOservable();
+			}
+			
+		});
+		
+	}
+	
+}
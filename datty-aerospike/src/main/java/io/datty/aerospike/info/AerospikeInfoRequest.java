@@ -44,6 +44,12 @@ public class AerospikeInfoRequest {
 		return str.toString();
 	}
 
+	public String toNamespaceCommand() {
+		StringBuilder str = new StringBuilder();
+		str.append("namespace/").append(namespace);
+		return str.toString();
+	}
+
 	@Override
 	public String toString() {
 		return "AerospikeInfoRequest [namespace=" + namespace + ", setName=" + setName + "]";
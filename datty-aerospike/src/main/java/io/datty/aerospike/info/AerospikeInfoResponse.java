@@ -27,6 +27,7 @@ public class AerospikeInfoResponse {
 	private static final String KEY_VALUE_SEPARATOR = "=";
 	private static final String TOKEN_SEPARATOR = ":";
 	private static final String COMMAND_SUFFIX = ";";
+	private static final String NAMESPACE_SEPARATOR = ";";
 
 	private static final String N_OBJECTS = "n_objects";
 	private static final String OBJECTS = "objects";
@@ -34,6 +35,8 @@ public class AerospikeInfoResponse {
 	private static final String SET_EVICT_HWM_COUNT = "set-evict-hwm-count";
 	private static final String SET_ENABLE_XDR = "set-enable-xdr";
 	private static final String SET_DELETE = "set-delete";
+	private static final String REPLICATION_FACTOR = "replication-factor";
+	private static final String REPL_FACTOR = "repl-factor";
 
 	private boolean exists;
 	private long nObjects;
@@ -41,7 +44,38 @@ public class AerospikeInfoResponse {
 	private long setEvictHwmCount;
 	private String setEnableXdr;
 	private boolean setDelete;
-
+	private int replicationFactor = 1;
+
+	/**
+	 * Parses set info and replication factor from namespace info of the same node
+	 * 
+	 * @param response - response of sets/namespace/set command
+	 * @param namespaceResponse - response of namespace/namespace command or null
+	 */
+	
+	public AerospikeInfoResponse(String response, String namespaceResponse) {
+		this(response);
+		
+		if (namespaceResponse != null) {
+			
+			StringTokenizer tokenizer = new StringTokenizer(namespaceResponse, NAMESPACE_SEPARATOR);
+			
+			while (tokenizer.hasMoreTokens()) {
+				
+				String token = tokenizer.nextToken();
+				
+				int idx = token.indexOf(KEY_VALUE_SEPARATOR);
+				if (idx != -1) {
+					String key = token.substring(0, idx);
+					if (REPLICATION_FACTOR.equals(key) || REPL_FACTOR.equals(key)) {
+						replicationFactor = (int) Math.max(1, parseLong(token.substring(idx + 1), 1));
+					}
+				}
+			}
+			
+		}
+	}
+	
 	public AerospikeInfoResponse(String response) {
 
 		if (response == null) {
@@ -120,6 +154,10 @@ public class AerospikeInfoResponse {
 		return setDelete;
 	}
 
+	public int getReplicationFactor() {
+		return replicationFactor;
+	}
+
 	private static long parseLong(String str, long fallbackValue) {
 		try {
 			return Long.parseLong(str);
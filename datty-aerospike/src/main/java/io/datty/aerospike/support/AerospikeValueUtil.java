@@ -51,6 +51,14 @@ public final class AerospikeValueUtil {
 		return Unpooled.wrappedBuffer(str.getBytes(StandardCharsets.UTF_8));
 	}
 	
+	/**
+	 * Converts buffer to the blob value without copy, array-backed buffers are wrapped in place,
+	 * other buffers are written to the command buffer by ByteBufBlobValue
+	 * 
+	 * @param bufferOrNull - buffer or null
+	 * @return not null value
+	 */
+	
 	public static Value toValue(ByteBuf bufferOrNull) {
 		
 		if (bufferOrNull == null) {
@@ -59,17 +67,16 @@ public final class AerospikeValueUtil {
 		else if (bufferOrNull.hasArray()) {
 			int start = bufferOrNull.readerIndex();
 			int length = bufferOrNull.readableBytes();
-			if (start != 0 || length != bufferOrNull.capacity()) {
-				int baseOffset = bufferOrNull.arrayOffset() + start;
-				return new ByteSegmentValue(bufferOrNull.array(), baseOffset, baseOffset + length);
+			byte[] array = bufferOrNull.array();
+			int baseOffset = bufferOrNull.arrayOffset() + start;
+			if (baseOffset != 0 || length != array.length) {
+				return new ByteSegmentValue(array, baseOffset, length);
 			} else {
-				return new BytesValue(bufferOrNull.array());
+				return new BytesValue(array);
 			}
 		}
 		else {
-			byte[] bytes = new byte[bufferOrNull.readableBytes()];
-			bufferOrNull.getBytes(bufferOrNull.readerIndex(), bytes);
-			return new BytesValue(bytes);
+			return new ByteBufBlobValue(bufferOrNull);
 		}
 		
 	}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.aerospike.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import rx.Producer;
+import rx.Subscriber;
+
+/**
+ * BlockingEmitter
+ *
+ * Emits values from the blocking callback only when they are requested, the producing thread
+ * waits for requests, so a slow subscriber slows down the socket instead of growing a queue.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class BlockingEmitter<T> implements Producer {
+
+	private static final long WAIT_MILLIS = 100;
+
+	private final Subscriber<? super T> subscriber;
+	private final AtomicLong requested = new AtomicLong();
+
+	public BlockingEmitter(Subscriber<? super T> subscriber) {
+		this.subscriber = subscriber;
+		subscriber.setProducer(this);
+	}
+
+	@Override
+	public void request(long n) {
+
+		if (n <= 0) {
+			return;
+		}
+
+		for (;;) {
+			long current = requested.get();
+			long next = current + n;
+			if (next < 0) {
+				next = Long.MAX_VALUE;
+			}
+			if (requested.compareAndSet(current, next)) {
+				break;
+			}
+		}
+
+		synchronized(requested) {
+			requested.notifyAll();
+		}
+	}
+
+	/**
+	 * Waits for the request and emits value
+	 *
+	 * @param value - value
+	 * @return false if subscriber unsubscribed
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 */
+
+	public boolean emit(T value) throws InterruptedException {
+
+		for (;;) {
+
+			if (subscriber.isUnsubscribed()) {
+				return false;
+			}
+
+			long current = requested.get();
+
+			if (current == Long.MAX_VALUE) {
+				break;
+			}
+
+			if (current > 0) {
+				if (requested.compareAndSet(current, current - 1)) {
+					break;
+				}
+				continue;
+			}
+
+			synchronized(requested) {
+				if (requested.get() == 0) {
+					requested.wait(WAIT_MILLIS);
+				}
+			}
+
+		}
+
+		subscriber.onNext(value);
+		return true;
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.aerospike.support;
+
+import org.luaj.vm2.LuaValue;
+
+import com.aerospike.client.Value;
+import com.aerospike.client.command.ParticleType;
+import com.aerospike.client.lua.LuaInstance;
+import com.aerospike.client.lua.LuaBytes;
+import com.aerospike.client.util.Packer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+/**
+ * ByteBufBlobValue
+ *
+ * Blob value that is written from direct or composite ByteBuf straight to the command buffer.
+ * Readable bytes are not consumed, buffer must not be released until the command is sent.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class ByteBufBlobValue extends Value {
+
+	private final ByteBuf buffer;
+
+	public ByteBufBlobValue(ByteBuf buffer) {
+		this.buffer = buffer;
+	}
+
+	@Override
+	public int estimateSize() {
+		return buffer.readableBytes();
+	}
+
+	@Override
+	public int write(byte[] target, int offset) {
+		int length = buffer.readableBytes();
+		buffer.getBytes(buffer.readerIndex(), target, offset, length);
+		return length;
+	}
+
+	/**
+	 * Packing is used only for list, map and UDF arguments, copies bytes
+	 */
+
+	@Override
+	public void pack(Packer packer) {
+		packer.packBytes(ByteBufUtil.getBytes(buffer));
+	}
+
+	@Override
+	public int getType() {
+		return ParticleType.BLOB;
+	}
+
+	@Override
+	public Object getObject() {
+		return ByteBufUtil.getBytes(buffer);
+	}
+
+	@Override
+	public LuaValue getLuaValue(LuaInstance instance) {
+		return new LuaBytes(instance, ByteBufUtil.getBytes(buffer));
+	}
+
+	public ByteBuf getBuffer() {
+		return buffer;
+	}
+
+	@Override
+	public int hashCode() {
+		return buffer.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		return buffer.equals(((ByteBufBlobValue) obj).buffer);
+	}
+
+	@Override
+	public String toString() {
+		return ByteBufUtil.hexDump(buffer);
+	}
+
+}
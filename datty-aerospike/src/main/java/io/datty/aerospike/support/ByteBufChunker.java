@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.aerospike.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * ByteBufChunker
+ *
+ * Re-slices incoming buffers to chunks of the fixed size, only the last chunk could be smaller.
+ * Large buffers are sliced without copy, small ones are collected in the pending chunk.
+ * Counts length and CRC32 of all bytes. Not thread-safe, one instance per stream.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class ByteBufChunker {
+
+	private static final int SCRATCH_SIZE = 8192;
+
+	private final int chunkSize;
+	private final CRC32 crc = new CRC32();
+	private final byte[] scratch = new byte[SCRATCH_SIZE];
+
+	private ByteBuf pending;
+	private long length;
+
+	public ByteBufChunker(int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Adds buffer to the stream
+	 *
+	 * @param buffer - incoming buffer, readable bytes are consumed
+	 * @return full chunks
+	 */
+
+	public List<ByteBuf> add(ByteBuf buffer) {
+
+		length += buffer.readableBytes();
+		updateChecksum(crc, buffer, scratch);
+
+		List<ByteBuf> chunks = null;
+
+		while (buffer.isReadable()) {
+
+			if (pending == null && buffer.readableBytes() >= chunkSize) {
+				chunks = append(chunks, buffer.readSlice(chunkSize));
+				continue;
+			}
+
+			if (pending == null) {
+				pending = Unpooled.buffer(chunkSize, chunkSize);
+			}
+
+			buffer.readBytes(pending, Math.min(buffer.readableBytes(), pending.writableBytes()));
+
+			if (!pending.isWritable()) {
+				chunks = append(chunks, pending);
+				pending = null;
+			}
+
+		}
+
+		return chunks != null ? chunks : Collections.<ByteBuf>emptyList();
+	}
+
+	/**
+	 * Completes the stream
+	 *
+	 * @return the last incomplete chunk if any
+	 */
+
+	public List<ByteBuf> flush() {
+		if (pending == null) {
+			return Collections.emptyList();
+		}
+		ByteBuf last = pending;
+		pending = null;
+		return Collections.singletonList(last);
+	}
+
+	public long getLength() {
+		return length;
+	}
+
+	public long getChecksum() {
+		return crc.getValue();
+	}
+
+	private static List<ByteBuf> append(List<ByteBuf> chunks, ByteBuf chunk) {
+		if (chunks == null) {
+			chunks = new ArrayList<ByteBuf>(2);
+		}
+		chunks.add(chunk);
+		return chunks;
+	}
+
+	/**
+	 * Updates checksum by readable bytes of the buffer, does not move reader index
+	 *
+	 * @param crc - checksum
+	 * @param buffer - buffer
+	 * @param scratch - copy buffer for direct buffers
+	 */
+
+	public static void updateChecksum(CRC32 crc, ByteBuf buffer, byte[] scratch) {
+
+		int index = buffer.readerIndex();
+		int remaining = buffer.readableBytes();
+
+		if (buffer.hasArray()) {
+			crc.update(buffer.array(), buffer.arrayOffset() + index, remaining);
+			return;
+		}
+
+		while (remaining > 0) {
+			int len = Math.min(remaining, scratch.length);
+			buffer.getBytes(index, scratch, 0, len);
+			crc.update(scratch, 0, len);
+			index += len;
+			remaining -= len;
+		}
+
+	}
+
+}
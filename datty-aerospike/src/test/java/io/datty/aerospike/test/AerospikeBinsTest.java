@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.aerospike.test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.aerospike.client.Bin;
+import com.aerospike.client.query.IndexType;
+
+import io.datty.aerospike.AerospikeBins;
+import io.datty.aerospike.support.AerospikeValueUtil;
+import io.datty.api.ByteBufValue;
+import io.datty.api.DattyValue;
+import io.netty.buffer.Unpooled;
+
+/**
+ * AerospikeBinsTest
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class AerospikeBinsTest {
+
+	private static final Map<String, IndexType> INDEX_BINS = new HashMap<String, IndexType>();
+
+	static {
+		INDEX_BINS.put("name", IndexType.STRING);
+		INDEX_BINS.put("age", IndexType.NUMERIC);
+	}
+
+	@Test
+	public void testIndexBins() {
+
+		Map<String, DattyValue> values = new LinkedHashMap<String, DattyValue>();
+		values.put("name", value("alex"));
+		values.put("age", value("42"));
+		values.put("blob", value("data"));
+
+		Bin[] bins = new AerospikeBins(values, false, INDEX_BINS).getBins();
+		Assert.assertEquals(3, bins.length);
+
+		Assert.assertEquals("alex", bins[0].value.getObject());
+		Assert.assertEquals(42L, bins[1].value.getObject());
+		Assert.assertTrue(bins[2].value.getObject() instanceof byte[]);
+
+		// read back the same way as blobs
+		Assert.assertEquals("alex", AerospikeValueUtil.toByteBuf(bins[0].value.getObject()).toString(StandardCharsets.UTF_8));
+		Assert.assertEquals("42", AerospikeValueUtil.toByteBuf(bins[1].value.getObject()).toString(StandardCharsets.UTF_8));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotNumber() {
+
+		Map<String, DattyValue> values = new LinkedHashMap<String, DattyValue>();
+		values.put("age", value("old"));
+
+		new AerospikeBins(values, false, INDEX_BINS);
+	}
+
+	private static DattyValue value(String str) {
+		return new ByteBufValue(Unpooled.wrappedBuffer(str.getBytes(StandardCharsets.UTF_8)));
+	}
+
+}
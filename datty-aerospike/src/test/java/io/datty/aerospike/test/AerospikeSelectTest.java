@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.aerospike.test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.ResultCode;
+import com.aerospike.client.query.IndexType;
+
+import io.datty.aerospike.AerospikeDattyManager;
+import io.datty.aerospike.AerospikePropertyKeys;
+import io.datty.api.ByteBufValue;
+import io.datty.api.DattyError;
+import io.datty.api.SetExistsAction;
+import io.datty.api.operation.Push;
+import io.datty.api.operation.Select;
+import io.datty.api.result.RecordResult;
+import io.datty.support.exception.DattyOperationException;
+import io.datty.unit.test.AbstractDattyUnitTest;
+import io.netty.buffer.Unpooled;
+
+/**
+ * AerospikeSelectTest
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class AerospikeSelectTest extends AbstractDattyUnitTest {
+
+	private static final String SELECT_SET = "SelectCache";
+
+	private static final int RECORDS = 20;
+
+	@BeforeClass
+	public static void setup() {
+
+		Properties props = new Properties();
+		props.setProperty(AerospikePropertyKeys.STRING_INDEX_BINS, "parity");
+		props.setProperty(AerospikePropertyKeys.NUMERIC_INDEX_BINS, "age");
+		dattyManager.getSet(SELECT_SET, props, SetExistsAction.CREATE_IF_NOT_EXISTS);
+
+		AerospikeDattyManager manager = (AerospikeDattyManager) dattyManager;
+		createIndex(manager, "parity", IndexType.STRING);
+		createIndex(manager, "age", IndexType.NUMERIC);
+
+		for (int i = 0; i != RECORDS; ++i) {
+			dattyManager.getDatty().execute(new Push(SELECT_SET, "key" + i)
+					.addValue("age", value(Integer.toString(i)))
+					.addValue("parity", value(i % 2 == 0 ? "even" : "odd"))
+					.addValue("blob", value("blob" + i))).toBlocking().value();
+		}
+
+	}
+
+	private static void createIndex(AerospikeDattyManager manager, String binName, IndexType indexType) {
+		try {
+			manager.getClient().getClient().createIndex(null, manager.getConfig().getNamespace(), SELECT_SET,
+					SELECT_SET + "_" + binName, binName, indexType).waitTillComplete();
+		}
+		catch(AerospikeException e) {
+			if (e.getResultCode() != ResultCode.INDEX_FOUND) {
+				throw e;
+			}
+		}
+	}
+
+	private static ByteBufValue value(String str) {
+		return new ByteBufValue(Unpooled.wrappedBuffer(str.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private List<RecordResult> select(Select select) {
+		return dattyManager.getDatty().execute(select).toList().toBlocking().single();
+	}
+
+	@Test
+	public void testIndexBins() {
+
+		Assert.assertEquals(RECORDS / 2, select(new Select(SELECT_SET).whereEqual("parity", "odd")).size());
+		Assert.assertEquals(5, select(new Select(SELECT_SET).whereRange("age", 10, 19).whereEqual("parity", "even")).size());
+
+		List<RecordResult> results = select(new Select(SELECT_SET).whereEqual("age", 7));
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals("7", results.get(0).get("age").asByteBuf().toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testBlobBin() {
+
+		try {
+			select(new Select(SELECT_SET).whereEqual("blob", "blob1"));
+			Assert.fail("expected BAD_ARGUMENTS");
+		}
+		catch(DattyOperationException e) {
+			Assert.assertEquals(DattyError.ErrCode.BAD_ARGUMENTS, e.getErrorCode());
+		}
+
+	}
+
+}
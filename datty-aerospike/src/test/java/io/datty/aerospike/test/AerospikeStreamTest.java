@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.aerospike.test;
+
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.datty.api.DattyKey;
+import io.datty.unit.test.AbstractDattyUnitTest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import rx.Observable;
+import rx.functions.Func2;
+
+/**
+ * AerospikeStreamTest
+ *
+ * Unlike the unit stream, streamIn of Aerospike replaces the value
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class AerospikeStreamTest extends AbstractDattyUnitTest {
+
+	@Test
+	public void testReplace() {
+
+		DattyKey key = new DattyKey()
+				.setSetName(SET_NAME)
+				.setMajorKey(UUID.randomUUID().toString())
+				.setMinorKey(minorKey);
+
+		dattyManager.getDatty().streamIn(key, Observable.just(value.resetReaderIndex(), newValue.resetReaderIndex())).toBlocking().value();
+		dattyManager.getDatty().streamIn(key, Observable.just(newValue.resetReaderIndex())).toBlocking().value();
+
+		Assert.assertEquals(newValue.resetReaderIndex(), read(key));
+
+	}
+
+	@Test
+	public void testReplaceConcurrently() {
+
+		DattyKey key = new DattyKey()
+				.setSetName(SET_NAME)
+				.setMajorKey(UUID.randomUUID().toString())
+				.setMinorKey(minorKey);
+
+		Observable.merge(
+				dattyManager.getDatty().streamIn(key, Observable.just(value.resetReaderIndex())).toObservable(),
+				dattyManager.getDatty().streamIn(key, Observable.just(newValue.resetReaderIndex())).toObservable())
+			.toList().toBlocking().single();
+
+		ByteBuf actual = read(key);
+		Assert.assertTrue(actual.equals(value.resetReaderIndex()) || actual.equals(newValue.resetReaderIndex()));
+
+	}
+
+	private ByteBuf read(DattyKey key) {
+
+		return dattyManager.getDatty().streamOut(key)
+				.reduce(Unpooled.buffer(), new Func2<ByteBuf, ByteBuf, ByteBuf>() {
+
+			@Override
+			public ByteBuf call(ByteBuf dest, ByteBuf chunk) {
+				dest.writeBytes(chunk);
+				return dest;
+			}
+
+		}).toBlocking().single();
+
+	}
+
+}
@@ -48,4 +48,26 @@ public interface DattyBatch {
 	
 	Observable<DattyResult> executeSequence(Observable<RecordOperation> operations);
 	
+	/**
+	 * Executes sequence of datty operations with limited number of operations in flight,
+	 * upstream is requested only when results are consumed, results come in completion order
+	 * 
+	 * @param operations - sequence of operations
+	 * @param maxConcurrent - max number of operations in flight
+	 * @return sequence of results
+	 */
+	
+	Observable<DattyResult> executeSequence(Observable<RecordOperation> operations, int maxConcurrent);
+	
+	/**
+	 * Executes sequence of datty operations with limited number of operations in flight,
+	 * operations are pipelined, but results come in the same order as operations
+	 * 
+	 * @param operations - sequence of operations
+	 * @param maxConcurrent - max number of operations in flight
+	 * @return sequence of results
+	 */
+	
+	Observable<DattyResult> executeOrderedSequence(Observable<RecordOperation> operations, int maxConcurrent);
+	
 }
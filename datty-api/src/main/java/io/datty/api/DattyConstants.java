@@ -63,4 +63,34 @@ public final class DattyConstants {
 
 	public static final int MAX_CONCURRENT_TRIES = 5;
 	
+	/**
+	 * Default time window in microseconds to collect fetches in one batch
+	 */
+	
+	public static final long DEFAULT_FETCH_COALESCING_WINDOW_MICROS = 500L;
+	
+	/**
+	 * Default max number of fetches in one batch
+	 */
+	
+	public static final int DEFAULT_FETCH_COALESCING_MAX_BATCH_SIZE = 64;
+	
+	/**
+	 * Number of partitions the set is split for scans, the same as in Aerospike
+	 */
+	
+	public static final int PARTITIONS = 4096;
+	
+	/**
+	 * Default/unset scan parallelism, backend decides
+	 */
+	
+	public static final int UNSET_PARALLELISM = 0;
+	
+	/**
+	 * Default/unset limit of records in select, no limit
+	 */
+	
+	public static final int UNSET_LIMIT = 0;
+	
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.api;
+
+/**
+ * Datty property keys
+ * 
+ * Set properties common for all drivers
+ * 
+ * @author Alex Shvid
+ *
+ */
+
+public final class DattyPropertyKeys {
+
+	private DattyPropertyKeys() {
+	}
+
+	/**
+	 * Fetch coalescing constants
+	 */
+	
+	public static final String FETCH_COALESCING = "fetchCoalescing";
+	
+	public static final String FETCH_COALESCING_WINDOW_MICROS = "fetchCoalescingWindowMicros";
+	
+	public static final String FETCH_COALESCING_MAX_BATCH_SIZE = "fetchCoalescingMaxBatchSize";
+	
+}
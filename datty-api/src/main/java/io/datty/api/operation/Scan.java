@@ -13,15 +13,37 @@
  */
 package io.datty.api.operation;
 
+import io.datty.api.DattyConstants;
+
 /**
  * Scan operation
  * 
+ * Range of partitions selects records by the partition of the major key, every result has its partition id.
+ * Whether the range also reduces the scanned data depends on the backend, Aerospike client 3.x scans
+ * all nodes in full for any range and skips records out of the range on the client.
+ * 
  * @author Alex Shvid
  *
  */
 
 public final class Scan extends AbstractSetOperation<Scan> {
 
+	/**
+	 * Scan only record headers (major keys, versions and minor keys) if false
+	 */
+	
+	private boolean withValues = true;
+	
+	/**
+	 * Max number of sub-scans running concurrently, Aerospike runs one sub-scan per node
+	 */
+	
+	private int parallelism = DattyConstants.UNSET_PARALLELISM;
+	
+	private int partitionBegin = 0;
+	
+	private int partitionCount = DattyConstants.PARTITIONS;
+	
 	public Scan() {
 	}
 	
@@ -29,6 +51,64 @@ public final class Scan extends AbstractSetOperation<Scan> {
 		setSetName(setName);
 	}
 	
+	public boolean isScanValues() {
+		return withValues;
+	}
+
+	public Scan withValues(boolean flag) {
+		this.withValues = flag;
+		return this;
+	}
+	
+	public boolean hasParallelism() {
+		return parallelism != DattyConstants.UNSET_PARALLELISM;
+	}
+	
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public Scan setParallelism(int parallelism) {
+		if (parallelism < 0) {
+			throw new IllegalArgumentException("negative parallelism: " + parallelism);
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+	
+	public int getPartitionBegin() {
+		return partitionBegin;
+	}
+
+	public int getPartitionCount() {
+		return partitionCount;
+	}
+	
+	/**
+	 * Scans only records in the range of partitions
+	 * 
+	 * @param begin - first partition
+	 * @param count - number of partitions
+	 * @return this
+	 */
+	
+	public Scan setPartitions(int begin, int count) {
+		if (begin < 0 || count <= 0 || begin + count > DattyConstants.PARTITIONS) {
+			throw new IllegalArgumentException("invalid partition range: begin=" + begin + ", count=" + count);
+		}
+		this.partitionBegin = begin;
+		this.partitionCount = count;
+		return this;
+	}
+	
+	public boolean isAllPartitions() {
+		return partitionBegin == 0 && partitionCount == DattyConstants.PARTITIONS;
+	}
+	
+	public boolean containsPartition(int partitionId) {
+		return partitionId >= partitionBegin && partitionId < partitionBegin + partitionCount;
+	}
+	
 	@Override
 	public OpCode getCode() {
 		return OpCode.SCAN;
@@ -36,7 +116,8 @@ public final class Scan extends AbstractSetOperation<Scan> {
 
 	@Override
 	public String toString() {
-		return "Scan [setName=" + setName + ", superKey=" + superKey + ", timeoutMillis=" + timeoutMillis
+		return "Scan [withValues=" + withValues + ", parallelism=" + parallelism + ", partitionBegin=" + partitionBegin 
+				+ ", partitionCount=" + partitionCount + ", setName=" + setName + ", superKey=" + superKey + ", timeoutMillis=" + timeoutMillis
 				+ ", fallback=" + fallback + ", getCode()=" + getCode() + "]";
 	}
 
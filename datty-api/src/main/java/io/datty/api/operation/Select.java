@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.api.operation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.datty.api.DattyConstants;
+import io.datty.api.DattyValue;
+
+/**
+ * Select operation
+ * 
+ * Finds records by values of minor keys, all filters must match. The first filter
+ * is served by the index of the backend, others are checked on found records.
+ * 
+ * @author Alex Shvid
+ *
+ */
+
+public final class Select extends AbstractSetOperation<Select> {
+
+	private List<SelectFilter> filters;
+	
+	/**
+	 * Minor keys to return, all if empty
+	 */
+	
+	private Set<String> minorKeys;
+	
+	private int limit = DattyConstants.UNSET_LIMIT;
+	
+	public Select() {
+	}
+	
+	public Select(String setName) {
+		setSetName(setName);
+	}
+	
+	public Select addFilter(SelectFilter filter) {
+		if (filter == null) {
+			throw new IllegalArgumentException("null filter");
+		}
+		if (filters == null) {
+			filters = new ArrayList<SelectFilter>(2);
+		}
+		filters.add(filter);
+		return this;
+	}
+	
+	public Select whereEqual(String minorKey, String value) {
+		return addFilter(SelectFilter.equal(minorKey, value));
+	}
+	
+	public Select whereEqual(String minorKey, long value) {
+		return addFilter(SelectFilter.equal(minorKey, value));
+	}
+	
+	public Select whereRange(String minorKey, long begin, long end) {
+		return addFilter(SelectFilter.range(minorKey, begin, end));
+	}
+	
+	public boolean hasFilters() {
+		return filters != null && !filters.isEmpty();
+	}
+	
+	public List<SelectFilter> getFilters() {
+		return filters != null ? filters : Collections.<SelectFilter>emptyList();
+	}
+	
+	/**
+	 * Checks all filters
+	 * 
+	 * @param values - values of the record
+	 * @return true if all filters match
+	 */
+	
+	public boolean matches(Map<String, ? extends DattyValue> values) {
+		if (filters != null) {
+			for (SelectFilter filter : filters) {
+				if (!filter.matches(values.get(filter.getMinorKey()))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	public Select addMinorKey(String minorKey) {
+		if (minorKeys == null) {
+			minorKeys = new HashSet<String>();
+		}
+		minorKeys.add(minorKey);
+		return this;
+	}
+	
+	public Select addMinorKeys(Collection<String> minorKeys) {
+		if (this.minorKeys == null) {
+			this.minorKeys = new HashSet<String>();
+		}
+		this.minorKeys.addAll(minorKeys);
+		return this;
+	}
+	
+	public boolean isAllMinorKeys() {
+		return minorKeys == null || minorKeys.isEmpty();
+	}
+	
+	public Set<String> getMinorKeys() {
+		return minorKeys != null ? minorKeys : Collections.<String>emptySet();
+	}
+	
+	public boolean hasLimit() {
+		return limit != DattyConstants.UNSET_LIMIT;
+	}
+	
+	public int getLimit() {
+		return limit;
+	}
+	
+	public Select setLimit(int limit) {
+		if (limit < 0) {
+			throw new IllegalArgumentException("negative limit: " + limit);
+		}
+		this.limit = limit;
+		return this;
+	}
+	
+	@Override
+	public OpCode getCode() {
+		return OpCode.SELECT;
+	}
+
+	@Override
+	public String toString() {
+		return "Select [filters=" + filters + ", minorKeys=" + minorKeys + ", limit=" + limit + ", setName=" + setName 
+				+ ", superKey=" + superKey + ", timeoutMillis=" + timeoutMillis + ", fallback=" + fallback + ", getCode()=" + getCode() + "]";
+	}
+
+}
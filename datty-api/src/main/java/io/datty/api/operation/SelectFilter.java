@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.api.operation;
+
+import java.nio.charset.StandardCharsets;
+
+import io.datty.api.DattyValue;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * SelectFilter
+ *
+ * Predicate on the value of the minor key. String is compared with UTF-8 bytes of the value,
+ * numbers are compared with the value written as decimal text, the way backends return
+ * indexed string and integer values.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class SelectFilter {
+
+	public enum Type {
+
+		EQUAL(1),
+		RANGE(2);
+
+		private final int code;
+
+		private Type(int code) {
+			this.code = code;
+		}
+
+		public int getCode() {
+			return code;
+		}
+
+		public static Type findByCode(int code) {
+			for (Type v : values()) {
+				if (v.getCode() == code) {
+					return v;
+				}
+			}
+			return null;
+		}
+
+	}
+
+	private final String minorKey;
+	private final Type type;
+	private final String value;
+	private final byte[] valueBytes;
+	private final long begin;
+	private final long end;
+
+	private SelectFilter(String minorKey, Type type, String value, long begin, long end) {
+		if (minorKey == null) {
+			throw new IllegalArgumentException("null minorKey");
+		}
+		this.minorKey = minorKey;
+		this.type = type;
+		this.value = value;
+		this.valueBytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+		this.begin = begin;
+		this.end = end;
+	}
+
+	public static SelectFilter equal(String minorKey, String value) {
+		if (value == null) {
+			throw new IllegalArgumentException("null value");
+		}
+		return new SelectFilter(minorKey, Type.EQUAL, value, 0L, 0L);
+	}
+
+	public static SelectFilter equal(String minorKey, long value) {
+		return new SelectFilter(minorKey, Type.RANGE, null, value, value);
+	}
+
+	/**
+	 * Range of numbers
+	 *
+	 * @param minorKey - minor key
+	 * @param begin - inclusive begin
+	 * @param end - inclusive end
+	 * @return filter
+	 */
+
+	public static SelectFilter range(String minorKey, long begin, long end) {
+		if (begin > end) {
+			throw new IllegalArgumentException("invalid range: begin=" + begin + ", end=" + end);
+		}
+		return new SelectFilter(minorKey, Type.RANGE, null, begin, end);
+	}
+
+	public String getMinorKey() {
+		return minorKey;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Gets string value of EQUAL filter
+	 *
+	 * @return value or null for RANGE
+	 */
+
+	public String getValue() {
+		return value;
+	}
+
+	public long getBegin() {
+		return begin;
+	}
+
+	public long getEnd() {
+		return end;
+	}
+
+	public boolean isSingleNumber() {
+		return type == Type.RANGE && begin == end;
+	}
+
+	public boolean matches(DattyValue value) {
+
+		if (value == null || value.isNull()) {
+			return false;
+		}
+
+		if (value.hasByteBuf()) {
+			return matches(value.asByteBuf());
+		}
+
+		byte[] bytes = value.toByteArray();
+		return bytes != null && matches(Unpooled.wrappedBuffer(bytes));
+	}
+
+	/**
+	 * Checks readable bytes of the buffer, does not move reader index
+	 *
+	 * @param buffer - value
+	 * @return true if matches
+	 */
+
+	public boolean matches(ByteBuf buffer) {
+
+		int index = buffer.readerIndex();
+		int length = buffer.readableBytes();
+
+		if (type == Type.EQUAL) {
+
+			if (length != valueBytes.length) {
+				return false;
+			}
+
+			for (int i = 0; i != length; ++i) {
+				if (buffer.getByte(index + i) != valueBytes[i]) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		if (length == 0 || length > 20) {
+			return false;
+		}
+
+		boolean negative = buffer.getByte(index) == '-';
+		int i = negative ? 1 : 0;
+
+		if (i == length) {
+			return false;
+		}
+
+		// accumulates negative to cover Long.MIN_VALUE
+		long number = 0;
+
+		for (; i != length; ++i) {
+
+			int digit = buffer.getByte(index + i) - '0';
+			if (digit < 0 || digit > 9) {
+				return false;
+			}
+
+			if (number < (Long.MIN_VALUE + digit) / 10) {
+				return false;
+			}
+
+			number = number * 10 - digit;
+		}
+
+		if (!negative) {
+			if (number == Long.MIN_VALUE) {
+				return false;
+			}
+			number = -number;
+		}
+
+		return number >= begin && number <= end;
+	}
+
+	@Override
+	public String toString() {
+		if (type == Type.EQUAL) {
+			return "SelectFilter [" + minorKey + " = '" + value + "']";
+		}
+		return "SelectFilter [" + minorKey + " in [" + begin + ", " + end + "]]";
+	}
+
+}
@@ -40,6 +40,12 @@ public class RecordResult implements DattyResult {
 	
 	private DattyRecord record;
 	
+	/**
+	 * Partition of the major key, valid for Scan
+	 */
+	
+	private int partitionId = -1;
+	
 	/**
 	 * Count records in result
 	 * Valid for CountOperation and DeleteOperation
@@ -97,6 +103,19 @@ public class RecordResult implements DattyResult {
 		return this;
 	}
 	
+	public boolean hasPartitionId() {
+		return partitionId >= 0;
+	}
+	
+	public int getPartitionId() {
+		return partitionId;
+	}
+	
+	public RecordResult setPartitionId(int partitionId) {
+		this.partitionId = partitionId;
+		return this;
+	}
+	
 	public long count() {
 		return count;
 	}
@@ -161,7 +180,7 @@ public class RecordResult implements DattyResult {
 	@Override
 	public String toString() {
 		return "SetResult [majorKey=" + majorKey + ", version=" + version + ", row=" + record
-				+ ", count=" + count + "]";
+				+ ", partitionId=" + partitionId + ", count=" + count + "]";
 	}
 
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.spi;
+
+import java.util.List;
+
+import io.datty.api.DattyOperation.OpCode;
+import io.datty.api.DattyResult;
+import io.datty.api.operation.RecordOperation;
+import rx.Single;
+
+/**
+ * DattyBatchCapable
+ * 
+ * Optional interface of the driver that is able to execute group of operations in a single call.
+ * DattyBatchDriver detects it and sends operations grouped by set name and operation code,
+ * all other operations are executed one by one through DattySingle.
+ * 
+ * @author Alex Shvid
+ *
+ */
+
+public interface DattyBatchCapable {
+
+	/**
+	 * Checks if driver supports native batch for the operation code
+	 * 
+	 * @param code - operation code
+	 * @return true if supported
+	 */
+	
+	boolean isBatchSupported(OpCode code);
+	
+	/**
+	 * Executes operations with the same set name and operation code in a single call
+	 * 
+	 * @param setName - set name of all operations
+	 * @param code - operation code of all operations
+	 * @param operations - not empty list of operations
+	 * @return list of results in the same order as operations
+	 */
+	
+	Single<List<DattyResult>> executeBatch(String setName, OpCode code, List<RecordOperation> operations);
+	
+}
@@ -15,14 +15,21 @@ package io.datty.spi;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import io.datty.api.DattyBatch;
+import io.datty.api.DattyError;
 import io.datty.api.DattyOperation;
+import io.datty.api.DattyOperation.OpCode;
 import io.datty.api.DattyResult;
 import io.datty.api.DattySingle;
 import io.datty.api.operation.RecordOperation;
 import io.datty.api.operation.TypedOperation;
+import io.datty.api.result.AbstractResult;
+import io.datty.support.exception.DattyOperationException;
 import rx.Completable;
 import rx.Observable;
 import rx.Single;
@@ -32,6 +39,10 @@ import rx.functions.Func1;
 /**
  * DattyBatchDriver
  * 
+ * Executes operations through DattySingle one by one, or, if DattyBatchCapable is available,
+ * sends operations grouped by set name and operation code to the driver in a single call,
+ * operations of the failed group are executed again one by one
+ * 
  * @author Alex Shvid
  *
  */
@@ -39,9 +50,23 @@ import rx.functions.Func1;
 public class DattyBatchDriver implements DattyBatch {
 	
 	private final DattySingle single;
+	private final DattyBatchCapable batchCapable;
+	
+	private final Func1<RecordOperation, Observable<DattyResult>> executeFn = new Func1<RecordOperation, Observable<DattyResult>>() {
+		
+		public Observable<DattyResult> call(RecordOperation op) {
+			return doExecute(op).toObservable();
+		}
+		
+	};
 	
 	public DattyBatchDriver(DattySingle single) {
+		this(single, single instanceof DattyBatchCapable ? (DattyBatchCapable) single : null);
+	}
+	
+	public DattyBatchDriver(DattySingle single, DattyBatchCapable batchCapable) {
 		this.single = single;
+		this.batchCapable = batchCapable;
 	}
 	
 	@Override
@@ -57,25 +82,43 @@ public class DattyBatchDriver implements DattyBatch {
 		
 		final List<Completable> joinList = new ArrayList<Completable>(size);
 		
+		Map<String, BatchGroup> groups = batchCapable != null ? new LinkedHashMap<String, BatchGroup>() : null;
+		
 		for (int i = 0; i != size; ++i) {
 			
-			final int sequenceNumber = i;
-			
 			@SuppressWarnings("rawtypes")
 			TypedOperation op = (TypedOperation) operations.get(i);
 			
 			resultList.add(op.getFallback());
 			
-			Single<DattyResult> singleResult = doExecute(op).map(new Func1<DattyResult, DattyResult>() {
+			if (groups != null && isBatchable(op)) {
 				
-				public DattyResult call(DattyResult res) {
-					resultList.set(sequenceNumber, res);
-					return res;
+				String groupKey = op.getCode().name() + ":" + op.getSetName();
+				BatchGroup group = groups.get(groupKey);
+				if (group == null) {
+					group = new BatchGroup(op.getSetName(), op.getCode());
+					groups.put(groupKey, group);
 				}
-				
-			});
+				group.add(i, op);
+				continue;
+			}
+			
+			joinList.add(executeSingle(i, op, resultList));
+			
+		}
+		
+		if (groups != null) {
 			
-			joinList.add(singleResult.toCompletable());
+			for (BatchGroup group : groups.values()) {
+				
+				if (group.size() == 1) {
+					joinList.add(executeSingle(group.positions.get(0), group.operations.get(0), resultList));
+				}
+				else {
+					joinList.add(executeGroup(group, resultList));
+				}
+				
+			}
 			
 		}
 		
@@ -90,19 +133,105 @@ public class DattyBatchDriver implements DattyBatch {
 		
 		return result;
 	}
-
-	@Override
-	public Observable<DattyResult> executeSequence(Observable<RecordOperation> operations) {
+	
+	private boolean isBatchable(DattyOperation op) {
+		return op.getSetName() != null && ((RecordOperation) op).getMajorKey() != null && batchCapable.isBatchSupported(op.getCode());
+	}
+	
+	private Completable executeSingle(final int sequenceNumber, DattyOperation op, final List<DattyResult> resultList) {
 		
-		Observable<DattyResult> results = operations.flatMap(new Func1<DattyOperation, Observable<DattyResult>>() {
+		Single<DattyResult> singleResult = doExecute(op).map(new Func1<DattyResult, DattyResult>() {
 			
-			public Observable<DattyResult> call(DattyOperation op) {
-				return doExecute(op).toObservable();
+			public DattyResult call(DattyResult res) {
+				resultList.set(sequenceNumber, res);
+				return res;
 			}
 			
 		});
 		
-		return results;
+		return singleResult.toCompletable();
+	}
+	
+	/**
+	 * Native batch of the group, results are placed on positions of the operations,
+	 * operations of the failed batch are executed one by one through DattySingle
+	 */
+	
+	private Completable executeGroup(final BatchGroup group, final List<DattyResult> resultList) {
+		
+		Single<List<DattyResult>> batchResult;
+		
+		try {
+			batchResult = batchCapable.executeBatch(group.setName, group.code, group.operations);
+		}
+		catch(RuntimeException e) {
+			batchResult = Single.error(e);
+		}
+		
+		DattyOperation timeoutOp = group.maxTimeoutOperation();
+		if (timeoutOp != null) {
+			batchResult = batchResult.timeout(timeoutOp.getTimeoutMillis(), TimeUnit.MILLISECONDS, 
+					Single.<List<DattyResult>>error(new DattyOperationException(DattyError.ErrCode.TIMEOUT, timeoutOp)));
+		}
+		
+		Completable result = batchResult.map(new Func1<List<DattyResult>, List<DattyResult>>() {
+
+			@SuppressWarnings({ "rawtypes", "unchecked" })
+			public List<DattyResult> call(List<DattyResult> list) {
+				
+				int size = group.size();
+				for (int i = 0; i != size; ++i) {
+					DattyResult res = list.get(i);
+					if (res instanceof AbstractResult) {
+						((AbstractResult) res).setOperation((TypedOperation) group.operations.get(i));
+					}
+					resultList.set(group.positions.get(i), res);
+				}
+				
+				return list;
+			}
+			
+		}).toCompletable();
+		
+		return result.onErrorResumeNext(new Func1<Throwable, Completable>() {
+
+			public Completable call(Throwable t) {
+				
+				int size = group.size();
+				
+				List<Completable> singleList = new ArrayList<Completable>(size);
+				for (int i = 0; i != size; ++i) {
+					singleList.add(executeSingle(group.positions.get(i), group.operations.get(i), resultList));
+				}
+				
+				return Completable.merge(singleList);
+			}
+			
+		});
+		
+	}
+
+	@Override
+	public Observable<DattyResult> executeSequence(Observable<RecordOperation> operations) {
+		return operations.flatMap(executeFn);
+	}
+
+	@Override
+	public Observable<DattyResult> executeSequence(Observable<RecordOperation> operations, int maxConcurrent) {
+		checkMaxConcurrent(maxConcurrent);
+		return operations.flatMap(executeFn, maxConcurrent);
+	}
+
+	@Override
+	public Observable<DattyResult> executeOrderedSequence(Observable<RecordOperation> operations, int maxConcurrent) {
+		checkMaxConcurrent(maxConcurrent);
+		return operations.concatMapEager(executeFn, 1, maxConcurrent);
+	}
+	
+	private static void checkMaxConcurrent(int maxConcurrent) {
+		if (maxConcurrent <= 0) {
+			throw new IllegalArgumentException("maxConcurrent must be positive: " + maxConcurrent);
+		}
 	}
 
 	@SuppressWarnings({ "rawtypes", "unchecked" })
@@ -111,4 +240,37 @@ public class DattyBatchDriver implements DattyBatch {
 		return (Single<DattyResult>) single.execute(op);
 	}
 	
+	private static final class BatchGroup {
+		
+		private final String setName;
+		private final OpCode code;
+		private final List<Integer> positions = new ArrayList<Integer>();
+		private final List<RecordOperation> operations = new ArrayList<RecordOperation>();
+		
+		BatchGroup(String setName, OpCode code) {
+			this.setName = setName;
+			this.code = code;
+		}
+		
+		void add(int position, DattyOperation op) {
+			positions.add(position);
+			operations.add((RecordOperation) op);
+		}
+		
+		int size() {
+			return operations.size();
+		}
+		
+		DattyOperation maxTimeoutOperation() {
+			DattyOperation max = null;
+			for (RecordOperation op : operations) {
+				if (op.hasTimeoutMillis() && (max == null || max.getTimeoutMillis() < op.getTimeoutMillis())) {
+					max = op;
+				}
+			}
+			return max;
+		}
+		
+	}
+	
 }
@@ -78,6 +78,16 @@ public class DattyDriver implements Datty {
 		return batch.executeSequence(operations);
 	}
 
+	@Override
+	public Observable<DattyResult> executeSequence(Observable<RecordOperation> operations, int maxConcurrent) {
+		return batch.executeSequence(operations, maxConcurrent);
+	}
+
+	@Override
+	public Observable<DattyResult> executeOrderedSequence(Observable<RecordOperation> operations, int maxConcurrent) {
+		return batch.executeOrderedSequence(operations, maxConcurrent);
+	}
+
 	@Override
 	public Observable<ByteBuf> streamOut(DattyKey key) {
 		return stream.streamOut(key);
@@ -0,0 +1,343 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.spi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.datty.api.DattyConstants;
+import io.datty.api.DattyError;
+import io.datty.api.DattyManager;
+import io.datty.api.DattyOperation.OpCode;
+import io.datty.api.DattyPropertyKeys;
+import io.datty.api.DattyResult;
+import io.datty.api.DattySet;
+import io.datty.api.DattySingle;
+import io.datty.api.operation.Fetch;
+import io.datty.api.operation.RecordOperation;
+import io.datty.api.operation.SetOperation;
+import io.datty.api.operation.TypedOperation;
+import io.datty.api.result.FetchResult;
+import io.datty.api.result.RecordResult;
+import io.datty.api.result.TypedResult;
+import io.datty.support.exception.DattyOperationException;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Single;
+import rx.SingleSubscriber;
+import rx.functions.Action0;
+import rx.functions.Func1;
+import rx.schedulers.Schedulers;
+
+/**
+ * DattyFetchCoalescer
+ * 
+ * Collects concurrent Fetch operations of the same set during the time window
+ * or until max batch size and executes them as one native batch, results are
+ * delivered back to the Single of each caller.
+ * 
+ * Enabled per set by DattyPropertyKeys.FETCH_COALESCING property,
+ * all other operations go directly to the underlying DattySingle.
+ * 
+ * @author Alex Shvid
+ *
+ */
+
+public class DattyFetchCoalescer implements DattySingle {
+
+	private static final Logger logger = LoggerFactory.getLogger(DattyFetchCoalescer.class);
+	
+	private final DattySingle single;
+	private final DattyBatchCapable batchCapable;
+	private final DattyManager manager;
+	private final Scheduler scheduler;
+	
+	private final ConcurrentMap<String, SetCoalescer> coalescerMap = new ConcurrentHashMap<String, SetCoalescer>();
+	
+	public DattyFetchCoalescer(DattySingle single, DattyBatchCapable batchCapable, DattyManager manager) {
+		this(single, batchCapable, manager, Schedulers.computation());
+	}
+	
+	public DattyFetchCoalescer(DattySingle single, DattyBatchCapable batchCapable, DattyManager manager, Scheduler scheduler) {
+		this.single = single;
+		this.batchCapable = batchCapable;
+		this.manager = manager;
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	public Observable<RecordResult> execute(SetOperation operation) {
+		return single.execute(operation);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Override
+	public <O extends TypedOperation<O, R>, R extends TypedResult<O>> Single<R> execute(O operation) {
+		
+		if (operation.getCode() == OpCode.FETCH && operation.getSetName() != null && operation.getMajorKey() != null) {
+			
+			SetCoalescer coalescer = findCoalescer(operation.getSetName());
+			if (coalescer != null) {
+				return (Single) coalescer.execute((Fetch) operation);
+			}
+			
+		}
+		
+		return single.execute(operation);
+	}
+
+	@Override
+	public <O extends TypedOperation<O, R>, R extends TypedResult<O>> Single<R> execute(Single<O> operation) {
+		
+		return operation.flatMap(new Func1<O, Single<R>>() {
+
+			@Override
+			public Single<R> call(O op) {
+				return execute(op);
+			}
+			
+		});
+		
+	}
+	
+	/**
+	 * Coalescer is recreated on every change of the set properties
+	 */
+	
+	private SetCoalescer findCoalescer(String setName) {
+		
+		DattySet set = manager.getSet(setName);
+		if (set == null) {
+			return null;
+		}
+		
+		Properties props = set.getProperties();
+		
+		SetCoalescer coalescer = coalescerMap.get(setName);
+		if (coalescer == null || coalescer.properties != props) {
+			coalescer = new SetCoalescer(setName, props);
+			coalescerMap.put(setName, coalescer);
+		}
+		
+		return coalescer.enabled ? coalescer : null;
+	}
+	
+	/**
+	 * Coalescer is created inside of Fetch, invalid value is logged and replaced by the default
+	 */
+	
+	private static long getPositiveProperty(Properties props, String key, long defaultValue) {
+		
+		String val = props.getProperty(key);
+		if (val == null) {
+			return defaultValue;
+		}
+		
+		try {
+			long value = Long.parseLong(val.trim());
+			if (value > 0) {
+				return value;
+			}
+		}
+		catch(NumberFormatException e) {
+			// use default
+		}
+		
+		logger.warn("property " + key + " must be positive number, but was: " + val + ", use default: " + defaultValue);
+		return defaultValue;
+	}
+	
+	private static Throwable transformException(Fetch operation, Throwable t) {
+		if (t instanceof DattyOperationException) {
+			return t;
+		}
+		else {
+			return new DattyOperationException(DattyError.ErrCode.UNKNOWN, operation, t);
+		}
+	}
+	
+	private final class SetCoalescer {
+		
+		private final String setName;
+		private final Properties properties;
+		private final boolean enabled;
+		private final long windowMicros;
+		private final int maxBatchSize;
+		
+		// guarded by this
+		private Batch current;
+		
+		SetCoalescer(String setName, Properties properties) {
+			this.setName = setName;
+			this.properties = properties;
+			this.enabled = Boolean.parseBoolean(properties.getProperty(DattyPropertyKeys.FETCH_COALESCING));
+			
+			this.windowMicros = getPositiveProperty(properties, DattyPropertyKeys.FETCH_COALESCING_WINDOW_MICROS, DattyConstants.DEFAULT_FETCH_COALESCING_WINDOW_MICROS);
+			this.maxBatchSize = (int) Math.min(Integer.MAX_VALUE, getPositiveProperty(properties, DattyPropertyKeys.FETCH_COALESCING_MAX_BATCH_SIZE, DattyConstants.DEFAULT_FETCH_COALESCING_MAX_BATCH_SIZE));
+		}
+		
+		Single<FetchResult> execute(final Fetch operation) {
+			
+			Single<FetchResult> result = Single.create(new Single.OnSubscribe<FetchResult>() {
+
+				@Override
+				public void call(SingleSubscriber<? super FetchResult> subscriber) {
+					add(operation, subscriber);
+				}
+				
+			});
+			
+			if (operation.hasTimeoutMillis()) {
+				
+				result = result.timeout(operation.getTimeoutMillis(), TimeUnit.MILLISECONDS, 
+						Single.<FetchResult>error(new DattyOperationException(DattyError.ErrCode.TIMEOUT, operation)));
+				
+			}
+			
+			return result;
+		}
+		
+		private void add(Fetch operation, SingleSubscriber<? super FetchResult> subscriber) {
+			
+			Batch full = null;
+			Batch started = null;
+			
+			synchronized(this) {
+				
+				if (current == null) {
+					current = new Batch(maxBatchSize);
+					started = current;
+				}
+				
+				current.add(operation, subscriber);
+				
+				if (current.size() >= maxBatchSize) {
+					full = current;
+					current = null;
+				}
+				
+			}
+			
+			if (full != null) {
+				dispatch(full);
+			}
+			else if (started != null) {
+				scheduleFlush(started);
+			}
+			
+		}
+		
+		private void scheduleFlush(final Batch batch) {
+			
+			final Scheduler.Worker worker = scheduler.createWorker();
+			
+			worker.schedule(new Action0() {
+
+				@Override
+				public void call() {
+					try {
+						flush(batch);
+					}
+					finally {
+						worker.unsubscribe();
+					}
+				}
+				
+			}, windowMicros, TimeUnit.MICROSECONDS);
+			
+		}
+		
+		private void flush(Batch batch) {
+			
+			synchronized(this) {
+				
+				if (current != batch) {
+					// already dispatched by max batch size
+					return;
+				}
+				
+				current = null;
+			}
+			
+			dispatch(batch);
+		}
+		
+		private void dispatch(final Batch batch) {
+			
+			if (batch.size() == 1) {
+				single.execute((Fetch) batch.operations.get(0)).subscribe(batch.subscribers.get(0));
+				return;
+			}
+			
+			Single<List<DattyResult>> result;
+			try {
+				result = batchCapable.executeBatch(setName, OpCode.FETCH, batch.operations);
+			}
+			catch(RuntimeException e) {
+				result = Single.error(e);
+			}
+			
+			result.subscribe(new SingleSubscriber<List<DattyResult>>() {
+
+				@Override
+				public void onSuccess(List<DattyResult> list) {
+					int size = batch.size();
+					for (int i = 0; i != size; ++i) {
+						batch.subscribers.get(i).onSuccess((FetchResult) list.get(i));
+					}
+				}
+
+				@Override
+				public void onError(Throwable t) {
+					int size = batch.size();
+					for (int i = 0; i != size; ++i) {
+						batch.subscribers.get(i).onError(transformException((Fetch) batch.operations.get(i), t));
+					}
+				}
+				
+			});
+			
+		}
+		
+	}
+	
+	private static final class Batch {
+		
+		private final List<RecordOperation> operations;
+		private final List<SingleSubscriber<? super FetchResult>> subscribers;
+		
+		Batch(int capacity) {
+			this.operations = new ArrayList<RecordOperation>(capacity);
+			this.subscribers = new ArrayList<SingleSubscriber<? super FetchResult>>(capacity);
+		}
+		
+		void add(Fetch operation, SingleSubscriber<? super FetchResult> subscriber) {
+			operations.add(operation);
+			subscribers.add(subscriber);
+		}
+		
+		int size() {
+			return operations.size();
+		}
+		
+	}
+	
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.spi;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import io.datty.api.DattyError;
+import io.datty.api.DattyOperation.OpCode;
+import io.datty.support.LatencyHistogram;
+import io.datty.support.StripedCounter;
+
+/**
+ * DattyMetrics
+ *
+ * Per-set and per-operation counters, error codes and latencies. Recording takes no locks,
+ * metrics of the set and the operation are created on the first call.
+ *
+ * Statistics have keys like "fetch.count", "fetch.errors", "fetch.error.timeout", "fetch.p99Micros"
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class DattyMetrics {
+
+	public enum Kind {
+
+		FETCH("fetch"),
+		PUSH("push"),
+		REMOVE("remove"),
+		EXECUTE("execute"),
+		SCAN("scan"),
+		SIZE("size"),
+		CLEAR("clear"),
+		SELECT("select"),
+		DELETE("delete"),
+		STREAM_OUT("streamOut"),
+		STREAM_IN("streamIn");
+
+		private final String statName;
+
+		private Kind(String statName) {
+			this.statName = statName;
+		}
+
+		public String getStatName() {
+			return statName;
+		}
+
+		public static Kind of(OpCode code) {
+			switch(code) {
+			case FETCH:
+				return FETCH;
+			case PUSH:
+				return PUSH;
+			case REMOVE:
+				return REMOVE;
+			case EXECUTE:
+				return EXECUTE;
+			case SCAN:
+				return SCAN;
+			case SIZE:
+				return SIZE;
+			case CLEAR:
+				return CLEAR;
+			case SELECT:
+				return SELECT;
+			case DELETE:
+				return DELETE;
+			}
+			throw new IllegalArgumentException("unknown code: " + code);
+		}
+
+	}
+
+	private static final Kind[] KINDS = Kind.values();
+	private static final DattyError.ErrCode[] ERR_CODES = DattyError.ErrCode.values();
+
+	private final ConcurrentMap<String, SetMetrics> setMap = new ConcurrentHashMap<String, SetMetrics>();
+
+	/**
+	 * Records the completed call
+	 *
+	 * @param setName - set name
+	 * @param kind - kind of the call
+	 * @param nanos - latency
+	 */
+
+	public void recordSuccess(String setName, Kind kind, long nanos) {
+		getOrCreate(setName).getOrCreate(kind).recordSuccess(nanos);
+	}
+
+	/**
+	 * Records the completed call without latency, for results of sequences
+	 *
+	 * @param setName - set name
+	 * @param kind - kind of the call
+	 */
+
+	public void recordSuccess(String setName, Kind kind) {
+		getOrCreate(setName).getOrCreate(kind).recordSuccess();
+	}
+
+	/**
+	 * Records the failed call, latency of failed calls is not recorded
+	 *
+	 * @param setName - set name
+	 * @param kind - kind of the call
+	 * @param t - error
+	 */
+
+	public void recordError(String setName, Kind kind, Throwable t) {
+		DattyError.ErrCode errCode = t instanceof DattyError ? ((DattyError) t).getErrorCode() : null;
+		getOrCreate(setName).getOrCreate(kind).recordError(errCode != null ? errCode : DattyError.ErrCode.UNKNOWN);
+	}
+
+	/**
+	 * Gets statistics of the set
+	 *
+	 * @param setName - set name
+	 * @return not null map
+	 */
+
+	public Map<String, String> getStatistics(String setName) {
+
+		SetMetrics set = setMap.get(setName);
+		if (set == null) {
+			return Collections.emptyMap();
+		}
+
+		Map<String, String> map = new LinkedHashMap<String, String>();
+		set.fill(map);
+		return map;
+	}
+
+	/**
+	 * Reports statistics of all sets
+	 *
+	 * @param reporter - reporter
+	 */
+
+	public void report(DattyMetricsReporter reporter) {
+		for (String setName : setMap.keySet()) {
+			reporter.report(setName, getStatistics(setName));
+		}
+	}
+
+	private SetMetrics getOrCreate(String setName) {
+
+		if (setName == null) {
+			setName = "";
+		}
+
+		SetMetrics set = setMap.get(setName);
+		if (set == null) {
+			set = new SetMetrics();
+			SetMetrics c = setMap.putIfAbsent(setName, set);
+			if (c != null) {
+				set = c;
+			}
+		}
+		return set;
+	}
+
+	private static final class SetMetrics {
+
+		private final AtomicReferenceArray<OperationMetrics> operations = new AtomicReferenceArray<OperationMetrics>(KINDS.length);
+
+		OperationMetrics getOrCreate(Kind kind) {
+
+			int index = kind.ordinal();
+
+			OperationMetrics op = operations.get(index);
+			if (op == null) {
+				op = new OperationMetrics();
+				if (!operations.compareAndSet(index, null, op)) {
+					op = operations.get(index);
+				}
+			}
+			return op;
+		}
+
+		void fill(Map<String, String> map) {
+			for (Kind kind : KINDS) {
+				OperationMetrics op = operations.get(kind.ordinal());
+				if (op != null) {
+					op.fill(kind.getStatName(), map);
+				}
+			}
+		}
+
+	}
+
+	private static final class OperationMetrics {
+
+		private final StripedCounter count = new StripedCounter();
+		private final LatencyHistogram latency = new LatencyHistogram();
+
+		// errors are rare, a plain atomic array is enough
+		private final AtomicLongArray errors = new AtomicLongArray(ERR_CODES.length);
+
+		void recordSuccess(long nanos) {
+			count.increment();
+			latency.record(nanos);
+		}
+
+		void recordSuccess() {
+			count.increment();
+		}
+
+		void recordError(DattyError.ErrCode errCode) {
+			count.increment();
+			errors.getAndIncrement(errCode.ordinal());
+		}
+
+		void fill(String prefix, Map<String, String> map) {
+
+			map.put(prefix + ".count", Long.toString(count.sum()));
+
+			long totalErrors = 0;
+			for (DattyError.ErrCode errCode : ERR_CODES) {
+				totalErrors += errors.get(errCode.ordinal());
+			}
+			map.put(prefix + ".errors", Long.toString(totalErrors));
+
+			for (DattyError.ErrCode errCode : ERR_CODES) {
+				long n = errors.get(errCode.ordinal());
+				if (n != 0) {
+					map.put(prefix + ".error." + errCode.name().toLowerCase(), Long.toString(n));
+				}
+			}
+
+			if (latency.getCount() != 0) {
+				map.put(prefix + ".meanMicros", toMicros(latency.getMean()));
+				map.put(prefix + ".p50Micros", toMicros(latency.getPercentile(50.0)));
+				map.put(prefix + ".p90Micros", toMicros(latency.getPercentile(90.0)));
+				map.put(prefix + ".p99Micros", toMicros(latency.getPercentile(99.0)));
+				map.put(prefix + ".p999Micros", toMicros(latency.getPercentile(99.9)));
+				map.put(prefix + ".maxMicros", toMicros(latency.getMax()));
+			}
+
+		}
+
+		private static String toMicros(long nanos) {
+			return Long.toString(TimeUnit.NANOSECONDS.toMicros(nanos));
+		}
+
+	}
+
+}
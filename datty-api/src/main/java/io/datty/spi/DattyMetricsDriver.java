@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.spi;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import io.datty.api.Datty;
+import io.datty.api.DattyKey;
+import io.datty.api.DattyOperation;
+import io.datty.api.DattyResult;
+import io.datty.api.operation.RecordOperation;
+import io.datty.api.operation.SetOperation;
+import io.datty.api.operation.TypedOperation;
+import io.datty.api.result.RecordResult;
+import io.datty.api.result.TypedResult;
+import io.datty.spi.DattyMetrics.Kind;
+import io.datty.support.exception.DattyOperationException;
+import io.netty.buffer.ByteBuf;
+import rx.Observable;
+import rx.Single;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+/**
+ * DattyMetricsDriver
+ *
+ * Records every call of the underlying Datty in DattyMetrics. Latency is measured from the subscription
+ * to the terminal event, so the whole scan or stream is one call. Results of sequences come in completion
+ * order and are counted without latency, batches record latency of the whole batch for every operation.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class DattyMetricsDriver implements Datty {
+
+	private final Datty datty;
+	private final DattyMetrics metrics;
+
+	public DattyMetricsDriver(Datty datty, DattyMetrics metrics) {
+
+		if (datty == null) {
+			throw new IllegalArgumentException("empty datty");
+		}
+
+		if (metrics == null) {
+			throw new IllegalArgumentException("empty metrics");
+		}
+
+		this.datty = datty;
+		this.metrics = metrics;
+	}
+
+	public Datty getDatty() {
+		return datty;
+	}
+
+	public DattyMetrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public Observable<RecordResult> execute(final SetOperation operation) {
+
+		final String setName = operation.getSetName();
+		final Kind kind = Kind.of(operation.getCode());
+
+		return Observable.defer(new Func0<Observable<RecordResult>>() {
+
+			@Override
+			public Observable<RecordResult> call() {
+				return record(datty.execute(operation), setName, kind, System.nanoTime());
+			}
+
+		});
+	}
+
+	@Override
+	public <O extends TypedOperation<O, R>, R extends TypedResult<O>> Single<R> execute(final O operation) {
+
+		final String setName = operation.getSetName();
+		final Kind kind = Kind.of(operation.getCode());
+
+		return Single.defer(new Callable<Single<R>>() {
+
+			@Override
+			public Single<R> call() {
+
+				final long startNanos = System.nanoTime();
+
+				return datty.execute(operation).doOnSuccess(new Action1<R>() {
+
+					@Override
+					public void call(R result) {
+						metrics.recordSuccess(setName, kind, System.nanoTime() - startNanos);
+					}
+
+				}).doOnError(new Action1<Throwable>() {
+
+					@Override
+					public void call(Throwable t) {
+						metrics.recordError(setName, kind, t);
+					}
+
+				});
+			}
+
+		});
+	}
+
+	@Override
+	public <O extends TypedOperation<O, R>, R extends TypedResult<O>> Single<R> execute(Single<O> operation) {
+
+		return operation.flatMap(new Func1<O, Single<R>>() {
+
+			@Override
+			public Single<R> call(O op) {
+				return execute(op);
+			}
+
+		});
+
+	}
+
+	@Override
+	public Single<List<DattyResult>> executeBatch(final List<RecordOperation> operations) {
+
+		return Single.defer(new Callable<Single<List<DattyResult>>>() {
+
+			@Override
+			public Single<List<DattyResult>> call() {
+
+				final long startNanos = System.nanoTime();
+
+				return datty.executeBatch(operations).doOnSuccess(new Action1<List<DattyResult>>() {
+
+					@Override
+					public void call(List<DattyResult> results) {
+						long nanos = System.nanoTime() - startNanos;
+						for (RecordOperation op : operations) {
+							metrics.recordSuccess(op.getSetName(), Kind.of(op.getCode()), nanos);
+						}
+					}
+
+				}).doOnError(new Action1<Throwable>() {
+
+					@Override
+					public void call(Throwable t) {
+						for (RecordOperation op : operations) {
+							metrics.recordError(op.getSetName(), Kind.of(op.getCode()), t);
+						}
+					}
+
+				});
+			}
+
+		});
+	}
+
+	@Override
+	public Observable<DattyResult> executeSequence(Observable<RecordOperation> operations) {
+		return record(datty.executeSequence(operations));
+	}
+
+	@Override
+	public Observable<DattyResult> executeSequence(Observable<RecordOperation> operations, int maxConcurrent) {
+		return record(datty.executeSequence(operations, maxConcurrent));
+	}
+
+	@Override
+	public Observable<DattyResult> executeOrderedSequence(Observable<RecordOperation> operations, int maxConcurrent) {
+		return record(datty.executeOrderedSequence(operations, maxConcurrent));
+	}
+
+	@Override
+	public Observable<ByteBuf> streamOut(final DattyKey key) {
+
+		return Observable.defer(new Func0<Observable<ByteBuf>>() {
+
+			@Override
+			public Observable<ByteBuf> call() {
+				return record(datty.streamOut(key), key.getSetName(), Kind.STREAM_OUT, System.nanoTime());
+			}
+
+		});
+	}
+
+	@Override
+	public Single<Long> streamIn(final DattyKey key, final Observable<ByteBuf> value) {
+
+		return Single.defer(new Callable<Single<Long>>() {
+
+			@Override
+			public Single<Long> call() {
+
+				final long startNanos = System.nanoTime();
+
+				return datty.streamIn(key, value).doOnSuccess(new Action1<Long>() {
+
+					@Override
+					public void call(Long writtenBytes) {
+						metrics.recordSuccess(key.getSetName(), Kind.STREAM_IN, System.nanoTime() - startNanos);
+					}
+
+				}).doOnError(new Action1<Throwable>() {
+
+					@Override
+					public void call(Throwable t) {
+						metrics.recordError(key.getSetName(), Kind.STREAM_IN, t);
+					}
+
+				});
+			}
+
+		});
+	}
+
+	private <T> Observable<T> record(Observable<T> results, final String setName, final Kind kind, final long startNanos) {
+
+		return results.doOnCompleted(new Action0() {
+
+			@Override
+			public void call() {
+				metrics.recordSuccess(setName, kind, System.nanoTime() - startNanos);
+			}
+
+		}).doOnError(new Action1<Throwable>() {
+
+			@Override
+			public void call(Throwable t) {
+				metrics.recordError(setName, kind, t);
+			}
+
+		});
+	}
+
+	private Observable<DattyResult> record(Observable<DattyResult> results) {
+
+		return results.doOnNext(new Action1<DattyResult>() {
+
+			@SuppressWarnings("rawtypes")
+			@Override
+			public void call(DattyResult result) {
+				if (result instanceof TypedResult) {
+					Object operation = ((TypedResult) result).getOperation();
+					if (operation instanceof DattyOperation) {
+						DattyOperation op = (DattyOperation) operation;
+						metrics.recordSuccess(op.getSetName(), Kind.of(op.getCode()));
+					}
+				}
+			}
+
+		}).doOnError(new Action1<Throwable>() {
+
+			@Override
+			public void call(Throwable t) {
+				if (t instanceof DattyOperationException) {
+					DattyOperation op = ((DattyOperationException) t).getOperation();
+					if (op != null) {
+						metrics.recordError(op.getSetName(), Kind.of(op.getCode()), t);
+					}
+				}
+			}
+
+		});
+	}
+
+	@Override
+	public String toString() {
+		return "DattyMetricsDriver [datty=" + datty + "]";
+	}
+
+}
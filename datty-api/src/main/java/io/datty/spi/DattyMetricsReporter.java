@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.spi;
+
+import java.util.Map;
+
+/**
+ * DattyMetricsReporter
+ *
+ * Receives statistics of every set on DattyMetrics.report, scheduling is up to the caller
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public interface DattyMetricsReporter {
+
+	/**
+	 * Reports statistics of the set
+	 *
+	 * @param setName - set name
+	 * @param statistics - not null statistics in the format of DattySet.getStatistics
+	 */
+
+	void report(String setName, Map<String, String> statistics);
+
+}
@@ -0,0 +1,693 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.spi;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.datty.api.ByteBufValue;
+import io.datty.api.Datty;
+import io.datty.api.DattyKey;
+import io.datty.api.DattyOperation.OpCode;
+import io.datty.api.DattyRecord;
+import io.datty.api.DattyResult;
+import io.datty.api.DattyValue;
+import io.datty.api.operation.Fetch;
+import io.datty.api.operation.RecordOperation;
+import io.datty.api.operation.SetOperation;
+import io.datty.api.operation.TypedOperation;
+import io.datty.api.result.FetchResult;
+import io.datty.api.result.RecordResult;
+import io.datty.api.result.TypedResult;
+import io.datty.api.version.Version;
+import io.datty.api.version.VersionType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import rx.Observable;
+import rx.Single;
+import rx.functions.Action0;
+import rx.functions.Action1;
+import rx.functions.Func0;
+import rx.functions.Func1;
+
+/**
+ * DattyNearCache
+ * 
+ * Read-through near cache of records on top of any Datty instance, could be installed by DattyManager.setDatty.
+ * 
+ * Caches whole records fetched with all minor keys and values, serves any Fetch of the cached record.
+ * Push, Execute, Remove and streamIn through this instance invalidate the record, Clear invalidates the set.
+ * Fetch that was started before the invalidation is not cached, older versions never replace newer ones.
+ * 
+ * Cache has size based (LRU) and time to live eviction. Invalidation marks are kept apart from records
+ * in the same number of slots, so writes to not cached keys never evict cached records.
+ * 
+ * @author Alex Shvid
+ *
+ */
+
+public class DattyNearCache implements Datty {
+
+	private static final int SEGMENTS = 16;
+	
+	private final Datty datty;
+	private final long ttlMillis;
+	private final Segment[] segments;
+	
+	private final AtomicLong writeSequence = new AtomicLong();
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	
+	/**
+	 * Creates near cache
+	 * 
+	 * @param datty - underlying datty
+	 * @param maxEntries - max number of cached records
+	 * @param ttlMillis - time to live of the cached record in milliseconds, 0 means no expiration
+	 */
+	
+	public DattyNearCache(Datty datty, int maxEntries, long ttlMillis) {
+		
+		if (datty == null) {
+			throw new IllegalArgumentException("empty datty");
+		}
+		
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+		}
+		
+		if (ttlMillis < 0) {
+			throw new IllegalArgumentException("ttlMillis must not be negative: " + ttlMillis);
+		}
+		
+		this.datty = datty;
+		this.ttlMillis = ttlMillis;
+		
+		int segmentEntries = Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+		this.segments = new Segment[SEGMENTS];
+		for (int i = 0; i != SEGMENTS; ++i) {
+			this.segments[i] = new Segment(segmentEntries);
+		}
+	}
+	
+	public Datty getDatty() {
+		return datty;
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+	
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+	
+	/**
+	 * Removes all cached records
+	 */
+	
+	public void invalidateAll() {
+		long seq = writeSequence.incrementAndGet();
+		for (Segment segment : segments) {
+			segment.invalidateAll(seq);
+		}
+	}
+	
+	/**
+	 * Removes cached records of the set
+	 * 
+	 * @param setName - set name
+	 */
+	
+	public void invalidateSet(String setName) {
+		long seq = writeSequence.incrementAndGet();
+		for (Segment segment : segments) {
+			segment.invalidateSet(setName, seq);
+		}
+	}
+	
+	/**
+	 * Removes cached record
+	 * 
+	 * @param setName - set name
+	 * @param superKey - super key or null
+	 * @param majorKey - major key
+	 */
+	
+	public void invalidate(String setName, String superKey, String majorKey) {
+		CacheKey key = new CacheKey(setName, superKey, majorKey);
+		segmentFor(key).invalidate(key, writeSequence.incrementAndGet());
+	}
+	
+	@Override
+	public Observable<RecordResult> execute(SetOperation operation) {
+		
+		if (operation.getCode() == OpCode.CLEAR) {
+			
+			final String setName = operation.getSetName();
+			invalidateSet(setName);
+			
+			return datty.execute(operation).doOnTerminate(new Action0() {
+
+				@Override
+				public void call() {
+					invalidateSet(setName);
+				}
+				
+			});
+		}
+		
+		return datty.execute(operation);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Override
+	public <O extends TypedOperation<O, R>, R extends TypedResult<O>> Single<R> execute(O operation) {
+		
+		if (operation.getCode() == OpCode.FETCH) {
+			return (Single) fetch((Fetch) operation);
+		}
+		
+		return write(operation, datty.execute(operation));
+	}
+
+	@Override
+	public <O extends TypedOperation<O, R>, R extends TypedResult<O>> Single<R> execute(Single<O> operation) {
+		
+		return operation.flatMap(new Func1<O, Single<R>>() {
+
+			@Override
+			public Single<R> call(O op) {
+				return execute(op);
+			}
+			
+		});
+		
+	}
+
+	@Override
+	public Single<List<DattyResult>> executeBatch(final List<RecordOperation> operations) {
+		
+		return Single.defer(new Callable<Single<List<DattyResult>>>() {
+
+			@Override
+			public Single<List<DattyResult>> call() {
+				
+				final long startSeq = writeSequence.get();
+				
+				for (RecordOperation op : operations) {
+					if (op.getCode() != OpCode.FETCH) {
+						invalidate(op);
+					}
+				}
+				
+				return datty.executeBatch(operations).doOnSuccess(new Action1<List<DattyResult>>() {
+
+					@Override
+					public void call(List<DattyResult> results) {
+						for (DattyResult result : results) {
+							onResult(result, startSeq);
+						}
+					}
+					
+				});
+			}
+			
+		});
+	}
+
+	@Override
+	public Observable<DattyResult> executeSequence(final Observable<RecordOperation> operations) {
+		
+		return sequence(new Func1<Observable<RecordOperation>, Observable<DattyResult>>() {
+
+			@Override
+			public Observable<DattyResult> call(Observable<RecordOperation> ops) {
+				return datty.executeSequence(ops);
+			}
+			
+		}, operations);
+	}
+
+	@Override
+	public Observable<DattyResult> executeSequence(Observable<RecordOperation> operations, final int maxConcurrent) {
+		
+		return sequence(new Func1<Observable<RecordOperation>, Observable<DattyResult>>() {
+
+			@Override
+			public Observable<DattyResult> call(Observable<RecordOperation> ops) {
+				return datty.executeSequence(ops, maxConcurrent);
+			}
+			
+		}, operations);
+	}
+
+	@Override
+	public Observable<DattyResult> executeOrderedSequence(Observable<RecordOperation> operations, final int maxConcurrent) {
+		
+		return sequence(new Func1<Observable<RecordOperation>, Observable<DattyResult>>() {
+
+			@Override
+			public Observable<DattyResult> call(Observable<RecordOperation> ops) {
+				return datty.executeOrderedSequence(ops, maxConcurrent);
+			}
+			
+		}, operations);
+	}
+
+	@Override
+	public Observable<ByteBuf> streamOut(DattyKey key) {
+		return datty.streamOut(key);
+	}
+
+	@Override
+	public Single<Long> streamIn(final DattyKey key, Observable<ByteBuf> value) {
+		
+		invalidate(key.getSetName(), key.getSuperKey(), key.getMajorKey());
+		
+		return datty.streamIn(key, value).doAfterTerminate(new Action0() {
+
+			@Override
+			public void call() {
+				invalidate(key.getSetName(), key.getSuperKey(), key.getMajorKey());
+			}
+			
+		});
+	}
+	
+	/**
+	 * Cache is looked up on subscription, so the Single subscribed later or again never sees
+	 * the record older than the write made in between
+	 */
+	
+	private Single<FetchResult> fetch(final Fetch operation) {
+		
+		final CacheKey key = new CacheKey(operation.getSetName(), operation.getSuperKey(), operation.getMajorKey());
+		final Segment segment = segmentFor(key);
+		
+		return Single.defer(new Callable<Single<FetchResult>>() {
+
+			@Override
+			public Single<FetchResult> call() {
+				
+				CacheEntry entry = segment.get(key, System.currentTimeMillis());
+				
+				if (entry != null) {
+					hitCount.incrementAndGet();
+					return Single.just(entry.toFetchResult(operation));
+				}
+				
+				missCount.incrementAndGet();
+				
+				final long startSeq = writeSequence.get();
+				
+				return datty.execute(operation).doOnSuccess(new Action1<FetchResult>() {
+
+					@Override
+					public void call(FetchResult result) {
+						if (isCacheable(operation)) {
+							segment.put(key, new CacheEntry(result, expireAt()), startSeq);
+						}
+					}
+					
+				});
+			}
+			
+		});
+		
+	}
+	
+	/**
+	 * Record is invalidated twice: before the write to skip caching of concurrent fetches
+	 * and after the write to skip fetches started during the write
+	 */
+	
+	private <O extends TypedOperation<O, R>, R extends TypedResult<O>> Single<R> write(final O operation, Single<R> result) {
+		
+		invalidate(operation);
+		
+		return result.doAfterTerminate(new Action0() {
+
+			@Override
+			public void call() {
+				invalidate(operation);
+			}
+			
+		});
+	}
+	
+	private void invalidate(RecordOperation operation) {
+		if (operation.getSetName() != null && operation.getMajorKey() != null) {
+			invalidate(operation.getSetName(), operation.getSuperKey(), operation.getMajorKey());
+		}
+	}
+	
+	private void onResult(DattyResult result, long startSeq) {
+		
+		if (result instanceof FetchResult) {
+			
+			FetchResult fetchResult = (FetchResult) result;
+			Fetch operation = fetchResult.getOperation();
+			
+			if (operation != null && isCacheable(operation)) {
+				CacheKey key = new CacheKey(operation.getSetName(), operation.getSuperKey(), operation.getMajorKey());
+				segmentFor(key).put(key, new CacheEntry(fetchResult, expireAt()), startSeq);
+			}
+			
+		}
+		else if (result instanceof TypedResult) {
+			
+			@SuppressWarnings("rawtypes")
+			Object operation = ((TypedResult) result).getOperation();
+			
+			if (operation instanceof RecordOperation) {
+				invalidate((RecordOperation) operation);
+			}
+		}
+		
+	}
+	
+	/**
+	 * Start of the single operation is not visible in the sequence, so the fetch result
+	 * is cached only if the record was not written since subscription of the sequence
+	 */
+	
+	private Observable<DattyResult> sequence(final Func1<Observable<RecordOperation>, Observable<DattyResult>> executor, 
+			final Observable<RecordOperation> operations) {
+		
+		return Observable.defer(new Func0<Observable<DattyResult>>() {
+
+			@Override
+			public Observable<DattyResult> call() {
+				
+				final long startSeq = writeSequence.get();
+				
+				Observable<RecordOperation> ops = operations.doOnNext(new Action1<RecordOperation>() {
+
+					@Override
+					public void call(RecordOperation op) {
+						if (op.getCode() != OpCode.FETCH) {
+							invalidate(op);
+						}
+					}
+					
+				});
+				
+				return executor.call(ops).doOnNext(new Action1<DattyResult>() {
+
+					@Override
+					public void call(DattyResult result) {
+						onResult(result, startSeq);
+					}
+					
+				});
+			}
+			
+		});
+		
+	}
+	
+	private static boolean isCacheable(Fetch operation) {
+		return operation.isAllMinorKeys() && operation.isFetchValues() && operation.getSetName() != null && operation.getMajorKey() != null;
+	}
+	
+	private long expireAt() {
+		return ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+	}
+	
+	private Segment segmentFor(CacheKey key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return segments[h & (SEGMENTS - 1)];
+	}
+	
+	/**
+	 * Access ordered LRU map of records and insertion ordered map of invalidation marks,
+	 * both are bounded by maxEntries
+	 */
+	
+	private static final class Segment {
+		
+		private final int maxEntries;
+		
+		// guarded by this
+		private final LinkedHashMap<CacheKey, CacheEntry> map;
+		
+		// guarded by this, write sequence of the last invalidation by key
+		private final LinkedHashMap<CacheKey, Long> marks;
+		
+		// guarded by this, max write sequence of evicted invalidation marks
+		private long evictedSeq;
+		
+		Segment(int maxEntries) {
+			this.maxEntries = maxEntries;
+			this.map = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true);
+			this.marks = new LinkedHashMap<CacheKey, Long>();
+		}
+		
+		synchronized int size() {
+			return map.size();
+		}
+		
+		synchronized CacheEntry get(CacheKey key, long now) {
+			
+			CacheEntry entry = map.get(key);
+			
+			if (entry == null) {
+				return null;
+			}
+			
+			if (entry.expireAt <= now) {
+				map.remove(key);
+				return null;
+			}
+			
+			return entry;
+		}
+		
+		synchronized void put(CacheKey key, CacheEntry entry, long startSeq) {
+			
+			if (startSeq < evictedSeq) {
+				return;
+			}
+			
+			Long markSeq = marks.get(key);
+			
+			if (markSeq != null && markSeq > startSeq) {
+				return;
+			}
+			
+			CacheEntry existing = map.get(key);
+			
+			if (existing != null && existing.isNewerThan(entry)) {
+				return;
+			}
+			
+			map.put(key, entry);
+			evict();
+		}
+		
+		synchronized void invalidate(CacheKey key, long seq) {
+			map.remove(key);
+			marks.remove(key);
+			marks.put(key, seq);
+			evictMarks();
+		}
+		
+		synchronized void invalidateSet(String setName, long seq) {
+			
+			Iterator<Map.Entry<CacheKey, CacheEntry>> i = map.entrySet().iterator();
+			while (i.hasNext()) {
+				if (i.next().getKey().setName.equals(setName)) {
+					i.remove();
+				}
+			}
+			
+			Iterator<CacheKey> j = marks.keySet().iterator();
+			while (j.hasNext()) {
+				if (j.next().setName.equals(setName)) {
+					j.remove();
+				}
+			}
+			
+			evictedSeq = Math.max(evictedSeq, seq);
+		}
+		
+		synchronized void invalidateAll(long seq) {
+			map.clear();
+			marks.clear();
+			evictedSeq = Math.max(evictedSeq, seq);
+		}
+		
+		private void evict() {
+			
+			Iterator<CacheEntry> i = map.values().iterator();
+			
+			while (map.size() > maxEntries && i.hasNext()) {
+				i.next();
+				i.remove();
+			}
+			
+		}
+		
+		/**
+		 * Fetches started before the evicted mark are not cached anymore
+		 */
+		
+		private void evictMarks() {
+			
+			Iterator<Long> i = marks.values().iterator();
+			
+			while (marks.size() > maxEntries && i.hasNext()) {
+				evictedSeq = Math.max(evictedSeq, i.next());
+				i.remove();
+			}
+			
+		}
+		
+	}
+	
+	private static final class CacheEntry {
+		
+		private final Version version;
+		private final DattyRecord record;
+		private final long expireAt;
+		
+		CacheEntry(FetchResult result, long expireAt) {
+			this.version = result.getVersion();
+			this.record = result.hasRecord() ? copyOf(result.getRecord()) : null;
+			this.expireAt = expireAt;
+		}
+		
+		boolean isNewerThan(CacheEntry other) {
+			if (version == null || other.version == null) {
+				return false;
+			}
+			if (version.getType() != VersionType.LONG || other.version.getType() != VersionType.LONG) {
+				return false;
+			}
+			return version.asLong() > other.version.asLong();
+		}
+		
+		FetchResult toFetchResult(Fetch operation) {
+			
+			FetchResult result = new FetchResult();
+			result.setOperation(operation);
+			
+			if (version == null) {
+				return result;
+			}
+			
+			result.setVersion(version);
+			
+			if (record == null) {
+				return result;
+			}
+			
+			boolean fetchValues = operation.isFetchValues();
+			
+			if (operation.isAllMinorKeys()) {
+				
+				for (Map.Entry<String, DattyValue> e : record.getValues().entrySet()) {
+					result.addValue(e.getKey(), fetchValues ? copyOf(e.getValue()) : DattyValue.NULL);
+				}
+				
+			}
+			else {
+				
+				for (String minorKey : operation.getMinorKeys()) {
+					DattyValue value = record.get(minorKey);
+					if (value != null) {
+						result.addValue(minorKey, fetchValues ? copyOf(value) : DattyValue.NULL);
+					}
+				}
+				
+			}
+			
+			return result;
+		}
+		
+		private static DattyRecord copyOf(DattyRecord record) {
+			DattyRecord copy = new DattyRecord();
+			for (Map.Entry<String, DattyValue> e : record.getValues().entrySet()) {
+				copy.put(e.getKey(), copyOf(e.getValue()));
+			}
+			return copy;
+		}
+		
+		/**
+		 * Cached values are unpooled heap copies, every caller gets own copy to release
+		 */
+		
+		private static DattyValue copyOf(DattyValue value) {
+			if (value == null || !value.hasByteBuf()) {
+				return DattyValue.NULL;
+			}
+			return new ByteBufValue(Unpooled.copiedBuffer(value.asByteBuf()));
+		}
+		
+	}
+	
+	private static final class CacheKey {
+		
+		private final String setName;
+		private final String superKey;
+		private final String majorKey;
+		private final int hashCode;
+		
+		CacheKey(String setName, String superKey, String majorKey) {
+			this.setName = setName;
+			this.superKey = superKey;
+			this.majorKey = majorKey;
+			
+			int h = setName.hashCode();
+			h = 31 * h + (superKey != null ? superKey.hashCode() : 0);
+			h = 31 * h + majorKey.hashCode();
+			this.hashCode = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return majorKey.equals(other.majorKey) && setName.equals(other.setName) 
+					&& (superKey == null ? other.superKey == null : superKey.equals(other.superKey));
+		}
+		
+	}
+	
+}
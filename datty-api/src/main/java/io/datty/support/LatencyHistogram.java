@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * LatencyHistogram
+ *
+ * Lock-free log-linear histogram of nanoseconds in the way of HdrHistogram, every power of two range
+ * is split in 32 buckets, so the relative error is about 3%. Values above one hour are counted as one hour.
+ *
+ * Buckets and max are striped by thread the same way as StripedCounter, stripes are allocated on the first
+ * record of the thread and merged on read, so the snapshot is not atomic.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int HALF_SUB_BUCKETS = SUB_BUCKETS >> 1;
+
+	private static final long MAX_VALUE = (1L << 42) - 1;
+
+	private static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+
+	private final AtomicReferenceArray<Stripe> stripes = new AtomicReferenceArray<Stripe>(StripedCounter.stripes());
+	private final StripedCounter count = new StripedCounter();
+	private final StripedCounter total = new StripedCounter();
+
+	public void record(long nanos) {
+
+		long value = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+
+		stripe().record(value);
+		count.increment();
+		total.add(value);
+	}
+
+	private Stripe stripe() {
+
+		int index = StripedCounter.stripeIndex();
+
+		Stripe stripe = stripes.get(index);
+		if (stripe == null) {
+			stripes.compareAndSet(index, null, new Stripe());
+			stripe = stripes.get(index);
+		}
+
+		return stripe;
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getMax() {
+		long max = 0L;
+		for (int i = 0; i != stripes.length(); ++i) {
+			Stripe stripe = stripes.get(i);
+			if (stripe != null) {
+				max = Math.max(max, stripe.max.get());
+			}
+		}
+		return max;
+	}
+
+	public long getMean() {
+		long n = count.sum();
+		return n > 0 ? total.sum() / n : 0L;
+	}
+
+	/**
+	 * Gets the highest value of the bucket that has the percentile
+	 *
+	 * @param percentile - from 0.0 to 100.0
+	 * @return nanoseconds or 0 if empty
+	 */
+
+	public long getPercentile(double percentile) {
+
+		long[] snapshot = new long[BUCKETS];
+		long max = 0L;
+		for (int j = 0; j != stripes.length(); ++j) {
+			Stripe stripe = stripes.get(j);
+			if (stripe != null) {
+				for (int i = 0; i != BUCKETS; ++i) {
+					snapshot[i] += stripe.buckets.get(i);
+				}
+				max = Math.max(max, stripe.max.get());
+			}
+		}
+
+		long n = 0;
+		for (int i = 0; i != BUCKETS; ++i) {
+			n += snapshot[i];
+		}
+
+		if (n == 0) {
+			return 0L;
+		}
+
+		long rank = Math.max(1L, (long) Math.ceil(n * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+
+		long seen = 0;
+		for (int i = 0; i != BUCKETS; ++i) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(highestValueOf(i), max);
+			}
+		}
+
+		return max;
+	}
+
+	static int indexOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+		return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+	}
+
+	static long lowestValueOf(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / HALF_SUB_BUCKETS - 1;
+		return (long) (index - shift * HALF_SUB_BUCKETS) << shift;
+	}
+
+	static long highestValueOf(int index) {
+		return index + 1 < BUCKETS ? lowestValueOf(index + 1) - 1 : MAX_VALUE;
+	}
+
+	private static final class Stripe {
+
+		final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+		final AtomicLong max = new AtomicLong();
+
+		void record(long value) {
+
+			buckets.getAndIncrement(indexOf(value));
+
+			for (;;) {
+				long current = max.get();
+				if (current >= value || max.compareAndSet(current, value)) {
+					break;
+				}
+			}
+		}
+
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyHistogram [count=" + getCount() + ", mean=" + getMean() + ", max=" + getMax() + "]";
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.support;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * StripedCounter
+ *
+ * Counter for the hot path without LongAdder, threads add to different cells chosen by thread id,
+ * cells are padded to own cache lines, sum is not an atomic snapshot
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class StripedCounter {
+
+	/**
+	 * Longs in 64 bytes cache line
+	 */
+
+	private static final int PADDING = 8;
+
+	private static final int STRIPES = stripesFor(Runtime.getRuntime().availableProcessors());
+
+	private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+	public void increment() {
+		add(1L);
+	}
+
+	public void add(long delta) {
+		cells.getAndAdd(cellIndex(), delta);
+	}
+
+	public long sum() {
+		long sum = 0L;
+		for (int i = 0; i != STRIPES; ++i) {
+			sum += cells.get(i * PADDING);
+		}
+		return sum;
+	}
+
+	private static int cellIndex() {
+		return stripeIndex() * PADDING;
+	}
+
+	/**
+	 * Gets number of stripes, power of two
+	 */
+
+	static int stripes() {
+		return STRIPES;
+	}
+
+	/**
+	 * Gets stripe of the current thread
+	 */
+
+	static int stripeIndex() {
+		long id = Thread.currentThread().getId();
+		int h = (int) (id ^ (id >>> 32));
+		h *= 0x9E3779B9;
+		h ^= (h >>> 16);
+		return h & (STRIPES - 1);
+	}
+
+	private static int stripesFor(int processors) {
+		int stripes = 1;
+		while (stripes < processors * 2 && stripes < 64) {
+			stripes <<= 1;
+		}
+		return stripes;
+	}
+
+	@Override
+	public String toString() {
+		return Long.toString(sum());
+	}
+
+}
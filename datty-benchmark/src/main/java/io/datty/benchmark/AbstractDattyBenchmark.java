@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.benchmark;
+
+import java.util.Properties;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.datty.api.ByteBufValue;
+import io.datty.api.DattyRecord;
+import io.datty.api.SetExistsAction;
+import io.datty.unit.UnitDattyManager;
+import io.datty.unit.UnitPropertyKeys;
+import io.datty.unit.UnitSet;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * AbstractDattyBenchmark
+ *
+ * Common state for all benchmarks: UnitDattyManager with a single set and deterministic payloads
+ *
+ * @author Alex Shvid
+ *
+ */
+
+@State(Scope.Benchmark)
+public abstract class AbstractDattyBenchmark {
+
+	public static final String SET_NAME = "BenchmarkSet";
+
+	public static final int KEYS = 1024;
+
+	public static final long SEED = 2017L;
+
+	protected UnitDattyManager dattyManager;
+
+	protected UnitSet dattySet;
+
+	protected String[] majorKeys;
+
+	@Setup(Level.Trial)
+	public void setupManager() {
+
+		Properties props = new Properties();
+		props.setProperty(UnitPropertyKeys.NAME, "benchmark");
+
+		dattyManager = new UnitDattyManager(props);
+		dattySet = (UnitSet) dattyManager.getSet(SET_NAME, new Properties(), SetExistsAction.CREATE_IF_NOT_EXISTS);
+
+		majorKeys = new String[KEYS];
+		for (int i = 0; i != KEYS; ++i) {
+			majorKeys[i] = "major" + i;
+		}
+
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownManager() {
+		dattySet.clear();
+	}
+
+	protected String majorKey(KeyCursor cursor) {
+		return majorKeys[cursor.next(KEYS)];
+	}
+
+	public static ByteBuf newPayload(int size) {
+		byte[] blob = new byte[size];
+		new Random(SEED).nextBytes(blob);
+		return Unpooled.wrappedBuffer(blob);
+	}
+
+	public static String[] newMinorKeys(int width) {
+		String[] minorKeys = new String[width];
+		for (int i = 0; i != width; ++i) {
+			minorKeys[i] = "minor" + i;
+		}
+		return minorKeys;
+	}
+
+	public static DattyRecord newRecord(String[] minorKeys, ByteBuf payload) {
+		DattyRecord record = new DattyRecord();
+		for (String minorKey : minorKeys) {
+			record.put(minorKey, new ByteBufValue(payload));
+		}
+		return record;
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aerospike.client.Bin;
+
+import io.datty.aerospike.AerospikeBins;
+import io.datty.api.DattyRecord;
+import io.datty.api.DattyValue;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * AerospikeBinsBenchmark
+ *
+ * Encoding of Push values to Aerospike bins and then to the command buffer the way the client does,
+ * copy is the previous toByteArray() path, see gc.alloc.rate.norm for the difference
+ *
+ * @author Alex Shvid
+ *
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class AerospikeBinsBenchmark {
+
+	public enum BufferType {
+		HEAP, DIRECT
+	}
+
+	@Param({"4"})
+	public int width;
+
+	@Param({"1024", "65536", "1048576"})
+	public int valueSize;
+
+	@Param({"HEAP", "DIRECT"})
+	public BufferType bufferType;
+
+	private ByteBuf payload;
+
+	private Map<String, DattyValue> values;
+
+	private byte[] commandBuffer;
+
+	@Setup(Level.Trial)
+	public void setup() {
+
+		ByteBuf blob = AbstractDattyBenchmark.newPayload(valueSize);
+
+		if (bufferType == BufferType.DIRECT) {
+			payload = PooledByteBufAllocator.DEFAULT.directBuffer(valueSize);
+		}
+		else {
+			payload = PooledByteBufAllocator.DEFAULT.heapBuffer(valueSize);
+		}
+		payload.writeBytes(blob);
+
+		DattyRecord record = AbstractDattyBenchmark.newRecord(AbstractDattyBenchmark.newMinorKeys(width), payload);
+		values = record.getValues();
+
+		commandBuffer = new byte[width * valueSize];
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		payload.release();
+	}
+
+	@Benchmark
+	public int copy() {
+
+		Bin[] bins = new Bin[values.size()];
+
+		int i = 0;
+		for (Map.Entry<String, DattyValue> e : values.entrySet()) {
+			bins[i++] = new Bin(e.getKey(), e.getValue().toByteArray());
+		}
+
+		return writeCommand(bins);
+	}
+
+	@Benchmark
+	public int zeroCopy() {
+		return writeCommand(new AerospikeBins(values).getBins());
+	}
+
+	private int writeCommand(Bin[] bins) {
+
+		int offset = 0;
+		for (Bin bin : bins) {
+			offset += bin.value.estimateSize();
+		}
+
+		offset = 0;
+		for (Bin bin : bins) {
+			offset += bin.value.write(commandBuffer, offset);
+		}
+
+		return offset;
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.datty.api.Datty;
+import io.datty.api.DattyRecord;
+import io.datty.api.DattyResult;
+import io.datty.api.operation.Fetch;
+import io.datty.api.operation.Push;
+import io.datty.api.operation.RecordOperation;
+import io.netty.buffer.ByteBuf;
+import rx.Observable;
+
+/**
+ * DattyBatchBenchmark
+ *
+ * executeBatch and executeSequence (unbounded, bounded and ordered) for Fetch and Push operations through DattyDriver
+ *
+ * @author Alex Shvid
+ *
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class DattyBatchBenchmark extends AbstractDattyBenchmark {
+
+	public static final int MAX_CONCURRENT = 16;
+
+	@Param({"1", "16", "128"})
+	public int batchSize;
+
+	@Param({"1", "8", "32"})
+	public int recordWidth;
+
+	@Param({"16", "1024", "16384"})
+	public int valueSize;
+
+	private Datty datty;
+
+	private ByteBuf payload;
+
+	private DattyRecord record;
+
+	@Setup(Level.Trial)
+	public void setupBatch() {
+
+		datty = dattyManager.getDatty();
+		payload = newPayload(valueSize);
+		record = newRecord(newMinorKeys(recordWidth), payload);
+
+		for (String majorKey : majorKeys) {
+			datty.execute(new Push(SET_NAME, majorKey).setRecord(record)).toBlocking().value();
+		}
+
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownBatch() {
+		payload.release();
+	}
+
+	@Benchmark
+	public List<DattyResult> executeBatchFetch(KeyCursor cursor) {
+		return datty.executeBatch(fetchOperations(cursor)).toBlocking().value();
+	}
+
+	@Benchmark
+	public List<DattyResult> executeBatchPush(KeyCursor cursor) {
+		return datty.executeBatch(pushOperations(cursor)).toBlocking().value();
+	}
+
+	@Benchmark
+	public DattyResult executeSequenceFetch(KeyCursor cursor) {
+		return datty.executeSequence(Observable.from(fetchOperations(cursor))).toBlocking().last();
+	}
+
+	@Benchmark
+	public DattyResult executeSequencePush(KeyCursor cursor) {
+		return datty.executeSequence(Observable.from(pushOperations(cursor))).toBlocking().last();
+	}
+
+	@Benchmark
+	public DattyResult executeBoundedSequenceFetch(KeyCursor cursor) {
+		return datty.executeSequence(Observable.from(fetchOperations(cursor)), MAX_CONCURRENT).toBlocking().last();
+	}
+
+	@Benchmark
+	public DattyResult executeOrderedSequenceFetch(KeyCursor cursor) {
+		return datty.executeOrderedSequence(Observable.from(fetchOperations(cursor)), MAX_CONCURRENT).toBlocking().last();
+	}
+
+	private List<RecordOperation> fetchOperations(KeyCursor cursor) {
+		List<RecordOperation> operations = new ArrayList<RecordOperation>(batchSize);
+		for (int i = 0; i != batchSize; ++i) {
+			operations.add(new Fetch(SET_NAME, majorKey(cursor)).allMinorKeys());
+		}
+		return operations;
+	}
+
+	private List<RecordOperation> pushOperations(KeyCursor cursor) {
+		List<RecordOperation> operations = new ArrayList<RecordOperation>(batchSize);
+		for (int i = 0; i != batchSize; ++i) {
+			operations.add(new Push(SET_NAME, majorKey(cursor)).setRecord(record));
+		}
+		return operations;
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * DattyBenchmarks
+ *
+ * Entry point of benchmarks.jar, accepts regular JMH command line options and always
+ * enables gc profiler to report bytes allocated per operation
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class DattyBenchmarks {
+
+	private DattyBenchmarks() {
+	}
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+
+		CommandLineOptions cmdOptions = new CommandLineOptions(args);
+
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(cmdOptions);
+
+		if (cmdOptions.getIncludes().isEmpty()) {
+			builder.include(DattyBenchmarks.class.getPackage().getName() + ".*Benchmark");
+		}
+
+		Options options = builder.addProfiler(GCProfiler.class).build();
+
+		new Runner(options).run();
+	}
+
+}
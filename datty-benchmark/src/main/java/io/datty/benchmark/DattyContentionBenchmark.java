@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.datty.api.Datty;
+import io.datty.api.DattyRecord;
+import io.datty.api.UpdatePolicy;
+import io.datty.api.operation.Fetch;
+import io.datty.api.operation.Push;
+import io.datty.api.result.FetchResult;
+import io.datty.api.result.PushResult;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * DattyContentionBenchmark
+ *
+ * MERGE, REPLACE and version checked pushes through DattyDriver on 1, 8 and 64 threads,
+ * hotKeys=1 makes all threads write the same record
+ *
+ * @author Alex Shvid
+ *
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class DattyContentionBenchmark extends AbstractDattyBenchmark {
+
+	@Param({"1", "1024"})
+	public int hotKeys;
+
+	@Param({"16", "1024"})
+	public int valueSize;
+
+	private Datty datty;
+
+	private ByteBuf payload;
+
+	private DattyRecord record;
+
+	@Setup(Level.Trial)
+	public void setupContention() {
+
+		datty = dattyManager.getDatty();
+		payload = newPayload(valueSize);
+		record = newRecord(newMinorKeys(4), payload);
+
+		for (int i = 0; i != hotKeys; ++i) {
+			datty.execute(new Push(SET_NAME, majorKeys[i]).setRecord(record)).toBlocking().value();
+		}
+
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownContention() {
+		payload.release();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public PushResult merge1(KeyCursor cursor) {
+		return push(cursor, UpdatePolicy.MERGE);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public PushResult merge8(KeyCursor cursor) {
+		return push(cursor, UpdatePolicy.MERGE);
+	}
+
+	@Benchmark
+	@Threads(64)
+	public PushResult merge64(KeyCursor cursor) {
+		return push(cursor, UpdatePolicy.MERGE);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public PushResult replace1(KeyCursor cursor) {
+		return push(cursor, UpdatePolicy.REPLACE);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public PushResult replace8(KeyCursor cursor) {
+		return push(cursor, UpdatePolicy.REPLACE);
+	}
+
+	@Benchmark
+	@Threads(64)
+	public PushResult replace64(KeyCursor cursor) {
+		return push(cursor, UpdatePolicy.REPLACE);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public PushResult versioned1(KeyCursor cursor) {
+		return versionedPush(cursor);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public PushResult versioned8(KeyCursor cursor) {
+		return versionedPush(cursor);
+	}
+
+	@Benchmark
+	@Threads(64)
+	public PushResult versioned64(KeyCursor cursor) {
+		return versionedPush(cursor);
+	}
+
+	private PushResult push(KeyCursor cursor, UpdatePolicy updatePolicy) {
+		Push push = new Push(SET_NAME, majorKeys[cursor.next(hotKeys)]).setUpdatePolicy(updatePolicy).setRecord(record);
+		return datty.execute(push).toBlocking().value();
+	}
+
+	/**
+	 * Read-modify-write, result is not updated if another thread changed the record in between
+	 */
+
+	private PushResult versionedPush(KeyCursor cursor) {
+		String majorKey = majorKeys[cursor.next(hotKeys)];
+		FetchResult current = datty.execute(new Fetch(SET_NAME, majorKey).withValues(false).allMinorKeys()).toBlocking().value();
+		Push push = new Push(SET_NAME, majorKey).withVersion(current.getVersion()).setRecord(record);
+		return datty.execute(push).toBlocking().value();
+	}
+
+}
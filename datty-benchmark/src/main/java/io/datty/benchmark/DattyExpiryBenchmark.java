@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.datty.api.Datty;
+import io.datty.api.DattyRecord;
+import io.datty.api.operation.Push;
+import io.datty.api.result.PushResult;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * DattyExpiryBenchmark
+ *
+ * Cost of pushes with TTL compared to pushes without it (ttlSeconds=-1) and the lag
+ * between expiration time and removal of records nobody reads.
+ *
+ * expiryLag pushes records with 1 second TTL and waits until the set is empty,
+ * so the lag is the score minus one second.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class DattyExpiryBenchmark extends AbstractDattyBenchmark {
+
+	@Param({"-1", "60"})
+	public int ttlSeconds;
+
+	private Datty datty;
+
+	private ByteBuf payload;
+
+	private DattyRecord record;
+
+	@Setup(Level.Trial)
+	public void setupExpiry() {
+		datty = dattyManager.getDatty();
+		payload = newPayload(64);
+		record = newRecord(newMinorKeys(4), payload);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownExpiry() {
+		payload.release();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+	@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+	public PushResult pushTtl(KeyCursor cursor) {
+		Push push = new Push(SET_NAME, majorKey(cursor)).setTtlSeconds(ttlSeconds).setRecord(record);
+		return datty.execute(push).toBlocking().value();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 1)
+	@Measurement(iterations = 5)
+	public int expiryLag(ExpiringRecords expiring) throws InterruptedException {
+		while (dattySet.size() != 0) {
+			Thread.sleep(1);
+		}
+		return expiring.records;
+	}
+
+	/**
+	 * Fills the set with records that expire in one second before every expiryLag call
+	 */
+
+	@State(Scope.Thread)
+	public static class ExpiringRecords {
+
+		@Param({"1024", "65536"})
+		public int records;
+
+		@Setup(Level.Invocation)
+		public void push(DattyExpiryBenchmark benchmark) {
+			for (int i = 0; i != records; ++i) {
+				Push push = new Push(SET_NAME, "expiring" + i).setTtlSeconds(1).setRecord(benchmark.record);
+				benchmark.datty.execute(push).toBlocking().value();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.benchmark;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.datty.api.DattyRecord;
+import io.datty.api.DattySingle;
+import io.datty.api.UpdatePolicy;
+import io.datty.api.operation.Fetch;
+import io.datty.api.operation.Push;
+import io.datty.api.result.FetchResult;
+import io.datty.api.result.PushResult;
+import io.datty.spi.DattySingleDriver;
+import io.datty.spi.DattySingleProvider;
+import io.datty.unit.UnitDattySingle;
+import io.datty.unit.UnitRecord;
+import io.datty.unit.UnitSet;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * DattySingleBenchmark
+ *
+ * Fetch/Push/Remove for every layer of the stack:
+ * UnitDattySingle, DattySingleDriver, DattySingleProvider and DattyDriver
+ *
+ * @author Alex Shvid
+ *
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class DattySingleBenchmark extends AbstractDattyBenchmark {
+
+	@Param
+	public Layer layer;
+
+	@Param({"1", "8", "32"})
+	public int recordWidth;
+
+	@Param({"16", "1024", "16384"})
+	public int valueSize;
+
+	private DattySingle single;
+
+	private ByteBuf payload;
+
+	private DattyRecord record;
+
+	@Setup(Level.Trial)
+	public void setupSingle() {
+
+		single = layer.create(this);
+		payload = newPayload(valueSize);
+		record = newRecord(newMinorKeys(recordWidth), payload);
+
+		for (int i = 0; i != KEYS; ++i) {
+			dattySet.getRecordMap().put(majorKeys[i], new UnitRecord(record.getValues()));
+		}
+
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownSingle() {
+		payload.release();
+	}
+
+	@Benchmark
+	public FetchResult fetch(KeyCursor cursor) {
+		Fetch fetch = new Fetch(SET_NAME, majorKey(cursor)).allMinorKeys();
+		return single.execute(fetch).toBlocking().value();
+	}
+
+	@Benchmark
+	public FetchResult fetchHeader(KeyCursor cursor) {
+		Fetch fetch = new Fetch(SET_NAME, majorKey(cursor)).withValues(false).allMinorKeys();
+		return single.execute(fetch).toBlocking().value();
+	}
+
+	@Benchmark
+	public PushResult push(KeyCursor cursor) {
+		Push push = new Push(SET_NAME, majorKey(cursor)).setRecord(record);
+		return single.execute(push).toBlocking().value();
+	}
+
+	/**
+	 * Unit driver removes record by REPLACE push without values (same as AerospikePush.removeRecord),
+	 * removed record is released, so the new one is put in the map after operation to keep the set populated
+	 */
+
+	@Benchmark
+	public PushResult remove(KeyCursor cursor) {
+		int index = cursor.next(KEYS);
+		Push remove = new Push(SET_NAME, majorKeys[index]).setUpdatePolicy(UpdatePolicy.REPLACE);
+		PushResult result = single.execute(remove).toBlocking().value();
+		dattySet.getRecordMap().put(majorKeys[index], new UnitRecord(record.getValues()));
+		return result;
+	}
+
+	public enum Layer {
+
+		UNIT {
+
+			@Override
+			DattySingle create(AbstractDattyBenchmark benchmark) {
+				ConcurrentMap<String, UnitSet> setMap = new ConcurrentHashMap<String, UnitSet>();
+				setMap.put(SET_NAME, benchmark.dattySet);
+				return new UnitDattySingle(setMap);
+			}
+
+		},
+
+		DRIVER {
+
+			@Override
+			DattySingle create(AbstractDattyBenchmark benchmark) {
+				return new DattySingleDriver(UNIT.create(benchmark));
+			}
+
+		},
+
+		PROVIDER {
+
+			@Override
+			DattySingle create(AbstractDattyBenchmark benchmark) {
+				return new DattySingleProvider(DRIVER.create(benchmark));
+			}
+
+		},
+
+		DATTY {
+
+			@Override
+			DattySingle create(AbstractDattyBenchmark benchmark) {
+				return benchmark.dattyManager.getDatty();
+			}
+
+		};
+
+		abstract DattySingle create(AbstractDattyBenchmark benchmark);
+
+	}
+
+}
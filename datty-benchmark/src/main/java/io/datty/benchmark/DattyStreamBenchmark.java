@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.datty.api.Datty;
+import io.datty.api.DattyKey;
+import io.datty.unit.UnitRecord;
+import io.netty.buffer.ByteBuf;
+import rx.Observable;
+
+/**
+ * DattyStreamBenchmark
+ *
+ * streamIn and streamOut of large values split in chunks through DattyDriver
+ *
+ * @author Alex Shvid
+ *
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class DattyStreamBenchmark extends AbstractDattyBenchmark {
+
+	public static final String MINOR_KEY = "stream";
+
+	@Param({"1024", "65536", "1048576"})
+	public int valueSize;
+
+	@Param({"1024", "65536"})
+	public int chunkSize;
+
+	private Datty datty;
+
+	private ByteBuf payload;
+
+	private List<ByteBuf> chunks;
+
+	@Setup(Level.Trial)
+	public void setupStream() {
+
+		datty = dattyManager.getDatty();
+		payload = newPayload(valueSize);
+		chunks = new ArrayList<ByteBuf>();
+
+		for (int offset = 0; offset < valueSize; offset += chunkSize) {
+			chunks.add(payload.slice(offset, Math.min(chunkSize, valueSize - offset)));
+		}
+
+		for (String majorKey : majorKeys) {
+			datty.streamIn(newKey(majorKey), Observable.from(resetChunks())).toBlocking().value();
+		}
+
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownStream() {
+		payload.release();
+	}
+
+	/**
+	 * Unit stream appends to the existing value, so record is removed right after write
+	 */
+
+	@Benchmark
+	public Long streamIn(KeyCursor cursor) {
+		String majorKey = "in" + majorKey(cursor);
+		Long written = datty.streamIn(newKey(majorKey), Observable.from(resetChunks())).toBlocking().value();
+		UnitRecord record = dattySet.getRecordMap().remove(majorKey);
+		if (record != null) {
+			record.release();
+		}
+		return written;
+	}
+
+	@Benchmark
+	public ByteBuf streamOut(KeyCursor cursor) {
+		return datty.streamOut(newKey(majorKey(cursor))).toBlocking().last();
+	}
+
+	private DattyKey newKey(String majorKey) {
+		return new DattyKey(SET_NAME, majorKey).setMinorKey(MINOR_KEY);
+	}
+
+	private List<ByteBuf> resetChunks() {
+		for (ByteBuf chunk : chunks) {
+			chunk.resetReaderIndex();
+		}
+		return chunks;
+	}
+
+}
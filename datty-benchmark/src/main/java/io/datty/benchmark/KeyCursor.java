@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * KeyCursor
+ *
+ * Per thread round-robin cursor over pre-populated keys
+ *
+ * @author Alex Shvid
+ *
+ */
+
+@State(Scope.Thread)
+public class KeyCursor {
+
+	private int index;
+
+	public int next(int bound) {
+		int current = index;
+		index = current + 1 == bound ? 0 : current + 1;
+		return current;
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.datty.api.DattyOperation;
+import io.datty.api.operation.Push;
+import io.datty.msgpack.MessageCursor;
+import io.datty.msgpack.MessageIO;
+import io.datty.util.DattyIO;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * MessageCursorBenchmark
+ *
+ * Decoding of the Push message, reader is the generic MessageIO.readValue that boxes keys and numbers
+ * into the map, cursor is DattyIO.readOperation on top of MessageCursor
+ *
+ * @author Alex Shvid
+ *
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class MessageCursorBenchmark {
+
+	@Param({"4", "16"})
+	public int width;
+
+	@Param({"16", "1024"})
+	public int valueSize;
+
+	@Param({"false", "true"})
+	public boolean numeric;
+
+	private ByteBuf message;
+
+	private final MessageCursor cursor = new MessageCursor();
+
+	@Setup(Level.Trial)
+	public void setup() {
+
+		Push push = new Push("set", "majorKey");
+		push.setRecord(AbstractDattyBenchmark.newRecord(AbstractDattyBenchmark.newMinorKeys(width),
+				AbstractDattyBenchmark.newPayload(valueSize)));
+		push.setTtlSeconds(100);
+
+		message = DattyIO.writeOperation(push, Unpooled.buffer(), numeric);
+	}
+
+	@Benchmark
+	public Object reader() {
+		return MessageIO.readValue(message.duplicate(), false);
+	}
+
+	@Benchmark
+	public DattyOperation cursor() {
+		return DattyIO.readOperation(cursor.reset(message.duplicate()));
+	}
+
+}
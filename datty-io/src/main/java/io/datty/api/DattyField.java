@@ -16,6 +16,13 @@ package io.datty.api;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.msgpack.value.ValueType;
+
+import io.datty.msgpack.MessageCursor;
+import io.datty.msgpack.MessageKeyTable;
+import io.datty.msgpack.core.MapMessageWriter;
+import io.datty.support.exception.DattyException;
+
 /**
  * DattyField
  * 
@@ -42,6 +49,12 @@ public enum DattyField {
 	RECORD(19, "record"), // DattyRecord
 	USE_VERSION(20, "useVersion"), // Boolean	
 	VERSION(21, "version"), // Version
+	PARALLELISM(22, "parallelism"), // Integer
+	PARTITION_BEGIN(23, "partitionBegin"), // Integer
+	PARTITION_COUNT(24, "partitionCount"), // Integer
+	FILTERS(25, "filters"), // Array of SelectFilters
+	LIMIT(26, "limit"), // Integer
+	PARTITION_ID(27, "partitionId"), // Integer
 	
 	COUNT(30, "count"), // Long
 	PACKAGE_NAME(31, "packageName"), // String
@@ -57,9 +70,12 @@ public enum DattyField {
 
 	private final int code;
 	private final String name;
+	private final byte[] encodedCode;
+	private final byte[] encodedName;
 
 	private final static DattyField[] codeCache;
 	private final static Map<String, DattyField> nameIndex;
+	private final static MessageKeyTable<DattyField> nameTable;
 	
 	static {
 		int maxCode = DattyField.max();
@@ -71,11 +87,15 @@ public enum DattyField {
 			nameIndex.put(v.getFieldName(), v);
 		}
 		
+		nameTable = new MessageKeyTable<DattyField>(nameIndex);
+		
 	}
 	
 	private DattyField(int code, String name) {
 		this.code = code;
 		this.name = name;
+		this.encodedCode = MapMessageWriter.INSTANCE.encodeKey(code);
+		this.encodedName = MapMessageWriter.INSTANCE.encodeKey(name);
 	}
 
 	public int getFieldCode() {
@@ -86,6 +106,26 @@ public enum DattyField {
 		return name;
 	}
 	
+	/**
+	 * Gets map key of the field code encoded once
+	 * 
+	 * @return not null bytes, must not be modified
+	 */
+	
+	public byte[] getEncodedCode() {
+		return encodedCode;
+	}
+	
+	/**
+	 * Gets map key of the field name encoded once
+	 * 
+	 * @return not null bytes, must not be modified
+	 */
+	
+	public byte[] getEncodedName() {
+		return encodedName;
+	}
+	
 	public static DattyField findByKey(Object fieldKey) {
 		if (fieldKey instanceof Integer) {
 			return findByCode((Integer) fieldKey);
@@ -101,6 +141,42 @@ public enum DattyField {
 		}
 	}
 	
+	/**
+	 * Reads numeric or string field key without boxing and String allocation
+	 * 
+	 * @param cursor - message cursor
+	 * @return not null field
+	 */
+	
+	public static DattyField readKey(MessageCursor cursor) {
+		
+		ValueType type = cursor.nextType();
+		
+		if (type == ValueType.INTEGER) {
+			int fieldCode = cursor.readInt();
+			DattyField field = findByCode(fieldCode);
+			if (field == null) {
+				throw new DattyException("DattyField not found for: " + fieldCode);
+			}
+			return field;
+		}
+		
+		if (type == ValueType.STRING) {
+			cursor.readStringSlice();
+			DattyField field = nameTable.find(cursor);
+			if (field == null) {
+				throw new DattyException("DattyField not found for: " + cursor.sliceToString());
+			}
+			return field;
+		}
+		
+		if (type == null || type == ValueType.NIL) {
+			throw new DattyException("null field number");
+		}
+		
+		throw new DattyException("unexpected field key type: " + type);
+	}
+	
 	public static DattyField findByCode(int fieldCode) {
 		if (fieldCode < 0 || fieldCode >= codeCache.length) {
 			return null;
@@ -13,7 +13,7 @@
  */
 package io.datty.api;
 
-import io.datty.msgpack.MessageReader;
+import io.datty.msgpack.MessageCursor;
 import io.datty.msgpack.MessageWriter;
 import io.netty.buffer.ByteBuf;
 
@@ -41,12 +41,11 @@ public interface DattyOperationIO<O extends DattyOperation> {
 	 * 
 	 * @param operation - operation instance
 	 * @param field - field code
-	 * @param reader - message reader
-	 * @param source - input buffer
+	 * @param cursor - message cursor
 	 * @return true if field successfully read
 	 */
 	
-	boolean readField(O operation, DattyField field, MessageReader reader, ByteBuf source);
+	boolean readField(O operation, DattyField field, MessageCursor cursor);
 	
 	/**
 	 * Writes operation to the writer
@@ -15,11 +15,12 @@ package io.datty.api;
 
 import java.util.Map;
 
-import io.datty.msgpack.MessageReader;
+import org.msgpack.value.ValueType;
+
+import io.datty.msgpack.MessageCursor;
+import io.datty.msgpack.MessageKeyCache;
 import io.datty.msgpack.MessageWriter;
-import io.datty.msgpack.core.MapMessageReader;
 import io.datty.msgpack.core.MapMessageWriter;
-import io.datty.msgpack.core.ValueMessageReader;
 import io.datty.support.NullDattyValue;
 import io.datty.support.exception.DattyException;
 import io.netty.buffer.ByteBuf;
@@ -33,62 +34,88 @@ import io.netty.buffer.ByteBuf;
 
 public final class DattyRecordIO {
 
-	private final static MessageReader reader = MapMessageReader.INSTANCE;
 	private final static MessageWriter writer = MapMessageWriter.INSTANCE;
 	
+	private final static int MINOR_KEYS_CACHE_SIZE = 4096;
+	private final static int MAX_CACHED_MINOR_KEY_LENGTH = 64;
+	
+	/**
+	 * Minor keys are columns, the same few names come in every record,
+	 * one-time minor keys replace each other in the cache and do not push them out
+	 */
+	
+	private final static MessageKeyCache minorKeys = new MessageKeyCache(MINOR_KEYS_CACHE_SIZE, MAX_CACHED_MINOR_KEY_LENGTH);
+	
 	private DattyRecordIO() {
 	}
 	
 	public static DattyRecord readRecord(ByteBuf source) {
+		return readRecord(new MessageCursor(source));
+	}
+	
+	/**
+	 * Values are slices of the source, null values are NULL
+	 * 
+	 * @param cursor - message cursor
+	 * @return not null record
+	 */
+	
+	public static DattyRecord readRecord(MessageCursor cursor) {
 		
 		DattyRecord rec = new DattyRecord();
 		
-		Object recMap = reader.readValue(source, false);
+		if (!cursor.hasNext()) {
+			return rec;
+		}
 		
-		if (recMap == null) {
+		if (cursor.isNull()) {
+			cursor.readNull();
 			return rec;
 		}
 		
-		if (!(recMap instanceof MapMessageReader)) {
-			throw new DattyException("expected MapMessageReader for DattyRecord object");
+		if (cursor.nextType() != ValueType.MAP) {
+			throw new DattyException("expected map for DattyRecord object");
 		}
-
-		MapMessageReader mapReader = (MapMessageReader) recMap;
 		
-		int size = mapReader.size();
+		int size = cursor.readMapHeader();
 		
 		for (int i = 0; i != size; ++i) {
 			
-			Object minorKey = mapReader.readKey(source);
-			if (minorKey == null) {
-				throw new DattyException("expected not null key in DattyRow object");
+			if (cursor.nextType() != ValueType.STRING) {
+				throw new DattyException("expected not null string minor key in DattyRecord object");
 			}
 			
-			if (!(minorKey instanceof String)) {
-				throw new DattyException("expected string instance for minor key DattyRow object");
-			}
-			
-			ByteBuf value = mapReader.skipValue(source, false);
+			String minorKey = cursor.readString(minorKeys);
 
-			DattyValue dattyValue; 
-			
-			if (value == null || ValueMessageReader.INSTANCE.isNull(value)) {
-				dattyValue = NullDattyValue.NULL;
-			}
-			else if (ValueMessageReader.INSTANCE.isBinary(value)) {
-				dattyValue = new ByteBufValue(ValueMessageReader.INSTANCE.readBinary(value, false));
-			}
-			else {
-				dattyValue = new ByteBufValue(value);
-			}
-			
-			rec.put((String) minorKey, dattyValue);
+			rec.put(minorKey, readValue(cursor));
 		
 		}
 		
 		return rec;
 	}
 	
+	/**
+	 * Reads one value of the record, value is the slice of the source
+	 * 
+	 * @param cursor - message cursor
+	 * @return not null value or NULL
+	 */
+	
+	public static DattyValue readValue(MessageCursor cursor) {
+		
+		if (!cursor.hasNext() || cursor.isNull()) {
+			cursor.skipValue();
+			return NullDattyValue.NULL;
+		}
+		else if (cursor.isBinary()) {
+			return new ByteBufValue(cursor.readBinary(false));
+		}
+		else {
+			return new ByteBufValue(cursor.readValueSlice(false));
+		}
+		
+	}
+	
 	public static ByteBuf writeRecord(DattyRecord rec, ByteBuf sink) {
 		
 		Map<String, DattyValue> values = rec.getValues();
@@ -97,19 +124,9 @@ public final class DattyRecordIO {
 		
 		for (Map.Entry<String, DattyValue> entry : values.entrySet()) {
 			
-			DattyValue value = entry.getValue();
-
 			writer.writeKey(entry.getKey(), sink);
 			
-			if (value.isNull()) {
-				writer.writeNull(sink);
-			}
-			if (value.hasByteBuf()) {
-				writer.writeValue(value.asByteBuf(), sink, false);
-			}
-			else {
-				sink = value.write(sink);
-			}
+			sink = writeValue(entry.getValue(), sink);
 			
 		}
 
@@ -117,4 +134,26 @@ public final class DattyRecordIO {
 		
 	}
 	
+	/**
+	 * Writes one value of the record
+	 * 
+	 * @param value - value or null
+	 * @param sink - output buffer
+	 * @return old or new sink
+	 */
+	
+	public static ByteBuf writeValue(DattyValue value, ByteBuf sink) {
+		
+		if (value == null || value.isNull()) {
+			writer.writeNull(sink);
+			return sink;
+		}
+		
+		if (value.hasByteBuf()) {
+			return writer.writeValue(value.asByteBuf(), sink, false);
+		}
+		
+		return value.write(sink);
+	}
+	
 }
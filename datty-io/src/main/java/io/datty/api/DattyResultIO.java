@@ -13,7 +13,7 @@
  */
 package io.datty.api;
 
-import io.datty.msgpack.MessageReader;
+import io.datty.msgpack.MessageCursor;
 import io.datty.msgpack.MessageWriter;
 import io.netty.buffer.ByteBuf;
 
@@ -41,12 +41,11 @@ public interface DattyResultIO<R extends DattyResult> {
 	 * 
 	 * @param result - result instance
 	 * @param field - field code
-	 * @param reader - message reader
-	 * @param source - input buffer
+	 * @param cursor - message cursor
 	 * @return true if field successfully read
 	 */
 	
-	boolean readField(R result, DattyField field, MessageReader reader, ByteBuf source);
+	boolean readField(R result, DattyField field, MessageCursor cursor);
 	
 	/**
 	 * Writes result to the writer
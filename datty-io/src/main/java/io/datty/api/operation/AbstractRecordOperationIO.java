@@ -16,10 +16,9 @@ package io.datty.api.operation;
 import java.util.Set;
 
 import io.datty.api.DattyField;
-import io.datty.msgpack.MessageReader;
+import io.datty.msgpack.MessageCursor;
 import io.datty.util.DattyCollectionIO;
 import io.datty.util.FieldWriter;
-import io.netty.buffer.ByteBuf;
 
 /**
  * AbstractRecordOperaitonIO
@@ -33,9 +32,9 @@ abstract class AbstractRecordOperationIO<O extends AbstractRecordOperation> exte
 
 	@SuppressWarnings("unchecked")
 	@Override
-	public boolean readField(O operation, DattyField field, MessageReader reader, ByteBuf source) {
+	public boolean readField(O operation, DattyField field, MessageCursor cursor) {
 		
-		boolean read = super.readField(operation, field, reader, source);
+		boolean read = super.readField(operation, field, cursor);
 		
 		if (read) {
 			return true;
@@ -48,7 +47,7 @@ abstract class AbstractRecordOperationIO<O extends AbstractRecordOperation> exte
 				return true;
 		
 			case MINOR_KEYS:
-				operation.addMinorKeys(DattyCollectionIO.readStringArray(source));
+				operation.addMinorKeys(DattyCollectionIO.readStringArray(cursor));
 				return true;
 				
 			default:
@@ -15,7 +15,7 @@ package io.datty.api.operation;
 
 import io.datty.api.DattyField;
 import io.datty.api.DattyOperationIO;
-import io.datty.msgpack.MessageReader;
+import io.datty.msgpack.MessageCursor;
 import io.datty.msgpack.MessageWriter;
 import io.datty.util.FieldWriter;
 import io.netty.buffer.ByteBuf;
@@ -30,20 +30,20 @@ import io.netty.buffer.ByteBuf;
 abstract class AbstractSetOperationIO<O extends AbstractSetOperation<O>> implements DattyOperationIO<O> {
 
 	@Override
-	public boolean readField(O operation, DattyField field, MessageReader reader, ByteBuf source) {
+	public boolean readField(O operation, DattyField field, MessageCursor cursor) {
 		
 		switch(field) {
 		
 		case SET_NAME:
-			operation.setSetName((String) reader.readValue(source, true));
+			operation.setSetName(cursor.readString());
 			return true;
 			
 		case SUPER_KEY:
-			operation.setSuperKey((String) reader.readValue(source, true));
+			operation.setSuperKey(cursor.readString());
 			return true;		
 		
 		case TIMEOUT_MLS:
-			operation.setTimeoutMillis(((Long) reader.readValue(source, true)).intValue());
+			operation.setTimeoutMillis(cursor.readInt());
 			return true;
 			
 		default:
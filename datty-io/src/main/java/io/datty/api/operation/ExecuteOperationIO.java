@@ -14,9 +14,8 @@
 package io.datty.api.operation;
 
 import io.datty.api.DattyField;
-import io.datty.msgpack.MessageReader;
+import io.datty.msgpack.MessageCursor;
 import io.datty.util.FieldWriter;
-import io.netty.buffer.ByteBuf;
 
 /**
  * ExecuteOperationIO
@@ -33,9 +32,9 @@ public class ExecuteOperationIO extends AbstractOperationIO<Execute> {
 	}
 	
 	@Override
-	public boolean readField(Execute operation, DattyField field, MessageReader reader, ByteBuf source) {
+	public boolean readField(Execute operation, DattyField field, MessageCursor cursor) {
 		
-		boolean read = super.readField(operation, field, reader, source);
+		boolean read = super.readField(operation, field, cursor);
 		
 		if (read) {
 			return true;
@@ -44,19 +43,19 @@ public class ExecuteOperationIO extends AbstractOperationIO<Execute> {
 		switch(field) {
 		
 			case PACKAGE_NAME:
-				operation.setPackageName((String) reader.readValue(source, true));
+				operation.setPackageName(cursor.readString());
 				return true;
 
 			case FUNCTION_NAME:
-				operation.setFunctionName((String) reader.readValue(source, true));
+				operation.setFunctionName(cursor.readString());
 				return true;
 
 			case ARGUMENTS:
-				operation.setArguments((ByteBuf) reader.readValue(source, false));
+				operation.setArguments(cursor.readBinary(false));
 				return true;
 				
 			case TTL_SEC:
-				operation.setTtlSeconds(((Long) reader.readValue(source, true)).intValue());
+				operation.setTtlSeconds(cursor.readInt());
 				return true;				
 			
 			default:
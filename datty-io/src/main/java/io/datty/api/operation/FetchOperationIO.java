@@ -14,9 +14,8 @@
 package io.datty.api.operation;
 
 import io.datty.api.DattyField;
-import io.datty.msgpack.MessageReader;
+import io.datty.msgpack.MessageCursor;
 import io.datty.util.FieldWriter;
-import io.netty.buffer.ByteBuf;
 
 /**
  * FetchOperationIO
@@ -33,9 +32,9 @@ public class FetchOperationIO extends AbstractRecordOperationIO<Fetch> {
 	}
 	
 	@Override
-	public boolean readField(Fetch operation, DattyField field, MessageReader reader, ByteBuf source) {
+	public boolean readField(Fetch operation, DattyField field, MessageCursor cursor) {
 		
-		boolean read = super.readField(operation, field, reader, source);
+		boolean read = super.readField(operation, field, cursor);
 		
 		if (read) {
 			return true;
@@ -44,7 +43,7 @@ public class FetchOperationIO extends AbstractRecordOperationIO<Fetch> {
 		switch(field) {
 		
 			case WITH_VALUES:
-				operation.withValues(((Boolean) reader.readValue(source, true)));
+				operation.withValues(cursor.readBoolean());
 				return true;
 
 			default:
@@ -17,9 +17,8 @@ import io.datty.api.DattyField;
 import io.datty.api.DattyRecordIO;
 import io.datty.api.UpdatePolicy;
 import io.datty.api.version.VersionIO;
-import io.datty.msgpack.MessageReader;
+import io.datty.msgpack.MessageCursor;
 import io.datty.util.FieldWriter;
-import io.netty.buffer.ByteBuf;
 
 /**
  * PushOperationIO
@@ -36,9 +35,9 @@ public class PushOperationIO extends AbstractOperationIO<Push> {
 	}
 	
 	@Override
-	public boolean readField(Push operation, DattyField field, MessageReader reader, ByteBuf source) {
+	public boolean readField(Push operation, DattyField field, MessageCursor cursor) {
 		
-		boolean read = super.readField(operation, field, reader, source);
+		boolean read = super.readField(operation, field, cursor);
 		
 		if (read) {
 			return true;
@@ -47,23 +46,23 @@ public class PushOperationIO extends AbstractOperationIO<Push> {
 		switch(field) {
 		
 			case USE_VERSION:
-				operation.setUseVersion(((Boolean) reader.readValue(source, true)));
+				operation.setUseVersion(cursor.readBoolean());
 				return true;
 			
 			case VERSION:
-				operation.useVersion(VersionIO.readVersion(source));
+				operation.useVersion(VersionIO.readVersion(cursor));
 				return true;
 			
 			case RECORD:
-				operation.setRecord(DattyRecordIO.readRecord(source));
+				operation.setRecord(DattyRecordIO.readRecord(cursor));
 				return true;
 
 			case TTL_SEC:
-				operation.setTtlSeconds(((Long) reader.readValue(source, true)).intValue());
+				operation.setTtlSeconds(cursor.readInt());
 				return true;
 	
 			case UPDATE_POLICY:
-				int code = ((Long) reader.readValue(source, true)).intValue();
+				int code = cursor.readInt();
 				operation.setUpdatePolicy(UpdatePolicy.findByCode(code));
 				return true;				
 				
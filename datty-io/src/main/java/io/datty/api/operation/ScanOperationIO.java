@@ -13,6 +13,11 @@
  */
 package io.datty.api.operation;
 
+import io.datty.api.DattyConstants;
+import io.datty.api.DattyField;
+import io.datty.msgpack.MessageCursor;
+import io.datty.util.FieldWriter;
+
 /**
  * ScanOperationIO
  * 
@@ -26,5 +31,57 @@ public class ScanOperationIO extends AbstractSetOperationIO<Scan> {
 	public Scan newOperation() {
 		return new Scan();
 	}
+	
+	@Override
+	public boolean readField(Scan operation, DattyField field, MessageCursor cursor) {
+		
+		boolean read = super.readField(operation, field, cursor);
+		
+		if (read) {
+			return true;
+		}
+		
+		switch(field) {
+		
+			case WITH_VALUES:
+				operation.withValues(cursor.readBoolean());
+				return true;
+				
+			case PARALLELISM:
+				operation.setParallelism(cursor.readInt());
+				return true;
+				
+			case PARTITION_BEGIN:
+				int begin = cursor.readInt();
+				operation.setPartitions(begin, Math.min(operation.getPartitionCount(), DattyConstants.PARTITIONS - begin));
+				return true;
+				
+			case PARTITION_COUNT:
+				operation.setPartitions(operation.getPartitionBegin(), cursor.readInt());
+				return true;
+
+			default:
+				return false;
+		}
+		
+	}
+	
+	@Override
+	protected void writeFields(Scan operation, FieldWriter fieldWriter) {
+		
+		super.writeFields(operation, fieldWriter);
+
+		fieldWriter.writeField(DattyField.WITH_VALUES, operation.isScanValues());
+		
+		if (operation.hasParallelism()) {
+			fieldWriter.writeField(DattyField.PARALLELISM, operation.getParallelism());
+		}
+		
+		if (!operation.isAllPartitions()) {
+			fieldWriter.writeField(DattyField.PARTITION_BEGIN, operation.getPartitionBegin());
+			fieldWriter.writeField(DattyField.PARTITION_COUNT, operation.getPartitionCount());
+		}
+		
+	}
 
 }
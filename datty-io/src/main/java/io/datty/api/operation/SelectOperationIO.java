@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.api.operation;
+
+import io.datty.api.DattyField;
+import io.datty.msgpack.MessageCursor;
+import io.datty.util.DattyCollectionIO;
+import io.datty.util.DattyFilterIO;
+import io.datty.util.FieldWriter;
+
+/**
+ * SelectOperationIO
+ * 
+ * @author Alex Shvid
+ *
+ */
+
+public class SelectOperationIO extends AbstractSetOperationIO<Select> {
+
+	@Override
+	public Select newOperation() {
+		return new Select();
+	}
+	
+	@Override
+	public boolean readField(Select operation, DattyField field, MessageCursor cursor) {
+		
+		boolean read = super.readField(operation, field, cursor);
+		
+		if (read) {
+			return true;
+		}
+		
+		switch(field) {
+		
+			case FILTERS:
+				for (SelectFilter filter : DattyFilterIO.readFilters(cursor)) {
+					operation.addFilter(filter);
+				}
+				return true;
+				
+			case MINOR_KEYS:
+				operation.addMinorKeys(DattyCollectionIO.readStringArray(cursor));
+				return true;
+				
+			case LIMIT:
+				operation.setLimit(cursor.readInt());
+				return true;
+
+			default:
+				return false;
+		}
+		
+	}
+	
+	@Override
+	protected void writeFields(Select operation, FieldWriter fieldWriter) {
+		
+		super.writeFields(operation, fieldWriter);
+
+		if (operation.hasFilters()) {
+			fieldWriter.writeField(DattyField.FILTERS, operation.getFilters());
+		}
+		
+		if (!operation.isAllMinorKeys()) {
+			fieldWriter.writeField(DattyField.MINOR_KEYS, operation.getMinorKeys());
+		}
+		
+		if (operation.hasLimit()) {
+			fieldWriter.writeField(DattyField.LIMIT, operation.getLimit());
+		}
+		
+	}
+
+}
@@ -15,7 +15,7 @@ package io.datty.api.result;
 
 import io.datty.api.DattyField;
 import io.datty.api.DattyResultIO;
-import io.datty.msgpack.MessageReader;
+import io.datty.msgpack.MessageCursor;
 import io.datty.msgpack.MessageWriter;
 import io.datty.util.FieldWriter;
 import io.netty.buffer.ByteBuf;
@@ -37,12 +37,12 @@ public enum ExecuteResultIO implements DattyResultIO<ExecuteResult> {
 	}
 
 	@Override
-	public boolean readField(ExecuteResult result, DattyField field, MessageReader reader, ByteBuf source) {
+	public boolean readField(ExecuteResult result, DattyField field, MessageCursor cursor) {
 		
 		switch(field) {
 		
 		case BYTES_VALUE:
-			result.set((ByteBuf) reader.readValue(source, true));
+			result.set(cursor.readBinary(true));
 			return true;
 			
 		default:
@@ -17,7 +17,7 @@ import io.datty.api.DattyField;
 import io.datty.api.DattyResultIO;
 import io.datty.api.DattyRecordIO;
 import io.datty.api.version.VersionIO;
-import io.datty.msgpack.MessageReader;
+import io.datty.msgpack.MessageCursor;
 import io.datty.msgpack.MessageWriter;
 import io.datty.util.FieldWriter;
 import io.netty.buffer.ByteBuf;
@@ -39,16 +39,16 @@ public enum FetchResultIO implements DattyResultIO<FetchResult> {
 	}
 
 	@Override
-	public boolean readField(FetchResult result, DattyField field, MessageReader reader, ByteBuf source) {
+	public boolean readField(FetchResult result, DattyField field, MessageCursor cursor) {
 		
 		switch(field) {
 		
 		case VERSION:
-			result.setVersion(VersionIO.readVersion(source));
+			result.setVersion(VersionIO.readVersion(cursor));
 			return true;
 		
 		case RECORD:
-			result.setRecord(DattyRecordIO.readRecord(source));
+			result.setRecord(DattyRecordIO.readRecord(cursor));
 			return true;
 			
 		default:
@@ -15,7 +15,7 @@ package io.datty.api.result;
 
 import io.datty.api.DattyField;
 import io.datty.api.DattyResultIO;
-import io.datty.msgpack.MessageReader;
+import io.datty.msgpack.MessageCursor;
 import io.datty.msgpack.MessageWriter;
 import io.datty.util.FieldWriter;
 import io.netty.buffer.ByteBuf;
@@ -37,16 +37,16 @@ public enum PushResultIO implements DattyResultIO<PushResult> {
 	}
 
 	@Override
-	public boolean readField(PushResult result, DattyField field, MessageReader reader, ByteBuf source) {
+	public boolean readField(PushResult result, DattyField field, MessageCursor cursor) {
 		
 		switch(field) {
 		
 		case BOOL_VALUE:
-			result.setUpdated((Boolean) reader.readValue(source, true));
+			result.setUpdated(cursor.readBoolean());
 			return true;
 			
 		case LONG_VALUE:
-			result.setWrittenBytes((Long) reader.readValue(source, true));
+			result.setWrittenBytes(cursor.readLong());
 			return true;
 			
 		default:
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.api.result;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import io.datty.support.exception.DattyException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+/**
+ * RecordBatchCodec
+ *
+ * Compression of the one column in the record batch
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public enum RecordBatchCodec {
+
+	NONE(0) {
+
+		@Override
+		public ByteBuf encode(ByteBuf raw) {
+			return raw.duplicate();
+		}
+
+		@Override
+		public ByteBuf decode(ByteBuf payload, int rawLength) {
+			return payload.duplicate();
+		}
+
+	},
+
+	DEFLATE(1) {
+
+		@Override
+		public ByteBuf encode(ByteBuf raw) {
+
+			Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+			try {
+
+				deflater.setInput(ByteBufUtil.getBytes(raw));
+				deflater.finish();
+
+				byte[] chunk = new byte[CHUNK_SIZE];
+				ByteBuf payload = Unpooled.buffer(Math.min(raw.readableBytes(), CHUNK_SIZE));
+
+				while (!deflater.finished()) {
+					int len = deflater.deflate(chunk);
+					payload.writeBytes(chunk, 0, len);
+				}
+
+				return payload;
+			}
+			finally {
+				deflater.end();
+			}
+
+		}
+
+		@Override
+		public ByteBuf decode(ByteBuf payload, int rawLength) {
+
+			Inflater inflater = new Inflater();
+
+			try {
+
+				inflater.setInput(ByteBufUtil.getBytes(payload));
+
+				byte[] raw = new byte[rawLength];
+				int len = 0;
+
+				while (len != rawLength) {
+					int n = inflater.inflate(raw, len, rawLength - len);
+					if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+						break;
+					}
+					len += n;
+				}
+
+				if (len != rawLength) {
+					throw new DattyException("expected " + rawLength + " bytes in deflated column, but was: " + len);
+				}
+
+				return Unpooled.wrappedBuffer(raw);
+			}
+			catch(DataFormatException e) {
+				throw new DattyException("corrupted deflated column", e);
+			}
+			finally {
+				inflater.end();
+			}
+
+		}
+
+	};
+
+	private final static int CHUNK_SIZE = 4096;
+
+	private final int code;
+
+	private final static RecordBatchCodec[] codeCache;
+
+	static {
+		int maxCode = 0;
+		for (RecordBatchCodec v : values()) {
+			maxCode = Math.max(maxCode, v.getCode());
+		}
+		codeCache = new RecordBatchCodec[maxCode + 1];
+		for (RecordBatchCodec v : values()) {
+			codeCache[v.getCode()] = v;
+		}
+	}
+
+	private RecordBatchCodec(int code) {
+		this.code = code;
+	}
+
+	public int getCode() {
+		return code;
+	}
+
+	/**
+	 * Encodes raw column, does not move reader index of the raw buffer
+	 *
+	 * @param raw - concatenated values of the column
+	 * @return payload
+	 */
+
+	public abstract ByteBuf encode(ByteBuf raw);
+
+	/**
+	 * Decodes payload of the column
+	 *
+	 * @param payload - encoded column
+	 * @param rawLength - length of the raw column in bytes
+	 * @return concatenated values of the column
+	 */
+
+	public abstract ByteBuf decode(ByteBuf payload, int rawLength);
+
+	public static RecordBatchCodec findByCode(int code) {
+		if (code < 0 || code >= codeCache.length) {
+			return null;
+		}
+		return codeCache[code];
+	}
+
+}
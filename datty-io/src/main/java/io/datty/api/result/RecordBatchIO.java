@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.api.result;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.datty.api.DattyRecord;
+import io.datty.api.DattyRecordIO;
+import io.datty.api.version.VersionIO;
+import io.datty.msgpack.MessageWriter;
+import io.datty.msgpack.core.ArrayMessageWriter;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * RecordBatchIO
+ *
+ * Columnar encoding of the block of scan results. Minor keys are written once in the shared dictionary,
+ * values of every minor key are written together in one column, so the column could be compressed
+ * and decoded without touching the others by RecordBatchReader.
+ *
+ * Layout: [size, [minorKey...], majorKeys column, versions column, [column...]]
+ * Column: [codec, rawLength, payload], raw column is the concatenation of size values, nil if absent
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class RecordBatchIO {
+
+	private final static MessageWriter writer = ArrayMessageWriter.INSTANCE;
+
+	/**
+	 * Number of top level entries of the batch
+	 */
+
+	final static int BATCH_SIZE = 5;
+
+	/**
+	 * Number of entries in the column
+	 */
+
+	final static int COLUMN_SIZE = 3;
+
+	/**
+	 * Small columns are not compressed
+	 */
+
+	private final static int MIN_COMPRESS_LENGTH = 64;
+
+	private RecordBatchIO() {
+	}
+
+	public static List<RecordResult> readBatch(ByteBuf source) {
+		return new RecordBatchReader(source).readResults();
+	}
+
+	/**
+	 * Writes results as one batch, counts of results are not written
+	 *
+	 * @param results - scan results
+	 * @param sink - output buffer
+	 * @param codec - compression of columns
+	 * @param numeric - use numeric keys in versions
+	 * @return old or new sink
+	 */
+
+	public static ByteBuf writeBatch(List<? extends RecordResult> results, ByteBuf sink, RecordBatchCodec codec, boolean numeric) {
+
+		int size = results.size();
+
+		Set<String> minorKeys = new LinkedHashSet<String>();
+
+		for (RecordResult result : results) {
+			if (result.hasRecord()) {
+				minorKeys.addAll(result.getRecord().minorKeys());
+			}
+		}
+
+		writer.writeHeader(BATCH_SIZE, sink);
+		writer.writeValue(size, sink);
+
+		writer.writeHeader(minorKeys.size(), sink);
+		for (String minorKey : minorKeys) {
+			writer.writeValue(minorKey, sink);
+		}
+
+		ByteBuf raw = sink.alloc().buffer();
+
+		try {
+
+			for (RecordResult result : results) {
+				if (result.hasMajorKey()) {
+					writer.writeValue(result.getMajorKey(), raw);
+				}
+				else {
+					writer.writeNull(raw);
+				}
+			}
+
+			sink = writeColumn(raw, sink, codec);
+
+			raw.clear();
+			for (RecordResult result : results) {
+				if (result.hasVersion()) {
+					VersionIO.writeVersion(result.getVersion(), raw, numeric);
+				}
+				else {
+					writer.writeNull(raw);
+				}
+			}
+
+			sink = writeColumn(raw, sink, codec);
+
+			writer.writeHeader(minorKeys.size(), sink);
+
+			for (String minorKey : minorKeys) {
+
+				raw.clear();
+				for (RecordResult result : results) {
+					DattyRecord rec = result.getRecord();
+					raw = DattyRecordIO.writeValue(rec != null ? rec.get(minorKey) : null, raw);
+				}
+
+				sink = writeColumn(raw, sink, codec);
+			}
+
+		}
+		finally {
+			raw.release();
+		}
+
+		return sink;
+	}
+
+	private static ByteBuf writeColumn(ByteBuf raw, ByteBuf sink, RecordBatchCodec codec) {
+
+		int rawLength = raw.readableBytes();
+
+		ByteBuf payload = null;
+
+		if (codec != RecordBatchCodec.NONE && rawLength >= MIN_COMPRESS_LENGTH) {
+			payload = codec.encode(raw);
+			if (payload.readableBytes() >= rawLength) {
+				payload.release();
+				payload = null;
+			}
+		}
+
+		if (payload == null) {
+			codec = RecordBatchCodec.NONE;
+			payload = raw.duplicate();
+		}
+
+		writer.writeHeader(COLUMN_SIZE, sink);
+		writer.writeValue(codec.getCode(), sink);
+		writer.writeValue(rawLength, sink);
+		sink = writer.writeValue(payload, sink, true);
+
+		if (codec != RecordBatchCodec.NONE) {
+			payload.release();
+		}
+
+		return sink;
+	}
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.api.result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.msgpack.value.ValueType;
+
+import io.datty.api.DattyRecord;
+import io.datty.api.DattyRecordIO;
+import io.datty.api.DattyValue;
+import io.datty.api.version.Version;
+import io.datty.api.version.VersionIO;
+import io.datty.msgpack.MessageCursor;
+import io.datty.support.exception.DattyException;
+import io.datty.util.DattyCollectionIO;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * RecordBatchReader
+ *
+ * Reader of the batch written by RecordBatchIO. Only the dictionary and headers of columns
+ * are read on creation, payloads stay in the source until the column is requested,
+ * so one column is decoded without touching the others.
+ *
+ * Values are slices of the source or of the decompressed column. Null values are not
+ * distinguished from missing minor keys, both are NULL in the column and missing in the record.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class RecordBatchReader {
+
+	private final int size;
+	private final List<String> minorKeys;
+	private final Map<String, Column> columnIndex;
+	private final Column majorKeys;
+	private final Column versions;
+	private final Column[] columns;
+
+	public RecordBatchReader(ByteBuf source) {
+
+		MessageCursor cursor = new MessageCursor(source);
+
+		if (!cursor.hasNext() || cursor.nextType() != ValueType.ARRAY) {
+			throw new DattyException("expected array for RecordBatch object");
+		}
+
+		int batchSize = cursor.readArrayHeader();
+		if (batchSize != RecordBatchIO.BATCH_SIZE) {
+			throw new DattyException("expected " + RecordBatchIO.BATCH_SIZE + " entries in RecordBatch object, but was: " + batchSize);
+		}
+
+		this.size = cursor.readInt();
+		this.minorKeys = DattyCollectionIO.readStringArray(cursor);
+		this.majorKeys = readColumn(cursor);
+		this.versions = readColumn(cursor);
+
+		if (cursor.nextType() != ValueType.ARRAY) {
+			throw new DattyException("expected array of columns in RecordBatch object");
+		}
+
+		int columnsSize = cursor.readArrayHeader();
+		if (columnsSize != minorKeys.size()) {
+			throw new DattyException("expected " + minorKeys.size() + " columns in RecordBatch object, but was: " + columnsSize);
+		}
+
+		this.columns = new Column[columnsSize];
+		this.columnIndex = new HashMap<String, Column>(columnsSize * 2);
+
+		for (int i = 0; i != columnsSize; ++i) {
+			columns[i] = readColumn(cursor);
+			columnIndex.put(minorKeys.get(i), columns[i]);
+		}
+
+	}
+
+	/**
+	 * Gets number of records in the batch
+	 *
+	 * @return number of records
+	 */
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets dictionary of the batch
+	 *
+	 * @return minor keys in the order of columns
+	 */
+
+	public List<String> getMinorKeys() {
+		return minorKeys;
+	}
+
+	public boolean hasColumn(String minorKey) {
+		return columnIndex.containsKey(minorKey);
+	}
+
+	public List<String> readMajorKeys() {
+
+		MessageCursor cursor = majorKeys.cursor();
+
+		List<String> list = new ArrayList<String>(size);
+		for (int i = 0; i != size; ++i) {
+			list.add(cursor.readString());
+		}
+
+		return list;
+	}
+
+	public List<Version> readVersions() {
+
+		MessageCursor cursor = versions.cursor();
+
+		List<Version> list = new ArrayList<Version>(size);
+		for (int i = 0; i != size; ++i) {
+			list.add(VersionIO.readVersion(cursor));
+		}
+
+		return list;
+	}
+
+	/**
+	 * Decodes only the column of the minor key
+	 *
+	 * @param minorKey - minor key
+	 * @return values of all records, NULL if absent
+	 */
+
+	public List<DattyValue> readColumn(String minorKey) {
+
+		Column column = columnIndex.get(minorKey);
+
+		if (column == null) {
+			return Collections.nCopies(size, DattyValue.NULL);
+		}
+
+		return column.readValues(size);
+	}
+
+	/**
+	 * Decodes all columns back to results
+	 *
+	 * @return results in the order of the batch
+	 */
+
+	public List<RecordResult> readResults() {
+
+		List<String> majorKeyList = readMajorKeys();
+		List<Version> versionList = readVersions();
+
+		List<List<DattyValue>> valueLists = new ArrayList<List<DattyValue>>(columns.length);
+		for (Column column : columns) {
+			valueLists.add(column.readValues(size));
+		}
+
+		List<RecordResult> results = new ArrayList<RecordResult>(size);
+
+		for (int i = 0; i != size; ++i) {
+
+			RecordResult result = new RecordResult();
+			result.setMajorKey(majorKeyList.get(i));
+			result.setVersion(versionList.get(i));
+
+			DattyRecord rec = null;
+
+			for (int j = 0; j != columns.length; ++j) {
+
+				DattyValue value = valueLists.get(j).get(i);
+
+				if (!value.isNull()) {
+					if (rec == null) {
+						rec = new DattyRecord();
+					}
+					rec.put(minorKeys.get(j), value);
+				}
+
+			}
+
+			result.setRecord(rec);
+			results.add(result);
+		}
+
+		return results;
+	}
+
+	private static Column readColumn(MessageCursor cursor) {
+
+		if (cursor.nextType() != ValueType.ARRAY) {
+			throw new DattyException("expected array for column in RecordBatch object");
+		}
+
+		int columnSize = cursor.readArrayHeader();
+		if (columnSize != RecordBatchIO.COLUMN_SIZE) {
+			throw new DattyException("expected " + RecordBatchIO.COLUMN_SIZE + " entries in column, but was: " + columnSize);
+		}
+
+		int code = cursor.readInt();
+		RecordBatchCodec codec = RecordBatchCodec.findByCode(code);
+		if (codec == null) {
+			throw new DattyException("codec not found for code: " + code);
+		}
+
+		int rawLength = cursor.readInt();
+		ByteBuf payload = cursor.readBinary(false);
+
+		return new Column(codec, rawLength, payload);
+	}
+
+	private static final class Column {
+
+		final RecordBatchCodec codec;
+		final int rawLength;
+		final ByteBuf payload;
+
+		Column(RecordBatchCodec codec, int rawLength, ByteBuf payload) {
+			this.codec = codec;
+			this.rawLength = rawLength;
+			this.payload = payload;
+		}
+
+		MessageCursor cursor() {
+			return new MessageCursor(codec.decode(payload, rawLength));
+		}
+
+		List<DattyValue> readValues(int size) {
+
+			MessageCursor cursor = cursor();
+
+			List<DattyValue> list = new ArrayList<DattyValue>(size);
+			for (int i = 0; i != size; ++i) {
+				list.add(DattyRecordIO.readValue(cursor));
+			}
+
+			return list;
+		}
+
+	}
+
+}
@@ -17,7 +17,7 @@ import io.datty.api.DattyField;
 import io.datty.api.DattyResultIO;
 import io.datty.api.DattyRecordIO;
 import io.datty.api.version.VersionIO;
-import io.datty.msgpack.MessageReader;
+import io.datty.msgpack.MessageCursor;
 import io.datty.msgpack.MessageWriter;
 import io.datty.util.FieldWriter;
 import io.netty.buffer.ByteBuf;
@@ -39,24 +39,28 @@ public enum RecordResultIO implements DattyResultIO<RecordResult> {
 	}
 
 	@Override
-	public boolean readField(RecordResult result, DattyField field, MessageReader reader, ByteBuf source) {
+	public boolean readField(RecordResult result, DattyField field, MessageCursor cursor) {
 		
 		switch(field) {
 		
 		case MAJOR_KEY:
-			result.setMajorKey((String) reader.readValue(source, true));
+			result.setMajorKey(cursor.readString());
 			return true;
 		
 		case VERSION:
-			result.setVersion(VersionIO.readVersion(source));
+			result.setVersion(VersionIO.readVersion(cursor));
 			return true;
 		
 		case RECORD:
-			result.setRecord(DattyRecordIO.readRecord(source));
+			result.setRecord(DattyRecordIO.readRecord(cursor));
+			return true;
+			
+		case PARTITION_ID:
+			result.setPartitionId(cursor.readInt());
 			return true;
 			
 		case COUNT:
-			result.setCount((Long) reader.readValue(source, true));
+			result.setCount(cursor.readLong());
 			return true;
 			
 		default:
@@ -85,6 +89,10 @@ public enum RecordResultIO implements DattyResultIO<RecordResult> {
 			fieldWriter.writeField(DattyField.RECORD, result.getRecord());
 		}
 		
+		if (result.hasPartitionId()) {
+			fieldWriter.writeField(DattyField.PARTITION_ID, result.getPartitionId());
+		}
+		
 		if (result.hasCount()) {
 			fieldWriter.writeField(DattyField.COUNT, result.getCount());
 		}
@@ -15,7 +15,7 @@ package io.datty.api.result;
 
 import io.datty.api.DattyField;
 import io.datty.api.DattyResultIO;
-import io.datty.msgpack.MessageReader;
+import io.datty.msgpack.MessageCursor;
 import io.datty.msgpack.MessageWriter;
 import io.datty.util.DattyCollectionIO;
 import io.datty.util.FieldWriter;
@@ -38,12 +38,12 @@ public enum RemoveResultIO implements DattyResultIO<RemoveResult> {
 	}
 
 	@Override
-	public boolean readField(RemoveResult result, DattyField field, MessageReader reader, ByteBuf source) {
+	public boolean readField(RemoveResult result, DattyField field, MessageCursor cursor) {
 		
 		switch(field) {
 		
 		case MINOR_KEYS:
-			result.addMinorKeys(DattyCollectionIO.readStringArray(source));
+			result.addMinorKeys(DattyCollectionIO.readStringArray(cursor));
 			return true;
 			
 		default:
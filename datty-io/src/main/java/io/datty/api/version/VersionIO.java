@@ -13,11 +13,12 @@
  */
 package io.datty.api.version;
 
+import org.msgpack.value.ValueType;
+
 import io.datty.api.DattyField;
+import io.datty.msgpack.MessageCursor;
 import io.datty.msgpack.MessageWriter;
-import io.datty.msgpack.core.MapMessageReader;
 import io.datty.msgpack.core.MapMessageWriter;
-import io.datty.msgpack.core.ValueMessageReader;
 import io.datty.support.exception.DattyException;
 import io.netty.buffer.ByteBuf;
 
@@ -35,41 +36,38 @@ public final class VersionIO {
 	
 	
 	public static Version readVersion(ByteBuf source) {
+		return readVersion(new MessageCursor(source));
+	}
+	
+	public static Version readVersion(MessageCursor cursor) {
 		
-		Object rowMap = ValueMessageReader.INSTANCE.readValue(source, false);
-		
-		if (rowMap == null) {
+		if (!cursor.hasNext()) {
 			return null;
 		}
 		
-		if (!(rowMap instanceof MapMessageReader)) {
-			throw new DattyException("expected MapMessageReader for DattyRow object");
+		if (cursor.isNull()) {
+			cursor.readNull();
+			return null;
 		}
 		
-		MapMessageReader mapReader = (MapMessageReader) rowMap;
+		if (cursor.nextType() != ValueType.MAP) {
+			throw new DattyException("expected map for Version object");
+		}
 		
-		int size = mapReader.size();
+		int size = cursor.readMapHeader();
 
 		VersionType versionType = null;
-		Long longValue = null;
+		long longValue = 0L;
 		String stringValue = null;
 		
 		for (int i = 0; i != size; ++i) {
 			
-			Object fieldKey = mapReader.readKey(source);
-			if (fieldKey == null) {
-				throw new DattyException("expected not null fieldNum in object");
-			}
-			
-			DattyField field = DattyField.findByKey(fieldKey);
-			if (field == null) {
-				throw new DattyException("field not found for fieldNum: " + fieldKey);
-			}
+			DattyField field = DattyField.readKey(cursor);
 			
 			switch(field) {
 			
 			case VERSION_TYPE:
-				int code = ((Long) mapReader.readValue(source, true)).intValue();
+				int code = cursor.readInt();
 				versionType = VersionType.findByCode(code);
 				if (versionType == null) {
 					throw new DattyException("versionType not found for code: " + code);
@@ -77,24 +75,28 @@ public final class VersionIO {
 				break;
 				
 			case LONG_VALUE:
-				longValue = (Long) mapReader.readValue(source, true);
+				longValue = cursor.readLong();
 				break;
 				
 			case STRING_VALUE:
-				stringValue = (String) mapReader.readValue(source, true);
+				stringValue = cursor.readString();
 				break;
 				
 			default:
-				mapReader.skipValue(source, false);
+				cursor.skipValue();
 				break;
 			}
 			
 		}
 		
+		if (versionType == null) {
+			throw new DattyException("expected versionType in Version object");
+		}
+		
 		switch(versionType) {
 		
 		case LONG:
-			return new LongVersion(longValue != null ? longValue.longValue() : 0L);
+			return new LongVersion(longValue);
 		
 		case STRING:	
 			return new StringVersion(stringValue);
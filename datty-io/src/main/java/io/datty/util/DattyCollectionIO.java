@@ -18,9 +18,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
-import io.datty.msgpack.core.ArrayMessageReader;
+import org.msgpack.value.ValueType;
+
+import io.datty.msgpack.MessageCursor;
 import io.datty.msgpack.core.ArrayMessageWriter;
-import io.datty.msgpack.core.ValueMessageReader;
 import io.datty.support.exception.DattyException;
 import io.netty.buffer.ByteBuf;
 
@@ -37,36 +38,42 @@ public final class DattyCollectionIO {
 	}
 	
 	public static List<String> readStringArray(ByteBuf source) {
+		return readStringArray(new MessageCursor(source));
+	}
+	
+	public static List<String> readStringArray(MessageCursor cursor) {
 		
-		Object value = ValueMessageReader.INSTANCE.readValue(source, false);
-		
-		if (value == null) {
+		if (!cursor.hasNext()) {
 			return Collections.emptyList();
 		}
 		
-		if (!(value instanceof ArrayMessageReader)) {
-			throw new DattyException("expected array of strings in message, but was: " + value);
+		if (cursor.isNull()) {
+			cursor.readNull();
+			return Collections.emptyList();
 		}
 		
-		ArrayMessageReader arrayReader = (ArrayMessageReader) value;
+		ValueType type = cursor.nextType();
+		if (type != ValueType.ARRAY) {
+			throw new DattyException("expected array of strings in message, but was: " + type);
+		}
 		
-		int size = arrayReader.size();
+		int size = cursor.readArrayHeader();
 		
 		List<String> list = new ArrayList<String>(size);
 		
 		for (int i = 0; i != size; ++i) {
 			
-			Object item = arrayReader.readValue(source, true);
-			
-			if (item == null) {
+			if (cursor.isNull()) {
+				cursor.readNull();
 				continue;
 			}
 			
-			if (!(item instanceof String)) {
-				throw new DattyException("expected string item, but was:" + item);
+			ValueType itemType = cursor.nextType();
+			if (itemType != ValueType.STRING) {
+				throw new DattyException("expected string item, but was:" + itemType);
 			}
 			
-			list.add((String) item);
+			list.add(cursor.readString());
 			
 		}
 		
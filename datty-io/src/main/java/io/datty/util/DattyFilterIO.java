@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.msgpack.value.ValueType;
+
+import io.datty.api.operation.SelectFilter;
+import io.datty.msgpack.MessageCursor;
+import io.datty.msgpack.core.ArrayMessageWriter;
+import io.datty.support.exception.DattyException;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * DattyFilterIO
+ * 
+ * Filters are array of arrays [minorKey, EQUAL, value] or [minorKey, RANGE, begin, end]
+ * 
+ * @author Alex Shvid
+ *
+ */
+
+public final class DattyFilterIO {
+
+	private DattyFilterIO() {
+	}
+	
+	public static List<SelectFilter> readFilters(ByteBuf source) {
+		return readFilters(new MessageCursor(source));
+	}
+	
+	public static List<SelectFilter> readFilters(MessageCursor cursor) {
+		
+		if (!cursor.hasNext()) {
+			return Collections.emptyList();
+		}
+		
+		if (cursor.isNull()) {
+			cursor.readNull();
+			return Collections.emptyList();
+		}
+		
+		ValueType type = cursor.nextType();
+		if (type != ValueType.ARRAY) {
+			throw new DattyException("expected array of filters in message, but was: " + type);
+		}
+		
+		int size = cursor.readArrayHeader();
+		
+		List<SelectFilter> list = new ArrayList<SelectFilter>(size);
+		
+		for (int i = 0; i != size; ++i) {
+			
+			ValueType itemType = cursor.nextType();
+			if (itemType != ValueType.ARRAY) {
+				throw new DattyException("expected filter array, but was: " + itemType);
+			}
+			
+			list.add(readFilter(cursor));
+			
+		}
+		
+		return list;
+	}
+	
+	private static SelectFilter readFilter(MessageCursor cursor) {
+		
+		int size = cursor.readArrayHeader();
+		if (size < 3) {
+			throw new DattyException("expected at least 3 items in filter, but was: " + size);
+		}
+		
+		if (cursor.nextType() != ValueType.STRING) {
+			throw new DattyException("invalid filter header: " + cursor.nextType());
+		}
+		
+		String minorKey = cursor.readString();
+		
+		if (cursor.nextType() != ValueType.INTEGER) {
+			throw new DattyException("invalid filter header: " + minorKey + ", " + cursor.nextType());
+		}
+		
+		int code = cursor.readInt();
+		
+		SelectFilter.Type type = SelectFilter.Type.findByCode(code);
+		
+		if (type == SelectFilter.Type.EQUAL && size == 3) {
+			if (cursor.nextType() == ValueType.STRING) {
+				return SelectFilter.equal(minorKey, cursor.readString());
+			}
+			throw new DattyException("expected string value in filter, but was: " + cursor.nextType());
+		}
+		
+		if (type == SelectFilter.Type.RANGE && size == 4) {
+			if (cursor.nextType() == ValueType.INTEGER) {
+				long begin = cursor.readLong();
+				if (cursor.nextType() == ValueType.INTEGER) {
+					return SelectFilter.range(minorKey, begin, cursor.readLong());
+				}
+			}
+			throw new DattyException("expected long range in filter, but was: " + cursor.nextType());
+		}
+		
+		throw new DattyException("invalid filter: type=" + code + ", size=" + size);
+	}
+	
+	public static void writeFilters(Collection<SelectFilter> filters, ByteBuf sink) {
+		
+		ArrayMessageWriter arrayWriter = ArrayMessageWriter.INSTANCE;
+		
+		arrayWriter.writeHeader(filters.size(), sink); 
+		for (SelectFilter filter : filters) {
+			
+			if (filter.getType() == SelectFilter.Type.EQUAL) {
+				arrayWriter.writeHeader(3, sink);
+				arrayWriter.writeValue(filter.getMinorKey(), sink);
+				arrayWriter.writeValue(filter.getType().getCode(), sink);
+				arrayWriter.writeValue(filter.getValue(), sink);
+			}
+			else {
+				arrayWriter.writeHeader(4, sink);
+				arrayWriter.writeValue(filter.getMinorKey(), sink);
+				arrayWriter.writeValue(filter.getType().getCode(), sink);
+				arrayWriter.writeValue(filter.getBegin(), sink);
+				arrayWriter.writeValue(filter.getEnd(), sink);
+			}
+			
+		}
+		
+	}
+
+}
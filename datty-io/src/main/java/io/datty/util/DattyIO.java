@@ -13,6 +13,8 @@
  */
 package io.datty.util;
 
+import org.msgpack.value.ValueType;
+
 import io.datty.api.DattyField;
 import io.datty.api.DattyOperation;
 import io.datty.api.DattyOperationIO;
@@ -24,13 +26,14 @@ import io.datty.api.operation.FetchOperationIO;
 import io.datty.api.operation.PushOperationIO;
 import io.datty.api.operation.RemoveOperationIO;
 import io.datty.api.operation.ScanOperationIO;
+import io.datty.api.operation.SelectOperationIO;
 import io.datty.api.operation.SizeOperationIO;
 import io.datty.api.result.ExecuteResultIO;
 import io.datty.api.result.FetchResultIO;
 import io.datty.api.result.PushResultIO;
 import io.datty.api.result.RecordResultIO;
 import io.datty.api.result.RemoveResultIO;
-import io.datty.msgpack.MessageReader;
+import io.datty.msgpack.MessageCursor;
 import io.datty.msgpack.MessageWriter;
 import io.datty.msgpack.core.MapMessageWriter;
 import io.datty.msgpack.core.ValueMessageReader;
@@ -66,6 +69,7 @@ public final class DattyIO {
 		codeOperations[DattyOperation.OpCode.CLEAR.getCode()] = new ClearOperationIO();
 		codeOperations[DattyOperation.OpCode.SIZE.getCode()] = new SizeOperationIO();
 		codeOperations[DattyOperation.OpCode.SCAN.getCode()] = new ScanOperationIO();
+		codeOperations[DattyOperation.OpCode.SELECT.getCode()] = new SelectOperationIO();
 		
 		codeResults[DattyResult.ResCode.FETCH.getCode()] = FetchResultIO.INSTANCE;
 		codeResults[DattyResult.ResCode.PUSH.getCode()] = PushResultIO.INSTANCE;
@@ -92,40 +96,36 @@ public final class DattyIO {
 			throw new DattyException("expected map in the buffer");
 		}
 		
-		MessageReader reader = ValueMessageReader.INSTANCE.readMap(source, true);
-		return readOperation(reader, source);
+		return readOperation(new MessageCursor(source));
 	}
 	
+	/**
+	 * Read operation from the cursor, the cursor is positioned on the map
+	 * 
+	 * @param cursor - message cursor
+	 * @return datty operation or null for empty map
+	 */
+	
 	@SuppressWarnings("unchecked")
-	public static DattyOperation readOperation(MessageReader reader, ByteBuf source) {
+	public static DattyOperation readOperation(MessageCursor cursor) {
 				
-		int size = reader.size();
+		int size = cursor.readMapHeader();
 		if (size == 0) {
 			return null;
 		}
 		size--;
 		
-		Object fieldKey = reader.readKey(source);
-		if (fieldKey == null) {
-			throw new DattyException("null field number");
-		}
-		
-		DattyField field = DattyField.findByKey(fieldKey);
-		if (field == null) {
-			throw new DattyException("DattyField not found for: " + fieldKey);
-		}
+		DattyField field = DattyField.readKey(cursor);
 		
 		if (DattyField.OPCODE != field) {
 			throw new DattyException("first field in message must be OPCODE");
 		}
 		
-		Object value = reader.readValue(source, true);
-		
-		if (value == null || !(value instanceof Long)) {
-			throw new DattyException("expected OPCODE value to be Long and not null: " + value);
+		if (cursor.nextType() != ValueType.INTEGER) {
+			throw new DattyException("expected OPCODE value to be integer and not null: " + cursor.nextType());
 		}
 		
-		int opcode = ((Long) value).intValue();
+		int opcode = cursor.readInt();
 		
 		if (opcode < 0 || opcode > MAX_OPCODE) {
 			throw new DattyException("out of range OPCODE: " + opcode);
@@ -142,19 +142,11 @@ public final class DattyIO {
 		
 		for (int i = 0; i != size; ++i) {
 			
-			fieldKey = reader.readKey(source);
-			if (fieldKey == null) {
-				throw new DattyException("null field number");
-			}
-			
-			field = DattyField.findByKey(fieldKey);
-			if (field == null) {
-				throw new DattyException("DattyField not found for: " + fieldKey);
-			}
+			field = DattyField.readKey(cursor);
 			
-			boolean read = io.readField(operation, field, reader, source);
+			boolean read = io.readField(operation, field, cursor);
 			if (!read) {
-				reader.skipValue(source, false);
+				cursor.skipValue();
 			}
 			
 		}
@@ -208,40 +200,36 @@ public final class DattyIO {
 			throw new DattyException("expected map in the buffer");
 		}
 		
-		MessageReader reader = ValueMessageReader.INSTANCE.readMap(source, true);
-		return readResult(reader, source);
+		return readResult(new MessageCursor(source));
 	}
 	
+	/**
+	 * Read result from the cursor, the cursor is positioned on the map
+	 * 
+	 * @param cursor - message cursor
+	 * @return datty result or null for empty map
+	 */
+	
 	@SuppressWarnings("unchecked")
-	public static DattyResult readResult(MessageReader reader, ByteBuf source) {
+	public static DattyResult readResult(MessageCursor cursor) {
 				
-		int size = reader.size();
+		int size = cursor.readMapHeader();
 		if (size == 0) {
 			return null;
 		}
 		size--;
 		
-		Object fieldKey = reader.readKey(source);
-		if (fieldKey == null) {
-			throw new DattyException("null field number");
-		}
-		
-		DattyField field = DattyField.findByKey(fieldKey);
-		if (field == null) {
-			throw new DattyException("DattyField not found for: " + fieldKey);
-		}
+		DattyField field = DattyField.readKey(cursor);
 		
 		if (DattyField.RESCODE != field) {
 			throw new DattyException("first field in message must be RESCODE");
 		}
 		
-		Object value = reader.readValue(source, true);
-		
-		if (value == null || !(value instanceof Long)) {
-			throw new DattyException("expected RESCODE value to be Long and not null: " + value);
+		if (cursor.nextType() != ValueType.INTEGER) {
+			throw new DattyException("expected RESCODE value to be integer and not null: " + cursor.nextType());
 		}
 		
-		int rescode = ((Long) value).intValue();
+		int rescode = cursor.readInt();
 		
 		if (rescode < 0 || rescode > MAX_RESCODE) {
 			throw new DattyException("out of range OPCODE: " + rescode);
@@ -258,19 +246,11 @@ public final class DattyIO {
 		
 		for (int i = 0; i != size; ++i) {
 			
-			fieldKey = reader.readKey(source);
-			if (fieldKey == null) {
-				throw new DattyException("null field number");
-			}
-			
-			field = DattyField.findByKey(fieldKey);
-			if (field == null) {
-				throw new DattyException("DattyField not found for: " + fieldKey);
-			}
+			field = DattyField.readKey(cursor);
 			
-			boolean read = io.readField(result, field, reader, source);
+			boolean read = io.readField(result, field, cursor);
 			if (!read) {
-				reader.skipValue(source, false);
+				cursor.skipValue();
 			}
 			
 		}
@@ -14,12 +14,14 @@
 package io.datty.util;
 
 import java.util.Collection;
+import java.util.List;
 
 import io.datty.api.DattyField;
 import io.datty.api.DattyOperation.OpCode;
 import io.datty.api.DattyResult.ResCode;
 import io.datty.api.DattyRecord;
 import io.datty.api.DattyRecordIO;
+import io.datty.api.operation.SelectFilter;
 import io.datty.api.version.Version;
 import io.datty.api.version.VersionIO;
 import io.datty.msgpack.MessageWriter;
@@ -56,10 +58,10 @@ public final class FieldWriter {
 	
 	private void writeKey(DattyField field) {
 		if (numeric) {
-			writer.writeKey(field.getFieldCode(), sink);
+			writer.writeEncodedKey(field.getEncodedCode(), sink);
 		}
 		else {
-			writer.writeKey(field.getFieldName(), sink);
+			writer.writeEncodedKey(field.getEncodedName(), sink);
 		}
 	}
 	
@@ -105,6 +107,12 @@ public final class FieldWriter {
 		size++;
 	}
 	
+	public void writeField(DattyField field, List<SelectFilter> filters) {
+		writeKey(field);
+		DattyFilterIO.writeFilters(filters, sink);
+		size++;
+	}
+	
 	public void writeField(DattyField field, Version version) {
 		writeKey(field);
 		VersionIO.writeVersion(version, sink, numeric);
@@ -13,6 +13,13 @@
  */
 package io.datty.api.operation;
 
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.datty.util.DattyIO;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
 /**
  * ScanOperationIOTest
  * 
@@ -27,4 +34,39 @@ public class ScanOperationIOTest extends AbstractSetOperationIOTest<Scan> {
 		return new Scan();
 	}
 	
+	@Test
+	public void testWithValues() {
+		
+		ByteBuf sink = Unpooled.buffer();
+		
+		Scan operation = newOperation().setSetName(setName).withValues(false);
+		
+		DattyIO.writeOperation(operation, sink, numeric);
+		
+		Scan actual = (Scan) DattyIO.readOperation(sink);
+		
+		Assert.assertEquals(setName, actual.getSetName());
+		Assert.assertFalse(actual.isScanValues());
+		
+	}
+	
+	@Test
+	public void testPartitions() {
+		
+		ByteBuf sink = Unpooled.buffer();
+		
+		Scan operation = newOperation().setSetName(setName).setParallelism(4).setPartitions(1024, 512);
+		
+		DattyIO.writeOperation(operation, sink, numeric);
+		
+		Scan actual = (Scan) DattyIO.readOperation(sink);
+		
+		Assert.assertEquals(4, actual.getParallelism());
+		Assert.assertEquals(1024, actual.getPartitionBegin());
+		Assert.assertEquals(512, actual.getPartitionCount());
+		Assert.assertTrue(actual.containsPartition(1535));
+		Assert.assertFalse(actual.containsPartition(1536));
+		
+	}
+	
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.api.operation;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.datty.util.DattyIO;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * SelectOperationIOTest
+ * 
+ * @author Alex Shvid
+ *
+ */
+
+public class SelectOperationIOTest extends AbstractSetOperationIOTest<Select> {
+
+	@Override
+	Select newOperation() {
+		return new Select();
+	}
+	
+	@Test
+	public void testFilters() {
+		
+		ByteBuf sink = Unpooled.buffer();
+		
+		Select operation = newOperation().setSetName(setName)
+				.whereEqual("city", "Paris")
+				.whereRange("age", -5, 42)
+				.addMinorKey("name")
+				.setLimit(10);
+		
+		DattyIO.writeOperation(operation, sink, numeric);
+		
+		Select actual = (Select) DattyIO.readOperation(sink);
+		
+		Assert.assertEquals(setName, actual.getSetName());
+		Assert.assertEquals(2, actual.getFilters().size());
+		
+		SelectFilter equal = actual.getFilters().get(0);
+		Assert.assertEquals("city", equal.getMinorKey());
+		Assert.assertEquals(SelectFilter.Type.EQUAL, equal.getType());
+		Assert.assertEquals("Paris", equal.getValue());
+		
+		SelectFilter range = actual.getFilters().get(1);
+		Assert.assertEquals("age", range.getMinorKey());
+		Assert.assertEquals(SelectFilter.Type.RANGE, range.getType());
+		Assert.assertEquals(-5L, range.getBegin());
+		Assert.assertEquals(42L, range.getEnd());
+		
+		Assert.assertEquals(Collections.singleton("name"), actual.getMinorKeys());
+		Assert.assertEquals(10, actual.getLimit());
+		
+	}
+	
+	@Test
+	public void testMatches() {
+		
+		SelectFilter range = SelectFilter.range("age", -5, 42);
+		
+		Assert.assertTrue(range.matches(Unpooled.copiedBuffer("42".getBytes())));
+		Assert.assertTrue(range.matches(Unpooled.copiedBuffer("-5".getBytes())));
+		Assert.assertFalse(range.matches(Unpooled.copiedBuffer("43".getBytes())));
+		Assert.assertFalse(range.matches(Unpooled.copiedBuffer("4a".getBytes())));
+		Assert.assertFalse(range.matches(Unpooled.copiedBuffer("-".getBytes())));
+		Assert.assertFalse(range.matches(Unpooled.copiedBuffer("99999999999999999999".getBytes())));
+		Assert.assertTrue(SelectFilter.equal("n", Long.MIN_VALUE).matches(Unpooled.copiedBuffer(Long.toString(Long.MIN_VALUE).getBytes())));
+		
+		SelectFilter equal = SelectFilter.equal("city", "Paris");
+		Assert.assertTrue(equal.matches(Unpooled.copiedBuffer("Paris".getBytes())));
+		Assert.assertFalse(equal.matches(Unpooled.copiedBuffer("Pari".getBytes())));
+		
+	}
+	
+}
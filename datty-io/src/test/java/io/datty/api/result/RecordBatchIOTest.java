@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.api.result;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.datty.api.AbstractDattyIOTest;
+import io.datty.api.ByteBufValue;
+import io.datty.api.DattyValue;
+import io.datty.api.version.LongVersion;
+import io.datty.msgpack.core.MapMessageWriter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * RecordBatchIOTest
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class RecordBatchIOTest extends AbstractDattyIOTest {
+
+	private static final int RECORDS = 100;
+
+	@Test
+	public void testEmpty() {
+
+		ByteBuf sink = Unpooled.buffer();
+		sink = RecordBatchIO.writeBatch(Collections.<RecordResult>emptyList(), sink, RecordBatchCodec.DEFLATE, numeric);
+
+		RecordBatchReader reader = new RecordBatchReader(sink);
+		Assert.assertEquals(0, reader.size());
+		Assert.assertTrue(reader.getMinorKeys().isEmpty());
+		Assert.assertTrue(reader.readResults().isEmpty());
+	}
+
+	@Test
+	public void testRoundTrip() {
+		for (RecordBatchCodec codec : RecordBatchCodec.values()) {
+
+			List<RecordResult> expected = newResults();
+
+			ByteBuf sink = Unpooled.buffer();
+			sink = RecordBatchIO.writeBatch(expected, sink, codec, numeric);
+
+			List<RecordResult> actual = RecordBatchIO.readBatch(sink);
+
+			Assert.assertEquals(RECORDS, actual.size());
+
+			for (int i = 0; i != RECORDS; ++i) {
+				assertResult(expected.get(i), actual.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void testReadColumn() {
+
+		ByteBuf sink = Unpooled.buffer();
+		sink = RecordBatchIO.writeBatch(newResults(), sink, RecordBatchCodec.DEFLATE, numeric);
+
+		RecordBatchReader reader = new RecordBatchReader(sink);
+
+		Assert.assertEquals(RECORDS, reader.size());
+		Assert.assertEquals(Arrays.asList(minorKey, "sparse"), reader.getMinorKeys());
+
+		List<DattyValue> sparse = reader.readColumn("sparse");
+		Assert.assertEquals(RECORDS, sparse.size());
+
+		for (int i = 0; i != RECORDS; ++i) {
+			if (i % 10 == 0) {
+				Assert.assertEquals("sparse" + i, new String(sparse.get(i).toByteArray()));
+			}
+			else {
+				Assert.assertTrue(sparse.get(i).isNull());
+			}
+		}
+
+		Assert.assertFalse(reader.hasColumn("unknown"));
+		Assert.assertTrue(reader.readColumn("unknown").get(0).isNull());
+	}
+
+	@Test
+	public void testSize() {
+
+		List<RecordResult> results = newResults();
+
+		ByteBuf records = Unpooled.buffer();
+		for (RecordResult result : results) {
+			records = RecordResultIO.INSTANCE.write(result, MapMessageWriter.INSTANCE, records, numeric);
+		}
+
+		ByteBuf plain = Unpooled.buffer();
+		plain = RecordBatchIO.writeBatch(results, plain, RecordBatchCodec.NONE, numeric);
+
+		ByteBuf deflated = Unpooled.buffer();
+		deflated = RecordBatchIO.writeBatch(results, deflated, RecordBatchCodec.DEFLATE, numeric);
+
+		Assert.assertTrue(plain.readableBytes() < records.readableBytes());
+		Assert.assertTrue(deflated.readableBytes() < plain.readableBytes());
+	}
+
+	private List<RecordResult> newResults() {
+
+		List<RecordResult> results = new ArrayList<RecordResult>(RECORDS);
+
+		for (int i = 0; i != RECORDS; ++i) {
+
+			RecordResult result = new RecordResult();
+			result.setMajorKey(majorKey + i);
+			result.addValue(minorKey, new ByteBufValue(Unpooled.wrappedBuffer(("value" + i).getBytes())));
+
+			if (i % 10 == 0) {
+				result.setVersion(new LongVersion(i));
+				result.addValue("sparse", new ByteBufValue(Unpooled.wrappedBuffer(("sparse" + i).getBytes())));
+			}
+
+			results.add(result);
+		}
+
+		return results;
+	}
+
+	private void assertResult(RecordResult expected, RecordResult actual) {
+
+		Assert.assertEquals(expected.getMajorKey(), actual.getMajorKey());
+		Assert.assertEquals(expected.getVersion(), actual.getVersion());
+		Assert.assertEquals(expected.minorKeys(), actual.minorKeys());
+
+		for (String key : expected.minorKeys()) {
+			Assert.assertArrayEquals(expected.get(key).toByteArray(), actual.get(key).toByteArray());
+		}
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.api.result;
+
+import org.junit.Assert;
+
+import io.datty.api.version.LongVersion;
+
+/**
+ * RecordResultIOTest
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class RecordResultIOTest extends AbstractDattyResultIOTest<RecordResult> {
+
+	@Override
+	RecordResult newResult() {
+		return new RecordResult();
+	}
+
+	@Override
+	void assertEmptyFields(RecordResult result) {
+		Assert.assertFalse(result.hasMajorKey());
+		Assert.assertFalse(result.hasPartitionId());
+		Assert.assertFalse(result.exists());
+	}
+
+	@Override
+	void addFields(RecordResult result) {
+		result.setMajorKey(majorKey);
+		result.setVersion(new LongVersion(1));
+		result.setPartitionId(0);
+	}
+
+	@Override
+	void assertFields(RecordResult expected, RecordResult actual) {
+		Assert.assertEquals(majorKey, actual.getMajorKey());
+		Assert.assertEquals(new LongVersion(1), actual.getVersion());
+		Assert.assertTrue(actual.hasPartitionId());
+		Assert.assertEquals(0, actual.getPartitionId());
+	}
+
+}
@@ -0,0 +1,423 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.msgpack;
+
+import java.nio.charset.StandardCharsets;
+
+import org.msgpack.core.MessageFormat;
+import org.msgpack.value.ValueType;
+
+import io.datty.msgpack.core.ValueMessageReader;
+import io.datty.msgpack.support.MessageParseException;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * MessageCursor
+ *
+ * Pull reader over the buffer: look at the type of the next value and read it with the typed method.
+ * Numbers and booleans are returned as primitives, strings could be read as a slice of the buffer
+ * or decoded into the reusable StringBuilder, so nothing is boxed or allocated while reading
+ * the message except values that are returned as String or ByteBuf.
+ *
+ * Cursor moves reader index of the buffer and is not thread safe, reuse it with reset.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class MessageCursor {
+
+	private static final ValueMessageReader READER = ValueMessageReader.INSTANCE;
+
+	private static final char REPLACEMENT_CHAR = '\uFFFD';
+
+	private static final int FNV_BASIS = 0x811C9DC5;
+	private static final int FNV_PRIME = 0x01000193;
+
+	private ByteBuf source;
+
+	private int sliceIndex;
+	private int sliceLength;
+
+	public MessageCursor() {
+	}
+
+	public MessageCursor(ByteBuf source) {
+		this.source = source;
+	}
+
+	public MessageCursor reset(ByteBuf source) {
+		this.source = source;
+		this.sliceIndex = 0;
+		this.sliceLength = 0;
+		return this;
+	}
+
+	public ByteBuf getSource() {
+		return source;
+	}
+
+	public boolean hasNext() {
+		return source.isReadable();
+	}
+
+	/**
+	 * Gets type of the next value without reading it
+	 *
+	 * @return value type or null if buffer has no more bytes
+	 */
+
+	public ValueType nextType() {
+		if (!source.isReadable()) {
+			return null;
+		}
+		MessageFormat f = MessageFormat.valueOf(source.getByte(source.readerIndex()));
+		if (f == MessageFormat.NEVER_USED) {
+			throw new MessageParseException("never used message format");
+		}
+		return f.getValueType();
+	}
+
+	public boolean isNull() {
+		return READER.isNull(source);
+	}
+
+	/**
+	 * Binary values are bin and fixstr formats, the same as ValueMessageReader.isBinary
+	 *
+	 * @return true if the next value is binary
+	 */
+
+	public boolean isBinary() {
+		return READER.isBinary(source);
+	}
+
+	public void readNull() {
+		READER.readNull(source);
+	}
+
+	/**
+	 * Reads boolean, null is false
+	 *
+	 * @return value
+	 */
+
+	public boolean readBoolean() {
+		return READER.readBoolean(source);
+	}
+
+	/**
+	 * Reads integer, null is 0
+	 *
+	 * @return value
+	 */
+
+	public int readInt() {
+		return READER.readVInt(source);
+	}
+
+	/**
+	 * Reads integer, null is 0
+	 *
+	 * @return value
+	 */
+
+	public long readLong() {
+		return READER.readVLong(source);
+	}
+
+	/**
+	 * Reads float or double, null is 0.0
+	 *
+	 * @return value
+	 */
+
+	public double readDouble() {
+		return READER.readVDouble(source);
+	}
+
+	public int readMapHeader() {
+		return READER.readMapHeader(source);
+	}
+
+	public int readArrayHeader() {
+		return READER.readArrayHeader(source);
+	}
+
+	/**
+	 * Reads string header and skips string bytes, they are available as a slice
+	 *
+	 * @return length of the string in bytes
+	 */
+
+	public int readStringSlice() {
+		int length = READER.readStringHeader(source);
+		return skipSlice(length);
+	}
+
+	/**
+	 * Reads binary header and skips bytes, they are available as a slice
+	 *
+	 * @return length of the binary value
+	 */
+
+	public int readBinarySlice() {
+		int length = READER.readBinaryHeader(source);
+		return skipSlice(length);
+	}
+
+	private int skipSlice(int length) {
+		if (length > source.readableBytes()) {
+			throw new MessageParseException("insufficient buffer length: " + source.readableBytes() + ", required length: " + length);
+		}
+		sliceIndex = source.readerIndex();
+		sliceLength = length;
+		source.skipBytes(length);
+		return length;
+	}
+
+	/**
+	 * Gets index of the last string or binary slice in the source
+	 *
+	 * @return index in the buffer
+	 */
+
+	public int getSliceIndex() {
+		return sliceIndex;
+	}
+
+	public int getSliceLength() {
+		return sliceLength;
+	}
+
+	public boolean sliceEquals(byte[] bytes) {
+
+		if (bytes.length != sliceLength) {
+			return false;
+		}
+
+		if (source.hasArray()) {
+			byte[] array = source.array();
+			int offset = source.arrayOffset() + sliceIndex;
+			for (int i = 0; i != sliceLength; ++i) {
+				if (array[offset + i] != bytes[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		for (int i = 0; i != sliceLength; ++i) {
+			if (source.getByte(sliceIndex + i) != bytes[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Gets hash of the last slice, the same as hash(byte[]) of its bytes
+	 *
+	 * @return FNV-1a hash
+	 */
+
+	public int sliceHash() {
+
+		int h = FNV_BASIS;
+
+		if (source.hasArray()) {
+			byte[] array = source.array();
+			int offset = source.arrayOffset() + sliceIndex;
+			for (int i = 0; i != sliceLength; ++i) {
+				h = (h ^ (array[offset + i] & 0xFF)) * FNV_PRIME;
+			}
+		}
+		else {
+			for (int i = 0; i != sliceLength; ++i) {
+				h = (h ^ (source.getByte(sliceIndex + i) & 0xFF)) * FNV_PRIME;
+			}
+		}
+
+		return h ^ (h >>> 16);
+	}
+
+	public static int hash(byte[] bytes) {
+		int h = FNV_BASIS;
+		for (byte b : bytes) {
+			h = (h ^ (b & 0xFF)) * FNV_PRIME;
+		}
+		return h ^ (h >>> 16);
+	}
+
+	public byte[] sliceToBytes() {
+		byte[] bytes = new byte[sliceLength];
+		source.getBytes(sliceIndex, bytes);
+		return bytes;
+	}
+
+	public String sliceToString() {
+		return source.toString(sliceIndex, sliceLength, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads string and decodes UTF-8 bytes into the builder, malformed sequences are replaced by U+FFFD
+	 *
+	 * @param sink - reusable builder, it is not cleared
+	 * @return the same builder
+	 */
+
+	public StringBuilder readStringInto(StringBuilder sink) {
+
+		int length = readStringSlice();
+		int index = sliceIndex;
+		int end = index + length;
+
+		while (index < end) {
+
+			int b = source.getByte(index++) & 0xFF;
+
+			if (b < 0x80) {
+				sink.append((char) b);
+				continue;
+			}
+
+			int extra;
+			int codePoint;
+
+			if ((b & 0xE0) == 0xC0) {
+				extra = 1;
+				codePoint = b & 0x1F;
+			}
+			else if ((b & 0xF0) == 0xE0) {
+				extra = 2;
+				codePoint = b & 0x0F;
+			}
+			else if ((b & 0xF8) == 0xF0) {
+				extra = 3;
+				codePoint = b & 0x07;
+			}
+			else {
+				sink.append(REPLACEMENT_CHAR);
+				continue;
+			}
+
+			if (index + extra > end) {
+				sink.append(REPLACEMENT_CHAR);
+				break;
+			}
+
+			boolean valid = true;
+			for (int i = 0; i != extra; ++i) {
+				int next = source.getByte(index + i) & 0xFF;
+				if ((next & 0xC0) != 0x80) {
+					valid = false;
+					break;
+				}
+				codePoint = (codePoint << 6) | (next & 0x3F);
+			}
+
+			if (!valid) {
+				sink.append(REPLACEMENT_CHAR);
+				continue;
+			}
+
+			index += extra;
+
+			if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT && codePoint <= Character.MAX_CODE_POINT) {
+				sink.append(Character.highSurrogate(codePoint));
+				sink.append(Character.lowSurrogate(codePoint));
+			}
+			else if (codePoint <= Character.MAX_CODE_POINT) {
+				sink.append((char) codePoint);
+			}
+			else {
+				sink.append(REPLACEMENT_CHAR);
+			}
+
+		}
+
+		return sink;
+	}
+
+	/**
+	 * Reads string
+	 *
+	 * @return new string or null for nil
+	 */
+
+	public String readString() {
+		if (READER.isNull(source)) {
+			READER.readNull(source);
+			return null;
+		}
+		return READER.readString(source);
+	}
+
+	/**
+	 * Reads string through the intern cache, frequently seen keys are not decoded again
+	 *
+	 * @param cache - key cache
+	 * @return cached or new string, null for nil
+	 */
+
+	public String readString(MessageKeyCache cache) {
+		if (READER.isNull(source)) {
+			READER.readNull(source);
+			return null;
+		}
+		readStringSlice();
+		return cache.intern(this);
+	}
+
+	/**
+	 * Reads binary value
+	 *
+	 * @param copy - copy bytes if true, otherwise slice
+	 * @return buffer or null for nil
+	 */
+
+	public ByteBuf readBinary(boolean copy) {
+		if (READER.isNull(source)) {
+			READER.readNull(source);
+			return null;
+		}
+		return READER.readBinary(source, copy);
+	}
+
+	/**
+	 * Skips the next value, including nested arrays and maps
+	 */
+
+	public void skipValue() {
+		READER.skipValue(source);
+	}
+
+	/**
+	 * Skips the next value and returns its message bytes
+	 *
+	 * @param copy - copy bytes if true, otherwise slice
+	 * @return message bytes of the value or null if buffer has no more bytes
+	 */
+
+	public ByteBuf readValueSlice(boolean copy) {
+		return READER.skipValue(source, copy);
+	}
+
+	@Override
+	public String toString() {
+		return "MessageCursor [source=" + source + "]";
+	}
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.msgpack;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * MessageKeyCache
+ *
+ * Bounded intern cache of string keys found by the UTF-8 bytes of the last string slice of the cursor.
+ * The key is looked up in a few slots, on miss it replaces the first key that was not hit since
+ * the previous miss passed it (clock), so the flood of one-time keys replaces each other and hot keys stay.
+ * Too long keys are decoded every time. Safe to share between threads.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class MessageKeyCache {
+
+	private static final int MAX_PROBES = 4;
+
+	private final AtomicReferenceArray<Entry> table;
+	private final int mask;
+	private final int maxKeyLength;
+
+	/**
+	 * Creates cache
+	 *
+	 * @param capacity - max number of keys, rounded up to the power of two
+	 * @param maxKeyLength - max length of the cached key in bytes
+	 */
+
+	public MessageKeyCache(int capacity, int maxKeyLength) {
+
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+
+		this.table = new AtomicReferenceArray<Entry>(size);
+		this.mask = size - 1;
+		this.maxKeyLength = maxKeyLength;
+	}
+
+	/**
+	 * Interns the last string slice of the cursor
+	 *
+	 * @param cursor - message cursor after readStringSlice
+	 * @return cached or new string
+	 */
+
+	public String intern(MessageCursor cursor) {
+
+		if (cursor.getSliceLength() > maxKeyLength) {
+			return cursor.sliceToString();
+		}
+
+		int hash = cursor.sliceHash();
+		int index = hash & mask;
+
+		Entry victim = null;
+		int victimIndex = 0;
+
+		for (int i = 0; i != MAX_PROBES; ++i) {
+
+			Entry e = table.get(index);
+
+			if (e == null) {
+				e = new Entry(hash, cursor.sliceToBytes(), cursor.sliceToString());
+				table.compareAndSet(index, null, e);
+				return e.value;
+			}
+
+			if (e.hash == hash && cursor.sliceEquals(e.bytes)) {
+				if (!e.referenced) {
+					e.referenced = true;
+				}
+				return e.value;
+			}
+
+			if (victim == null) {
+				if (e.referenced) {
+					e.referenced = false;
+				}
+				else {
+					victim = e;
+					victimIndex = index;
+				}
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		Entry e = new Entry(hash, cursor.sliceToBytes(), cursor.sliceToString());
+
+		if (victim != null) {
+			table.compareAndSet(victimIndex, victim, e);
+		}
+
+		return e.value;
+	}
+
+	public int size() {
+		int size = 0;
+		for (int i = 0; i != table.length(); ++i) {
+			if (table.get(i) != null) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	public int capacity() {
+		return table.length();
+	}
+
+	private static final class Entry {
+
+		final int hash;
+		final byte[] bytes;
+		final String value;
+
+		/**
+		 * Hit since the last miss passed the entry, races only lose the hint
+		 */
+
+		volatile boolean referenced;
+
+		Entry(int hash, byte[] bytes, String value) {
+			this.hash = hash;
+			this.bytes = bytes;
+			this.value = value;
+		}
+
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.msgpack;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * MessageKeyTable
+ *
+ * Immutable open addressing table of the known string keys, finds the value by the UTF-8 bytes
+ * of the last string slice of the cursor without decoding it
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class MessageKeyTable<V> {
+
+	private final byte[][] keys;
+	private final Object[] values;
+	private final int mask;
+
+	public MessageKeyTable(Map<String, V> map) {
+
+		int capacity = 2;
+		while (capacity < map.size() * 2) {
+			capacity <<= 1;
+		}
+
+		this.keys = new byte[capacity][];
+		this.values = new Object[capacity];
+		this.mask = capacity - 1;
+
+		for (Map.Entry<String, V> e : map.entrySet()) {
+
+			byte[] key = e.getKey().getBytes(StandardCharsets.UTF_8);
+
+			int index = MessageCursor.hash(key) & mask;
+			while (keys[index] != null) {
+				index = (index + 1) & mask;
+			}
+
+			keys[index] = key;
+			values[index] = e.getValue();
+		}
+
+	}
+
+	/**
+	 * Finds value by the last string slice of the cursor
+	 *
+	 * @param cursor - message cursor after readStringSlice
+	 * @return value or null if key is unknown
+	 */
+
+	@SuppressWarnings("unchecked")
+	public V find(MessageCursor cursor) {
+
+		int index = cursor.sliceHash() & mask;
+
+		for (byte[] key = keys[index]; key != null; key = keys[index]) {
+			if (cursor.sliceEquals(key)) {
+				return (V) values[index];
+			}
+			index = (index + 1) & mask;
+		}
+
+		return null;
+	}
+
+}
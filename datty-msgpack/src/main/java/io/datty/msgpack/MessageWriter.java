@@ -54,6 +54,15 @@ public interface MessageWriter {
 	
 	void writeHeader(int size, ByteBuf sink);
 	
+	/**
+	 * Gets the size of the minimal header for the number of entries
+	 * 
+	 * @param size - actual size of the map
+	 * @return header size in bytes
+	 */
+	
+	int getHeaderSize(int size);
+	
 	/**
 	 * Writes the key of the map as a string
 	 * 
@@ -71,6 +80,33 @@ public interface MessageWriter {
 	 */
 	
 	void writeKey(int key, ByteBuf sink);
+	
+	/**
+	 * Encodes the key of the map once to copy it with writeEncodedKey
+	 * 
+	 * @param key - not null string
+	 * @return encoded key, empty for arrays
+	 */
+	
+	byte[] encodeKey(String key);
+	
+	/**
+	 * Encodes the key of the map once to copy it with writeEncodedKey
+	 * 
+	 * @param key - int key
+	 * @return encoded key, empty for arrays
+	 */
+	
+	byte[] encodeKey(int key);
+	
+	/**
+	 * Writes the key encoded by encodeKey
+	 * 
+	 * @param encodedKey - encoded key
+	 * @param sink - output buffer
+	 */
+	
+	void writeEncodedKey(byte[] encodedKey, ByteBuf sink);
 
 	/**
 	 * Writes null 
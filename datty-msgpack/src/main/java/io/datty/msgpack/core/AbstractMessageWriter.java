@@ -73,6 +73,28 @@ public abstract class AbstractMessageWriter {
     }
   }
 
+  public int getVIntSize(final int v) {
+    if (v < -(1 << 5)) {
+      if (v < -(1 << 15)) {
+        return 5;
+      } else if (v < -(1 << 7)) {
+        return 3;
+      } else {
+        return 2;
+      }
+    } else if (v < (1 << 7)) {
+      return 1;
+    } else {
+      if (v < (1 << 8)) {
+        return 2;
+      } else if (v < (1 << 16)) {
+        return 3;
+      } else {
+        return 5;
+      }
+    }
+  }
+
   public ByteBuf writeVLong(long v, ByteBuf buffer) {
     if (v < -(1L << 5)) {
       if (v < -(1L << 15)) {
@@ -239,6 +261,18 @@ public abstract class AbstractMessageWriter {
     }
   }
 
+  public int getRawStringHeaderSize(int len) {
+    if (len < (1 << 5)) {
+      return 1;
+    } else if (len < (1 << 8)) {
+      return 2;
+    } else if (len < (1 << 16)) {
+      return 3;
+    } else {
+      return 5;
+    }
+  }
+
   public ByteBuf writeBytes(ByteBuf input, ByteBuf buffer) {
     return buffer.writeBytes(input);
   }
@@ -27,6 +27,8 @@ public class ArrayMessageWriter extends ValueMessageWriter implements MessageWri
 
 	public static final ArrayMessageWriter INSTANCE = new ArrayMessageWriter();
 	
+	private static final byte[] EMPTY_KEY = new byte[0];
+	
 	@Override
 	public int skipHeader(int maxSize, ByteBuf sink) {
 		int headerIndex = sink.writerIndex();
@@ -49,6 +51,11 @@ public class ArrayMessageWriter extends ValueMessageWriter implements MessageWri
 	public void writeHeader(int size, ByteBuf sink) {
 		writeArrayHeader(size, sink);
 	}
+
+	@Override
+	public int getHeaderSize(int size) {
+		return getArrayHeaderSize(size);
+	}
 	
 	@Override
 	public void writeKey(String key, ByteBuf sink) {
@@ -57,5 +64,19 @@ public class ArrayMessageWriter extends ValueMessageWriter implements MessageWri
 	@Override
 	public void writeKey(int key, ByteBuf sink) {
 	}
+
+	@Override
+	public byte[] encodeKey(String key) {
+		return EMPTY_KEY;
+	}
+
+	@Override
+	public byte[] encodeKey(int key) {
+		return EMPTY_KEY;
+	}
+
+	@Override
+	public void writeEncodedKey(byte[] encodedKey, ByteBuf sink) {
+	}
 	
 }
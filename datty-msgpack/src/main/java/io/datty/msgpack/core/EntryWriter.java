@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.msgpack.core;
+
+import io.datty.msgpack.MessageWriter;
+import io.datty.msgpack.core.type.TypeInfo;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * EntryWriter
+ *
+ * Two-pass writer of the map or array entries. The first pass collects not null entries and
+ * counts them, the second pass writes the minimal header and the entries, so nothing is reserved
+ * and back-patched in the sink
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class EntryWriter {
+
+	private final MessageWriter writer;
+	private final boolean numeric;
+	private Object[] keys;
+	private TypeInfo<?>[] types;
+	private Object[] values;
+	private boolean[] copies;
+	private int size;
+
+	public EntryWriter(MessageWriter writer, int maxSize, boolean numeric) {
+		this.writer = writer;
+		this.numeric = numeric;
+		this.keys = new Object[maxSize];
+		this.types = new TypeInfo<?>[maxSize];
+		this.values = new Object[maxSize];
+		this.copies = new boolean[maxSize];
+	}
+
+	/**
+	 * Adds entry with the string key, null value is skipped
+	 *
+	 * @param key - not null string
+	 * @param type - value type
+	 * @param value - value or null
+	 * @param copy - always copy value if true
+	 */
+
+	public <V extends T, T> void addEntry(String key, TypeInfo<T> type, V value, boolean copy) {
+		add(key, type, value, copy);
+	}
+
+	/**
+	 * Adds entry with the int key, null value is skipped
+	 *
+	 * @param key - int key
+	 * @param type - value type
+	 * @param value - value or null
+	 * @param copy - always copy value if true
+	 */
+
+	public <V extends T, T> void addEntry(int key, TypeInfo<T> type, V value, boolean copy) {
+		add(key, type, value, copy);
+	}
+
+	/**
+	 * Adds entry with the key encoded by MessageWriter.encodeKey, null value is skipped
+	 *
+	 * @param encodedKey - encoded key
+	 * @param type - value type
+	 * @param value - value or null
+	 * @param copy - always copy value if true
+	 */
+
+	public <V extends T, T> void addEncodedEntry(byte[] encodedKey, TypeInfo<T> type, V value, boolean copy) {
+		add(encodedKey, type, value, copy);
+	}
+
+	private void add(Object key, TypeInfo<?> type, Object value, boolean copy) {
+
+		if (value == null) {
+			return;
+		}
+
+		if (size == keys.length) {
+			grow();
+		}
+
+		keys[size] = key;
+		types[size] = type;
+		values[size] = value;
+		copies[size] = copy;
+		size++;
+	}
+
+	private void grow() {
+		int capacity = Math.max(keys.length << 1, 1);
+
+		Object[] newKeys = new Object[capacity];
+		System.arraycopy(keys, 0, newKeys, 0, size);
+		keys = newKeys;
+
+		TypeInfo<?>[] newTypes = new TypeInfo<?>[capacity];
+		System.arraycopy(types, 0, newTypes, 0, size);
+		types = newTypes;
+
+		Object[] newValues = new Object[capacity];
+		System.arraycopy(values, 0, newValues, 0, size);
+		values = newValues;
+
+		boolean[] newCopies = new boolean[capacity];
+		System.arraycopy(copies, 0, newCopies, 0, size);
+		copies = newCopies;
+	}
+
+	/**
+	 * Gets number of collected entries
+	 *
+	 * @return size of the map or array
+	 */
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the size of the minimal header for the collected entries
+	 *
+	 * @return header size in bytes
+	 */
+
+	public int getHeaderSize() {
+		return writer.getHeaderSize(size);
+	}
+
+	/**
+	 * Writes minimal header and collected entries to the sink
+	 *
+	 * @param sink - output buffer
+	 * @return old sink or new sink
+	 */
+
+	@SuppressWarnings("unchecked")
+	public ByteBuf writeTo(ByteBuf sink) {
+
+		sink.ensureWritable(writer.getHeaderSize(size));
+		writer.writeHeader(size, sink);
+
+		for (int i = 0; i != size; ++i) {
+
+			Object key = keys[i];
+
+			if (key instanceof byte[]) {
+				writer.writeEncodedKey((byte[]) key, sink);
+			}
+			else if (key instanceof String) {
+				writer.writeKey((String) key, sink);
+			}
+			else {
+				writer.writeKey(((Integer) key).intValue(), sink);
+			}
+
+			sink = writer.writeValue((TypeInfo<Object>) types[i], values[i], sink, copies[i], numeric);
+		}
+
+		return sink;
+	}
+
+}
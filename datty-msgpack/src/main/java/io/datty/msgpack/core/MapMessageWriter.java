@@ -13,8 +13,11 @@
  */
 package io.datty.msgpack.core;
 
+import java.nio.charset.StandardCharsets;
+
 import io.datty.msgpack.MessageWriter;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 
 /**
  * MapMessageWriter
@@ -50,6 +53,11 @@ public class MapMessageWriter extends ValueMessageWriter implements MessageWrite
 		writeMapHeader(size, sink);
 	}
 
+	@Override
+	public int getHeaderSize(int size) {
+		return getMapHeaderSize(size);
+	}
+
 	@Override
 	public void writeKey(String key, ByteBuf sink) {
 		writeString(key, sink);
@@ -60,4 +68,25 @@ public class MapMessageWriter extends ValueMessageWriter implements MessageWrite
 		writeVInt(key, sink);
 	}
 
+	@Override
+	public byte[] encodeKey(String key) {
+		byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+		byte[] encodedKey = new byte[getRawStringHeaderSize(bytes.length) + bytes.length];
+		ByteBuf buffer = Unpooled.wrappedBuffer(encodedKey).writerIndex(0);
+		writeRawStringHeader(bytes.length, buffer).writeBytes(bytes);
+		return encodedKey;
+	}
+
+	@Override
+	public byte[] encodeKey(int key) {
+		byte[] encodedKey = new byte[getVIntSize(key)];
+		writeVInt(key, Unpooled.wrappedBuffer(encodedKey).writerIndex(0));
+		return encodedKey;
+	}
+
+	@Override
+	public void writeEncodedKey(byte[] encodedKey, ByteBuf sink) {
+		sink.writeBytes(encodedKey);
+	}
+
 }
@@ -73,6 +73,11 @@ public class ValueMessageWriter extends AbstractMessageWriter implements Message
 		throw new UnsupportedOperationException("this method must be overriden");
 	}
 
+	@Override
+	public int getHeaderSize(int size) {
+		throw new UnsupportedOperationException("this method must be overriden");
+	}
+
 	@Override
 	public void writeKey(String key, ByteBuf sink) {
 		throw new UnsupportedOperationException("this method must be overriden");
@@ -83,6 +88,21 @@ public class ValueMessageWriter extends AbstractMessageWriter implements Message
 		throw new UnsupportedOperationException("this method must be overriden");
 	}
 
+	@Override
+	public byte[] encodeKey(String key) {
+		throw new UnsupportedOperationException("this method must be overriden");
+	}
+
+	@Override
+	public byte[] encodeKey(int key) {
+		throw new UnsupportedOperationException("this method must be overriden");
+	}
+
+	@Override
+	public void writeEncodedKey(byte[] encodedKey, ByteBuf sink) {
+		throw new UnsupportedOperationException("this method must be overriden");
+	}
+
 	@Override
 	public void writeValue(boolean value, ByteBuf sink) {
 		writeBoolean(value, sink);
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.msgpack.test;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.msgpack.value.ValueType;
+
+import io.datty.msgpack.MessageCursor;
+import io.datty.msgpack.core.ArrayMessageWriter;
+import io.datty.msgpack.core.MapMessageWriter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+/**
+ * MessageCursorTest
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class MessageCursorTest {
+
+	@Test
+	public void testReadMap() {
+
+		ByteBuf sink = Unpooled.buffer();
+
+		MapMessageWriter writer = MapMessageWriter.INSTANCE;
+		writer.writeHeader(6, sink);
+		writer.writeKey("int", sink);
+		writer.writeValue(123, sink);
+		writer.writeKey("long", sink);
+		writer.writeValue(Long.MAX_VALUE, sink);
+		writer.writeKey("bool", sink);
+		writer.writeValue(true, sink);
+		writer.writeKey("double", sink);
+		writer.writeValue(1.5, sink);
+		writer.writeKey("str", sink);
+		writer.writeValue("value", sink);
+		writer.writeKey("null", sink);
+		sink.writeByte(0xc0);
+
+		MessageCursor cursor = new MessageCursor(sink);
+
+		Assert.assertEquals(ValueType.MAP, cursor.nextType());
+		Assert.assertEquals(6, cursor.readMapHeader());
+
+		Assert.assertEquals("int", cursor.readString());
+		Assert.assertEquals(ValueType.INTEGER, cursor.nextType());
+		Assert.assertEquals(123, cursor.readInt());
+
+		Assert.assertEquals("long", cursor.readString());
+		Assert.assertEquals(Long.MAX_VALUE, cursor.readLong());
+
+		Assert.assertEquals("bool", cursor.readString());
+		Assert.assertEquals(ValueType.BOOLEAN, cursor.nextType());
+		Assert.assertTrue(cursor.readBoolean());
+
+		Assert.assertEquals("double", cursor.readString());
+		Assert.assertEquals(1.5, cursor.readDouble(), 0.0);
+
+		Assert.assertEquals(3, cursor.readStringSlice());
+		Assert.assertTrue(cursor.sliceEquals("str".getBytes(StandardCharsets.UTF_8)));
+		Assert.assertFalse(cursor.sliceEquals("int".getBytes(StandardCharsets.UTF_8)));
+		Assert.assertEquals("str", cursor.sliceToString());
+		Assert.assertEquals("value", cursor.readStringInto(new StringBuilder()).toString());
+
+		Assert.assertEquals("null", cursor.readString());
+		Assert.assertTrue(cursor.isNull());
+		Assert.assertNull(cursor.readString());
+
+		Assert.assertFalse(cursor.hasNext());
+		Assert.assertNull(cursor.nextType());
+	}
+
+	@Test
+	public void testSkipValue() {
+
+		ByteBuf sink = Unpooled.buffer();
+
+		ArrayMessageWriter writer = ArrayMessageWriter.INSTANCE;
+		writer.writeHeader(3, sink);
+
+		writer.writeHeader(2, sink);
+		writer.writeValue("a", sink);
+		writer.writeValue(1L, sink);
+
+		int index = sink.writerIndex();
+		MapMessageWriter.INSTANCE.writeHeader(1, sink);
+		MapMessageWriter.INSTANCE.writeKey("k", sink);
+		MapMessageWriter.INSTANCE.writeValue("v", sink);
+		byte[] map = ByteBufUtil.getBytes(sink, index, sink.writerIndex() - index);
+
+		writer.writeValue(7, sink);
+
+		MessageCursor cursor = new MessageCursor(sink);
+		Assert.assertEquals(3, cursor.readArrayHeader());
+
+		cursor.skipValue();
+
+		ByteBuf slice = cursor.readValueSlice(false);
+		Assert.assertArrayEquals(map, ByteBufUtil.getBytes(slice));
+
+		Assert.assertEquals(7, cursor.readInt());
+		Assert.assertFalse(cursor.hasNext());
+	}
+
+	@Test
+	public void testUtf8() {
+
+		String str = "abc \u00e9\u4e2d \ud83d\ude00";
+
+		ByteBuf sink = Unpooled.buffer();
+		ArrayMessageWriter.INSTANCE.writeValue(str, sink);
+
+		MessageCursor cursor = new MessageCursor(sink);
+		Assert.assertEquals(ValueType.STRING, cursor.nextType());
+
+		StringBuilder sb = new StringBuilder("prefix:");
+		cursor.readStringInto(sb);
+		Assert.assertEquals("prefix:" + str, sb.toString());
+
+		byte[] malformed = new byte[] { (byte) 0xa3, 'a', (byte) 0xff, (byte) 0xe4 };
+		cursor.reset(Unpooled.wrappedBuffer(malformed));
+		Assert.assertEquals("a\ufffd\ufffd", cursor.readStringInto(new StringBuilder()).toString());
+	}
+
+}
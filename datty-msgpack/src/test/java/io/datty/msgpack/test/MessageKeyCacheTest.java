@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.msgpack.test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.datty.msgpack.MessageCursor;
+import io.datty.msgpack.MessageKeyCache;
+import io.datty.msgpack.MessageKeyTable;
+import io.datty.msgpack.core.ArrayMessageWriter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * MessageKeyCacheTest
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class MessageKeyCacheTest {
+
+	@Test
+	public void testIntern() {
+
+		MessageKeyCache cache = new MessageKeyCache(16, 8);
+
+		String first = cache.intern(sliceOf("minor1"));
+		String second = cache.intern(sliceOf("minor1"));
+
+		Assert.assertEquals("minor1", first);
+		Assert.assertSame(first, second);
+		Assert.assertEquals(1, cache.size());
+
+		String other = cache.intern(sliceOf("minor2"));
+		Assert.assertEquals("minor2", other);
+		Assert.assertEquals(2, cache.size());
+
+		String longKey = cache.intern(sliceOf("very long minor key"));
+		Assert.assertEquals("very long minor key", longKey);
+		Assert.assertNotSame(longKey, cache.intern(sliceOf("very long minor key")));
+		Assert.assertEquals(2, cache.size());
+
+	}
+
+	@Test
+	public void testBounded() {
+
+		MessageKeyCache cache = new MessageKeyCache(4, 64);
+
+		for (int i = 0; i != 100; ++i) {
+			Assert.assertEquals("key" + i, cache.intern(sliceOf("key" + i)));
+		}
+
+		Assert.assertEquals(4, cache.capacity());
+		Assert.assertTrue(cache.size() <= 4);
+
+	}
+
+	@Test
+	public void testFlood() {
+
+		MessageKeyCache cache = new MessageKeyCache(16, 64);
+
+		String[] hot = new String[4];
+		for (int i = 0; i != hot.length; ++i) {
+			hot[i] = cache.intern(sliceOf("hot" + i));
+		}
+
+		for (int i = 0; i != 10000; ++i) {
+
+			Assert.assertEquals("cold" + i, cache.intern(sliceOf("cold" + i)));
+
+			for (int j = 0; j != hot.length; ++j) {
+				Assert.assertSame(hot[j], cache.intern(sliceOf("hot" + j)));
+			}
+		}
+
+		// one-time keys did not fill the cache forever
+		String fresh = cache.intern(sliceOf("fresh"));
+		Assert.assertSame(fresh, cache.intern(sliceOf("fresh")));
+
+		Assert.assertTrue(cache.size() <= cache.capacity());
+	}
+
+	@Test
+	public void testReadString() {
+
+		ByteBuf sink = Unpooled.directBuffer();
+		ArrayMessageWriter.INSTANCE.writeValue("column", sink);
+		ArrayMessageWriter.INSTANCE.writeValue("column", sink);
+		sink.writeByte(0xc0);
+
+		MessageKeyCache cache = new MessageKeyCache(16, 64);
+		MessageCursor cursor = new MessageCursor(sink);
+
+		String first = cursor.readString(cache);
+		Assert.assertEquals("column", first);
+		Assert.assertSame(first, cursor.readString(cache));
+		Assert.assertNull(cursor.readString(cache));
+
+		sink.release();
+	}
+
+	@Test
+	public void testTable() {
+
+		Map<String, Integer> map = new HashMap<String, Integer>();
+		for (int i = 0; i != 40; ++i) {
+			map.put("field" + i, i);
+		}
+
+		MessageKeyTable<Integer> table = new MessageKeyTable<Integer>(map);
+
+		for (int i = 0; i != 40; ++i) {
+			Assert.assertEquals(Integer.valueOf(i), table.find(sliceOf("field" + i)));
+		}
+
+		Assert.assertNull(table.find(sliceOf("field40")));
+		Assert.assertNull(table.find(sliceOf("")));
+
+		Assert.assertEquals(MessageCursor.hash("field1".getBytes(StandardCharsets.UTF_8)), sliceOf("field1").sliceHash());
+	}
+
+	private static MessageCursor sliceOf(String str) {
+		ByteBuf sink = Unpooled.buffer();
+		ArrayMessageWriter.INSTANCE.writeValue(str, sink);
+		MessageCursor cursor = new MessageCursor(sink);
+		cursor.readStringSlice();
+		return cursor;
+	}
+
+}
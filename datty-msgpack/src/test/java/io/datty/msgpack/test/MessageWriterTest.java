@@ -15,11 +15,15 @@ package io.datty.msgpack.test;
 
 import java.util.Arrays;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import io.datty.msgpack.MessageWriter;
 import io.datty.msgpack.core.ArrayMessageWriter;
+import io.datty.msgpack.core.EntryWriter;
 import io.datty.msgpack.core.MapMessageWriter;
+import io.datty.msgpack.core.type.DefaultTypeInfoProvider;
+import io.datty.msgpack.core.type.TypeInfo;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
@@ -101,7 +105,106 @@ public class MessageWriterTest extends MessageReaderTest {
 		
 	}
 	
+	@Test
+	public void testEncodedKeys() {
+		
+		MessageWriter writer = MapMessageWriter.INSTANCE;
+		ByteBuf sink = Unpooled.buffer();
+		
+		writer.writeHeader(FIELDS_COUNT, sink);
+		writer.writeEncodedKey(writer.encodeKey(1), sink);
+		writer.writeValue("123", sink);
+		writer.writeEncodedKey(writer.encodeKey(2), sink);
+		writer.writeValue(-9, sink);
+		writer.writeEncodedKey(writer.encodeKey(3), sink);
+		writer.writeValue("Alex", sink);
+		
+		assertIntMapExample(ByteBufUtil.getBytes(sink));
+		
+		sink = Unpooled.buffer();
+		
+		writer.writeHeader(FIELDS_COUNT, sink);
+		writer.writeEncodedKey(writer.encodeKey("acc"), sink);
+		writer.writeValue("123", sink);
+		writer.writeEncodedKey(writer.encodeKey("logins"), sink);
+		writer.writeValue(-9, sink);
+		writer.writeEncodedKey(writer.encodeKey("name"), sink);
+		writer.writeValue("Alex", sink);
+		
+		assertStringMapExample(ByteBufUtil.getBytes(sink));
+		
+		writer = ArrayMessageWriter.INSTANCE;
+		sink = Unpooled.buffer();
+		
+		writer.writeHeader(FIELDS_COUNT, sink);
+		writer.writeEncodedKey(writer.encodeKey("acc"), sink);
+		writeArrayFields(writer, sink);
+		
+		assertArrayExample(ByteBufUtil.getBytes(sink));
+		
+	}
 
+	@Test
+	public void testEntryWriter() {
+		
+		TypeInfo<String> stringType = DefaultTypeInfoProvider.INSTANCE.getTypeInfo(String.class);
+		TypeInfo<Long> longType = DefaultTypeInfoProvider.INSTANCE.getTypeInfo(Long.class);
+		
+		EntryWriter entries = new EntryWriter(MapMessageWriter.INSTANCE, 1, true);
+		entries.addEntry(1, stringType, "123", false);
+		entries.addEntry(4, stringType, null, false);
+		entries.addEntry(2, longType, -9L, false);
+		entries.addEncodedEntry(MapMessageWriter.INSTANCE.encodeKey(3), stringType, "Alex", false);
+		
+		Assert.assertEquals(FIELDS_COUNT, entries.size());
+		Assert.assertEquals(1, entries.getHeaderSize());
+		
+		assertIntMapExample(ByteBufUtil.getBytes(entries.writeTo(Unpooled.buffer())));
+		
+		entries = new EntryWriter(MapMessageWriter.INSTANCE, 4, false);
+		entries.addEntry("acc", stringType, "123", false);
+		entries.addEntry("logins", longType, -9L, false);
+		entries.addEntry("name", stringType, "Alex", false);
+		entries.addEntry("none", stringType, null, false);
+		
+		assertStringMapExample(ByteBufUtil.getBytes(entries.writeTo(Unpooled.buffer())));
+		
+		entries = new EntryWriter(ArrayMessageWriter.INSTANCE, 3, false);
+		entries.addEntry("acc", stringType, "123", false);
+		entries.addEntry("logins", longType, -9L, false);
+		entries.addEntry("name", stringType, "Alex", false);
+		
+		assertArrayExample(ByteBufUtil.getBytes(entries.writeTo(Unpooled.buffer())));
+		
+	}
+	
+	@Test
+	public void testEncodedKeySize() {
+		
+		MessageWriter writer = MapMessageWriter.INSTANCE;
+		
+		int[] intKeys = { 0, 127, 128, 255, 256, 65535, 65536, Integer.MAX_VALUE, -1, -32, -33, -128, -129, -32768, -32769, Integer.MIN_VALUE };
+		
+		for (int key : intKeys) {
+			ByteBuf sink = Unpooled.buffer();
+			writer.writeKey(key, sink);
+			Assert.assertArrayEquals(ByteBufUtil.getBytes(sink), writer.encodeKey(key));
+		}
+		
+		char[] chars = new char[70000];
+		Arrays.fill(chars, 'a');
+		String longKey = new String(chars);
+		String[] stringKeys = { "", "acc", longKey.substring(0, 31), longKey.substring(0, 32), longKey.substring(0, 255), 
+				longKey.substring(0, 256), longKey.substring(0, 65535), longKey, "\u043a\u043b\u044e\u0447" };
+		
+		for (String key : stringKeys) {
+			ByteBuf sink = Unpooled.buffer();
+			writer.writeKey(key, sink);
+			Assert.assertArrayEquals(ByteBufUtil.getBytes(sink), writer.encodeKey(key));
+		}
+		
+	}
+	
 	@Test
 	public void testArray() {
 
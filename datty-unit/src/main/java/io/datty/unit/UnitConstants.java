@@ -14,6 +14,7 @@
 package io.datty.unit;
 
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.UnpooledByteBufAllocator;
 
 /**
@@ -37,4 +38,61 @@ public class UnitConstants {
 	
   public static ByteBufAllocator ALLOC = UnpooledByteBufAllocator.DEFAULT;
 	
+	/**
+	 * Allocator for the stored values, buffers are released by UnitRecord
+	 */
+	
+	public static ByteBufAllocator STORAGE_ALLOC = PooledByteBufAllocator.DEFAULT;
+	
+	/**
+	 * Number of lock stripes per set that serialize writes to the same major key
+	 */
+	
+	public static final int KEY_LOCK_STRIPES = 256;
+	
+	/**
+	 * Values of UnitPropertyKeys.ENGINE, memory engine keeps records only in the heap,
+	 * log engine keeps them in the memory mapped append-only log and uses heap as a cache bounded by maxEntries
+	 */
+	
+	public static final String MEMORY_ENGINE = "memory";
+	
+	public static final String LOG_ENGINE = "log";
+	
+	/**
+	 * Default size of the log segment file
+	 */
+	
+	public static final int DEFAULT_LOG_SEGMENT_SIZE_BYTES = 64 * 1024 * 1024;
+	
+	/**
+	 * Default period of the log compaction
+	 */
+	
+	public static final int DEFAULT_LOG_COMPACTION_INTERVAL_SECONDS = 60;
+	
+	/**
+	 * Default max number of records in the heap for the log engine, evicted records are loaded from the log
+	 */
+	
+	public static final int DEFAULT_LOG_MAX_ENTRIES = 100000;
+	
+	/**
+	 * Log compaction starts when this part of sealed segments is garbage
+	 */
+	
+	public static final double LOG_GARBAGE_RATIO = 0.5;
+	
+	/**
+	 * Resolution of the expiration timer wheel
+	 */
+	
+	public static final long EXPIRER_TICK_MILLIS = 100;
+	
+	/**
+	 * Number of buckets in the expiration timer wheel, must be power of two
+	 */
+	
+	public static final int EXPIRER_WHEEL_SIZE = 512;
+	
 }
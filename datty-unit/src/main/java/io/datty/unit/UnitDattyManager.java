@@ -27,6 +27,8 @@ import io.datty.api.DattyStream;
 import io.datty.api.SetExistsAction;
 import io.datty.spi.DattyBatchDriver;
 import io.datty.spi.DattyDriver;
+import io.datty.spi.DattyMetrics;
+import io.datty.spi.DattyMetricsDriver;
 import io.datty.spi.DattySingleDriver;
 import io.datty.spi.DattySingleProvider;
 import io.datty.spi.DattyStreamDriver;
@@ -43,6 +45,8 @@ public class UnitDattyManager implements DattyManager {
 
 	private final String name;
 	private final ConcurrentMap<String, UnitSet> setMap = new ConcurrentHashMap<String, UnitSet>();
+	private final UnitExpirer expirer;
+	private final DattyMetrics metrics = new DattyMetrics();
 	private Datty currentDatty;
 	
 	public UnitDattyManager() {
@@ -51,16 +55,17 @@ public class UnitDattyManager implements DattyManager {
 
 	public UnitDattyManager(Properties props) {
 		this.name = props.getProperty(UnitPropertyKeys.NAME, UnitConstants.DEFAULT_NAME);
+		this.expirer = new UnitExpirer(name, UnitConstants.EXPIRER_TICK_MILLIS, UnitConstants.EXPIRER_WHEEL_SIZE);
 		
 		DattySingle single = new DattySingleProvider(new DattySingleDriver(new UnitDattySingle(setMap)));
 		DattyBatch batch = new DattyBatchDriver(single);
 		DattyStream stream = new DattyStreamDriver(new UnitDattyStream(setMap));
 		
-		this.currentDatty = DattyDriver.newBuilder()
+		this.currentDatty = new DattyMetricsDriver(DattyDriver.newBuilder()
 				.setSingle(single)
 				.setBatch(batch)
 				.setStream(stream)
-				.build();
+				.build(), metrics);
 				
 	}
 
@@ -115,6 +120,26 @@ public class UnitDattyManager implements DattyManager {
 		return set;
 	}
 
+	/**
+	 * Gets timer wheel shared by all sets of the manager
+	 * 
+	 * @return not null expirer
+	 */
+	
+	public UnitExpirer getExpirer() {
+		return expirer;
+	}
+
+	/**
+	 * Gets metrics of all sets of the manager
+	 * 
+	 * @return not null metrics
+	 */
+	
+	public DattyMetrics getMetrics() {
+		return metrics;
+	}
+
 	@Override
 	public Datty getDatty() {
 		return this.currentDatty;
@@ -130,6 +155,17 @@ public class UnitDattyManager implements DattyManager {
 		this.currentDatty = newDatty;
 	}
 
+	/**
+	 * Stops the expirer and closes logs of all sets
+	 */
+	
+	public void close() {
+		expirer.close();
+		for (UnitSet set : setMap.values()) {
+			set.close();
+		}
+	}
+	
 	@Override
 	public String toString() {
 		return "UnitDattyManager [name=" + name + "]";
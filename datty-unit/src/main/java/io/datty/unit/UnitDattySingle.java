@@ -64,7 +64,7 @@ public final class UnitDattySingle implements DattySingle {
 			return Observable.error(new DattyOperationException(ErrCode.UNKNOWN_OPERATION, "unknown operation: " + operation.getCode().name(), operation));
 		}
 		
-		return executor.execute(set.getRecordMap(), operation);
+		return executor.execute(set, operation);
 		
 	}
 
@@ -95,7 +95,7 @@ public final class UnitDattySingle implements DattySingle {
 			return Single.error(new DattyOperationException(ErrCode.UNKNOWN_OPERATION, "unknown operation: " + operation.getCode().name(), operation));
 		}
 		
-		return executor.execute(set.getRecordMap(), operation);
+		return executor.execute(set, operation);
 
 	}
 
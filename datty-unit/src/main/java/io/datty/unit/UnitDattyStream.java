@@ -14,13 +14,14 @@
 package io.datty.unit;
 
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 
 import io.datty.api.DattyError;
 import io.datty.api.DattyKey;
 import io.datty.api.DattyStream;
-import io.datty.api.UpdatePolicy;
 import io.datty.support.exception.DattyStreamException;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import rx.Observable;
 import rx.Single;
 import rx.functions.Func1;
@@ -56,7 +57,7 @@ public class UnitDattyStream implements DattyStream {
 			return Observable.error(new DattyStreamException(DattyError.ErrCode.BAD_ARGUMENTS, key));
 		}
 		
-		UnitRecord record = set.getRecordMap().get(majorKey);
+		UnitRecord record = set.getRecord(majorKey);
 		if (record == null) {
 			return Observable.empty();
 		}
@@ -79,57 +80,92 @@ public class UnitDattyStream implements DattyStream {
 		}
 		
 		String majorKey = key.getMajorKey();
-		String minorKey = key.getMinorKey();
+		final String minorKey = key.getMinorKey();
 		
 		if (majorKey == null || minorKey == null) {
 			return Single.error(new DattyStreamException(DattyError.ErrCode.BAD_ARGUMENTS, key));
 		}
 				
-		UnitRecord record = set.getRecordMap().get(majorKey);
-		if (record == null) {
-			
-			record = new UnitRecord(minorKey, new UnitValue());
-			UnitRecord c = set.getRecordMap().putIfAbsent(majorKey, record);
-			if (c != null) {
-				record = c;
-			}
-		}
+		UnitRecord record;
+		long initialLength;
 		
-		if (!record.hasColumn(minorKey)) {
+		Lock lock = set.getLock(majorKey);
+		lock.lock();
+		try {
 			
-			UnitRecord newRecord = new UnitRecord(record, minorKey, new UnitValue(), UpdatePolicy.MERGE);
-			if (!set.getRecordMap().replace(majorKey, record, newRecord)) {
-				return Single.error(new DattyStreamException(DattyError.ErrCode.CONCURRENT_UPDATE, key));
-			}
+			do {
+				
+				record = set.getRecord(majorKey);
+				if (record == null) {
+					record = new UnitRecord();
+					set.getRecordMap().put(majorKey, record);
+				}
+				
+				initialLength = record.append(minorKey, Unpooled.EMPTY_BUFFER);
+				if (initialLength == -1L) {
+					set.getRecordMap().remove(majorKey, record);
+				}
+				
+			} while (initialLength == -1L);
 			
-			record = newRecord;
 		}
-		
-		UnitValue streamingValue = record.getColumn(minorKey);
-		if (streamingValue == null) {
-			return Single.error(new DattyStreamException(DattyError.ErrCode.UNKNOWN, key));
+		finally {
+			lock.unlock();
 		}
 		
-		final ByteBuf destBuffer = streamingValue.asByteBuf();
+		final UnitSet streamingSet = set;
+		final UnitRecord streamingRecord = record;
+		final DattyKey streamingKey = key;
 		
-		Observable<ByteBuf> result = value.reduce(destBuffer, new Func2<ByteBuf, ByteBuf, ByteBuf>() {
+		Observable<Long> result = value.reduce(initialLength, new Func2<Long, ByteBuf, Long>() {
 
 			@Override
-			public ByteBuf call(ByteBuf dest, ByteBuf chunk) {
-				dest.writeBytes(chunk);
-				return dest;
+			public Long call(Long length, ByteBuf chunk) {
+				long newLength = streamingRecord.append(minorKey, chunk);
+				if (newLength == -1L) {
+					throw new DattyStreamException(DattyError.ErrCode.CONCURRENT_UPDATE, streamingKey);
+				}
+				return newLength;
 			}
 			
 		});
 		
-		return result.map(new Func1<ByteBuf, Long>() {
+		return result.map(new Func1<Long, Long>() {
 
 			@Override
-			public Long call(ByteBuf buf) {
-				return (long) buf.readableBytes();
+			public Long call(Long length) {
+				persist(streamingSet, streamingKey, streamingRecord);
+				return length;
 			}
 			
 		}).toSingle();
 	}
+	
+	/**
+	 * Record released by eviction or clear in the middle of stream is not written to the log
+	 */
+	
+	private void persist(UnitSet set, DattyKey key, UnitRecord record) {
+		
+		Lock lock = set.getLock(key.getMajorKey());
+		lock.lock();
+		try {
+			
+			synchronized(record) {
+				
+				if (record.isReleased()) {
+					throw new DattyStreamException(DattyError.ErrCode.CONCURRENT_UPDATE, key);
+				}
+				
+				set.touch(key.getMajorKey(), record, key.getTtlSeconds());
+				set.persist(key.getMajorKey(), record);
+			}
+			
+		}
+		finally {
+			lock.unlock();
+		}
+		
+	}
 
 }
@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * UnitExpirer
+ *
+ * Hashed timer wheel that removes expired records nobody reads, one thread per manager
+ * and one small entry per record with TTL instead of the scheduled task.
+ *
+ * Expiry is checked again on every read, so the wheel only bounds the memory held by expired records.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class UnitExpirer {
+
+	private static final Logger logger = LoggerFactory.getLogger(UnitExpirer.class);
+
+	private final String name;
+	private final long tickMillis;
+	private final int mask;
+	private final Queue<Entry>[] wheel;
+
+	private volatile ScheduledExecutorService timer;
+
+	// guarded by this
+	private boolean closed;
+
+	private volatile long lastTick;
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public UnitExpirer(String name, long tickMillis, int wheelSize) {
+
+		if (tickMillis <= 0) {
+			throw new IllegalArgumentException("tickMillis must be positive: " + tickMillis);
+		}
+
+		if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+			throw new IllegalArgumentException("wheelSize must be power of two: " + wheelSize);
+		}
+
+		this.name = name;
+		this.tickMillis = tickMillis;
+		this.mask = wheelSize - 1;
+		this.wheel = new Queue[wheelSize];
+		for (int i = 0; i != wheelSize; ++i) {
+			wheel[i] = new ConcurrentLinkedQueue<Entry>();
+		}
+		this.lastTick = System.currentTimeMillis() / tickMillis;
+	}
+
+	/**
+	 * Schedules removal of the record
+	 *
+	 * @param set - set of the record
+	 * @param majorKey - major key
+	 * @param record - record
+	 * @param expireAtMillis - expiration time
+	 */
+
+	public void schedule(UnitSet set, String majorKey, UnitRecord record, long expireAtMillis) {
+
+		ensureStarted();
+
+		long tick = Math.max((expireAtMillis + tickMillis - 1) / tickMillis, lastTick + 1);
+
+		wheel[(int) (tick & mask)].add(new Entry(set, majorKey, record, tick));
+
+	}
+
+	/**
+	 * Number of scheduled entries, including entries of re-written records
+	 *
+	 * @return number of entries
+	 */
+
+	public int size() {
+		int size = 0;
+		for (Queue<Entry> bucket : wheel) {
+			size += bucket.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Fires all passed ticks
+	 */
+
+	void advance() {
+
+		long currentTick = System.currentTimeMillis() / tickMillis;
+
+		for (long tick = lastTick + 1; tick <= currentTick; ++tick) {
+
+			Iterator<Entry> i = wheel[(int) (tick & mask)].iterator();
+
+			while (i.hasNext()) {
+				Entry entry = i.next();
+				if (entry.tick <= tick) {
+					i.remove();
+					entry.set.expire(entry.majorKey, entry.record);
+				}
+			}
+
+			lastTick = tick;
+		}
+
+	}
+
+	private void ensureStarted() {
+
+		if (timer != null) {
+			return;
+		}
+
+		synchronized(this) {
+
+			if (timer != null || closed) {
+				return;
+			}
+
+			timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+					.setDaemon(true)
+					.setNameFormat("unit-expirer-" + name)
+					.build());
+
+			timer.scheduleWithFixedDelay(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						advance();
+					}
+					catch(RuntimeException e) {
+						logger.error("expiration failed in " + UnitExpirer.this.name, e);
+					}
+				}
+
+			}, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+		}
+
+	}
+
+	public synchronized void close() {
+
+		closed = true;
+
+		if (timer != null) {
+			timer.shutdownNow();
+		}
+
+	}
+
+	private static final class Entry {
+
+		final UnitSet set;
+		final String majorKey;
+		final UnitRecord record;
+		final long tick;
+
+		Entry(UnitSet set, String majorKey, UnitRecord record, long tick) {
+			this.set = set;
+			this.majorKey = majorKey;
+			this.record = record;
+			this.tick = tick;
+		}
+
+	}
+
+	@Override
+	public String toString() {
+		return "UnitExpirer [name=" + name + ", tickMillis=" + tickMillis + ", wheelSize=" + (mask + 1) + "]";
+	}
+
+}
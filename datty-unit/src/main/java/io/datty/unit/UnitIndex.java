@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import io.datty.api.operation.SelectFilter;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * UnitIndex
+ *
+ * In-memory secondary index of one minor key, values are indexed as text and as numbers
+ * if they are decimal. Index gives candidates only, records are checked by filters again,
+ * so evicted records left in the index are skipped on select.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class UnitIndex {
+
+	private final String minorKey;
+
+	// guarded by this
+	private final Map<String, Set<String>> textMap = new HashMap<String, Set<String>>();
+	private final NavigableMap<Long, Set<String>> numberMap = new TreeMap<Long, Set<String>>();
+	private final Map<String, String> majorKeyMap = new HashMap<String, String>();
+
+	public UnitIndex(String minorKey) {
+		this.minorKey = minorKey;
+	}
+
+	public String getMinorKey() {
+		return minorKey;
+	}
+
+	/**
+	 * Updates indexed value of the record, must be called under the key lock
+	 *
+	 * @param majorKey - major key
+	 * @param valueOrNull - value of the minor key, null if record or value was removed
+	 */
+
+	public void update(String majorKey, ByteBuf valueOrNull) {
+
+		String text = valueOrNull != null ? valueOrNull.toString(valueOrNull.readerIndex(), valueOrNull.readableBytes(), StandardCharsets.UTF_8) : null;
+
+		synchronized(this) {
+
+			String previous = text != null ? majorKeyMap.put(majorKey, text) : majorKeyMap.remove(majorKey);
+
+			if (previous != null) {
+				if (previous.equals(text)) {
+					return;
+				}
+				remove(textMap, previous, majorKey);
+				Long number = parseNumber(previous);
+				if (number != null) {
+					remove(numberMap, number, majorKey);
+				}
+			}
+
+			if (text != null) {
+				add(textMap, text, majorKey);
+				Long number = parseNumber(text);
+				if (number != null) {
+					add(numberMap, number, majorKey);
+				}
+			}
+
+		}
+
+	}
+
+	/**
+	 * Finds candidates for the filter on this minor key
+	 *
+	 * @param filter - filter
+	 * @return snapshot of major keys
+	 */
+
+	public synchronized List<String> find(SelectFilter filter) {
+
+		if (filter.getType() == SelectFilter.Type.EQUAL) {
+			Set<String> majorKeys = textMap.get(filter.getValue());
+			return majorKeys != null ? new ArrayList<String>(majorKeys) : Collections.<String>emptyList();
+		}
+
+		List<String> list = new ArrayList<String>();
+		for (Set<String> majorKeys : numberMap.subMap(filter.getBegin(), true, filter.getEnd(), true).values()) {
+			list.addAll(majorKeys);
+		}
+		return list;
+	}
+
+	public synchronized int size() {
+		return majorKeyMap.size();
+	}
+
+	public synchronized void clear() {
+		textMap.clear();
+		numberMap.clear();
+		majorKeyMap.clear();
+	}
+
+	private static <K> void add(Map<K, Set<String>> map, K key, String majorKey) {
+		Set<String> majorKeys = map.get(key);
+		if (majorKeys == null) {
+			majorKeys = new HashSet<String>();
+			map.put(key, majorKeys);
+		}
+		majorKeys.add(majorKey);
+	}
+
+	private static <K> void remove(Map<K, Set<String>> map, K key, String majorKey) {
+		Set<String> majorKeys = map.get(key);
+		if (majorKeys != null && majorKeys.remove(majorKey) && majorKeys.isEmpty()) {
+			map.remove(key);
+		}
+	}
+
+	private static Long parseNumber(String text) {
+		try {
+			return Long.valueOf(text);
+		}
+		catch(NumberFormatException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "UnitIndex [minorKey=" + minorKey + "]";
+	}
+
+}
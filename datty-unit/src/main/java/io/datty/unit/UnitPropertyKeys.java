@@ -38,4 +38,24 @@ public final class UnitPropertyKeys {
 	public static final String MAX_ENTRIES = "maxEntries";
 
 	public static final String TTL_SECONDS = "timeToLiveSeconds";
+	
+	/**
+	 * Storage engine constants
+	 */
+	
+	public static final String ENGINE = "engine";
+	
+	public static final String LOG_DIRECTORY = "logDirectory";
+	
+	public static final String LOG_SEGMENT_SIZE_BYTES = "logSegmentSizeBytes";
+	
+	public static final String LOG_COMPACTION_INTERVAL_SECONDS = "logCompactionIntervalSeconds";
+	
+	/**
+	 * Forces the segment to the disk after every put and remove, otherwise
+	 * the OS writes pages back and the last writes survive the crash of the process, but not of the host
+	 */
+	
+	public static final String LOG_SYNC_WRITES = "logSyncWrites";
+	
 }
@@ -13,20 +13,33 @@
  */
 package io.datty.unit;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
-import com.google.common.collect.ImmutableMap;
-
+import io.datty.api.ByteBufValue;
+import io.datty.api.DattyRecord;
 import io.datty.api.DattyValue;
 import io.datty.api.UpdatePolicy;
 import io.datty.api.version.LongVersion;
 import io.datty.api.version.Version;
+import io.netty.buffer.ByteBuf;
 
 /**
  * Unit implementation of record
  * 
- * Immutable record
+ * Mutable record, columns are stored in buffers of UnitConstants.STORAGE_ALLOC owned by the record
+ * and released on overwrite, remove or release of the record.
+ * 
+ * All access to columns is guarded by the record monitor, version stamp is updated in place
+ * and could be read without lock.
+ * 
+ * Getters return UnitValue copies that are not related to the storage.
  * 
  * @author Alex Shvid
  *
@@ -34,114 +47,233 @@ import io.datty.api.version.Version;
 
 public final class UnitRecord {
 
-	private final Map<String, UnitValue> columnMap;
+	private final static AtomicLongFieldUpdater<UnitRecord> VERSION_UPDATER = AtomicLongFieldUpdater
+			.newUpdater(UnitRecord.class, "version");
+	
+	// guarded by this
+	private final Map<String, ByteBuf> columnMap;
+	
+	// guarded by this
+	private boolean released;
 	
-	private final long version;
+	private volatile long version;
+	
+	private volatile long expireAtMillis;
 
-	public UnitRecord(String minorKey, UnitValue value) {
-		ImmutableMap.Builder<String, UnitValue> builder = ImmutableMap.builder();
-		if (value != null) {
-			builder.put(minorKey, value);
-		}
-		this.columnMap = builder.build();
+	public UnitRecord() {
+		this.columnMap = new HashMap<String, ByteBuf>(4);
 		this.version = 1L;
 	}
 	
-	public UnitRecord(UnitRecord previous, String minorKey, UnitValue value, UpdatePolicy updatePolicy) {
-		ImmutableMap.Builder<String, UnitValue> builder = ImmutableMap.builder();
-		
-		for (Map.Entry<String, UnitValue> e : previous.columnMap.entrySet()) {
-			if (e.getKey().equals(minorKey)) {
-				if (value != null) {
-					builder.put(minorKey, value);
-				}
-				else {
-					builder.put(e);
-				}
+	public UnitRecord(Map<String, DattyValue> map) {
+		this(map, 1L);
+	}
+	
+	public UnitRecord(Map<String, DattyValue> map, long version) {
+		this.columnMap = new HashMap<String, ByteBuf>(Math.max(4, map.size() * 2));
+		for (Map.Entry<String, DattyValue> e : map.entrySet()) {
+			DattyValue valueOrNull = e.getValue();
+			if (valueOrNull != null && valueOrNull.hasByteBuf()) {
+				columnMap.put(e.getKey(), store(valueOrNull.asByteBuf()));
 			}
 		}
-		
-		this.columnMap = builder.build();
-		this.version = 1L;
+		this.version = version;
 	}
 	
-	public UnitRecord(Map<String, DattyValue> map) {
-		this.columnMap = toImmutableBuilder(map).build();
-		this.version = 1L;
-	}
+	/**
+	 * Updates columns in place and increments version
+	 * 
+	 * @param map - new values, null or empty values remove columns
+	 * @param updatePolicy - update policy
+	 * @return false if record was already released
+	 */
 	
-	public UnitRecord(UnitRecord previous, Map<String, DattyValue> addMap, UpdatePolicy updatePolicy) {
+	public synchronized boolean update(Map<String, DattyValue> map, UpdatePolicy updatePolicy) {
+		
+		if (released) {
+			return false;
+		}
 		
 		switch(updatePolicy) {
 		
 		case REPLACE:
-			this.columnMap = toImmutableBuilder(addMap).build();
+			Iterator<Map.Entry<String, ByteBuf>> i = columnMap.entrySet().iterator();
+			while (i.hasNext()) {
+				Map.Entry<String, ByteBuf> e = i.next();
+				if (!map.containsKey(e.getKey())) {
+					e.getValue().release();
+					i.remove();
+				}
+			}
 			break;
 			
 		case MERGE:
-			ImmutableMap.Builder<String, UnitValue> builder = toImmutableBuilder(addMap);
-			for (Map.Entry<String, UnitValue> e : previous.columnMap.entrySet()) {
-				if (!addMap.containsKey(e.getKey())) {
-					builder.put(e);
-				}
-			}
-			this.columnMap = builder.build();
 			break;
 			
 		default:
 			throw new IllegalArgumentException("unknown update policy: " + updatePolicy);	
 		}
-				
-		this.version = previous.version + 1;
+		
+		for (Map.Entry<String, DattyValue> e : map.entrySet()) {
+			
+			DattyValue valueOrNull = e.getValue();
+			ByteBuf old;
+			
+			if (valueOrNull != null && valueOrNull.hasByteBuf()) {
+				old = columnMap.put(e.getKey(), store(valueOrNull.asByteBuf()));
+			}
+			else {
+				old = columnMap.remove(e.getKey());
+			}
+			
+			if (old != null) {
+				old.release();
+			}
+		}
+		
+		incrementVersion();
+		return true;
 	}
 	
-	public UnitRecord(UnitRecord previous, Set<String> removeSet) {
-		ImmutableMap.Builder<String, UnitValue> builder = ImmutableMap.builder();
-		for (Map.Entry<String, UnitValue> e : previous.columnMap.entrySet()) {
-			if (!removeSet.contains(e.getKey())) {
-				builder.put(e);
-			}
+	/**
+	 * Appends bytes to the column, creates column if not exists
+	 * 
+	 * @param minorKey - minor key
+	 * @param chunk - bytes to append
+	 * @return new length of the column or -1 if record was already released
+	 */
+	
+	public synchronized long append(String minorKey, ByteBuf chunk) {
+		
+		if (released) {
+			return -1L;
 		}
-		this.columnMap = builder.build();
-		this.version = previous.version + 1;
+		
+		ByteBuf column = columnMap.get(minorKey);
+		if (column == null) {
+			column = UnitConstants.STORAGE_ALLOC.buffer(chunk.readableBytes());
+			columnMap.put(minorKey, column);
+		}
+		
+		column.writeBytes(chunk, chunk.readerIndex(), chunk.readableBytes());
+		
+		incrementVersion();
+		return column.readableBytes();
 	}
 	
-	private ImmutableMap.Builder<String, UnitValue> toImmutableBuilder(Map<String, DattyValue> map) {
-		ImmutableMap.Builder<String, UnitValue> builder = ImmutableMap.builder();
-		for (Map.Entry<String, DattyValue> e : map.entrySet()) {
-			DattyValue valueOrNull = e.getValue();
-			if (valueOrNull != null && valueOrNull.hasByteBuf()) {
-				builder.put(e.getKey(), new UnitValue(valueOrNull.asByteBuf()));
-			}
+	/**
+	 * Releases all columns, record could not be used after that
+	 */
+	
+	public synchronized void release() {
+		
+		if (released) {
+			return;
+		}
+		
+		released = true;
+		
+		for (ByteBuf column : columnMap.values()) {
+			column.release();
 		}
-		return builder;
+		
+		columnMap.clear();
+	}
+	
+	public synchronized boolean isReleased() {
+		return released;
+	}
+	
+	private void incrementVersion() {
+		long current;
+		do {
+			current = version;
+		} while (!VERSION_UPDATER.compareAndSet(this, current, current + 1));
+	}
+	
+	private static ByteBuf store(ByteBuf value) {
+		int length = value.readableBytes();
+		return UnitConstants.STORAGE_ALLOC.buffer(length).writeBytes(value, value.readerIndex(), length);
+	}
+	
+	/**
+	 * Gets expiration time
+	 * 
+	 * @return time in milliseconds or 0 if record never expires
+	 */
+	
+	public long getExpireAt() {
+		return expireAtMillis;
+	}
+	
+	public void setExpireAt(long expireAtMillis) {
+		this.expireAtMillis = expireAtMillis;
+	}
+	
+	public boolean isExpired(long currentTimeMillis) {
+		long expireAt = expireAtMillis;
+		return expireAt != 0 && expireAt <= currentTimeMillis;
+	}
+	
+	public long getVersionStamp() {
+		return version;
 	}
 	
 	public Version getVersion() {
 		return new LongVersion(version);
 	}
 	
-	public boolean hasColumn(String minorKey) {
+	public synchronized boolean hasColumn(String minorKey) {
 		return columnMap.containsKey(minorKey);
 	}
 	
-	public UnitValue getColumn(String minorKey) {
-		return columnMap.get(minorKey);
+	public synchronized UnitValue getColumn(String minorKey) {
+		ByteBuf column = columnMap.get(minorKey);
+		return column != null ? new UnitValue(column) : null;
+	}
+	
+	/**
+	 * Gets copies of all columns
+	 * 
+	 * @return not null map
+	 */
+	
+	public synchronized Map<String, UnitValue> getColumnMap() {
+		
+		if (columnMap.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		
+		Map<String, UnitValue> copy = new LinkedHashMap<String, UnitValue>(columnMap.size() * 2);
+		for (Map.Entry<String, ByteBuf> e : columnMap.entrySet()) {
+			copy.put(e.getKey(), new UnitValue(e.getValue()));
+		}
+		return copy;
 	}
 	
-	public Map<String, UnitValue> getColumnMap() {
-		return columnMap;
+	/**
+	 * Gets record with views of the stored columns, must be used under the record monitor
+	 * 
+	 * @return not null record
+	 */
+	
+	synchronized DattyRecord toDattyRecord() {
+		DattyRecord rec = new DattyRecord();
+		for (Map.Entry<String, ByteBuf> e : columnMap.entrySet()) {
+			rec.put(e.getKey(), new ByteBufValue(e.getValue().duplicate()));
+		}
+		return rec;
 	}
 	
-	public int columns() {
+	public synchronized int columns() {
 		return columnMap.size();
 	}
 	
-	public Set<String> columnSet() {
-		return columnMap.keySet();
+	public synchronized Set<String> columnSet() {
+		return new HashSet<String>(columnMap.keySet());
 	}
 	
-	public boolean isEmpty() {
+	public synchronized boolean isEmpty() {
 		return columnMap.isEmpty();
 	}
 	
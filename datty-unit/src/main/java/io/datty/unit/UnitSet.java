@@ -13,22 +13,30 @@
  */
 package io.datty.unit;
 
-import java.util.Collections;
+import java.io.File;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.Lock;
 
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.Striped;
 
+import io.datty.api.DattyConstants;
 import io.datty.api.DattyManager;
 import io.datty.api.DattySet;
 import io.datty.api.operation.Execute;
 import io.datty.api.operation.Fetch;
 import io.datty.api.operation.Push;
 import io.datty.support.exception.DattyException;
+import io.datty.unit.log.UnitLog;
+import io.datty.unit.log.UnitLogEntry;
 
 /**
  * Unit implementation of the DattySet interface
@@ -42,36 +50,73 @@ public class UnitSet implements DattySet {
 	private final static AtomicReferenceFieldUpdater<UnitSet, Properties> PROPS_UPDATER = AtomicReferenceFieldUpdater
 			.newUpdater(UnitSet.class, Properties.class, "props");
 
+	/**
+	 * Releases storage of evicted, expired or replaced records
+	 */
+	
+	private final static RemovalListener<Object, Object> RELEASE_LISTENER = new RemovalListener<Object, Object>() {
+
+		@Override
+		public void onRemoval(RemovalNotification<Object, Object> notification) {
+			Object record = notification.getValue();
+			if (record instanceof UnitRecord) {
+				((UnitRecord) record).release();
+			}
+		}
+		
+	};
+
 	private final UnitDattyManager parent;
 	private final String name;
 	private volatile Properties props;
 	
 	private final com.google.common.cache.Cache<String, UnitRecord> backingCache;
 	private final ConcurrentMap<String, UnitRecord> recordMap;
+	private final Striped<Lock> keyLocks = Striped.lock(UnitConstants.KEY_LOCK_STRIPES);
+	private final UnitLog log;
+	private final ConcurrentMap<String, UnitIndex> indexMap = new ConcurrentHashMap<String, UnitIndex>();
+	private final ConcurrentMap<String, UnitIndex> buildingIndexMap = new ConcurrentHashMap<String, UnitIndex>();
+	private final int defaultTtlSeconds;
 
 	protected UnitSet(UnitDattyManager parent, String setName, Properties props) {
 		this.parent = parent;
 		this.name = setName;
 		this.props = props;
 		
-		String ttlSeconds = props.getProperty(UnitPropertyKeys.MAX_ENTRIES);
-		String maxEntries = props.getProperty(UnitPropertyKeys.MAX_ENTRIES);
+		String ttlSeconds = props.getProperty(UnitPropertyKeys.TTL_SECONDS);
+		if (ttlSeconds != null) {
+			try {
+				this.defaultTtlSeconds = Integer.parseInt(ttlSeconds);
+			}
+			catch(NumberFormatException e) {
+				throw new DattyException("invalid property timeToLiveSeconds in set: " + setName + ", value=" + ttlSeconds);
+			}
+		}
+		else {
+			this.defaultTtlSeconds = DattyConstants.UNSET_TTL;
+		}
+		
+		String engine = props.getProperty(UnitPropertyKeys.ENGINE, UnitConstants.MEMORY_ENGINE);
+		boolean logEngine = UnitConstants.LOG_ENGINE.equals(engine);
+		if (!logEngine && !UnitConstants.MEMORY_ENGINE.equals(engine)) {
+			throw new DattyException("invalid property engine in set: " + setName + ", value=" + engine);
+		}
+		
+		/**
+		 * Log engine keeps the heap as a cache of the log, it is always bounded
+		 */
+		
+		String maxEntries = props.getProperty(UnitPropertyKeys.MAX_ENTRIES, 
+				logEngine ? Integer.toString(UnitConstants.DEFAULT_LOG_MAX_ENTRIES) : null);
 		if (maxEntries != null) {
 			CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+			builder.removalListener(RELEASE_LISTENER);
 			try {
 				builder.maximumSize(Integer.parseInt(maxEntries));
 			}
 			catch(NumberFormatException e) {
 				throw new DattyException("invalid property maxEntries in set: " + setName + ", value=" + maxEntries);
 			}
-			if (ttlSeconds != null) {
-				try {
-					builder.expireAfterWrite(Integer.parseInt(ttlSeconds), TimeUnit.SECONDS);
-				}
-				catch(NumberFormatException e) {
-					throw new DattyException("invalid property maxEntries in cache: " + setName + ", value=" + maxEntries);
-				}
-			}
 			
 			this.backingCache = builder.build();
 			this.recordMap = backingCache.asMap();
@@ -81,6 +126,31 @@ public class UnitSet implements DattySet {
 			this.recordMap = new ConcurrentHashMap<String, UnitRecord>();
 		}
 		
+		this.log = logEngine ? openLog(setName, props) : null;
+		
+	}
+	
+	private static UnitLog openLog(String setName, Properties props) {
+		
+		String directory = props.getProperty(UnitPropertyKeys.LOG_DIRECTORY);
+		if (directory == null) {
+			throw new DattyException("empty property logDirectory in set: " + setName);
+		}
+		
+		String segmentSize = props.getProperty(UnitPropertyKeys.LOG_SEGMENT_SIZE_BYTES, 
+				Integer.toString(UnitConstants.DEFAULT_LOG_SEGMENT_SIZE_BYTES));
+		String compactionInterval = props.getProperty(UnitPropertyKeys.LOG_COMPACTION_INTERVAL_SECONDS, 
+				Integer.toString(UnitConstants.DEFAULT_LOG_COMPACTION_INTERVAL_SECONDS));
+		boolean syncWrites = Boolean.parseBoolean(props.getProperty(UnitPropertyKeys.LOG_SYNC_WRITES));
+		
+		try {
+			return new UnitLog(new File(directory), setName, Integer.parseInt(segmentSize), 
+					UnitConstants.LOG_GARBAGE_RATIO, TimeUnit.SECONDS.toMillis(Integer.parseInt(compactionInterval)), syncWrites);
+		}
+		catch(NumberFormatException e) {
+			throw new DattyException("invalid log properties in set: " + setName + ", segmentSize=" + segmentSize 
+					+ ", compactionInterval=" + compactionInterval);
+		}
 	}
 
 	@Override
@@ -105,7 +175,7 @@ public class UnitSet implements DattySet {
 
 	@Override
 	public Map<String, String> getStatistics() {
-		return Collections.emptyMap();
+		return parent.getMetrics().getStatistics(name);
 	}
 	
 	@Override
@@ -126,6 +196,322 @@ public class UnitSet implements DattySet {
 	public ConcurrentMap<String, UnitRecord> getRecordMap() {
 		return recordMap;
 	}
+	
+	/**
+	 * Gets record from the memory or loads it from the log
+	 * 
+	 * @param majorKey - major key
+	 * @return record or null if not exists
+	 */
+	
+	public UnitRecord getRecord(String majorKey) {
+		
+		UnitRecord record = recordMap.get(majorKey);
+		
+		if (record == null && log != null) {
+			record = loadRecord(majorKey);
+		}
+		
+		if (record != null && record.isExpired(System.currentTimeMillis())) {
+			expire(majorKey, record);
+			return null;
+		}
+		
+		return record;
+	}
+	
+	/**
+	 * Gets record again after it was found released. Eviction from the heap cache releases
+	 * the record, but keeps it in the log, so the released record is dropped and loaded again
+	 * under the key lock
+	 * 
+	 * @param majorKey - major key
+	 * @param released - released record
+	 * @return record or null if not exists
+	 */
+	
+	public UnitRecord reloadRecord(String majorKey, UnitRecord released) {
+		
+		Lock lock = getLock(majorKey);
+		lock.lock();
+		try {
+			recordMap.remove(majorKey, released);
+			return getRecord(majorKey);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	private UnitRecord loadRecord(String majorKey) {
+		
+		Lock lock = getLock(majorKey);
+		lock.lock();
+		try {
+			
+			UnitRecord record = recordMap.get(majorKey);
+			if (record == null) {
+				
+				UnitLogEntry entry = log.get(majorKey);
+				if (entry != null) {
+					record = new UnitRecord(entry.getRecord().getValues(), entry.getVersion());
+					record.setExpireAt(entry.getExpireAt());
+					recordMap.put(majorKey, record);
+					scheduleExpiration(majorKey, record);
+				}
+				
+			}
+			
+			return record;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Sets expiration of the record, must be called under the key lock before persist
+	 * 
+	 * @param majorKey - major key
+	 * @param record - updated record
+	 * @param ttlSeconds - time to live of the operation, UNSET_TTL means default time to live of the set, 
+	 *                     negative value means never expire
+	 */
+	
+	public void touch(String majorKey, UnitRecord record, int ttlSeconds) {
+		
+		if (ttlSeconds == DattyConstants.UNSET_TTL) {
+			ttlSeconds = defaultTtlSeconds;
+		}
+		
+		long previous = record.getExpireAt();
+		
+		if (ttlSeconds > 0) {
+			long expireAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds);
+			record.setExpireAt(expireAt);
+			
+			// prolonged record keeps the pending wheel entry, expire() moves it forward
+			if (previous == 0L || expireAt < previous) {
+				scheduleExpiration(majorKey, record);
+			}
+		}
+		else {
+			record.setExpireAt(0L);
+		}
+		
+	}
+	
+	private void scheduleExpiration(String majorKey, UnitRecord record) {
+		long expireAt = record.getExpireAt();
+		if (expireAt != 0L) {
+			parent.getExpirer().schedule(this, majorKey, record, expireAt);
+		}
+	}
+	
+	/**
+	 * Removes record if it is still expired and in the set, reschedules prolonged record
+	 * 
+	 * @param majorKey - major key
+	 * @param record - expired record
+	 */
+	
+	public void expire(String majorKey, UnitRecord record) {
+		
+		Lock lock = getLock(majorKey);
+		lock.lock();
+		try {
+			
+			synchronized(record) {
+				
+				if (record.isReleased()) {
+					return;
+				}
+				
+				if (!record.isExpired(System.currentTimeMillis())) {
+					if (recordMap.get(majorKey) == record) {
+						scheduleExpiration(majorKey, record);
+					}
+					return;
+				}
+				
+				if (recordMap.remove(majorKey, record)) {
+					record.release();
+					persist(majorKey, record);
+				}
+				
+			}
+			
+		}
+		finally {
+			lock.unlock();
+		}
+		
+	}
+	
+	/**
+	 * Writes state of the record to the log, must be called under the key lock
+	 * 
+	 * @param majorKey - major key
+	 * @param record - updated, emptied or released record
+	 */
+	
+	public void persist(String majorKey, UnitRecord record) {
+		
+		if (log == null && indexMap.isEmpty() && buildingIndexMap.isEmpty()) {
+			return;
+		}
+		
+		synchronized(record) {
+			
+			boolean removed = record.isReleased() || record.isEmpty();
+			
+			if (log != null) {
+				if (removed) {
+					log.remove(majorKey);
+				}
+				else {
+					log.put(majorKey, record.getVersionStamp(), record.getExpireAt(), record.toDattyRecord());
+				}
+			}
+			
+			// building first, published index is removed from building only after it is in indexMap
+			for (UnitIndex index : buildingIndexMap.values()) {
+				updateIndex(index, majorKey, removed ? null : record);
+			}
+			
+			for (UnitIndex index : indexMap.values()) {
+				updateIndex(index, majorKey, removed ? null : record);
+			}
+			
+		}
+		
+	}
+	
+	private static void updateIndex(UnitIndex index, String majorKey, UnitRecord recordOrNull) {
+		UnitValue value = recordOrNull != null ? recordOrNull.getColumn(index.getMinorKey()) : null;
+		index.update(majorKey, value != null ? value.asByteBuf() : null);
+	}
+	
+	/**
+	 * Gets index of the minor key, the first call builds it from all records of the set,
+	 * other callers wait for the build and never see the partial index
+	 * 
+	 * @param minorKey - minor key
+	 * @return not null index
+	 */
+	
+	public UnitIndex getIndex(String minorKey) {
+		
+		UnitIndex index = indexMap.get(minorKey);
+		if (index != null) {
+			return index;
+		}
+		
+		synchronized(indexMap) {
+			
+			index = indexMap.get(minorKey);
+			if (index != null) {
+				return index;
+			}
+			
+			// writes during the build are indexed by persist
+			index = new UnitIndex(minorKey);
+			buildingIndexMap.put(minorKey, index);
+			
+			for (String majorKey : majorKeys()) {
+				
+				Lock lock = getLock(majorKey);
+				lock.lock();
+				try {
+					UnitRecord record = getRecord(majorKey);
+					if (record != null) {
+						synchronized(record) {
+							updateIndex(index, majorKey, record.isReleased() ? null : record);
+						}
+					}
+				}
+				finally {
+					lock.unlock();
+				}
+				
+			}
+			
+			indexMap.put(minorKey, index);
+			buildingIndexMap.remove(minorKey);
+			
+			return index;
+		}
+		
+	}
+	
+	/**
+	 * Gets live view of major keys, for the log engine includes records that are not loaded
+	 * 
+	 * @return not null keys
+	 */
+	
+	public Set<String> majorKeys() {
+		return log != null ? log.keySet() : recordMap.keySet();
+	}
+	
+	public int size() {
+		return log != null ? log.size() : recordMap.size();
+	}
+	
+	/**
+	 * Gets the lock that serializes writes to the major key
+	 * 
+	 * @param majorKey - major key
+	 * @return not null striped lock
+	 */
+	
+	public Lock getLock(String majorKey) {
+		return keyLocks.get(majorKey);
+	}
+	
+	/**
+	 * Removes and releases all records
+	 * 
+	 * @return number of removed records
+	 */
+	
+	public int clear() {
+		
+		int removed = 0;
+		
+		for (String majorKey : recordMap.keySet()) {
+			UnitRecord record = recordMap.remove(majorKey);
+			if (record != null) {
+				record.release();
+				removed++;
+			}
+		}
+		
+		if (log != null) {
+			removed = log.size();
+			log.clear();
+		}
+		
+		for (UnitIndex index : buildingIndexMap.values()) {
+			index.clear();
+		}
+		
+		for (UnitIndex index : indexMap.values()) {
+			index.clear();
+		}
+		
+		return removed;
+	}
+	
+	/**
+	 * Closes the log, records stay in the memory
+	 */
+	
+	public void close() {
+		if (log != null) {
+			log.close();
+		}
+	}
 
 	@Override
 	public String toString() {
@@ -30,11 +30,20 @@ public final class UnitValue extends ByteBufValue {
 	}
 	
 	public UnitValue(ByteBuf input) {
-		super(input.copy());
+		super(copyOf(input));
 	}
 
 	public UnitValue dublicate() {
 		return new UnitValue(asByteBuf());
 	}
 	
+	/**
+	 * Copies to the buffer of UnitConstants.ALLOC, because input could be a storage buffer
+	 */
+	
+	private static ByteBuf copyOf(ByteBuf input) {
+		int length = input.readableBytes();
+		return UnitConstants.ALLOC.buffer(length).writeBytes(input, input.readerIndex(), length);
+	}
+	
 }
@@ -13,11 +13,9 @@
  */
 package io.datty.unit.executor;
 
-import java.util.concurrent.ConcurrentMap;
-
 import io.datty.api.operation.Clear;
 import io.datty.api.result.RecordResult;
-import io.datty.unit.UnitRecord;
+import io.datty.unit.UnitSet;
 import rx.Observable;
 
 /**
@@ -32,13 +30,10 @@ public enum ClearExecutor implements SetOperationExecutor<Clear> {
 	INSTANCE;
 
 	@Override
-	public Observable<RecordResult> execute(ConcurrentMap<String, UnitRecord> recordMap, Clear operation) {
+	public Observable<RecordResult> execute(UnitSet set, Clear operation) {
 		
 		RecordResult result = new RecordResult();
-		
-		result.setCount(recordMap.size());
-		
-		recordMap.clear();
+		result.setCount(set.clear());
 		
 		return Observable.just(result);
 	}
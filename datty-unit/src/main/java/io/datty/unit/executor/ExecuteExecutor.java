@@ -13,11 +13,12 @@
  */
 package io.datty.unit.executor;
 
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 
 import io.datty.api.operation.Execute;
 import io.datty.api.result.ExecuteResult;
 import io.datty.unit.UnitRecord;
+import io.datty.unit.UnitSet;
 import rx.Single;
 
 /**
@@ -32,11 +33,50 @@ public enum ExecuteExecutor implements OperationExecutor<Execute, ExecuteResult>
 	INSTANCE;
 
 	@Override
-	public Single<ExecuteResult> execute(ConcurrentMap<String, UnitRecord> recordMap, Execute operation) {
+	public Single<ExecuteResult> execute(UnitSet set, Execute operation) {
+		
+		if (operation.hasTtlSeconds()) {
+			touch(set, operation);
+		}
 		
 		return Single.just(new ExecuteResult().set(operation.getArguments()));
 		
 	}
+	
+	/**
+	 * Execute with TTL prolongs the existing record the same way as Aerospike does
+	 */
+	
+	private void touch(UnitSet set, Execute operation) {
+		
+		String majorKey = operation.getMajorKey();
+		
+		Lock lock = set.getLock(majorKey);
+		lock.lock();
+		try {
+			
+			UnitRecord record = set.getRecord(majorKey);
+			while (record != null) {
+				
+				synchronized(record) {
+					
+					if (!record.isReleased()) {
+						set.touch(majorKey, record, operation.getTtlSeconds());
+						set.persist(majorKey, record);
+						break;
+					}
+					
+				}
+				
+				record = set.reloadRecord(majorKey, record);
+			}
+			
+		}
+		finally {
+			lock.unlock();
+		}
+		
+	}
 
 	
 }
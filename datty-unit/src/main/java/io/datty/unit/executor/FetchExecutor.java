@@ -14,12 +14,12 @@
 package io.datty.unit.executor;
 
 import java.util.Map;
-import java.util.concurrent.ConcurrentMap;
 
 import io.datty.api.operation.Fetch;
 import io.datty.api.result.FetchResult;
 import io.datty.support.NullDattyValue;
 import io.datty.unit.UnitRecord;
+import io.datty.unit.UnitSet;
 import io.datty.unit.UnitValue;
 import rx.Single;
 
@@ -35,39 +35,67 @@ public enum FetchExecutor implements OperationExecutor<Fetch, FetchResult> {
 	INSTANCE;
 	
 	@Override
-	public Single<FetchResult> execute(ConcurrentMap<String, UnitRecord> recordMap, Fetch operation) {
+	public Single<FetchResult> execute(UnitSet set, Fetch operation) {
 		
-		boolean fetchValues = operation.isFetchValues();
+		String majorKey = operation.getMajorKey();
 		
-		UnitRecord record = recordMap.get(operation.getMajorKey());
+		UnitRecord record = set.getRecord(majorKey);
 		
 		FetchResult result = new FetchResult();
 		
-		if (record != null) {
+		while (record != null) {
 			
-			result.setVersion(record.getVersion());
-
-			if (operation.isAllMinorKeys()) {
+			synchronized(record) {
 				
-				for (Map.Entry<String, UnitValue> e : record.getColumnMap().entrySet()) {
-					result.addValue(e.getKey(), fetchValues ? e.getValue().dublicate() : NullDattyValue.NULL);
+				if (!record.isReleased()) {
+					readRecord(record, operation, result);
+					break;
 				}
 				
 			}
-			else if (!operation.getMinorKeys().isEmpty()) {
-				
-				for (String minorKey : operation.getMinorKeys()) {
+			
+			record = set.reloadRecord(majorKey, record);
+		}
+
+		return Single.just(result);
+	}
+	
+	private void readRecord(UnitRecord record, Fetch operation, FetchResult result) {
+		
+		boolean fetchValues = operation.isFetchValues();
+		
+		result.setVersion(record.getVersion());
+
+		if (operation.isAllMinorKeys()) {
+			
+			if (fetchValues) {
+				for (Map.Entry<String, UnitValue> e : record.getColumnMap().entrySet()) {
+					result.addValue(e.getKey(), e.getValue());
+				}
+			}
+			else {
+				for (String minorKey : record.columnSet()) {
+					result.addValue(minorKey, NullDattyValue.NULL);
+				}
+			}
+			
+		}
+		else if (!operation.getMinorKeys().isEmpty()) {
+			
+			for (String minorKey : operation.getMinorKeys()) {
+				if (fetchValues) {
 					UnitValue value = record.getColumn(minorKey);
 					if (value != null) {
-						result.addValue(minorKey, fetchValues ? value.dublicate() : NullDattyValue.NULL);
+						result.addValue(minorKey, value);
 					}
 				}
-				
+				else if (record.hasColumn(minorKey)) {
+					result.addValue(minorKey, NullDattyValue.NULL);
+				}
 			}
-		
+			
 		}
-
-		return Single.just(result);
+		
 	}
 	
 }
\ No newline at end of file
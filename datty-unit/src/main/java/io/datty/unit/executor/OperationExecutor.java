@@ -13,11 +13,9 @@
  */
 package io.datty.unit.executor;
 
-import java.util.concurrent.ConcurrentMap;
-
 import io.datty.api.operation.TypedOperation;
 import io.datty.api.result.TypedResult;
-import io.datty.unit.UnitRecord;
+import io.datty.unit.UnitSet;
 import rx.Single;
 
 /**
@@ -38,6 +36,6 @@ public interface OperationExecutor<O extends TypedOperation<O, R>, R extends Typ
 	 * @return result
 	 */
 	
-	Single<R> execute(ConcurrentMap<String, UnitRecord> recordMap, O operation);
+	Single<R> execute(UnitSet set, O operation);
 	
 }
\ No newline at end of file
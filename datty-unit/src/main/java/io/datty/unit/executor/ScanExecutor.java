@@ -13,20 +13,23 @@
  */
 package io.datty.unit.executor;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentMap;
 
+import io.datty.api.DattyConstants;
 import io.datty.api.operation.Scan;
 import io.datty.api.result.RecordResult;
+import io.datty.support.NullDattyValue;
 import io.datty.unit.UnitRecord;
+import io.datty.unit.UnitSet;
 import io.datty.unit.UnitValue;
 import rx.Observable;
+import rx.functions.Func1;
 
 /**
  * ScanExecutor
  * 
+ * Iterates major keys lazily, records are copied one by one on request of the subscriber
+ * 
  * @author Alex Shvid
  *
  */
@@ -35,32 +38,104 @@ public enum ScanExecutor implements SetOperationExecutor<Scan> {
 
 	INSTANCE;
 
+	private final static Func1<RecordResult, Boolean> NOT_NULL = new Func1<RecordResult, Boolean>() {
+
+		@Override
+		public Boolean call(RecordResult result) {
+			return result != null;
+		}
+		
+	};
+	
 	@Override
-	public Observable<RecordResult> execute(ConcurrentMap<String, UnitRecord> recordMap, Scan operation) {
+	public Observable<RecordResult> execute(UnitSet set, Scan operation) {
 		
-		List<RecordResult> list = new ArrayList<>(recordMap.size());
+		final UnitSet scanSet = set;
+		final boolean scanValues = operation.isScanValues();
 		
-		for (Map.Entry<String, UnitRecord> entry : recordMap.entrySet()) {
-			
-			UnitRecord record = entry.getValue();
+		Observable<String> majorKeys = Observable.from(set.majorKeys());
+		
+		if (!operation.isAllPartitions()) {
 			
-			RecordResult result = new RecordResult();
-			result.setVersion(record.getVersion());
-			result.setMajorKey(entry.getKey());
+			final Scan scan = operation;
 			
-			for (Map.Entry<String, UnitValue> e : record.getColumnMap().entrySet()) {
-				UnitValue value = e.getValue();
-				if (value != null) {
-					result.addValue(e.getKey(), value.dublicate());
+			majorKeys = majorKeys.filter(new Func1<String, Boolean>() {
+
+				@Override
+				public Boolean call(String majorKey) {
+					return scan.containsPartition(partitionOf(majorKey));
 				}
+				
+			});
+		}
+		
+		return majorKeys.map(new Func1<String, RecordResult>() {
+
+			@Override
+			public RecordResult call(String majorKey) {
+				return toRecordResult(scanSet, majorKey, scanValues);
 			}
 			
-			list.add(result);
+		}).filter(NOT_NULL);
+		
+	}
+	
+	/**
+	 * Partition of the major key, records are in memory so parallelism is not used
+	 * 
+	 * @param majorKey - major key
+	 * @return partition id
+	 */
+	
+	public static int partitionOf(String majorKey) {
+		return (majorKey.hashCode() & Integer.MAX_VALUE) % DattyConstants.PARTITIONS;
+	}
+	
+	/**
+	 * Converts record to result, released record is loaded again
+	 * 
+	 * @return null if record was removed
+	 */
+	
+	private static RecordResult toRecordResult(UnitSet set, String majorKey, boolean scanValues) {
+		
+		UnitRecord record = set.getRecord(majorKey);
+		
+		while (record != null) {
 			
+			synchronized(record) {
+				
+				if (!record.isReleased()) {
+					return toRecordResult(majorKey, record, scanValues);
+				}
+				
+			}
+			
+			record = set.reloadRecord(majorKey, record);
+		}
+		
+		return null;
+	}
+	
+	private static RecordResult toRecordResult(String majorKey, UnitRecord record, boolean scanValues) {
+		
+		RecordResult result = new RecordResult();
+		result.setMajorKey(majorKey);
+		result.setPartitionId(partitionOf(majorKey));
+		result.setVersion(record.getVersion());
+		
+		if (scanValues) {
+			for (Map.Entry<String, UnitValue> e : record.getColumnMap().entrySet()) {
+				result.addValue(e.getKey(), e.getValue());
+			}
+		}
+		else {
+			for (String minorKey : record.columnSet()) {
+				result.addValue(minorKey, NullDattyValue.NULL);
+			}
 		}
-
-		return Observable.from(list);
 		
+		return result;
 	}
 	
 }
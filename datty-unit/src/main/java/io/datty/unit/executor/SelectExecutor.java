@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit.executor;
+
+import java.util.Collection;
+import java.util.Map;
+
+import io.datty.api.operation.Select;
+import io.datty.api.operation.SelectFilter;
+import io.datty.api.result.RecordResult;
+import io.datty.unit.UnitRecord;
+import io.datty.unit.UnitSet;
+import io.datty.unit.UnitValue;
+import rx.Observable;
+import rx.functions.Func1;
+
+/**
+ * SelectExecutor
+ * 
+ * Candidates come from the index of the first filter, every record is checked by all filters 
+ * under its lock, so the result never has records changed in between
+ * 
+ * @author Alex Shvid
+ *
+ */
+
+public enum SelectExecutor implements SetOperationExecutor<Select> {
+
+	INSTANCE;
+
+	private final static Func1<RecordResult, Boolean> NOT_NULL = new Func1<RecordResult, Boolean>() {
+
+		@Override
+		public Boolean call(RecordResult result) {
+			return result != null;
+		}
+		
+	};
+	
+	@Override
+	public Observable<RecordResult> execute(UnitSet set, final Select operation) {
+		
+		final UnitSet selectSet = set;
+		
+		Collection<String> majorKeys;
+		
+		if (operation.hasFilters()) {
+			SelectFilter first = operation.getFilters().get(0);
+			majorKeys = set.getIndex(first.getMinorKey()).find(first);
+		}
+		else {
+			majorKeys = set.majorKeys();
+		}
+		
+		Observable<RecordResult> result = Observable.from(majorKeys).map(new Func1<String, RecordResult>() {
+
+			@Override
+			public RecordResult call(String majorKey) {
+				return toRecordResult(selectSet, majorKey, operation);
+			}
+			
+		}).filter(NOT_NULL);
+		
+		if (operation.hasLimit()) {
+			result = result.take(operation.getLimit());
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Converts record to result, released record is loaded again
+	 * 
+	 * @return null if record was removed or does not match
+	 */
+	
+	private static RecordResult toRecordResult(UnitSet set, String majorKey, Select operation) {
+		
+		UnitRecord record = set.getRecord(majorKey);
+		
+		while (record != null) {
+			
+			synchronized(record) {
+				
+				if (!record.isReleased()) {
+					return toRecordResult(majorKey, record, operation);
+				}
+				
+			}
+			
+			record = set.reloadRecord(majorKey, record);
+		}
+		
+		return null;
+	}
+	
+	private static RecordResult toRecordResult(String majorKey, UnitRecord record, Select operation) {
+		
+		Map<String, UnitValue> columns = record.getColumnMap();
+		
+		if (!operation.matches(columns)) {
+			return null;
+		}
+		
+		RecordResult result = new RecordResult();
+		result.setMajorKey(majorKey);
+		result.setVersion(record.getVersion());
+		
+		for (Map.Entry<String, UnitValue> e : columns.entrySet()) {
+			if (operation.isAllMinorKeys() || operation.getMinorKeys().contains(e.getKey())) {
+				result.addValue(e.getKey(), e.getValue());
+			}
+		}
+		
+		return result;
+	}
+	
+}
@@ -13,11 +13,9 @@
  */
 package io.datty.unit.executor;
 
-import java.util.concurrent.ConcurrentMap;
-
 import io.datty.api.operation.SetOperation;
 import io.datty.api.result.RecordResult;
-import io.datty.unit.UnitRecord;
+import io.datty.unit.UnitSet;
 import rx.Observable;
 
 /**
@@ -36,6 +34,6 @@ public interface SetOperationExecutor<O extends SetOperation> {
 	 * @return not null results
 	 */
 	
-	Observable<RecordResult> execute(ConcurrentMap<String, UnitRecord> recordMap, O operation);
+	Observable<RecordResult> execute(UnitSet set, O operation);
 	
 }
@@ -13,11 +13,9 @@
  */
 package io.datty.unit.executor;
 
-import java.util.concurrent.ConcurrentMap;
-
 import io.datty.api.operation.Size;
 import io.datty.api.result.RecordResult;
-import io.datty.unit.UnitRecord;
+import io.datty.unit.UnitSet;
 import rx.Observable;
 
 /**
@@ -32,10 +30,10 @@ public enum SizeExecutor implements SetOperationExecutor<Size> {
 	INSTANCE;
 
 	@Override
-	public Observable<RecordResult> execute(ConcurrentMap<String, UnitRecord> recordMap, Size operation) {
+	public Observable<RecordResult> execute(UnitSet set, Size operation) {
 		
 		RecordResult result = new RecordResult();
-		result.setCount(recordMap.size());
+		result.setCount(set.size());
 
 		return Observable.just(result);
 	}
@@ -36,6 +36,7 @@ public final class UnitExecutors {
 		setCodeList[OpCode.CLEAR.getCode()] = ClearExecutor.INSTANCE;
 		setCodeList[OpCode.SIZE.getCode()] = SizeExecutor.INSTANCE;
 		setCodeList[OpCode.SCAN.getCode()] = ScanExecutor.INSTANCE;
+		setCodeList[OpCode.SELECT.getCode()] = SelectExecutor.INSTANCE;
 		
 		codeList[OpCode.FETCH.getCode()] = FetchExecutor.INSTANCE;
 		codeList[OpCode.PUSH.getCode()] = UpdateExecutor.INSTANCE;
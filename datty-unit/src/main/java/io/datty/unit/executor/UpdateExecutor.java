@@ -16,16 +16,16 @@ package io.datty.unit.executor;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 
-import io.datty.api.DattyError;
 import io.datty.api.DattyRecord;
 import io.datty.api.DattyValue;
 import io.datty.api.operation.Push;
 import io.datty.api.result.PushResult;
 import io.datty.api.version.Version;
 import io.datty.api.version.VersionType;
-import io.datty.support.exception.DattyOperationException;
 import io.datty.unit.UnitRecord;
+import io.datty.unit.UnitSet;
 import rx.Single;
 
 /**
@@ -40,50 +40,79 @@ public enum UpdateExecutor implements OperationExecutor<Push, PushResult> {
 	INSTANCE;
 	
 	@Override
-	public Single<PushResult> execute(ConcurrentMap<String, UnitRecord> recordMap, Push operation) {
+	public Single<PushResult> execute(UnitSet set, Push operation) {
+		
+		String majorKey = operation.getMajorKey();
+		
+		Lock lock = set.getLock(majorKey);
+		lock.lock();
+		try {
+			return Single.just(update(set, majorKey, operation));
+		}
+		finally {
+			lock.unlock();
+		}
+		
+	}
+	
+	/**
+	 * Pushes to the same major key are serialized by the key lock, so the update never conflicts
+	 * with another push, only eviction or clear could release the record in the middle
+	 */
+	
+	private PushResult update(UnitSet set, String majorKey, Push operation) {
+		
+		ConcurrentMap<String, UnitRecord> recordMap = set.getRecordMap();
 		
 		DattyRecord rec = operation.getRecord();
 		
-		UnitRecord record = recordMap.get(operation.getMajorKey());
+		Map<String, DattyValue> values = rec != null ? rec.getValues() : Collections.<String, DattyValue>emptyMap();
 		
-		if (record == null) {
+		for (;;) {
 			
-			if (operation.useVersion() && !isZeroVersion(operation.getVersion())) {
-				return Single.just(new PushResult().setUpdated(false));
-			}
+			UnitRecord record = set.getRecord(majorKey);
 			
-			if (rec == null || rec.isEmpty()) {
-				return Single.just(new PushResult().setUpdated(true));
+			if (record == null) {
+				
+				if (operation.useVersion() && !isZeroVersion(operation.getVersion())) {
+					return new PushResult().setUpdated(false);
+				}
+				
+				if (!values.isEmpty()) {
+					record = new UnitRecord(values);
+					set.touch(majorKey, record, operation.getTtlSeconds());
+					set.persist(majorKey, record);
+					recordMap.put(majorKey, record);
+				}
+				
+				return new PushResult().setUpdated(true);
 			}
 			
-			record = new UnitRecord(rec.getValues());
-			UnitRecord c = recordMap.putIfAbsent(operation.getMajorKey(), record);
-			if (c != null) {
-				return Single.error(new DattyOperationException(DattyError.ErrCode.CONCURRENT_UPDATE, operation));
+			synchronized(record) {
+				
+				if (operation.useVersion() && !record.isReleased() && !isVersionMatch(operation, record)) {
+					return new PushResult().setUpdated(false);
+				}
+				
+				if (record.update(values, operation.getUpdatePolicy())) {
+					
+					if (record.isEmpty()) {
+						recordMap.remove(majorKey, record);
+						record.release();
+					}
+					else {
+						set.touch(majorKey, record, operation.getTtlSeconds());
+					}
+					
+					set.persist(majorKey, record);
+					return new PushResult().setUpdated(true);
+				}
+				
 			}
-			else {
-				return Single.just(new PushResult().setUpdated(true));
-			}
-		}
-		else {
-			
-			if (operation.useVersion() && !isVersionMatch(operation, record)) {
-				return Single.just(new PushResult().setUpdated(false));
-			}
-			
-			Map<String, DattyValue> values = rec != null ? rec.getValues() : Collections.<String, DattyValue>emptyMap();
-			UnitRecord newRecord = new UnitRecord(record, values, operation.getUpdatePolicy());
 			
-			boolean updated = newRecord.isEmpty() ? 
-					recordMap.remove(operation.getMajorKey(), record) :
-					recordMap.replace(operation.getMajorKey(), record, newRecord);
-			
-			if (!updated) {
-				return Single.error(new DattyOperationException(DattyError.ErrCode.CONCURRENT_UPDATE, operation));
-			}
-			
-			return Single.just(new PushResult().setUpdated(true));
+			recordMap.remove(majorKey, record);
 		}
+		
 	}
 	
 	private boolean isVersionMatch(Push operation, UnitRecord record) {
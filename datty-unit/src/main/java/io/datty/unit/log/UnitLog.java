@@ -0,0 +1,520 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.datty.api.DattyRecord;
+import io.datty.api.DattyRecordIO;
+import io.datty.support.exception.DattyException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * UnitLog
+ *
+ * Append-only log of msgpack records split in memory mapped segments with in-memory index
+ * of the latest entry for every major key.
+ *
+ * Entry body is [byte type][long version][long expireAt][int keyLength][major key][record], record is written by DattyRecordIO.
+ * Removed keys are written as REMOVE entries without record.
+ *
+ * Entries are written to the memory mapped segment without fsync unless syncWrites is set,
+ * so the last writes survive the crash of the process, but could be lost on the crash of the host.
+ * Segments are forced on roll, flush and close.
+ *
+ * On open all segments are replayed in order, entries after the first torn or corrupted one
+ * in the segment are ignored. Compaction copies live entries of all sealed segments to the end
+ * of the log and deletes sealed segments from the oldest one.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class UnitLog {
+
+	private static final Logger logger = LoggerFactory.getLogger(UnitLog.class);
+
+	private static final byte PUT = 1;
+	private static final byte REMOVE = 2;
+
+	private static final int HEADER_SIZE = 21;
+
+	private final File directory;
+	private final String name;
+	private final Pattern segmentPattern;
+	private final int segmentSize;
+	private final double garbageRatio;
+	private final boolean syncWrites;
+
+	private final ConcurrentMap<String, Location> index = new ConcurrentHashMap<String, Location>();
+
+	// guarded by this, the last one is active
+	private final List<UnitLogSegment> segments = new ArrayList<UnitLogSegment>();
+
+	// guarded by this
+	private long nextId;
+
+	// guarded by this
+	private boolean closed;
+
+	private final ScheduledExecutorService compactor;
+
+	/**
+	 * Opens or creates log
+	 *
+	 * @param directory - directory of the segment files
+	 * @param name - name of the log, used as prefix of segment files
+	 * @param segmentSize - size of the segment file in bytes
+	 * @param garbageRatio - compaction starts when this part of sealed segments is garbage
+	 * @param compactionIntervalMillis - period of background compaction, zero disables it
+	 */
+
+	public UnitLog(File directory, String name, int segmentSize, double garbageRatio, long compactionIntervalMillis) {
+		this(directory, name, segmentSize, garbageRatio, compactionIntervalMillis, false);
+	}
+
+	/**
+	 * Opens or creates log
+	 *
+	 * @param directory - directory of the segment files
+	 * @param name - name of the log, used as prefix of segment files
+	 * @param segmentSize - size of the segment file in bytes
+	 * @param garbageRatio - compaction starts when this part of sealed segments is garbage
+	 * @param compactionIntervalMillis - period of background compaction, zero disables it
+	 * @param syncWrites - force the segment to the disk after every put and remove
+	 */
+
+	public UnitLog(File directory, String name, int segmentSize, double garbageRatio, long compactionIntervalMillis, boolean syncWrites) {
+		this.directory = directory;
+		this.name = name;
+		this.segmentPattern = Pattern.compile(Pattern.quote(name) + "\\.(\\d+)\\.log");
+		this.segmentSize = segmentSize;
+		this.garbageRatio = garbageRatio;
+		this.syncWrites = syncWrites;
+
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new DattyException("can not create log directory: " + directory);
+		}
+
+		try {
+			recover();
+		}
+		catch(IOException e) {
+			throw new DattyException("can not open log: " + name + " in " + directory, e);
+		}
+
+		if (compactionIntervalMillis > 0) {
+			this.compactor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+					.setDaemon(true)
+					.setNameFormat("unit-log-" + name)
+					.build());
+			this.compactor.scheduleWithFixedDelay(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						compact();
+					}
+					catch(RuntimeException e) {
+						logger.error("compaction failed for log: " + UnitLog.this.name, e);
+					}
+				}
+
+			}, compactionIntervalMillis, compactionIntervalMillis, TimeUnit.MILLISECONDS);
+		}
+		else {
+			this.compactor = null;
+		}
+	}
+
+	private synchronized void recover() throws IOException {
+
+		Map<Long, File> files = new TreeMap<Long, File>();
+
+		File[] list = directory.listFiles();
+		if (list != null) {
+			for (File file : list) {
+				Matcher m = segmentPattern.matcher(file.getName());
+				if (m.matches()) {
+					files.put(Long.parseLong(m.group(1)), file);
+				}
+			}
+		}
+
+		UnitLogSegment.Visitor visitor = new UnitLogSegment.Visitor() {
+
+			@Override
+			public void visit(UnitLogSegment segment, int offset, byte[] body) {
+				String majorKey = readMajorKey(Unpooled.wrappedBuffer(body));
+				if (body[0] == PUT) {
+					updateIndex(majorKey, new Location(segment, offset, body.length));
+				}
+				else {
+					updateIndex(majorKey, null);
+				}
+			}
+
+		};
+
+		for (Map.Entry<Long, File> e : files.entrySet()) {
+			UnitLogSegment segment = UnitLogSegment.open(e.getValue(), e.getKey());
+			segment.recover(visitor);
+			segments.add(segment);
+			nextId = e.getKey() + 1;
+		}
+
+		if (segments.isEmpty()) {
+			roll(0);
+		}
+	}
+
+	/**
+	 * Gets the latest entry
+	 *
+	 * @param majorKey - major key
+	 * @return entry or null if key is not in the log
+	 */
+
+	public UnitLogEntry get(String majorKey) {
+
+		Location location = index.get(majorKey);
+		if (location == null) {
+			return null;
+		}
+
+		ByteBuf body = location.segment.read(location.offset, location.length);
+
+		body.skipBytes(1);
+		long version = body.readLong();
+		long expireAt = body.readLong();
+		body.skipBytes(body.readInt());
+
+		return new UnitLogEntry(version, expireAt, DattyRecordIO.readRecord(body));
+	}
+
+	/**
+	 * Appends the new state of the record
+	 *
+	 * @param majorKey - major key
+	 * @param version - version of the record
+	 * @param expireAt - expiration time in milliseconds or 0
+	 * @param record - record
+	 */
+
+	public void put(String majorKey, long version, long expireAt, DattyRecord record) {
+
+		byte[] key = majorKey.getBytes(StandardCharsets.UTF_8);
+
+		ByteBuf body = Unpooled.buffer(HEADER_SIZE + key.length + 64);
+		body.writeByte(PUT);
+		body.writeLong(version);
+		body.writeLong(expireAt);
+		body.writeInt(key.length);
+		body.writeBytes(key);
+		body = DattyRecordIO.writeRecord(record, body);
+
+		byte[] bytes = new byte[body.readableBytes()];
+		body.readBytes(bytes);
+
+		synchronized(this) {
+			checkNotClosed();
+			Location location = append(bytes);
+			if (syncWrites) {
+				location.segment.force();
+			}
+			updateIndex(majorKey, location);
+		}
+	}
+
+	/**
+	 * Appends removal of the record
+	 *
+	 * @param majorKey - major key
+	 */
+
+	public void remove(String majorKey) {
+
+		byte[] key = majorKey.getBytes(StandardCharsets.UTF_8);
+
+		byte[] bytes = Unpooled.buffer(HEADER_SIZE + key.length)
+				.writeByte(REMOVE)
+				.writeLong(0L)
+				.writeLong(0L)
+				.writeInt(key.length)
+				.writeBytes(key)
+				.array();
+
+		synchronized(this) {
+			checkNotClosed();
+			if (index.containsKey(majorKey)) {
+				Location location = append(bytes);
+				if (syncWrites) {
+					location.segment.force();
+				}
+				updateIndex(majorKey, null);
+			}
+		}
+	}
+
+	/**
+	 * Gets live view of the keys in the log
+	 *
+	 * @return unmodifiable set
+	 */
+
+	public Set<String> keySet() {
+		return Collections.unmodifiableSet(index.keySet());
+	}
+
+	public int size() {
+		return index.size();
+	}
+
+	/**
+	 * Deletes all segments and starts the new one
+	 */
+
+	public synchronized void clear() {
+
+		checkNotClosed();
+
+		index.clear();
+
+		for (UnitLogSegment segment : segments) {
+			deleteSegment(segment);
+		}
+
+		segments.clear();
+		roll(0);
+	}
+
+	/**
+	 * Compacts sealed segments if enough garbage there
+	 *
+	 * @return true if segments were compacted
+	 */
+
+	public boolean compact() {
+
+		Map<UnitLogSegment, Boolean> sealed = new IdentityHashMap<UnitLogSegment, Boolean>();
+		List<UnitLogSegment> sealedList;
+
+		synchronized(this) {
+
+			if (closed || segments.size() < 2) {
+				return false;
+			}
+
+			sealedList = new ArrayList<UnitLogSegment>(segments.subList(0, segments.size() - 1));
+
+			long used = 0;
+			long live = 0;
+			for (UnitLogSegment segment : sealedList) {
+				used += segment.getPosition();
+				live += segment.getLiveBytes();
+				sealed.put(segment, Boolean.TRUE);
+			}
+
+			if (used == 0 || (double) (used - live) / used < garbageRatio) {
+				return false;
+			}
+		}
+
+		for (Map.Entry<String, Location> e : index.entrySet()) {
+
+			Location location = e.getValue();
+			if (!sealed.containsKey(location.segment)) {
+				continue;
+			}
+
+			synchronized(this) {
+
+				if (closed) {
+					return false;
+				}
+
+				// key could be updated, removed or cleared in between
+				if (index.get(e.getKey()) != location) {
+					continue;
+				}
+
+				ByteBuf body = location.segment.read(location.offset, location.length);
+				byte[] bytes = new byte[body.readableBytes()];
+				body.readBytes(bytes);
+
+				updateIndex(e.getKey(), append(bytes));
+			}
+
+		}
+
+		synchronized(this) {
+
+			// oldest first, otherwise crash could resurrect removed entries
+			for (UnitLogSegment segment : sealedList) {
+				if (segment.getLiveBytes() == 0 && segments.remove(segment)) {
+					deleteSegment(segment);
+				}
+			}
+
+		}
+
+		return true;
+	}
+
+	/**
+	 * Flushes mapped segments to the storage
+	 */
+
+	public synchronized void flush() {
+		for (UnitLogSegment segment : segments) {
+			segment.force();
+		}
+	}
+
+	public void close() {
+
+		if (compactor != null) {
+			compactor.shutdownNow();
+		}
+
+		synchronized(this) {
+
+			if (closed) {
+				return;
+			}
+
+			closed = true;
+
+			for (UnitLogSegment segment : segments) {
+				segment.force();
+				try {
+					segment.close();
+				}
+				catch(IOException e) {
+					logger.error("can not close segment: " + segment, e);
+				}
+			}
+		}
+	}
+
+	// guarded by this
+	private Location append(byte[] body) {
+
+		UnitLogSegment active = segments.get(segments.size() - 1);
+
+		if (!active.hasRoom(body.length)) {
+			active.force();
+			active = roll(body.length);
+		}
+
+		return new Location(active, active.append(body), body.length);
+	}
+
+	// guarded by this
+	private UnitLogSegment roll(int bodyLength) {
+
+		long id = nextId++;
+		File file = new File(directory, name + "." + id + ".log");
+
+		try {
+			UnitLogSegment segment = UnitLogSegment.create(file, id, Math.max(segmentSize, bodyLength + 2 * UnitLogSegment.ENTRY_HEADER_SIZE));
+			segments.add(segment);
+			return segment;
+		}
+		catch(IOException e) {
+			throw new DattyException("can not create segment: " + file, e);
+		}
+	}
+
+	// guarded by this
+	private void updateIndex(String majorKey, Location location) {
+
+		Location old = location != null ? index.put(majorKey, location) : index.remove(majorKey);
+
+		if (location != null) {
+			location.segment.addLiveBytes(location.size());
+		}
+
+		if (old != null) {
+			old.segment.addLiveBytes(-old.size());
+		}
+	}
+
+	private void deleteSegment(UnitLogSegment segment) {
+		try {
+			segment.delete();
+		}
+		catch(IOException e) {
+			logger.error("can not delete segment: " + segment, e);
+		}
+	}
+
+	private void checkNotClosed() {
+		if (closed) {
+			throw new DattyException("log is closed: " + name);
+		}
+	}
+
+	private static String readMajorKey(ByteBuf body) {
+		body.skipBytes(HEADER_SIZE - 4);
+		int length = body.readInt();
+		return body.toString(body.readerIndex(), length, StandardCharsets.UTF_8);
+	}
+
+	private static final class Location {
+
+		final UnitLogSegment segment;
+		final int offset;
+		final int length;
+
+		Location(UnitLogSegment segment, int offset, int length) {
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		int size() {
+			return UnitLogSegment.ENTRY_HEADER_SIZE + length;
+		}
+
+	}
+
+	@Override
+	public String toString() {
+		return "UnitLog [directory=" + directory + ", name=" + name + "]";
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit.log;
+
+import io.datty.api.DattyRecord;
+
+/**
+ * UnitLogEntry
+ *
+ * Latest record stored in the log, values are slices of the mapped segment
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class UnitLogEntry {
+
+	private final long version;
+	private final long expireAt;
+	private final DattyRecord record;
+
+	public UnitLogEntry(long version, long expireAt, DattyRecord record) {
+		this.version = version;
+		this.expireAt = expireAt;
+		this.record = record;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gets expiration time
+	 *
+	 * @return time in milliseconds or 0 if record never expires
+	 */
+
+	public long getExpireAt() {
+		return expireAt;
+	}
+
+	public DattyRecord getRecord() {
+		return record;
+	}
+
+	@Override
+	public String toString() {
+		return "UnitLogEntry [version=" + version + ", expireAt=" + expireAt + ", record=" + record + "]";
+	}
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * UnitLogSegment
+ *
+ * Memory mapped file of the log, entries are [int length][int crc32][body], zero length marks the end.
+ *
+ * Appends are guarded by UnitLog, reads are lock-free on duplicates of the mapped buffer.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+final class UnitLogSegment {
+
+	static final int ENTRY_HEADER_SIZE = 8;
+
+	private final long id;
+	private final File file;
+	private final RandomAccessFile raf;
+	private final MappedByteBuffer buffer;
+	private final int capacity;
+
+	// guarded by UnitLog
+	private int position;
+
+	private final AtomicLong liveBytes = new AtomicLong();
+
+	private UnitLogSegment(long id, File file, int capacity) throws IOException {
+		this.id = id;
+		this.file = file;
+		this.raf = new RandomAccessFile(file, "rw");
+		if (raf.length() < capacity) {
+			raf.setLength(capacity);
+		}
+		this.capacity = (int) raf.length();
+		this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, this.capacity);
+	}
+
+	static UnitLogSegment create(File file, long id, int capacity) throws IOException {
+		return new UnitLogSegment(id, file, capacity);
+	}
+
+	static UnitLogSegment open(File file, long id) throws IOException {
+		return new UnitLogSegment(id, file, 0);
+	}
+
+	long getId() {
+		return id;
+	}
+
+	File getFile() {
+		return file;
+	}
+
+	int getPosition() {
+		return position;
+	}
+
+	int getCapacity() {
+		return capacity;
+	}
+
+	long getLiveBytes() {
+		return liveBytes.get();
+	}
+
+	void addLiveBytes(long delta) {
+		liveBytes.addAndGet(delta);
+	}
+
+	boolean hasRoom(int bodyLength) {
+		return (long) position + ENTRY_HEADER_SIZE + bodyLength <= capacity;
+	}
+
+	/**
+	 * Appends entry, caller must check hasRoom
+	 *
+	 * @param body - entry body
+	 * @return offset of the entry
+	 */
+
+	int append(byte[] body) {
+
+		int offset = position;
+
+		CRC32 crc = new CRC32();
+		crc.update(body, 0, body.length);
+
+		buffer.putInt(offset + 4, (int) crc.getValue());
+		
+		ByteBuffer dup = buffer.duplicate();
+		dup.position(offset + ENTRY_HEADER_SIZE);
+		dup.put(body);
+
+		// length is written last, zero length stops recovery on torn writes
+		buffer.putInt(offset, body.length);
+
+		position = offset + ENTRY_HEADER_SIZE + body.length;
+		return offset;
+	}
+
+	/**
+	 * Reads body of the entry without copy
+	 *
+	 * @param offset - offset of the entry
+	 * @param length - length of the body
+	 * @return slice of the mapped buffer
+	 */
+
+	ByteBuf read(int offset, int length) {
+		return Unpooled.wrappedBuffer(buffer.duplicate()).slice(offset + ENTRY_HEADER_SIZE, length);
+	}
+
+	/**
+	 * Validates entries from the beginning and sets position after the last valid one
+	 *
+	 * @param visitor - receives offset and body of every valid entry
+	 */
+
+	void recover(Visitor visitor) {
+
+		int offset = 0;
+
+		while (offset + ENTRY_HEADER_SIZE <= capacity) {
+
+			int length = buffer.getInt(offset);
+			if (length <= 0 || (long) offset + ENTRY_HEADER_SIZE + length > capacity) {
+				break;
+			}
+
+			byte[] body = new byte[length];
+			ByteBuffer dup = buffer.duplicate();
+			dup.position(offset + ENTRY_HEADER_SIZE);
+			dup.get(body);
+
+			CRC32 crc = new CRC32();
+			crc.update(body, 0, length);
+			if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+				break;
+			}
+
+			visitor.visit(this, offset, body);
+			offset += ENTRY_HEADER_SIZE + length;
+		}
+
+		// wipe torn tail, so the next append is not mixed with garbage
+		if (offset + 4 <= capacity) {
+			buffer.putInt(offset, 0);
+		}
+
+		position = offset;
+	}
+
+	void force() {
+		buffer.force();
+	}
+
+	/**
+	 * Closes file, mapping stays valid for concurrent readers until it is collected
+	 */
+
+	void close() throws IOException {
+		raf.close();
+	}
+
+	void delete() throws IOException {
+		close();
+		file.delete();
+	}
+
+	interface Visitor {
+
+		void visit(UnitLogSegment segment, int offset, byte[] body);
+
+	}
+
+	@Override
+	public String toString() {
+		return "UnitLogSegment [file=" + file + ", position=" + position + ", liveBytes=" + liveBytes + "]";
+	}
+
+}
@@ -13,8 +13,10 @@
  */
 package io.datty.unit.test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -29,6 +31,9 @@ import io.datty.api.operation.RecordOperation;
 import io.datty.api.result.FetchResult;
 import io.datty.api.result.PushResult;
 import rx.Observable;
+import rx.functions.Action1;
+import rx.functions.Func1;
+import rx.observers.TestSubscriber;
 
 /**
  * DattySequenceTest
@@ -127,4 +132,68 @@ public class DattySequenceTest extends AbstractDattyUnitTest {
 		
 	}
 	
+	@Test
+	public void testOrdered() {
+		
+		List<String> majorKeys = new ArrayList<String>();
+		List<RecordOperation> pushList = new ArrayList<RecordOperation>();
+		List<RecordOperation> fetchList = new ArrayList<RecordOperation>();
+		
+		for (int i = 0; i != 100; ++i) {
+			String majorKey = UUID.randomUUID().toString();
+			majorKeys.add(majorKey);
+			pushList.add(new Push(SET_NAME, majorKey).addValue(minorKey, value()));
+			fetchList.add(new Fetch(SET_NAME, majorKey).addMinorKey(minorKey));
+		}
+		
+		List<DattyResult> results = Lists.newArrayList(dattyManager.getDatty().executeSequence(Observable.from(pushList), 4).toBlocking().toIterable());
+		Assert.assertEquals(100, results.size());
+		
+		results = Lists.newArrayList(dattyManager.getDatty().executeOrderedSequence(Observable.from(fetchList), 8).toBlocking().toIterable());
+		Assert.assertEquals(100, results.size());
+		
+		for (int i = 0; i != 100; ++i) {
+			FetchResult result = (FetchResult) results.get(i);
+			Assert.assertTrue(result.exists());
+			Assert.assertEquals(majorKeys.get(i), result.getOperation().getMajorKey());
+			assertEquals(value(), result.get(minorKey));
+		}
+		
+	}
+	
+	@Test
+	public void testBackpressure() {
+		
+		final AtomicLong requested = new AtomicLong();
+		
+		Observable<RecordOperation> input = Observable.range(0, 1000).map(new Func1<Integer, RecordOperation>() {
+
+			@Override
+			public RecordOperation call(Integer i) {
+				return new Fetch(SET_NAME, UUID.randomUUID().toString()).allMinorKeys();
+			}
+			
+		}).doOnRequest(new Action1<Long>() {
+
+			@Override
+			public void call(Long n) {
+				requested.addAndGet(n);
+			}
+			
+		});
+		
+		TestSubscriber<DattyResult> subscriber = new TestSubscriber<DattyResult>(0);
+		dattyManager.getDatty().executeOrderedSequence(input, 4).subscribe(subscriber);
+		
+		subscriber.requestMore(2);
+		subscriber.assertValueCount(2);
+		Assert.assertTrue("requested " + requested.get(), requested.get() <= 8);
+		
+		subscriber.requestMore(Long.MAX_VALUE);
+		subscriber.awaitTerminalEvent();
+		subscriber.assertNoErrors();
+		subscriber.assertValueCount(1000);
+		
+	}
+	
 }
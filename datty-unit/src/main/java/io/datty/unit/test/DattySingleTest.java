@@ -231,4 +231,35 @@ public class DattySingleTest extends AbstractDattyUnitTest {
 		assertEquals(newValue(), result.get(minorKey));
 
 	}
+	
+	/**
+	 * Version mismatch is not an error and is not retried
+	 */
+	
+	@Test
+	public void testCompareAndSetStale() {
+		
+		String majorKey = UUID.randomUUID().toString();
+
+		dattySet.push(majorKey).addValue(minorKey, value()).execute().toBlocking().value();
+		
+		FetchResult stale = dattySet.fetch(majorKey).addMinorKey(minorKey).execute().toBlocking().value();
+		
+		dattySet.push(majorKey).addValue(minorKey, newValue()).execute().toBlocking().value();
+		
+		boolean updated = dattySet.push(majorKey).addValue(minorKey, value()).withVersion(stale.getVersion()).execute().toBlocking().value().isUpdated();
+		Assert.assertFalse(updated);
+		
+		updated = dattySet.push(majorKey).withVersion(stale.getVersion()).execute().toBlocking().value().isUpdated();
+		Assert.assertFalse(updated);
+
+		FetchResult result = dattySet.fetch(majorKey).addMinorKey(minorKey).execute().toBlocking().value();
+		Assert.assertTrue(result.exists());
+		assertEquals(newValue(), result.get(minorKey));
+		
+		updated = dattySet.push(majorKey).addValue(minorKey, value()).execute().toBlocking().value().isUpdated();
+		Assert.assertTrue(updated);
+		
+	}
+	
 }
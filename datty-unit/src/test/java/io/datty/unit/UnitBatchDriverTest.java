@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.datty.api.DattyOperation.OpCode;
+import io.datty.api.DattyResult;
+import io.datty.api.DattySingle;
+import io.datty.api.SetExistsAction;
+import io.datty.api.operation.Fetch;
+import io.datty.api.operation.Push;
+import io.datty.api.operation.RecordOperation;
+import io.datty.api.result.FetchResult;
+import io.datty.spi.DattyBatchCapable;
+import io.datty.spi.DattyBatchDriver;
+import io.netty.buffer.Unpooled;
+import rx.Single;
+
+/**
+ * UnitBatchDriverTest
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class UnitBatchDriverTest {
+
+	private static final String FIRST_SET = "first";
+	private static final String SECOND_SET = "second";
+	private static final String FAILING_SET = "failing";
+	private static final int KEYS = 3;
+
+	private DattySingle single;
+	private RecordingBatch recordingBatch;
+	private DattyBatchDriver batchDriver;
+
+	@Before
+	public void setup() {
+
+		UnitDattyManager dattyManager = new UnitDattyManager();
+
+		single = dattyManager.getDatty();
+		recordingBatch = new RecordingBatch(single);
+		batchDriver = new DattyBatchDriver(single, recordingBatch);
+
+		for (String setName : new String[] { FIRST_SET, SECOND_SET, FAILING_SET }) {
+			dattyManager.getSet(setName, new Properties(), SetExistsAction.CREATE_IF_NOT_EXISTS);
+			for (int i = 0; i != KEYS; ++i) {
+				single.execute(new Push(setName, "key" + i).addValue("minor", new UnitValue(Unpooled.wrappedBuffer(new byte[] { (byte) i })))).toBlocking().value();
+			}
+		}
+
+	}
+
+	@Test
+	public void testGroupBySet() {
+
+		List<RecordOperation> ops = new ArrayList<RecordOperation>();
+		for (int i = 0; i != KEYS; ++i) {
+			ops.add(new Fetch(FIRST_SET, "key" + i).allMinorKeys());
+			ops.add(new Fetch(SECOND_SET, "key" + i).allMinorKeys());
+		}
+
+		List<DattyResult> results = batchDriver.executeBatch(ops).toBlocking().value();
+
+		Assert.assertEquals(2, recordingBatch.groups.size());
+		Assert.assertEquals(FIRST_SET + ":" + KEYS, recordingBatch.groups.get(0));
+		Assert.assertEquals(SECOND_SET + ":" + KEYS, recordingBatch.groups.get(1));
+
+		assertResults(ops, results);
+	}
+
+	@Test
+	public void testFailedGroup() {
+
+		List<RecordOperation> ops = new ArrayList<RecordOperation>();
+		for (int i = 0; i != KEYS; ++i) {
+			ops.add(new Fetch(FAILING_SET, "key" + i).allMinorKeys());
+			ops.add(new Fetch(FIRST_SET, "key" + i).allMinorKeys());
+		}
+
+		List<DattyResult> results = batchDriver.executeBatch(ops).toBlocking().value();
+
+		Assert.assertEquals(2, recordingBatch.groups.size());
+		Assert.assertTrue(recordingBatch.groups.contains(FAILING_SET + ":" + KEYS));
+
+		assertResults(ops, results);
+	}
+
+	@Test
+	public void testSingleOperationGroup() {
+
+		List<RecordOperation> ops = new ArrayList<RecordOperation>();
+		ops.add(new Fetch(FIRST_SET, "key0").allMinorKeys());
+		ops.add(new Fetch(SECOND_SET, "key1").allMinorKeys());
+
+		List<DattyResult> results = batchDriver.executeBatch(ops).toBlocking().value();
+
+		Assert.assertTrue(recordingBatch.groups.isEmpty());
+
+		assertResults(ops, results);
+	}
+
+	private void assertResults(List<RecordOperation> ops, List<DattyResult> results) {
+
+		Assert.assertEquals(ops.size(), results.size());
+
+		for (int i = 0; i != ops.size(); ++i) {
+
+			FetchResult result = (FetchResult) results.get(i);
+			RecordOperation op = ops.get(i);
+
+			Assert.assertTrue(result.exists());
+			Assert.assertEquals(op.getSetName(), result.getOperation().getSetName());
+			Assert.assertEquals(op.getMajorKey(), result.getOperation().getMajorKey());
+
+			int expected = Integer.parseInt(op.getMajorKey().substring(3));
+			Assert.assertEquals(expected, result.get("minor").asByteBuf().getByte(0));
+		}
+
+	}
+
+	private static final class RecordingBatch implements DattyBatchCapable {
+
+		private final DattyBatchDriver batchDriver;
+		private final List<String> groups = Collections.synchronizedList(new ArrayList<String>());
+
+		RecordingBatch(DattySingle single) {
+			this.batchDriver = new DattyBatchDriver(single);
+		}
+
+		@Override
+		public boolean isBatchSupported(OpCode code) {
+			return code == OpCode.FETCH;
+		}
+
+		@Override
+		public Single<List<DattyResult>> executeBatch(String setName, OpCode code, List<RecordOperation> ops) {
+
+			groups.add(setName + ":" + ops.size());
+
+			if (FAILING_SET.equals(setName)) {
+				return Single.error(new IllegalStateException("batch failed"));
+			}
+
+			return batchDriver.executeBatch(ops);
+		}
+
+	}
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.datty.api.SetExistsAction;
+import io.datty.api.UpdatePolicy;
+import io.datty.api.operation.Fetch;
+import io.datty.api.operation.Push;
+import io.datty.api.result.FetchResult;
+import io.datty.api.result.PushResult;
+import io.netty.buffer.Unpooled;
+
+/**
+ * UnitContentionTest
+ *
+ * Pushes to the hot key go directly to UnitDattySingle without retries of the driver
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class UnitContentionTest {
+
+	private static final String SET_NAME = "contention";
+
+	private static final String MAJOR_KEY = "hot";
+
+	private static final int THREADS = 8;
+
+	private static final int PUSHES = 200;
+
+	private UnitDattySingle single;
+
+	@Before
+	public void setup() {
+		UnitDattyManager dattyManager = new UnitDattyManager();
+		UnitSet set = (UnitSet) dattyManager.getSet(SET_NAME, new Properties(), SetExistsAction.CREATE_IF_NOT_EXISTS);
+		ConcurrentMap<String, UnitSet> setMap = new ConcurrentHashMap<String, UnitSet>();
+		setMap.put(SET_NAME, set);
+		single = new UnitDattySingle(setMap);
+	}
+
+	@Test
+	public void testMerge() throws Exception {
+
+		final AtomicInteger updated = new AtomicInteger();
+
+		run(new Runnable() {
+
+			@Override
+			public void run() {
+				String prefix = Thread.currentThread().getName();
+				for (int i = 0; i != PUSHES; ++i) {
+					if (push(prefix + i, UpdatePolicy.MERGE).isUpdated()) {
+						updated.incrementAndGet();
+					}
+				}
+			}
+
+		});
+
+		Assert.assertEquals(THREADS * PUSHES, updated.get());
+		Assert.assertEquals(THREADS * PUSHES, fetch().size());
+	}
+
+	@Test
+	public void testReplace() throws Exception {
+
+		final AtomicInteger updated = new AtomicInteger();
+
+		run(new Runnable() {
+
+			@Override
+			public void run() {
+				for (int i = 0; i != PUSHES; ++i) {
+					if (push("col" + i, UpdatePolicy.REPLACE).isUpdated()) {
+						updated.incrementAndGet();
+					}
+				}
+			}
+
+		});
+
+		Assert.assertEquals(THREADS * PUSHES, updated.get());
+		Assert.assertEquals(1, fetch().size());
+	}
+
+	@Test
+	public void testVersion() throws Exception {
+
+		final AtomicInteger updated = new AtomicInteger();
+
+		run(new Runnable() {
+
+			@Override
+			public void run() {
+				for (int i = 0; i != PUSHES; ++i) {
+					FetchResult current = fetch();
+					Push push = new Push(SET_NAME, MAJOR_KEY)
+							.withVersion(current.getVersion())
+							.addValue("counter", new UnitValue(Unpooled.wrappedBuffer(new byte[] { (byte) i })));
+					if (single.execute(push).toBlocking().value().isUpdated()) {
+						updated.incrementAndGet();
+					}
+				}
+			}
+
+		});
+
+		Assert.assertTrue(updated.get() > 0);
+		Assert.assertEquals(updated.get(), fetch().getVersion().asLong());
+	}
+
+	private PushResult push(String minorKey, UpdatePolicy updatePolicy) {
+		Push push = new Push(SET_NAME, MAJOR_KEY)
+				.setUpdatePolicy(updatePolicy)
+				.addValue(minorKey, new UnitValue(Unpooled.wrappedBuffer(new byte[] { 1 })));
+		return single.execute(push).toBlocking().value();
+	}
+
+	private FetchResult fetch() {
+		return single.execute(new Fetch(SET_NAME, MAJOR_KEY).allMinorKeys()).toBlocking().value();
+	}
+
+	private void run(final Runnable task) throws InterruptedException {
+
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Throwable> errors = new ArrayList<Throwable>();
+		List<Thread> threads = new ArrayList<Thread>(THREADS);
+
+		for (int t = 0; t != THREADS; ++t) {
+			Thread thread = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+						task.run();
+					}
+					catch(Throwable e) {
+						synchronized(errors) {
+							errors.add(e);
+						}
+					}
+				}
+
+			}, "t" + t + "_");
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		Assert.assertEquals(errors.toString(), 0, errors.size());
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit;
+
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.datty.api.DattySingle;
+import io.datty.api.SetExistsAction;
+import io.datty.api.operation.Execute;
+import io.datty.api.operation.Fetch;
+import io.datty.api.operation.Push;
+import io.datty.support.exception.DattyException;
+import io.netty.buffer.Unpooled;
+
+/**
+ * UnitExpiryTest
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class UnitExpiryTest {
+
+	private static final String SET_NAME = "expiry";
+
+	private static final long WAIT_MILLIS = 1200;
+
+	private UnitDattyManager dattyManager = new UnitDattyManager();
+
+	@After
+	public void teardown() {
+		dattyManager.close();
+	}
+
+	@Test
+	public void testPushTtl() throws Exception {
+
+		UnitSet set = createSet(new Properties());
+		DattySingle datty = dattyManager.getDatty();
+
+		datty.execute(push("a").setTtlSeconds(1)).toBlocking().value();
+		datty.execute(push("b")).toBlocking().value();
+
+		Assert.assertTrue(exists("a"));
+
+		Thread.sleep(WAIT_MILLIS);
+
+		// lazy expiration on read, does not wait for the wheel
+		Assert.assertFalse(exists("a"));
+		Assert.assertTrue(exists("b"));
+		Assert.assertEquals(1, set.size());
+	}
+
+	@Test
+	public void testSetTtl() throws Exception {
+
+		Properties props = new Properties();
+		props.setProperty(UnitPropertyKeys.TTL_SECONDS, "1");
+
+		UnitSet set = createSet(props);
+		DattySingle datty = dattyManager.getDatty();
+
+		datty.execute(push("a")).toBlocking().value();
+		datty.execute(push("b").setTtlSeconds(-1)).toBlocking().value();
+
+		Thread.sleep(WAIT_MILLIS);
+		dattyManager.getExpirer().advance();
+
+		// removed by the wheel without reads
+		Assert.assertEquals(1, set.size());
+		Assert.assertTrue(exists("b"));
+	}
+
+	@Test
+	public void testExecuteTtl() throws Exception {
+
+		createSet(new Properties());
+		DattySingle datty = dattyManager.getDatty();
+
+		datty.execute(push("a").setTtlSeconds(1)).toBlocking().value();
+		datty.execute(new Execute(SET_NAME, "a").setTtlSeconds(60)).toBlocking().value();
+
+		Thread.sleep(WAIT_MILLIS);
+		dattyManager.getExpirer().advance();
+
+		Assert.assertTrue(exists("a"));
+	}
+
+	@Test
+	public void testMaxEntries() {
+
+		Properties props = new Properties();
+		props.setProperty(UnitPropertyKeys.MAX_ENTRIES, "5");
+
+		UnitSet set = createSet(props);
+		DattySingle datty = dattyManager.getDatty();
+
+		for (int i = 0; i != 20; ++i) {
+			datty.execute(push("key" + i)).toBlocking().value();
+		}
+
+		Assert.assertTrue(set.size() <= 5);
+	}
+
+	@Test(expected = DattyException.class)
+	public void testInvalidTtl() {
+
+		Properties props = new Properties();
+		props.setProperty(UnitPropertyKeys.TTL_SECONDS, "forever");
+
+		createSet(props);
+	}
+
+	private UnitSet createSet(Properties props) {
+		return (UnitSet) dattyManager.getSet(SET_NAME, props, SetExistsAction.CREATE_IF_NOT_EXISTS);
+	}
+
+	private boolean exists(String majorKey) {
+		return dattyManager.getDatty().execute(new Fetch(SET_NAME, majorKey).allMinorKeys()).toBlocking().value().exists();
+	}
+
+	private static Push push(String majorKey) {
+		return new Push(SET_NAME, majorKey).addValue("v", new UnitValue(Unpooled.wrappedBuffer(new byte[] { 1 })));
+	}
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.datty.api.DattyOperation.OpCode;
+import io.datty.api.DattyPropertyKeys;
+import io.datty.api.DattyResult;
+import io.datty.api.DattySingle;
+import io.datty.api.SetExistsAction;
+import io.datty.api.operation.Fetch;
+import io.datty.api.operation.Push;
+import io.datty.api.operation.RecordOperation;
+import io.datty.api.result.FetchResult;
+import io.datty.spi.DattyBatchCapable;
+import io.datty.spi.DattyBatchDriver;
+import io.datty.spi.DattyFetchCoalescer;
+import io.netty.buffer.Unpooled;
+import rx.Observable;
+import rx.Single;
+
+/**
+ * UnitFetchCoalescerTest
+ * 
+ * @author Alex Shvid
+ *
+ */
+
+public class UnitFetchCoalescerTest {
+
+	private static final String COALESCING_SET = "coalescing";
+	private static final String PLAIN_SET = "plain";
+	private static final String INVALID_SET = "invalid";
+	private static final int KEYS = 8;
+	
+	private UnitDattyManager dattyManager;
+	private CountingBatch countingBatch;
+	private DattySingle coalescer;
+	
+	@Before
+	public void setup() {
+		
+		dattyManager = new UnitDattyManager();
+		
+		Properties props = new Properties();
+		props.setProperty(DattyPropertyKeys.FETCH_COALESCING, "true");
+		props.setProperty(DattyPropertyKeys.FETCH_COALESCING_WINDOW_MICROS, "100000");
+		props.setProperty(DattyPropertyKeys.FETCH_COALESCING_MAX_BATCH_SIZE, "4");
+		dattyManager.getSet(COALESCING_SET, props, SetExistsAction.CREATE_IF_NOT_EXISTS);
+		dattyManager.getSet(PLAIN_SET, new Properties(), SetExistsAction.CREATE_IF_NOT_EXISTS);
+		
+		Properties invalidProps = new Properties();
+		invalidProps.setProperty(DattyPropertyKeys.FETCH_COALESCING, "true");
+		invalidProps.setProperty(DattyPropertyKeys.FETCH_COALESCING_WINDOW_MICROS, "-1");
+		invalidProps.setProperty(DattyPropertyKeys.FETCH_COALESCING_MAX_BATCH_SIZE, "many");
+		dattyManager.getSet(INVALID_SET, invalidProps, SetExistsAction.CREATE_IF_NOT_EXISTS);
+		
+		DattySingle single = dattyManager.getDatty();
+		countingBatch = new CountingBatch(single);
+		coalescer = new DattyFetchCoalescer(single, countingBatch, dattyManager);
+		
+		for (int i = 0; i != KEYS; ++i) {
+			single.execute(new Push(COALESCING_SET, "key" + i).addValue("minor", new UnitValue(Unpooled.wrappedBuffer(new byte[] { (byte) i })))).toBlocking().value();
+			single.execute(new Push(PLAIN_SET, "key" + i).addValue("minor", new UnitValue(Unpooled.wrappedBuffer(new byte[] { (byte) i })))).toBlocking().value();
+			single.execute(new Push(INVALID_SET, "key" + i).addValue("minor", new UnitValue(Unpooled.wrappedBuffer(new byte[] { (byte) i })))).toBlocking().value();
+		}
+		
+	}
+	
+	@Test
+	public void testMaxBatchSize() {
+		
+		List<FetchResult> results = fetchAll(COALESCING_SET, KEYS);
+		
+		Assert.assertEquals(2, countingBatch.batches.get());
+		Assert.assertEquals(KEYS, countingBatch.operations.get());
+		assertResults(results);
+	}
+	
+	@Test
+	public void testWindow() {
+		
+		List<FetchResult> results = fetchAll(COALESCING_SET, 3);
+		
+		Assert.assertEquals(1, countingBatch.batches.get());
+		Assert.assertEquals(3, countingBatch.operations.get());
+		assertResults(results);
+	}
+	
+	@Test
+	public void testDisabled() {
+		
+		List<FetchResult> results = fetchAll(PLAIN_SET, KEYS);
+		
+		Assert.assertEquals(0, countingBatch.batches.get());
+		assertResults(results);
+	}
+	
+	@Test
+	public void testInvalidProperties() {
+		
+		List<FetchResult> results = fetchAll(INVALID_SET, KEYS);
+		
+		Assert.assertEquals(KEYS, results.size());
+		Assert.assertTrue(countingBatch.operations.get() <= KEYS);
+		assertResults(results);
+	}
+	
+	private List<FetchResult> fetchAll(String setName, int count) {
+		
+		List<Observable<FetchResult>> results = new ArrayList<Observable<FetchResult>>();
+		for (int i = 0; i != count; ++i) {
+			results.add(coalescer.execute(new Fetch(setName, "key" + i).allMinorKeys()).toObservable());
+		}
+		
+		return Observable.merge(results).toList().toBlocking().single();
+	}
+	
+	private void assertResults(List<FetchResult> results) {
+		for (FetchResult result : results) {
+			Assert.assertTrue(result.exists());
+			String majorKey = result.getOperation().getMajorKey();
+			int expected = Integer.parseInt(majorKey.substring(3));
+			Assert.assertEquals(expected, result.get("minor").asByteBuf().getByte(0));
+		}
+	}
+	
+	private static final class CountingBatch implements DattyBatchCapable {
+		
+		private final DattyBatchDriver batchDriver;
+		private final AtomicInteger batches = new AtomicInteger();
+		private final AtomicInteger operations = new AtomicInteger();
+		
+		CountingBatch(DattySingle single) {
+			this.batchDriver = new DattyBatchDriver(single);
+		}
+		
+		@Override
+		public boolean isBatchSupported(OpCode code) {
+			return code == OpCode.FETCH;
+		}
+
+		@Override
+		public Single<List<DattyResult>> executeBatch(String setName, OpCode code, List<RecordOperation> ops) {
+			batches.incrementAndGet();
+			operations.addAndGet(ops.size());
+			return batchDriver.executeBatch(ops);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.datty.api.ByteBufValue;
+import io.datty.api.DattyRecord;
+import io.datty.api.SetExistsAction;
+import io.datty.api.operation.Fetch;
+import io.datty.api.operation.Push;
+import io.datty.api.result.FetchResult;
+import io.datty.unit.executor.FetchExecutor;
+import io.datty.unit.log.UnitLog;
+import io.datty.unit.log.UnitLogEntry;
+import io.netty.buffer.Unpooled;
+
+/**
+ * UnitLogTest
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class UnitLogTest {
+
+	private static final String NAME = "log";
+
+	private static final int SEGMENT_SIZE = 4096;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testRecovery() throws Exception {
+
+		File dir = folder.newFolder();
+
+		UnitLog log = open(dir);
+		log.put("a", 1L, 0L, record(1));
+		log.put("b", 1L, 0L, record(2));
+		log.put("a", 2L, 0L, record(3));
+		log.remove("b");
+		log.close();
+
+		log = open(dir);
+		Assert.assertEquals(1, log.size());
+		Assert.assertNull(log.get("b"));
+
+		UnitLogEntry entry = log.get("a");
+		Assert.assertEquals(2L, entry.getVersion());
+		Assert.assertEquals(3, entry.getRecord().get("v").asByteBuf().getByte(0));
+		log.close();
+	}
+
+	@Test
+	public void testTornTail() throws Exception {
+
+		File dir = folder.newFolder();
+
+		UnitLog log = open(dir);
+		log.put("a", 1L, 0L, record(1));
+		log.put("b", 1L, 0L, record(2));
+		log.close();
+
+		File segment = new File(dir, NAME + ".0.log");
+		RandomAccessFile raf = new RandomAccessFile(segment, "rw");
+		try {
+			// corrupt the last byte of the second entry
+			long offset = 0;
+			int length = raf.readInt();
+			offset += 8 + length;
+			raf.seek(offset);
+			int secondLength = raf.readInt();
+			raf.seek(offset + 8 + secondLength - 1);
+			raf.write(0x7F);
+		}
+		finally {
+			raf.close();
+		}
+
+		log = open(dir);
+		Assert.assertNotNull(log.get("a"));
+		Assert.assertNull(log.get("b"));
+
+		log.put("c", 1L, 0L, record(4));
+		log.close();
+
+		log = open(dir);
+		Assert.assertEquals(2, log.size());
+		Assert.assertEquals(4, log.get("c").getRecord().get("v").asByteBuf().getByte(0));
+		log.close();
+	}
+
+	@Test
+	public void testCompaction() throws Exception {
+
+		File dir = folder.newFolder();
+
+		UnitLog log = open(dir);
+		for (int i = 0; i != 1000; ++i) {
+			log.put("key" + (i % 10), i, 0L, record(i));
+		}
+
+		int segments = dir.list().length;
+		Assert.assertTrue(segments > 2);
+
+		Assert.assertTrue(log.compact());
+		Assert.assertTrue(dir.list().length < segments);
+
+		for (int i = 0; i != 10; ++i) {
+			Assert.assertEquals(990L + i, log.get("key" + i).getVersion());
+		}
+		log.close();
+
+		log = open(dir);
+		Assert.assertEquals(10, log.size());
+		for (int i = 0; i != 10; ++i) {
+			Assert.assertEquals(990L + i, log.get("key" + i).getVersion());
+		}
+		log.close();
+	}
+
+	@Test
+	public void testLogEngine() throws Exception {
+
+		Properties props = new Properties();
+		props.setProperty(UnitPropertyKeys.ENGINE, UnitConstants.LOG_ENGINE);
+		props.setProperty(UnitPropertyKeys.LOG_DIRECTORY, folder.newFolder().getAbsolutePath());
+
+		UnitDattyManager dattyManager = new UnitDattyManager();
+		dattyManager.getSet(NAME, props, SetExistsAction.CREATE_IF_NOT_EXISTS);
+
+		dattyManager.getDatty().execute(new Push(NAME, "a").addValue("v", new ByteBufValue(Unpooled.wrappedBuffer(new byte[] { 5 })))).toBlocking().value();
+		dattyManager.getDatty().execute(new Push(NAME, "a").addValue("w", new ByteBufValue(Unpooled.wrappedBuffer(new byte[] { 6 })))).toBlocking().value();
+		dattyManager.close();
+
+		dattyManager = new UnitDattyManager();
+		dattyManager.getSet(NAME, props, SetExistsAction.CREATE_IF_NOT_EXISTS);
+
+		FetchResult result = dattyManager.getDatty().execute(new Fetch(NAME, "a").allMinorKeys()).toBlocking().value();
+		Assert.assertEquals(2L, result.getVersion().asLong());
+		Assert.assertEquals(5, result.get("v").asByteBuf().getByte(0));
+		Assert.assertEquals(6, result.get("w").asByteBuf().getByte(0));
+		dattyManager.close();
+	}
+
+	@Test
+	public void testSyncWrites() throws Exception {
+
+		File dir = folder.newFolder();
+
+		UnitLog log = new UnitLog(dir, NAME, SEGMENT_SIZE, UnitConstants.LOG_GARBAGE_RATIO, 0, true);
+		log.put("a", 1L, 0L, record(1));
+		log.put("b", 1L, 0L, record(2));
+		log.remove("b");
+		log.close();
+
+		log = open(dir);
+		Assert.assertEquals(1, log.size());
+		Assert.assertEquals(1, log.get("a").getRecord().get("v").asByteBuf().getByte(0));
+		log.close();
+	}
+
+	@Test
+	public void testBoundedHeap() throws Exception {
+
+		Properties props = new Properties();
+		props.setProperty(UnitPropertyKeys.ENGINE, UnitConstants.LOG_ENGINE);
+		props.setProperty(UnitPropertyKeys.LOG_DIRECTORY, folder.newFolder().getAbsolutePath());
+		props.setProperty(UnitPropertyKeys.MAX_ENTRIES, "2");
+
+		UnitDattyManager dattyManager = new UnitDattyManager();
+		UnitSet set = (UnitSet) dattyManager.getSet(NAME, props, SetExistsAction.CREATE_IF_NOT_EXISTS);
+
+		for (int i = 0; i != 10; ++i) {
+			dattyManager.getDatty().execute(new Push(NAME, "key" + i).addValue("v", new ByteBufValue(Unpooled.wrappedBuffer(new byte[] { (byte) i })))).toBlocking().value();
+		}
+
+		for (int i = 0; i != 10; ++i) {
+			FetchResult result = dattyManager.getDatty().execute(new Fetch(NAME, "key" + i).allMinorKeys()).toBlocking().value();
+			Assert.assertEquals(i, result.get("v").asByteBuf().getByte(0));
+		}
+
+		Assert.assertTrue(set.getRecordMap().size() <= 2);
+		Assert.assertEquals(10, set.size());
+		dattyManager.close();
+	}
+
+	@Test
+	public void testEvictedRead() throws Exception {
+
+		Properties props = new Properties();
+		props.setProperty(UnitPropertyKeys.ENGINE, UnitConstants.LOG_ENGINE);
+		props.setProperty(UnitPropertyKeys.LOG_DIRECTORY, folder.newFolder().getAbsolutePath());
+
+		UnitDattyManager dattyManager = new UnitDattyManager();
+		final UnitSet set = (UnitSet) dattyManager.getSet(NAME, props, SetExistsAction.CREATE_IF_NOT_EXISTS);
+
+		dattyManager.getDatty().execute(new Push(NAME, "a").addValue("v", new ByteBufValue(Unpooled.wrappedBuffer(new byte[] { 5 })))).toBlocking().value();
+
+		final Fetch fetch = new Fetch(NAME, "a").allMinorKeys();
+		final AtomicReference<FetchResult> fetched = new AtomicReference<FetchResult>();
+
+		Thread reader = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				fetched.set(FetchExecutor.INSTANCE.execute(set, fetch).toBlocking().value());
+			}
+
+		});
+
+		UnitRecord record = set.getRecord("a");
+
+		synchronized(record) {
+
+			// reader has the record and waits for its monitor
+			reader.start();
+			while (reader.getState() != Thread.State.BLOCKED) {
+				Thread.sleep(1);
+			}
+
+			// eviction from the heap cache releases the record, the log keeps it
+			set.getRecordMap().remove("a");
+			Assert.assertTrue(record.isReleased());
+		}
+
+		reader.join();
+
+		FetchResult result = fetched.get();
+		Assert.assertEquals(1L, result.getVersion().asLong());
+		Assert.assertEquals(5, result.get("v").asByteBuf().getByte(0));
+		dattyManager.close();
+	}
+
+	private static UnitLog open(File dir) {
+		return new UnitLog(dir, NAME, SEGMENT_SIZE, UnitConstants.LOG_GARBAGE_RATIO, 0);
+	}
+
+	private static DattyRecord record(int value) {
+		return new DattyRecord().put("v", new ByteBufValue(Unpooled.wrappedBuffer(new byte[] { (byte) value })));
+	}
+
+}
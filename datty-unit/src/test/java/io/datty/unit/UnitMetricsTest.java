@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.datty.api.DattySet;
+import io.datty.api.SetExistsAction;
+import io.datty.api.operation.Fetch;
+import io.datty.api.operation.Push;
+import io.datty.spi.DattyMetricsReporter;
+import io.datty.support.LatencyHistogram;
+import io.netty.buffer.Unpooled;
+
+/**
+ * UnitMetricsTest
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class UnitMetricsTest {
+
+	private static final String SET_NAME = "metrics";
+
+	private UnitDattyManager dattyManager;
+
+	private DattySet set;
+
+	@Before
+	public void setup() {
+		dattyManager = new UnitDattyManager();
+		set = dattyManager.getSet(SET_NAME, new Properties(), SetExistsAction.CREATE_IF_NOT_EXISTS);
+	}
+
+	@Test
+	public void testStatistics() {
+
+		Assert.assertTrue(set.getStatistics().isEmpty());
+
+		for (int i = 0; i != 10; ++i) {
+			dattyManager.getDatty().execute(new Push(SET_NAME, "key" + i)
+					.addValue("minorKey", new UnitValue(Unpooled.wrappedBuffer("value".getBytes(StandardCharsets.UTF_8))))).toBlocking().value();
+			dattyManager.getDatty().execute(new Fetch(SET_NAME, "key" + i)).toBlocking().value();
+		}
+
+		Map<String, String> stats = set.getStatistics();
+
+		Assert.assertEquals("10", stats.get("push.count"));
+		Assert.assertEquals("0", stats.get("push.errors"));
+		Assert.assertEquals("10", stats.get("fetch.count"));
+		Assert.assertNotNull(stats.get("fetch.p99Micros"));
+		Assert.assertNull(stats.get("remove.count"));
+
+	}
+
+	@Test
+	public void testErrors() {
+
+		try {
+			dattyManager.getDatty().execute(new Fetch("unknownSet", "key")).toBlocking().value();
+			Assert.fail("expected error");
+		}
+		catch(RuntimeException e) {
+		}
+
+		Map<String, String> stats = dattyManager.getMetrics().getStatistics("unknownSet");
+
+		Assert.assertEquals("1", stats.get("fetch.count"));
+		Assert.assertEquals("1", stats.get("fetch.errors"));
+		Assert.assertEquals("1", stats.get("fetch.error.set_not_found"));
+		Assert.assertNull(stats.get("fetch.p50Micros"));
+
+	}
+
+	@Test
+	public void testReporter() {
+
+		dattyManager.getDatty().execute(new Fetch(SET_NAME, "key")).toBlocking().value();
+
+		final Map<String, Map<String, String>> reported = new HashMap<String, Map<String, String>>();
+
+		dattyManager.getMetrics().report(new DattyMetricsReporter() {
+
+			@Override
+			public void report(String setName, Map<String, String> statistics) {
+				reported.put(setName, statistics);
+			}
+
+		});
+
+		Assert.assertEquals(1, reported.size());
+		Assert.assertEquals("1", reported.get(SET_NAME).get("fetch.count"));
+	}
+
+	@Test
+	public void testHistogram() {
+
+		LatencyHistogram histogram = new LatencyHistogram();
+
+		for (long i = 1; i <= 1000; ++i) {
+			histogram.record(i * 1000L);
+		}
+
+		Assert.assertEquals(1000, histogram.getCount());
+		Assert.assertEquals(1000000L, histogram.getMax());
+		Assert.assertEquals(500500L, histogram.getMean());
+
+		assertWithin(500000L, histogram.getPercentile(50.0));
+		assertWithin(990000L, histogram.getPercentile(99.0));
+		Assert.assertEquals(1000000L, histogram.getPercentile(100.0));
+
+	}
+
+	@Test
+	public void testHistogramThreads() throws Exception {
+
+		final LatencyHistogram histogram = new LatencyHistogram();
+		final int threads = 8;
+
+		Thread[] recorders = new Thread[threads];
+		for (int t = 0; t != threads; ++t) {
+			final long offset = t;
+			recorders[t] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					for (long i = 1; i <= 1000; ++i) {
+						histogram.record(i * 1000L + offset);
+					}
+				}
+
+			});
+			recorders[t].start();
+		}
+
+		for (Thread recorder : recorders) {
+			recorder.join();
+		}
+
+		Assert.assertEquals(threads * 1000, histogram.getCount());
+		Assert.assertEquals(1000000L + threads - 1, histogram.getMax());
+
+		assertWithin(500000L, histogram.getPercentile(50.0));
+		assertWithin(990000L, histogram.getPercentile(99.0));
+		Assert.assertEquals(1000000L + threads - 1, histogram.getPercentile(100.0));
+
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		Assert.assertTrue("expected " + expected + ", actual " + actual, Math.abs(actual - expected) <= expected * 4 / 100);
+	}
+
+}
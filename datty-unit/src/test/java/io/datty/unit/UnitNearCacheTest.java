@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit;
+
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.datty.api.SetExistsAction;
+import io.datty.api.operation.Fetch;
+import io.datty.api.operation.Push;
+import io.datty.api.result.FetchResult;
+import rx.Single;
+import io.datty.spi.DattyNearCache;
+import io.netty.buffer.Unpooled;
+
+/**
+ * UnitNearCacheTest
+ * 
+ * @author Alex Shvid
+ *
+ */
+
+public class UnitNearCacheTest {
+
+	private static final String SET_NAME = "nearCache";
+	
+	private UnitDattyManager dattyManager;
+	
+	@Before
+	public void setup() {
+		dattyManager = new UnitDattyManager();
+		dattyManager.getSet(SET_NAME, new Properties(), SetExistsAction.CREATE_IF_NOT_EXISTS);
+	}
+	
+	@Test
+	public void testReadThrough() {
+		
+		DattyNearCache cache = new DattyNearCache(dattyManager.getDatty(), 100, 0);
+		
+		push(cache, "key", "a", 1);
+		push(cache, "key", "b", 2);
+		
+		FetchResult result = fetch(cache, "key");
+		Assert.assertEquals(1, cache.getMissCount());
+		Assert.assertEquals(1, result.get("a").asByteBuf().getByte(0));
+		
+		result = fetch(cache, "key");
+		Assert.assertEquals(1, cache.getMissCount());
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertTrue(result.exists());
+		Assert.assertEquals(2, result.size());
+		Assert.assertEquals(2, result.get("b").asByteBuf().getByte(0));
+		
+		result = cache.execute(new Fetch(SET_NAME, "key").addMinorKey("b")).toBlocking().value();
+		Assert.assertEquals(2, cache.getHitCount());
+		Assert.assertEquals(1, result.size());
+		Assert.assertEquals(2, result.get("b").asByteBuf().getByte(0));
+		
+		result = fetch(cache, "unknown");
+		result = fetch(cache, "unknown");
+		Assert.assertFalse(result.exists());
+		Assert.assertEquals(3, cache.getHitCount());
+	}
+	
+	@Test
+	public void testInvalidation() {
+		
+		DattyNearCache cache = new DattyNearCache(dattyManager.getDatty(), 100, 0);
+		
+		push(cache, "key", "a", 1);
+		fetch(cache, "key");
+		
+		push(cache, "key", "a", 5);
+		
+		FetchResult result = fetch(cache, "key");
+		Assert.assertEquals(2, cache.getMissCount());
+		Assert.assertEquals(5, result.get("a").asByteBuf().getByte(0));
+		
+		result = fetch(cache, "key");
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(5, result.get("a").asByteBuf().getByte(0));
+	}
+	
+	@Test
+	public void testMaxEntries() {
+		
+		DattyNearCache cache = new DattyNearCache(dattyManager.getDatty(), 16, 0);
+		
+		for (int i = 0; i != 100; ++i) {
+			fetch(cache, "key" + i);
+		}
+		
+		Assert.assertTrue(cache.size() <= 16);
+	}
+	
+	@Test
+	public void testWritesToNotCachedKeys() {
+		
+		DattyNearCache cache = new DattyNearCache(dattyManager.getDatty(), 1600, 0);
+		
+		for (int i = 0; i != 10; ++i) {
+			push(cache, "key" + i, "a", i);
+			fetch(cache, "key" + i);
+		}
+		
+		for (int i = 0; i != 10000; ++i) {
+			push(cache, "other" + i, "a", i);
+		}
+		
+		for (int i = 0; i != 10; ++i) {
+			Assert.assertEquals(i, fetch(cache, "key" + i).get("a").asByteBuf().getByte(0));
+		}
+		
+		Assert.assertEquals(10, cache.getHitCount());
+		Assert.assertEquals(10, cache.size());
+	}
+	
+	@Test
+	public void testLateSubscription() {
+		
+		DattyNearCache cache = new DattyNearCache(dattyManager.getDatty(), 100, 0);
+		
+		push(cache, "key", "a", 1);
+		fetch(cache, "key");
+		
+		Single<FetchResult> late = cache.execute(new Fetch(SET_NAME, "key").allMinorKeys());
+		
+		push(cache, "key", "a", 5);
+		
+		Assert.assertEquals(5, late.toBlocking().value().get("a").asByteBuf().getByte(0));
+	}
+	
+	@Test
+	public void testTimeToLive() throws InterruptedException {
+		
+		DattyNearCache cache = new DattyNearCache(dattyManager.getDatty(), 100, 1);
+		
+		push(cache, "key", "a", 1);
+		fetch(cache, "key");
+		
+		Thread.sleep(10);
+		
+		fetch(cache, "key");
+		Assert.assertEquals(0, cache.getHitCount());
+		Assert.assertEquals(2, cache.getMissCount());
+	}
+	
+	private static void push(DattyNearCache cache, String majorKey, String minorKey, int value) {
+		cache.execute(new Push(SET_NAME, majorKey).addValue(minorKey, new UnitValue(Unpooled.wrappedBuffer(new byte[] { (byte) value })))).toBlocking().value();
+	}
+	
+	private static FetchResult fetch(DattyNearCache cache, String majorKey) {
+		return cache.execute(new Fetch(SET_NAME, majorKey).allMinorKeys()).toBlocking().value();
+	}
+	
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.datty.api.ByteBufValue;
+import io.datty.api.DattyValue;
+import io.datty.api.UpdatePolicy;
+import io.netty.buffer.Unpooled;
+
+/**
+ * UnitRecordTest
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class UnitRecordTest {
+
+	@Test
+	public void testUpdateInPlace() {
+
+		UnitRecord record = new UnitRecord(values("a", 1, "b", 2));
+		long version = record.getVersionStamp();
+
+		Assert.assertTrue(record.update(values("a", 3), UpdatePolicy.MERGE));
+		Assert.assertEquals(version + 1, record.getVersionStamp());
+		Assert.assertEquals(3, record.getColumn("a").asByteBuf().getByte(0));
+		Assert.assertEquals(2, record.getColumn("b").asByteBuf().getByte(0));
+
+		Assert.assertTrue(record.update(values("b", 4), UpdatePolicy.REPLACE));
+		Assert.assertFalse(record.hasColumn("a"));
+		Assert.assertEquals(1, record.columns());
+
+		record.release();
+	}
+
+	@Test
+	public void testCopies() {
+
+		UnitRecord record = new UnitRecord(values("a", 1));
+
+		UnitValue copy = record.getColumn("a");
+		copy.asByteBuf().setByte(0, 5);
+
+		Assert.assertEquals(1, record.getColumn("a").asByteBuf().getByte(0));
+
+		record.release();
+
+		Assert.assertEquals(5, copy.asByteBuf().getByte(0));
+	}
+
+	@Test
+	public void testRelease() {
+
+		UnitRecord record = new UnitRecord(values("a", 1));
+
+		Assert.assertEquals(2L, record.append("a", Unpooled.wrappedBuffer(new byte[] { 2 })));
+
+		record.release();
+		record.release();
+
+		Assert.assertTrue(record.isReleased());
+		Assert.assertTrue(record.isEmpty());
+		Assert.assertFalse(record.update(values("a", 1), UpdatePolicy.MERGE));
+		Assert.assertEquals(-1L, record.append("a", Unpooled.wrappedBuffer(new byte[] { 2 })));
+	}
+
+	private static Map<String, DattyValue> values(Object... pairs) {
+		Map<String, DattyValue> map = new HashMap<String, DattyValue>();
+		for (int i = 0; i < pairs.length; i += 2) {
+			byte b = ((Integer) pairs[i + 1]).byteValue();
+			map.put((String) pairs[i], new ByteBufValue(Unpooled.wrappedBuffer(new byte[] { b })));
+		}
+		return map;
+	}
+
+}
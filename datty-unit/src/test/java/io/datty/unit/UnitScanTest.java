@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit;
+
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.datty.api.DattyConstants;
+import io.datty.api.DattySingle;
+import io.datty.api.SetExistsAction;
+import io.datty.api.operation.Push;
+import io.datty.api.operation.Scan;
+import io.datty.api.result.RecordResult;
+import io.datty.unit.executor.ScanExecutor;
+import io.netty.buffer.Unpooled;
+import rx.observers.TestSubscriber;
+
+/**
+ * UnitScanTest
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class UnitScanTest {
+
+	private static final String SET_NAME = "scan";
+
+	private static final int RECORDS = 100;
+
+	private UnitDattyManager dattyManager;
+
+	@Before
+	public void setup() {
+
+		dattyManager = new UnitDattyManager();
+		dattyManager.getSet(SET_NAME, new Properties(), SetExistsAction.CREATE_IF_NOT_EXISTS);
+
+		DattySingle datty = dattyManager.getDatty();
+
+		for (int i = 0; i != RECORDS; ++i) {
+			datty.execute(new Push(SET_NAME, "key" + i)
+					.addValue("a", new UnitValue(Unpooled.wrappedBuffer(new byte[] { (byte) i })))
+					.addValue("b", new UnitValue(Unpooled.wrappedBuffer(new byte[] { (byte) i })))).toBlocking().value();
+		}
+
+	}
+
+	@Test
+	public void testBackpressure() {
+
+		TestSubscriber<RecordResult> subscriber = new TestSubscriber<RecordResult>(0);
+
+		dattyManager.getDatty().execute(new Scan(SET_NAME)).subscribe(subscriber);
+
+		subscriber.assertNoValues();
+
+		subscriber.requestMore(10);
+		subscriber.assertValueCount(10);
+		subscriber.assertNotCompleted();
+
+		subscriber.requestMore(RECORDS);
+		subscriber.assertValueCount(RECORDS);
+		subscriber.assertCompleted();
+	}
+
+	@Test
+	public void testHeaders() {
+
+		TestSubscriber<RecordResult> subscriber = new TestSubscriber<RecordResult>();
+
+		dattyManager.getDatty().execute(new Scan(SET_NAME).withValues(false)).subscribe(subscriber);
+
+		subscriber.assertValueCount(RECORDS);
+
+		List<RecordResult> results = subscriber.getOnNextEvents();
+		for (RecordResult result : results) {
+			Assert.assertNotNull(result.getVersion());
+			Assert.assertEquals(2, result.size());
+			Assert.assertTrue(result.minorKeys().contains("a"));
+			Assert.assertFalse(result.get("a").hasByteBuf());
+		}
+	}
+
+	@Test
+	public void testPartitions() {
+
+		DattySingle datty = dattyManager.getDatty();
+
+		int half = DattyConstants.PARTITIONS / 2;
+
+		List<RecordResult> first = datty.execute(new Scan(SET_NAME).setPartitions(0, half)).toList().toBlocking().single();
+		List<RecordResult> second = datty.execute(new Scan(SET_NAME).setPartitions(half, half)).toList().toBlocking().single();
+
+		Assert.assertEquals(RECORDS, first.size() + second.size());
+
+		for (RecordResult result : first) {
+			Assert.assertTrue(ScanExecutor.partitionOf(result.getMajorKey()) < half);
+			Assert.assertEquals(ScanExecutor.partitionOf(result.getMajorKey()), result.getPartitionId());
+		}
+		
+		for (RecordResult result : second) {
+			Assert.assertTrue(result.getPartitionId() >= half);
+		}
+	}
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.unit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.datty.api.DattySingle;
+import io.datty.api.SetExistsAction;
+import io.datty.api.UpdatePolicy;
+import io.datty.api.operation.Clear;
+import io.datty.api.operation.Push;
+import io.datty.api.operation.Select;
+import io.datty.api.result.RecordResult;
+import io.netty.buffer.Unpooled;
+
+/**
+ * UnitSelectTest
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class UnitSelectTest {
+
+	private static final String SET_NAME = "select";
+
+	private static final int RECORDS = 100;
+
+	private UnitDattyManager dattyManager;
+
+	private UnitSet set;
+
+	@Before
+	public void setup() {
+
+		dattyManager = new UnitDattyManager();
+		set = (UnitSet) dattyManager.getSet(SET_NAME, new Properties(), SetExistsAction.CREATE_IF_NOT_EXISTS);
+
+		for (int i = 0; i != RECORDS; ++i) {
+			push("key" + i, i);
+		}
+
+	}
+
+	private void push(String majorKey, int i) {
+		dattyManager.getDatty().execute(new Push(SET_NAME, majorKey)
+				.addValue("age", value(Integer.toString(i)))
+				.addValue("parity", value(i % 2 == 0 ? "even" : "odd"))).toBlocking().value();
+	}
+
+	private static UnitValue value(String str) {
+		return new UnitValue(Unpooled.wrappedBuffer(str.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private List<RecordResult> select(Select select) {
+		return dattyManager.getDatty().execute(select).toList().toBlocking().single();
+	}
+
+	@Test
+	public void testEqualAndRange() {
+
+		Assert.assertEquals(50, select(new Select(SET_NAME).whereEqual("parity", "odd")).size());
+
+		List<RecordResult> results = select(new Select(SET_NAME).whereRange("age", 10, 19).whereEqual("parity", "even"));
+		Assert.assertEquals(5, results.size());
+
+		for (RecordResult result : results) {
+			int age = Integer.parseInt(result.get("age").asByteBuf().toString(StandardCharsets.UTF_8));
+			Assert.assertTrue(age >= 10 && age <= 19 && age % 2 == 0);
+		}
+
+		Assert.assertEquals(1, select(new Select(SET_NAME).whereEqual("age", 42)).size());
+		Assert.assertTrue(select(new Select(SET_NAME).whereEqual("parity", "none")).isEmpty());
+	}
+
+	@Test
+	public void testProjectionAndLimit() {
+
+		List<RecordResult> results = select(new Select(SET_NAME).whereEqual("parity", "even").addMinorKey("age").setLimit(7));
+		Assert.assertEquals(7, results.size());
+
+		for (RecordResult result : results) {
+			Assert.assertEquals(1, result.size());
+			Assert.assertNotNull(result.get("age"));
+			Assert.assertNotNull(result.getVersion());
+		}
+
+		Assert.assertEquals(RECORDS, select(new Select(SET_NAME)).size());
+	}
+
+	@Test
+	public void testIndexFollowsWrites() {
+
+		Assert.assertEquals(1, select(new Select(SET_NAME).whereEqual("age", 5)).size());
+
+		// moves key5 out of the range, key100 in
+		push("key5", 500);
+		push("key100", 5);
+
+		List<RecordResult> results = select(new Select(SET_NAME).whereEqual("age", 5));
+		Assert.assertEquals(1, results.size());
+		Assert.assertEquals("key100", results.get(0).getMajorKey());
+
+		DattySingle datty = dattyManager.getDatty();
+		datty.execute(new Push(SET_NAME, "key100").setUpdatePolicy(UpdatePolicy.REPLACE)).toBlocking().value();
+
+		Assert.assertTrue(select(new Select(SET_NAME).whereEqual("age", 5)).isEmpty());
+		Assert.assertEquals(RECORDS, set.getIndex("age").size());
+
+		dattyManager.getDatty().execute(new Clear(SET_NAME)).toBlocking().single();
+		Assert.assertEquals(0, set.getIndex("age").size());
+		Assert.assertTrue(select(new Select(SET_NAME).whereRange("age", 0, 1000)).isEmpty());
+	}
+	
+	@Test
+	public void testConcurrentBuild() throws Exception {
+		
+		final int threads = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicInteger partial = new AtomicInteger();
+		
+		List<Thread> list = new ArrayList<Thread>();
+		
+		for (int i = 0; i != threads; ++i) {
+			
+			final int thread = i;
+			
+			Thread t = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						start.await();
+					}
+					catch(InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					if (thread == 0) {
+						// written during the build
+						push("key" + RECORDS, RECORDS);
+					}
+					else if (set.getIndex("parity").size() < RECORDS) {
+						partial.incrementAndGet();
+					}
+				}
+				
+			});
+			
+			t.start();
+			list.add(t);
+		}
+		
+		start.countDown();
+		
+		for (Thread t : list) {
+			t.join();
+		}
+		
+		Assert.assertEquals(0, partial.get());
+		Assert.assertEquals(RECORDS + 1, set.getIndex("parity").size());
+	}
+	
+}
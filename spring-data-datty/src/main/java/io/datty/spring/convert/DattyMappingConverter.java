@@ -15,8 +15,12 @@ package io.datty.spring.convert;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Supplier;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.factory.BeanClassLoaderAware;
@@ -32,7 +36,7 @@ import io.datty.api.ByteBufValue;
 import io.datty.api.DattyConstants;
 import io.datty.api.DattyRecord;
 import io.datty.api.DattyValue;
-import io.datty.msgpack.MessageWriter;
+import io.datty.msgpack.core.EntryWriter;
 import io.datty.msgpack.core.MapMessageReader;
 import io.datty.msgpack.core.MapMessageWriter;
 import io.datty.msgpack.core.ValueMessageReader;
@@ -56,18 +60,29 @@ import io.netty.buffer.ByteBufAllocator;
  * 
  * Implementation of the DattyConverter that is using schema mapping
  * 
+ * Every entity is written and read by EntitySerializer bound to the entity at startup, BeanWrapper 
+ * is the fallback for entities that could not have one and for setUseSerializers(false)
+ * 
  * @author Alex Shvid
  *
  */
 
 public class DattyMappingConverter extends AbstractDattyConverter implements BeanClassLoaderAware {
 
+	private static final Logger logger = LoggerFactory.getLogger(DattyMappingConverter.class);
+	
 	private final MappingContext<? extends DattyPersistentEntity<?>, DattyPersistentProperty> mappingContext;
 
 	private ClassLoader beanClassLoader;
 
 	private static final ByteBufAllocator ALLOC = DattyConstants.ALLOC;
 	
+	private static final Object NO_SERIALIZER = new Object();
+	
+	private final ConcurrentMap<Class<?>, Object> serializers = new ConcurrentHashMap<Class<?>, Object>();
+	
+	private volatile boolean useSerializers = true;
+	
 	public DattyMappingConverter(
 			MappingContext<? extends DattyPersistentEntity<?>, DattyPersistentProperty> mappingContext) {
 		this(mappingContext, new DefaultConversionService());
@@ -89,6 +104,68 @@ public class DattyMappingConverter extends AbstractDattyConverter implements Bea
 		this.beanClassLoader = classLoader;
 	}
 	
+	/**
+	 * Enables or disables entity serializers, if disabled all entities are written and read through BeanWrapper.
+	 * Enabled by default
+	 * 
+	 * @param useSerializers - flag
+	 */
+	
+	public void setUseSerializers(boolean useSerializers) {
+		this.useSerializers = useSerializers;
+	}
+	
+	public boolean isUseSerializers() {
+		return useSerializers;
+	}
+	
+	/**
+	 * Binds serializers of all known entities
+	 */
+	
+	@Override
+	public void afterPropertiesSet() {
+		super.afterPropertiesSet();
+		for (DattyPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+			getSerializer(entity);
+		}
+	}
+	
+	/**
+	 * Gets serializer of the entity
+	 * 
+	 * @param entity - entity metadata
+	 * @return serializer or null if disabled or entity could not have one
+	 */
+	
+	@SuppressWarnings("unchecked")
+	public <T> EntitySerializer<T> getSerializer(DattyPersistentEntity<T> entity) {
+		
+		if (!useSerializers) {
+			return null;
+		}
+		
+		Object serializer = serializers.get(entity.getType());
+		
+		if (serializer == null) {
+			
+			try {
+				serializer = EntitySerializer.create(entity, ENTITY_PROVIDER, conversionService);
+			}
+			catch(RuntimeException e) {
+				serializer = NO_SERIALIZER;
+				logger.warn("entity " + entity.getType().getName() + " falls back to BeanWrapper, serializer could not be bound: " + e.getMessage(), e);
+			}
+			
+			Object c = serializers.putIfAbsent(entity.getType(), serializer);
+			if (c != null) {
+				serializer = c;
+			}
+		}
+		
+		return serializer != NO_SERIALIZER ? (EntitySerializer<T>) serializer : null;
+	}
+	
 	/**
 	 * Gets datty id from the possible id object
 	 */
@@ -148,6 +225,8 @@ public class DattyMappingConverter extends AbstractDattyConverter implements Bea
 	/**
 	 * Writes embedded entity to the buffer
 	 * 
+	 * Properties are collected by EntryWriter first, so the map header is written once with the minimal size
+	 * 
 	 * @param entity - entity metadata
 	 * @param source - entity instance
 	 * @param sink - output buffer
@@ -158,21 +237,21 @@ public class DattyMappingConverter extends AbstractDattyConverter implements Bea
 	
 	private ByteBuf writeEmbeddedEntity(DattyPersistentEntity<?> entity, Object source, final ByteBuf sink, boolean numeric) {
 		
-		MessageWriter writer = MapMessageWriter.INSTANCE;
-		
-		int headerIndex = writer.skipHeader(entity.getPropertiesCount(), sink);
+		EntitySerializer<?> serializer = getSerializer(entity);
+		if (serializer != null) {
+			return serializer.writeEmbedded(source, sink, numeric);
+		}
 		
-		WriteEmbeddedEntityHandler entityWriter = new WriteEmbeddedEntityHandler(writer, source, sink, numeric);
-		entity.doWithProperties(entityWriter);
+		EntryWriter entries = new EntryWriter(MapMessageWriter.INSTANCE, entity.getPropertiesCount(), numeric);
 		
-		writer.writeHeader(entityWriter.size(), entity.getPropertiesCount(), headerIndex, sink);
+		entity.doWithProperties(new WriteEmbeddedEntityHandler(entries, source, numeric));
 		
-		return entityWriter.getSink();
+		return entries.writeTo(sink);
 	}
 	
 	/**
 	 * 
-	 * Embedded entity writer
+	 * Embedded entity writer, collects not null properties to EntryWriter
 	 * 
 	 * @author Alex Shvid
 	 *
@@ -180,17 +259,14 @@ public class DattyMappingConverter extends AbstractDattyConverter implements Bea
 	
 	public final class WriteEmbeddedEntityHandler implements PropertyHandler<DattyPersistentProperty> {
 
-		private final MessageWriter writer;
+		private final EntryWriter entries;
 		private final BeanWrapper wrapper;
-		private ByteBuf sink;
 		private final boolean numeric;
-		private int size;
 		
-		public WriteEmbeddedEntityHandler(MessageWriter writer, Object source, ByteBuf sink, boolean numeric) {
-			this.writer = writer;
+		public WriteEmbeddedEntityHandler(EntryWriter entries, Object source, boolean numeric) {
+			this.entries = entries;
 			this.wrapper = new BeanWrapperImpl(source);		
 			wrapper.setConversionService(conversionService);
-			this.sink = sink;
 			this.numeric = numeric;			
 		}
 		
@@ -198,33 +274,22 @@ public class DattyMappingConverter extends AbstractDattyConverter implements Bea
 			return wrapper.getWrappedInstance();
 		}
 		
-		public int size() {
-			return size;
-		}
-		
-		public ByteBuf getSink() {
-			return sink;
-		}
-
+		@SuppressWarnings("unchecked")
 		@Override
 		public void doWithPersistentProperty(DattyPersistentProperty property) {
 			
-			String propName = property.getName();
-			final Class<?> propType = property.getRawType();
-			Object propValue = wrapper.getPropertyValue(propName);
+			if (property.isTransient()) {
+				return;
+			}
 			
-			if (propValue != null && !property.isTransient()) {
-							
-				if (numeric) {
-					writer.writeKey(property.getCode(), sink);
-				}
-				else {
-					writer.writeKey(property.getPrimaryName(), sink);
-				}
-				
-				sink = writeProperty(property, propType, propValue, sink, numeric);
-				size++;
-				
+			Object propValue = wrapper.getPropertyValue(property.getName());
+			TypeInfo<?> propTypeInfo = property.getTypeInfo(ENTITY_PROVIDER);
+			
+			if (numeric) {
+				entries.addEntry(property.getCode(), (TypeInfo<Object>) propTypeInfo, propValue, property.copy());
+			}
+			else {
+				entries.addEntry(property.getPrimaryName(), (TypeInfo<Object>) propTypeInfo, propValue, property.copy());
 			}
 			
 		}
@@ -263,6 +328,13 @@ public class DattyMappingConverter extends AbstractDattyConverter implements Bea
 	 */
 	
 	private void writeEntity(DattyPersistentEntity<?> entity, Object source, DattyRecord sink, boolean numeric) {
+		
+		EntitySerializer<?> serializer = getSerializer(entity);
+		if (serializer != null) {
+			serializer.write(source, sink, numeric);
+			return;
+		}
+		
 		entity.doWithProperties(new WriteEntityHandler(source, sink, numeric));
 	}	
 	
@@ -485,6 +557,11 @@ public class DattyMappingConverter extends AbstractDattyConverter implements Bea
 	@SuppressWarnings("unchecked")
 	private <R> R readEmbeddedEntity(Class<R> type, DattyPersistentEntity<R> entity, ByteBuf buffer) {
 		
+		EntitySerializer<R> serializer = getSerializer(entity);
+		if (serializer != null) {
+			return serializer.readEmbedded(buffer);
+		}
+		
 		BeanWrapper wrapper = new BeanWrapperImpl(type);
 		
 		if (!ValueMessageReader.INSTANCE.hasNext(buffer)) {
@@ -537,6 +614,11 @@ public class DattyMappingConverter extends AbstractDattyConverter implements Bea
 	@SuppressWarnings("unchecked")
 	private <R> R readEntity(Class<R> type, DattyPersistentEntity<R> entity, DattyRecord source) {
 		
+		EntitySerializer<R> serializer = getSerializer(entity);
+		if (serializer != null) {
+			return serializer.read(source);
+		}
+		
 		BeanWrapper wrapper = new BeanWrapperImpl(type);
 
 		for (Map.Entry<String, DattyValue> e : source.getValues().entrySet()) {
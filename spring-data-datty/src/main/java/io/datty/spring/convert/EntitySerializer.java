@@ -0,0 +1,638 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.spring.convert;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mapping.model.MappingException;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import io.datty.api.ByteBufValue;
+import io.datty.api.DattyConstants;
+import io.datty.api.DattyRecord;
+import io.datty.api.DattyValue;
+import io.datty.msgpack.MessageWriter;
+import io.datty.msgpack.core.MapMessageReader;
+import io.datty.msgpack.core.MapMessageWriter;
+import io.datty.msgpack.core.ValueMessageReader;
+import io.datty.msgpack.core.ValueMessageWriter;
+import io.datty.msgpack.core.type.TypeInfo;
+import io.datty.msgpack.core.type.TypeInfoProvider;
+import io.datty.spring.mapping.DattyPersistentEntity;
+import io.datty.spring.mapping.DattyPersistentProperty;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * EntitySerializer
+ *
+ * Dedicated writer and reader of the one entity type. Getters, setters and the default constructor
+ * are bound once, keys and type infos of properties are resolved up front, so writes and reads go
+ * straight to MessageWriter and ValueMessageReader without BeanWrapper and without ConversionService
+ * unless the read value has a different type.
+ *
+ * Public accessors of public classes visible from this class loader are spun by LambdaMetafactory
+ * into Function, BiConsumer and Supplier classes that call the accessor directly, so the JIT inlines
+ * them like a hand written accessor. Fields without accessors, non-public members and classes of
+ * other class loaders are bound to method handles wrapped in the same interfaces, these handles
+ * are not constants and are not inlined.
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public final class EntitySerializer<T> {
+
+	private static final ByteBufAllocator ALLOC = DattyConstants.ALLOC;
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private static final MethodType SUPPLIER_FACTORY = MethodType.methodType(Supplier.class);
+	private static final MethodType FUNCTION_FACTORY = MethodType.methodType(Function.class);
+	private static final MethodType BI_CONSUMER_FACTORY = MethodType.methodType(BiConsumer.class);
+
+	private final DattyPersistentEntity<T> entity;
+	private final Supplier<Object> constructor;
+	private final PropertySerializer[] properties;
+
+	private final Map<String, PropertySerializer> minorKeyIndex;
+	private final Map<Integer, PropertySerializer> codeIndex;
+
+	private EntitySerializer(DattyPersistentEntity<T> entity, Supplier<Object> constructor, List<PropertySerializer> properties) {
+
+		this.entity = entity;
+		this.constructor = constructor;
+		this.properties = properties.toArray(new PropertySerializer[properties.size()]);
+		this.minorKeyIndex = new HashMap<String, PropertySerializer>();
+		this.codeIndex = new HashMap<Integer, PropertySerializer>();
+
+		for (PropertySerializer p : this.properties) {
+			minorKeyIndex.put(p.name, p);
+			for (String otherName : p.property.getOtherNames()) {
+				minorKeyIndex.put(otherName, p);
+			}
+			codeIndex.put(p.code, p);
+		}
+
+		for (PropertySerializer p : this.properties) {
+			if (!minorKeyIndex.containsKey(p.numericMinorKey)) {
+				minorKeyIndex.put(p.numericMinorKey, p);
+			}
+		}
+
+	}
+
+	/**
+	 * Binds accessors of the entity
+	 *
+	 * @param entity - entity metadata
+	 * @param provider - type info provider for embedded entities
+	 * @param conversionService - converts values of different types on read
+	 * @return not null serializer
+	 * @throws MappingException if entity has no default constructor or property has no accessor
+	 */
+
+	public static <T> EntitySerializer<T> create(DattyPersistentEntity<T> entity, final TypeInfoProvider provider,
+			final ConversionService conversionService) {
+
+		final List<PropertySerializer> properties = new ArrayList<PropertySerializer>(entity.getPropertiesCount());
+
+		entity.doWithProperties(new PropertyHandler<DattyPersistentProperty>() {
+
+			@Override
+			public void doWithPersistentProperty(DattyPersistentProperty property) {
+				if (!property.isTransient()) {
+					properties.add(new PropertySerializer(property, provider, conversionService));
+				}
+			}
+
+		});
+
+		return new EntitySerializer<T>(entity, constructorOf(entity.getType()), properties);
+	}
+
+	public DattyPersistentEntity<T> getEntity() {
+		return entity;
+	}
+
+	/**
+	 * Writes entity to the record, every property is the minor key
+	 *
+	 * @param source - entity instance
+	 * @param sink - output record
+	 * @param numeric - use numeric keys
+	 */
+
+	public void write(Object source, DattyRecord sink, boolean numeric) {
+
+		for (PropertySerializer p : properties) {
+
+			Object value = p.get(source);
+
+			if (value != null) {
+				ByteBuf valueBuffer = p.write(value, ALLOC.buffer(), numeric);
+				sink.put(numeric ? p.numericMinorKey : p.name, new ByteBufValue(valueBuffer));
+			}
+
+		}
+
+	}
+
+	/**
+	 * Writes embedded entity as a map
+	 *
+	 * Values are collected first, so the map header is written once with the minimal size
+	 * and keys are copied from the bytes encoded on creation of the serializer
+	 *
+	 * @param source - entity instance
+	 * @param sink - output buffer
+	 * @param numeric - use numeric keys
+	 * @return old or new sink
+	 */
+
+	public ByteBuf writeEmbedded(Object source, ByteBuf sink, boolean numeric) {
+
+		MessageWriter writer = MapMessageWriter.INSTANCE;
+
+		Object[] values = new Object[properties.length];
+		int size = 0;
+
+		for (int i = 0; i != properties.length; ++i) {
+			values[i] = properties[i].get(source);
+			if (values[i] != null) {
+				size++;
+			}
+		}
+
+		writer.writeHeader(size, sink);
+
+		for (int i = 0; i != properties.length; ++i) {
+
+			if (values[i] != null) {
+
+				PropertySerializer p = properties[i];
+				writer.writeEncodedKey(numeric ? p.encodedCode : p.encodedName, sink);
+				sink = p.write(values[i], sink, numeric);
+			}
+
+		}
+
+		return sink;
+	}
+
+	/**
+	 * Reads entity from the record
+	 *
+	 * @param source - input record
+	 * @return new entity instance
+	 */
+
+	public T read(DattyRecord source) {
+
+		T instance = newInstance();
+
+		for (Map.Entry<String, DattyValue> e : source.getValues().entrySet()) {
+
+			String minorKey = e.getKey();
+			PropertySerializer p = minorKeyIndex.get(minorKey);
+
+			if (p == null) {
+				throw new MappingException("property key '" + minorKey + "' not found for " + entity);
+			}
+
+			DattyValue dattyValue = e.getValue();
+
+			Object value = null;
+			if (dattyValue != null && !dattyValue.isNull()) {
+				value = p.read(dattyValue.asByteBuf());
+			}
+
+			p.set(instance, value);
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Reads embedded entity from the map
+	 *
+	 * @param buffer - input buffer
+	 * @return new entity instance
+	 */
+
+	public T readEmbedded(ByteBuf buffer) {
+
+		T instance = newInstance();
+
+		if (!ValueMessageReader.INSTANCE.hasNext(buffer)) {
+			return instance;
+		}
+
+		MapMessageReader reader = new MapMessageReader(buffer);
+
+		for (int i = 0; i != reader.size(); ++i) {
+
+			Object propKey = reader.readKey(buffer);
+
+			PropertySerializer p;
+
+			if (propKey instanceof Integer) {
+				p = codeIndex.get(propKey);
+			}
+			else if (propKey instanceof String) {
+				p = minorKeyIndex.get(propKey);
+			}
+			else {
+				throw new MappingException("unknown property key '" + propKey + "' for " + entity);
+			}
+
+			if (p == null) {
+				throw new MappingException("property key '" + propKey + "' not found for " + entity);
+			}
+
+			p.set(instance, p.read(buffer));
+		}
+
+		return instance;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T newInstance() {
+		try {
+			return (T) constructor.get();
+		}
+		catch(RuntimeException e) {
+			throw e;
+		}
+		catch(Throwable t) {
+			throw new MappingException("fail to instantiate " + entity, t);
+		}
+	}
+
+	private static Supplier<Object> constructorOf(Class<?> type) {
+		try {
+			Constructor<?> c = type.getDeclaredConstructor();
+			ReflectionUtils.makeAccessible(c);
+			MethodHandle handle = LOOKUP.unreflectConstructor(c);
+
+			if (isSpinnable(c)) {
+				return spin(handle, "get", SUPPLIER_FACTORY, CONSTRUCTOR_TYPE, handle.type());
+			}
+
+			return new HandleConstructor(handle.asType(CONSTRUCTOR_TYPE));
+		}
+		catch(NoSuchMethodException e) {
+			throw new MappingException("no default constructor in " + type, e);
+		}
+		catch(IllegalAccessException e) {
+			throw new MappingException("inaccessible default constructor in " + type, e);
+		}
+	}
+
+	/**
+	 * Checks that the generated lambda class, defined next to this class, can link to the member
+	 *
+	 * @param member - accessor or constructor
+	 * @param types - types of the accessor
+	 * @return true if member could be spun by LambdaMetafactory
+	 */
+
+	private static boolean isSpinnable(Member member, Class<?>... types) {
+
+		if (!Modifier.isPublic(member.getModifiers()) || !isVisible(member.getDeclaringClass())) {
+			return false;
+		}
+
+		for (Class<?> type : types) {
+			if (!isVisible(type)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isVisible(Class<?> type) {
+
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+
+		if (type.isPrimitive()) {
+			return true;
+		}
+
+		for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+			if (!Modifier.isPublic(c.getModifiers())) {
+				return false;
+			}
+		}
+
+		return ClassUtils.isVisible(type, EntitySerializer.class.getClassLoader());
+	}
+
+	/**
+	 * Spins the functional interface that calls the handle directly
+	 *
+	 * @param handle - direct method handle of the accessor
+	 * @param name - name of the interface method
+	 * @param factoryType - factory type returning the interface
+	 * @param interfaceType - erased type of the interface method
+	 * @param instantiatedType - type of the interface method with the entity and boxed property types
+	 * @return not null instance of the interface
+	 */
+
+	@SuppressWarnings("unchecked")
+	private static <F> F spin(MethodHandle handle, String name, MethodType factoryType, MethodType interfaceType, MethodType instantiatedType) {
+		try {
+			CallSite site = LambdaMetafactory.metafactory(LOOKUP, name, factoryType, interfaceType, handle, instantiatedType);
+			return (F) site.getTarget().invoke();
+		}
+		catch(RuntimeException e) {
+			throw e;
+		}
+		catch(Throwable t) {
+			throw new MappingException("fail to spin " + name + " for " + handle, t);
+		}
+	}
+
+	/**
+	 * Bound accessors and metadata of the property
+	 *
+	 * @author Alex Shvid
+	 *
+	 */
+
+	static final class PropertySerializer {
+
+		final DattyPersistentProperty property;
+		final String name;
+		final int code;
+		final String numericMinorKey;
+		final byte[] encodedName;
+		final byte[] encodedCode;
+		final boolean copy;
+		final Class<?> boxedType;
+		final boolean primitive;
+		final TypeInfo<Object> typeInfo;
+		final Function<Object, Object> getter;
+		final BiConsumer<Object, Object> setter;
+		final ConversionService conversionService;
+
+		@SuppressWarnings("unchecked")
+		PropertySerializer(DattyPersistentProperty property, TypeInfoProvider provider, ConversionService conversionService) {
+
+			Class<?> rawType = property.getRawType();
+
+			this.property = property;
+			this.name = property.getPrimaryName();
+			this.code = property.getCode();
+			this.numericMinorKey = MinorKeyFormatter.INSTANCE.getMinorKey(property, true);
+			this.encodedName = MapMessageWriter.INSTANCE.encodeKey(name);
+			this.encodedCode = MapMessageWriter.INSTANCE.encodeKey(code);
+			this.copy = property.copy();
+			this.boxedType = ClassUtils.resolvePrimitiveIfNecessary(rawType);
+			this.primitive = rawType.isPrimitive();
+			this.typeInfo = (TypeInfo<Object>) property.getTypeInfo(provider);
+			this.getter = getterOf(property);
+			this.setter = setterOf(property);
+			this.conversionService = conversionService;
+		}
+
+		Object get(Object instance) {
+			try {
+				return getter.apply(instance);
+			}
+			catch(RuntimeException e) {
+				throw e;
+			}
+			catch(Throwable t) {
+				throw new MappingException("fail to get " + property, t);
+			}
+		}
+
+		void set(Object instance, Object value) {
+
+			if (value == null) {
+				if (primitive) {
+					return;
+				}
+			}
+			else if (!boxedType.isInstance(value)) {
+				value = conversionService.convert(value, boxedType);
+			}
+
+			try {
+				setter.accept(instance, value);
+			}
+			catch(RuntimeException e) {
+				throw e;
+			}
+			catch(Throwable t) {
+				throw new MappingException("fail to set " + property, t);
+			}
+		}
+
+		ByteBuf write(Object value, ByteBuf sink, boolean numeric) {
+			return ValueMessageWriter.INSTANCE.writeValue(typeInfo, value, sink, copy, numeric);
+		}
+
+		Object read(ByteBuf buffer) {
+			return ValueMessageReader.INSTANCE.readValue(typeInfo, buffer, copy);
+		}
+
+		private static Function<Object, Object> getterOf(DattyPersistentProperty property) {
+			try {
+
+				Optional<Method> getter = property.getGetter();
+				if (getter.isPresent()) {
+					Method m = getter.get();
+					ReflectionUtils.makeAccessible(m);
+					MethodHandle handle = LOOKUP.unreflect(m);
+
+					if (isSpinnable(m, m.getReturnType())) {
+						return spin(handle, "apply", FUNCTION_FACTORY, GETTER_TYPE, handle.type().wrap());
+					}
+
+					return new HandleGetter(handle.asType(GETTER_TYPE));
+				}
+
+				Optional<Field> field = property.getField();
+				if (field.isPresent()) {
+					Field f = field.get();
+					ReflectionUtils.makeAccessible(f);
+					return new HandleGetter(LOOKUP.unreflectGetter(f).asType(GETTER_TYPE));
+				}
+
+			}
+			catch(IllegalAccessException e) {
+				throw new MappingException("inaccessible getter of " + property, e);
+			}
+
+			throw new MappingException("no getter or field for " + property);
+		}
+
+		private static BiConsumer<Object, Object> setterOf(DattyPersistentProperty property) {
+			try {
+
+				Optional<Method> setter = property.getSetter();
+				if (setter.isPresent()) {
+					Method m = setter.get();
+					ReflectionUtils.makeAccessible(m);
+					MethodHandle handle = LOOKUP.unreflect(m);
+
+					if (isSpinnable(m, m.getParameterTypes())) {
+						return spin(handle, "accept", BI_CONSUMER_FACTORY, SETTER_TYPE, handle.type().wrap().changeReturnType(void.class));
+					}
+
+					return new HandleSetter(handle.asType(SETTER_TYPE));
+				}
+
+				Optional<Field> field = property.getField();
+				if (field.isPresent()) {
+					Field f = field.get();
+					ReflectionUtils.makeAccessible(f);
+					return new HandleSetter(LOOKUP.unreflectSetter(f).asType(SETTER_TYPE));
+				}
+
+			}
+			catch(IllegalAccessException e) {
+				throw new MappingException("inaccessible setter of " + property, e);
+			}
+
+			throw new MappingException("no setter or field for " + property);
+		}
+
+	}
+
+	/**
+	 * Default constructor bound to the method handle
+	 *
+	 * @author Alex Shvid
+	 *
+	 */
+
+	static final class HandleConstructor implements Supplier<Object> {
+
+		private final MethodHandle handle;
+
+		HandleConstructor(MethodHandle handle) {
+			this.handle = handle;
+		}
+
+		@Override
+		public Object get() {
+			try {
+				return (Object) handle.invokeExact();
+			}
+			catch(RuntimeException e) {
+				throw e;
+			}
+			catch(Throwable t) {
+				throw new MappingException("fail to invoke " + handle, t);
+			}
+		}
+
+	}
+
+	/**
+	 * Getter or field bound to the method handle
+	 *
+	 * @author Alex Shvid
+	 *
+	 */
+
+	static final class HandleGetter implements Function<Object, Object> {
+
+		private final MethodHandle handle;
+
+		HandleGetter(MethodHandle handle) {
+			this.handle = handle;
+		}
+
+		@Override
+		public Object apply(Object instance) {
+			try {
+				return (Object) handle.invokeExact(instance);
+			}
+			catch(RuntimeException e) {
+				throw e;
+			}
+			catch(Throwable t) {
+				throw new MappingException("fail to invoke " + handle, t);
+			}
+		}
+
+	}
+
+	/**
+	 * Setter or field bound to the method handle
+	 *
+	 * @author Alex Shvid
+	 *
+	 */
+
+	static final class HandleSetter implements BiConsumer<Object, Object> {
+
+		private final MethodHandle handle;
+
+		HandleSetter(MethodHandle handle) {
+			this.handle = handle;
+		}
+
+		@Override
+		public void accept(Object instance, Object value) {
+			try {
+				handle.invokeExact(instance, value);
+			}
+			catch(RuntimeException e) {
+				throw e;
+			}
+			catch(Throwable t) {
+				throw new MappingException("fail to invoke " + handle, t);
+			}
+		}
+
+	}
+
+	@Override
+	public String toString() {
+		return "EntitySerializer [" + entity + "]";
+	}
+
+}
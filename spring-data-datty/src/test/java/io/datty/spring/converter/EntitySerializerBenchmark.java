@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.spring.converter;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.datty.api.ByteBufValue;
+import io.datty.api.DattyRecord;
+import io.datty.api.DattyValue;
+import io.datty.spring.converter.embedded.EmbeddedEntity;
+import io.datty.spring.converter.embedded.SimpleEntity;
+import io.datty.spring.convert.DattyMappingConverter;
+import io.datty.spring.mapping.DattyMappingContext;
+import io.netty.buffer.Unpooled;
+
+/**
+ * EntitySerializerBenchmark
+ *
+ * Write and read of the converter test entities, serializer is EntitySerializer,
+ * fallback is the BeanWrapper path of DattyMappingConverter
+ *
+ * Run: mvn -pl spring-data-datty test-compile exec:java -Dexec.classpathScope=test
+ *      -Dexec.mainClass=io.datty.spring.converter.EntitySerializerBenchmark
+ *
+ * @author Alex Shvid
+ *
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class EntitySerializerBenchmark {
+
+	@Param({"true", "false"})
+	public boolean useSerializers;
+
+	@Param({"false", "true"})
+	public boolean numeric;
+
+	private DattyMappingConverter converter;
+
+	private AllTypesEntity allTypes;
+	private SimpleEntity simple;
+
+	private DattyRecord allTypesRecord;
+	private DattyRecord simpleRecord;
+
+	@Setup(Level.Trial)
+	public void setup() {
+
+		converter = new DattyMappingConverter(new DattyMappingContext());
+		converter.setUseSerializers(useSerializers);
+
+		allTypes = new AllTypesEntity();
+		allTypes.setBooleanVal(true);
+		allTypes.setBooleanWal(true);
+		allTypes.setByteVal((byte)1);
+		allTypes.setByteWal((byte)1);
+		allTypes.setShortVal((short)1);
+		allTypes.setShortWal((short)1);
+		allTypes.setIntVal(1);
+		allTypes.setIntWal(1);
+		allTypes.setLongVal(1L);
+		allTypes.setLongWal(1L);
+		allTypes.setFloatVal(1.0f);
+		allTypes.setFloatWal(1.0f);
+		allTypes.setDoubleVal(1.0d);
+		allTypes.setDoubleWal(1.0d);
+		allTypes.setStringVal("1");
+		allTypes.setBbVal(Unpooled.wrappedBuffer(new byte[] { 1 }));
+
+		simple = new SimpleEntity();
+		simple.setId(123L);
+		EmbeddedEntity embedded = new EmbeddedEntity();
+		embedded.setInnerField("inner");
+		simple.setEmbedded(embedded);
+
+		allTypesRecord = new DattyRecord();
+		converter.write(allTypes, allTypesRecord, numeric);
+
+		simpleRecord = new DattyRecord();
+		converter.write(simple, simpleRecord, numeric);
+	}
+
+	@Benchmark
+	public DattyRecord writeAllTypes() {
+		DattyRecord rec = new DattyRecord();
+		converter.write(allTypes, rec, numeric);
+		release(rec);
+		return rec;
+	}
+
+	@Benchmark
+	public AllTypesEntity readAllTypes() {
+		return converter.read(AllTypesEntity.class, duplicate(allTypesRecord));
+	}
+
+	@Benchmark
+	public DattyRecord writeEmbedded() {
+		DattyRecord rec = new DattyRecord();
+		converter.write(simple, rec, numeric);
+		release(rec);
+		return rec;
+	}
+
+	@Benchmark
+	public SimpleEntity readEmbedded() {
+		return converter.read(SimpleEntity.class, duplicate(simpleRecord));
+	}
+
+	/**
+	 * Readers move the reader index of values, every read gets own duplicates
+	 */
+
+	private static DattyRecord duplicate(DattyRecord rec) {
+		DattyRecord copy = new DattyRecord();
+		for (Map.Entry<String, DattyValue> e : rec.getValues().entrySet()) {
+			copy.put(e.getKey(), new ByteBufValue(e.getValue().asByteBuf().duplicate()));
+		}
+		return copy;
+	}
+
+	private static void release(DattyRecord rec) {
+		for (DattyValue value : rec.getValues().values()) {
+			value.release();
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(EntitySerializerBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2017 Datty.io Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.datty.spring.converter;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.data.annotation.Id;
+
+import io.datty.api.DattyRecord;
+import io.datty.api.DattyValue;
+import io.datty.spring.converter.embedded.EmbeddedEntity;
+import io.datty.spring.converter.embedded.SimpleEntity;
+import io.datty.spring.convert.DattyMappingConverter;
+import io.datty.spring.mapping.DattyMappingContext;
+import io.datty.spring.mapping.DattyPersistentEntity;
+import io.datty.spring.mapping.Entity;
+import io.datty.spring.support.DattyConverterUtil;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+/**
+ * EntitySerializerTest
+ *
+ * @author Alex Shvid
+ *
+ */
+
+public class EntitySerializerTest {
+
+	@Test
+	public void testSerializer() {
+
+		DattyMappingConverter converter = DattyConverterUtil.createConverter();
+
+		DattyPersistentEntity<?> entity = converter.getMappingContext().getPersistentEntity(AllTypesEntity.class).get();
+		Assert.assertTrue(converter.isUseSerializers());
+		Assert.assertNotNull(converter.getSerializer(entity));
+
+		converter.setUseSerializers(false);
+		Assert.assertNull(converter.getSerializer(entity));
+
+		converter.setUseSerializers(true);
+		Assert.assertNotNull(converter.getSerializer(entity));
+	}
+
+	@Test
+	public void testAllTypes() {
+
+		AllTypesEntity entity = new AllTypesEntity();
+		entity.setBooleanVal(true);
+		entity.setByteWal((byte)1);
+		entity.setIntVal(-1);
+		entity.setLongWal(Long.MAX_VALUE);
+		entity.setDoubleVal(1.5d);
+		entity.setStringVal("str");
+		entity.setBbVal(Unpooled.wrappedBuffer(new byte[] { 1, 2, 3 }));
+
+		assertSameAsFallback(entity, false);
+		assertSameAsFallback(entity, true);
+
+		DattyRecord rec = new DattyRecord();
+		DattyConverterUtil.write(entity, rec);
+
+		Assert.assertEquals(entity, DattyConverterUtil.read(AllTypesEntity.class, rec));
+	}
+
+	@Test
+	public void testEmbedded() {
+
+		SimpleEntity entity = new SimpleEntity();
+		entity.setId(123L);
+
+		EmbeddedEntity embedded = new EmbeddedEntity();
+		embedded.setInnerField("inner");
+		entity.setEmbedded(embedded);
+
+		assertSameAsFallback(entity, false);
+		assertSameAsFallback(entity, true);
+
+		DattyRecord rec = new DattyRecord();
+		DattyConverterUtil.write(entity, rec);
+
+		SimpleEntity actual = DattyConverterUtil.read(SimpleEntity.class, rec);
+		Assert.assertEquals(123L, actual.getId());
+		Assert.assertEquals("inner", actual.getEmbedded().getInnerField());
+	}
+
+	@Test
+	public void testHandleAccessors() {
+
+		HiddenEntity entity = new HiddenEntity();
+		entity.id = 7L;
+		entity.setName("hidden");
+
+		DattyMappingConverter converter = new DattyMappingConverter(new DattyMappingContext());
+		Assert.assertNotNull(converter.getSerializer(converter.getMappingContext().getPersistentEntity(HiddenEntity.class).get()));
+
+		for (boolean numeric : new boolean[] { false, true }) {
+
+			DattyRecord rec = new DattyRecord();
+			converter.write(entity, rec, numeric);
+
+			HiddenEntity actual = converter.read(HiddenEntity.class, rec);
+			Assert.assertEquals(7L, actual.id);
+			Assert.assertEquals("hidden", actual.getName());
+		}
+	}
+
+	private static void assertSameAsFallback(Object entity, boolean numeric) {
+
+		DattyMappingConverter converter = new DattyMappingConverter(new DattyMappingContext());
+		converter.setUseSerializers(true);
+
+		DattyMappingConverter fallback = new DattyMappingConverter(new DattyMappingContext());
+		fallback.setUseSerializers(false);
+
+		DattyRecord expected = new DattyRecord();
+		fallback.write(entity, expected, numeric);
+
+		DattyRecord actual = new DattyRecord();
+		converter.write(entity, actual, numeric);
+
+		Assert.assertEquals(expected.getValues().keySet(), actual.getValues().keySet());
+
+		for (Map.Entry<String, DattyValue> e : expected.getValues().entrySet()) {
+			Assert.assertTrue(e.getKey(), ByteBufUtil.equals(e.getValue().asByteBuf(), actual.get(e.getKey()).asByteBuf()));
+		}
+	}
+
+	/**
+	 * Package-private entity with a field without accessors, bound to method handles,
+	 * BeanWrapper can not access it at all
+	 */
+
+	@Entity(setName="TEST_CACHE")
+	static class HiddenEntity {
+
+		@Id
+		long id;
+
+		private String name;
+
+		String getName() {
+			return name;
+		}
+
+		void setName(String name) {
+			this.name = name;
+		}
+
+	}
+
+}